@@ -0,0 +1,392 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayVolumesAnalyzer.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.analysis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * A {@link VolumesAnalyzer} which counts the volumes of each link of the network in an
+ * <code>int</code> array, indexed by time bin and mode. The array of a link is allocated when
+ * the link is left for the first time and cleared on reset, so counting the volumes of later
+ * iterations creates no garbage, and links never used cost no memory. The modes are the ones
+ * allowed on the links of the network.
+ * <p></p>
+ * Events may be handled by several threads at the same time: the counters are guarded by a
+ * fixed number of locks, each responsible for a stripe of links, so threads handling events of
+ * different links rarely wait for each other. The rare events on links not in the network, or of
+ * vehicles with a mode not allowed on any link, are counted in maps under a separate lock.
+ * <p></p>
+ * The arrays returned by the getters are copies.
+ */
+public final class ArrayVolumesAnalyzer extends VolumesAnalyzer {
+
+	private static final int STRIPES = 64;
+
+	private final int timeBinSize;
+	private final int maxTime;
+	private final int binCount;
+	private final boolean observeModes;
+
+	private final Map<Id<Link>, Integer> linkIndices;
+	private final Id<Link>[] linkIds;
+	private final Map<String, Integer> modeIndices = new HashMap<>();
+	private final String[] modes;
+	private final int modeCount;
+
+	/** per link, the volumes at <code>bin * modeCount + mode</code>, or <code>null</code> if the link was never used */
+	private final int[][] volumes;
+	private final boolean[] linksWithVolumes;
+	private final Object[] locks = new Object[STRIPES];
+
+	private final Map<Id<Vehicle>, String> enRouteModes = new ConcurrentHashMap<>();
+	/** volumes which do not fit into the array, per link and mode */
+	private final Map<Id<Link>, Map<String, int[]>> otherVolumes = new HashMap<>();
+
+	@Inject
+	ArrayVolumesAnalyzer(Network network, EventsManager eventsManager) {
+		this(3600, 24 * 3600 - 1, network);
+		eventsManager.addHandler(this);
+	}
+
+	public ArrayVolumesAnalyzer(final int timeBinSize, final int maxTime, final Network network) {
+		this(timeBinSize, maxTime, network, true);
+	}
+
+	@SuppressWarnings("unchecked")
+	public ArrayVolumesAnalyzer(final int timeBinSize, final int maxTime, final Network network, boolean observeModes) {
+		super(timeBinSize, maxTime, network, false);
+		this.timeBinSize = timeBinSize;
+		this.maxTime = maxTime;
+		this.binCount = getVolumesArraySize();
+		this.observeModes = observeModes;
+
+		int linkCount = network.getLinks().size();
+		this.linkIndices = new HashMap<>((int) (linkCount * 1.1), 0.95f);
+		this.linkIds = new Id[linkCount];
+		Set<String> allowedModes = new TreeSet<>();
+		for (Link link : network.getLinks().values()) {
+			this.linkIds[this.linkIndices.size()] = link.getId();
+			this.linkIndices.put(link.getId(), this.linkIndices.size());
+			allowedModes.addAll(link.getAllowedModes());
+		}
+		if (observeModes) {
+			this.modes = allowedModes.toArray(new String[allowedModes.size()]);
+			for (String mode : this.modes) {
+				this.modeIndices.put(mode, this.modeIndices.size());
+			}
+			// without any allowed modes, all volumes end up in the other volumes
+			this.modeCount = this.modes.length;
+		} else {
+			this.modes = new String[0];
+			this.modeCount = 1;
+		}
+		this.volumes = new int[linkCount][];
+		this.linksWithVolumes = new boolean[linkCount];
+		for (int i = 0; i < STRIPES; i++) {
+			this.locks[i] = new Object();
+		}
+	}
+
+	@Override
+	public void handleEvent(final VehicleEntersTrafficEvent event) {
+		if (this.observeModes) {
+			this.enRouteModes.put(event.getVehicleId(), event.getNetworkMode());
+		}
+	}
+
+	@Override
+	public void handleEvent(final LinkLeaveEvent event) {
+		int bin = getTimeSlotIndex(event.getTime());
+		Integer link = this.linkIndices.get(event.getLinkId());
+		String mode = null;
+		int modeIndex = 0;
+		if (this.observeModes) {
+			mode = this.enRouteModes.get(event.getVehicleId());
+			Integer index = mode == null ? null : this.modeIndices.get(mode);
+			modeIndex = index == null ? -1 : index;
+		}
+		if (link == null || modeIndex < 0) {
+			synchronized (this.otherVolumes) {
+				Map<String, int[]> modeVolumes = this.otherVolumes.get(event.getLinkId());
+				if (modeVolumes == null) {
+					modeVolumes = new HashMap<>();
+					this.otherVolumes.put(event.getLinkId(), modeVolumes);
+				}
+				int[] volumes = modeVolumes.get(mode);
+				if (volumes == null) {
+					volumes = new int[this.binCount];
+					modeVolumes.put(mode, volumes);
+				}
+				volumes[bin]++;
+			}
+			return;
+		}
+		synchronized (lock(link)) {
+			int[] linkVolumes = this.volumes[link];
+			if (linkVolumes == null) {
+				linkVolumes = new int[this.binCount * this.modeCount];
+				this.volumes[link] = linkVolumes;
+			}
+			linkVolumes[bin * this.modeCount + modeIndex]++;
+			this.linksWithVolumes[link] = true;
+		}
+	}
+
+	private Object lock(final int link) {
+		return this.locks[link % STRIPES];
+	}
+
+	private int getTimeSlotIndex(final double time) {
+		if (time > this.maxTime) {
+			return this.binCount - 1;
+		}
+		return ((int) time / this.timeBinSize);
+	}
+
+	@Override
+	public int[] getVolumesForLink(final Id<Link> linkId) {
+		int[] volumes = null;
+		Integer link = this.linkIndices.get(linkId);
+		if (link != null) {
+			synchronized (lock(link)) {
+				if (this.linksWithVolumes[link]) {
+					volumes = new int[this.binCount];
+					int[] linkVolumes = this.volumes[link];
+					int offset = 0;
+					for (int bin = 0; bin < this.binCount; bin++) {
+						for (int mode = 0; mode < this.modeCount; mode++) {
+							volumes[bin] += linkVolumes[offset++];
+						}
+					}
+				}
+			}
+		}
+		synchronized (this.otherVolumes) {
+			Map<String, int[]> modeVolumes = this.otherVolumes.get(linkId);
+			if (modeVolumes != null) {
+				for (int[] other : modeVolumes.values()) {
+					volumes = add(volumes, other);
+				}
+			}
+		}
+		return volumes;
+	}
+
+	@Override
+	public int[] getVolumesForLink(final Id<Link> linkId, final String mode) {
+		if (!this.observeModes) {
+			return null;
+		}
+		int[] volumes = null;
+		Integer link = this.linkIndices.get(linkId);
+		Integer modeIndex = mode == null ? null : this.modeIndices.get(mode);
+		if (link != null && modeIndex != null) {
+			synchronized (lock(link)) {
+				int[] linkVolumes = this.linksWithVolumes[link] ? this.volumes[link] : null;
+				for (int bin = 0; linkVolumes != null && bin < this.binCount; bin++) {
+					int volume = linkVolumes[bin * this.modeCount + modeIndex];
+					if (volume != 0) {
+						if (volumes == null) {
+							volumes = new int[this.binCount];
+						}
+						volumes[bin] = volume;
+					}
+				}
+			}
+		}
+		synchronized (this.otherVolumes) {
+			Map<String, int[]> modeVolumes = this.otherVolumes.get(linkId);
+			if (modeVolumes != null && modeVolumes.containsKey(mode)) {
+				volumes = add(volumes, modeVolumes.get(mode));
+			}
+		}
+		return volumes;
+	}
+
+	private int[] add(final int[] volumes, final int[] other) {
+		int[] sum = volumes == null ? new int[this.binCount] : volumes;
+		for (int bin = 0; bin < this.binCount; bin++) {
+			sum[bin] += other[bin];
+		}
+		return sum;
+	}
+
+	@Override
+	public double[] getVolumesPerHourForLink(final Id<Link> linkId) {
+		return getVolumesPerHourForLink(linkId, new double[24]);
+	}
+
+	/**
+	 * Like {@link #getVolumesPerHourForLink(Id)}, but fills the given array of length 24 instead of
+	 * creating a new one, so the volumes of many links can be read without creating garbage.
+	 *
+	 * @return the given array
+	 */
+	public double[] getVolumesPerHourForLink(final Id<Link> linkId, final double[] volumes) {
+		Arrays.fill(volumes, 0.0);
+		Integer link = this.linkIndices.get(linkId);
+		if (link != null) {
+			synchronized (lock(link)) {
+				if (this.linksWithVolumes[link]) {
+					int[] linkVolumes = this.volumes[link];
+					int slotsPerHour = 3600 / this.timeBinSize;
+					for (int hour = 0; hour < 24; hour++) {
+						double time = hour * 3600.0;
+						for (int i = 0; i < slotsPerHour; i++) {
+							int binOffset = getTimeSlotIndex(time) * this.modeCount;
+							for (int mode = 0; mode < this.modeCount; mode++) {
+								volumes[hour] += linkVolumes[binOffset + mode];
+							}
+							time += this.timeBinSize;
+						}
+					}
+				}
+			}
+		}
+		synchronized (this.otherVolumes) {
+			Map<String, int[]> modeVolumes = this.otherVolumes.get(linkId);
+			if (modeVolumes != null) {
+				int slotsPerHour = 3600 / this.timeBinSize;
+				for (int[] other : modeVolumes.values()) {
+					for (int hour = 0; hour < 24; hour++) {
+						double time = hour * 3600.0;
+						for (int i = 0; i < slotsPerHour; i++) {
+							volumes[hour] += other[getTimeSlotIndex(time)];
+							time += this.timeBinSize;
+						}
+					}
+				}
+			}
+		}
+		return volumes;
+	}
+
+	/**
+	 * Like in {@link VolumesAnalyzer}, returns <code>null</code> if modes are not observed, and
+	 * an array of zeros if the link was not used by the mode.
+	 */
+	@Override
+	public double[] getVolumesPerHourForLink(final Id<Link> linkId, final String mode) {
+		if (!this.observeModes) {
+			return null;
+		}
+		double[] volumes = new double[24];
+		int[] volumesForLink = getVolumesForLink(linkId, mode);
+		if (volumesForLink == null) {
+			return volumes;
+		}
+		int slotsPerHour = 3600 / this.timeBinSize;
+		for (int hour = 0; hour < 24; hour++) {
+			double time = hour * 3600.0;
+			for (int i = 0; i < slotsPerHour; i++) {
+				volumes[hour] += volumesForLink[getTimeSlotIndex(time)];
+				time += this.timeBinSize;
+			}
+		}
+		return volumes;
+	}
+
+	@Override
+	public Set<String> getModes() {
+		Set<String> modes = new TreeSet<>();
+		if (!this.observeModes) {
+			return modes;
+		}
+		for (int link = 0; link < this.linkIds.length; link++) {
+			synchronized (lock(link)) {
+				if (!this.linksWithVolumes[link]) {
+					continue;
+				}
+				int[] linkVolumes = this.volumes[link];
+				for (int mode = 0; mode < this.modes.length; mode++) {
+					for (int bin = 0; bin < this.binCount; bin++) {
+						if (linkVolumes[bin * this.modeCount + mode] != 0) {
+							modes.add(this.modes[mode]);
+							break;
+						}
+					}
+				}
+			}
+			if (modes.size() == this.modes.length) {
+				break;
+			}
+		}
+		synchronized (this.otherVolumes) {
+			for (Map<String, int[]> modeVolumes : this.otherVolumes.values()) {
+				for (String mode : modeVolumes.keySet()) {
+					if (mode != null) {
+						modes.add(mode);
+					}
+				}
+			}
+		}
+		return modes;
+	}
+
+	@Override
+	public Set<Id<Link>> getLinkIds() {
+		Set<Id<Link>> linkIds = new LinkedHashSet<>();
+		for (int link = 0; link < this.linkIds.length; link++) {
+			synchronized (lock(link)) {
+				if (this.linksWithVolumes[link]) {
+					linkIds.add(this.linkIds[link]);
+				}
+			}
+		}
+		synchronized (this.otherVolumes) {
+			linkIds.addAll(this.otherVolumes.keySet());
+		}
+		return linkIds;
+	}
+
+	@Override
+	public void reset(final int iteration) {
+		for (int link = 0; link < this.linkIds.length; link++) {
+			synchronized (lock(link)) {
+				if (this.linksWithVolumes[link]) {
+					Arrays.fill(this.volumes[link], 0);
+					this.linksWithVolumes[link] = false;
+				}
+			}
+		}
+		this.enRouteModes.clear();
+		synchronized (this.otherVolumes) {
+			this.otherVolumes.clear();
+		}
+	}
+
+}
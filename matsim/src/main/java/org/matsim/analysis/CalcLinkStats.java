@@ -23,8 +23,10 @@ package org.matsim.analysis;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -45,20 +47,18 @@ public class CalcLinkStats {
 
 	private final static Logger log = Logger.getLogger(CalcLinkStats.class);
 
-	private static class LinkData {
-		public final double[][] volumes;
-		public final double[][] ttimes;
-
-		public LinkData(final double[][] linksVolumes, final double[][] linksTTimes) {
-			this.volumes = linksVolumes.clone();
-			this.ttimes = linksTTimes.clone();
-		}
-	}
-
 	private double volScaleFactor = 1.0;
 
 	private int count = 0;
-	private final Map<Id<Link>, LinkData> linkData;
+	/* the statistics of all links are stored in flat arrays, with the links in the order of their ids.
+	 * volumes[(stat * linkCount + link) * (nofHours + 1) + hour], the last "hour" containing daily values,
+	 * ttimes[(stat * linkCount + link) * nofHours + hour] */
+	@SuppressWarnings("unchecked")
+	private Id<Link>[] linkIds = new Id[0];
+	private final Map<Id<Link>, Integer> linkIndices = new HashMap<>();
+	private double[] volumes = new double[0];
+	private double[] ttimes = new double[0];
+	private final double[] hourlyVolumes;
 	private final int nofHours;
 	private final Network network;
 
@@ -70,8 +70,8 @@ public class CalcLinkStats {
 	@Inject
 	public CalcLinkStats(final Network network) {
 		this.network = network;
-		this.linkData = new TreeMap<>();
 		this.nofHours = 24;
+		this.hourlyVolumes = new double[this.nofHours];
 		reset();
 	}
 
@@ -91,16 +91,14 @@ public class CalcLinkStats {
 		// TODO verify ttimes has hourly timeBin-Settings
 
 		// go through all links
-		for (Id<Link> linkId : this.linkData.keySet()) {
-			
-			// retrieve link from link ID
-			Link link = this.network.getLinks().get(linkId);
-			
-			// get the volumes for the link ID from the analyzier
-			double[] volumes = analyzer.getVolumesPerHourForLink(linkId);
+		for (int link = 0; link < this.linkIds.length; link++) {
+			Id<Link> linkId = this.linkIds[link];
+			Link l = this.network.getLinks().get(linkId);
 			
-			// get the destination container for the data from link data (could have gotten this through iterator right away)
-			LinkData data = this.linkData.get(linkId);
+			// get the volumes for the link ID from the analyzier, without creating new arrays if possible
+			double[] volumes = analyzer instanceof ArrayVolumesAnalyzer ?
+					((ArrayVolumesAnalyzer) analyzer).getVolumesPerHourForLink(linkId, this.hourlyVolumes) :
+					analyzer.getVolumesPerHourForLink(linkId);
 			
 			// prepare the sum variables (for volumes);
 			long sumVolumes = 0; // daily (0-24) sum
@@ -109,7 +107,7 @@ public class CalcLinkStats {
 			for (int hour = 0; hour < this.nofHours; hour++) {
 				
 				// get travel time for hour
-				double ttime = ttimes.getLinkTravelTime(link, hour*3600, null, null);
+				double ttime = ttimes.getLinkTravelTime(l, hour*3600, null, null);
 				
 				// add for daily sum:
 				sumVolumes += volumes[hour];
@@ -117,46 +115,68 @@ public class CalcLinkStats {
 				// the following has something to do with the fact that we are doing this for multiple iterations.  So there are variations.
 				// this collects min and max.  There is, however, no good control over how many iterations this is collected.
 				if (this.count == 1) {
-					data.volumes[MIN][hour] = volumes[hour];
-					data.volumes[MAX][hour] = volumes[hour];
-					data.ttimes[MIN][hour] = ttime;
-					data.ttimes[MAX][hour] = ttime;
+					this.volumes[vol(MIN, link, hour)] = volumes[hour];
+					this.volumes[vol(MAX, link, hour)] = volumes[hour];
+					this.ttimes[tt(MIN, link, hour)] = ttime;
+					this.ttimes[tt(MAX, link, hour)] = ttime;
 				} else {
-					if (volumes[hour] < data.volumes[MIN][hour]) data.volumes[MIN][hour] = volumes[hour];
-					if (volumes[hour] > data.volumes[MAX][hour]) data.volumes[MAX][hour] = volumes[hour];
-					if (ttime < data.ttimes[MIN][hour]) data.ttimes[MIN][hour] = ttime;
-					if (ttime > data.ttimes[MAX][hour]) data.ttimes[MAX][hour] = ttime;
+					if (volumes[hour] < this.volumes[vol(MIN, link, hour)]) this.volumes[vol(MIN, link, hour)] = volumes[hour];
+					if (volumes[hour] > this.volumes[vol(MAX, link, hour)]) this.volumes[vol(MAX, link, hour)] = volumes[hour];
+					if (ttime < this.ttimes[tt(MIN, link, hour)]) this.ttimes[tt(MIN, link, hour)] = ttime;
+					if (ttime > this.ttimes[tt(MAX, link, hour)]) this.ttimes[tt(MAX, link, hour)] = ttime;
 				}
 				
 				// this is the regular summing up for each hour
-				data.volumes[SUM][hour] += volumes[hour];
-				data.ttimes[SUM][hour] += volumes[hour] * ttime;
+				this.volumes[vol(SUM, link, hour)] += volumes[hour];
+				this.ttimes[tt(SUM, link, hour)] += volumes[hour] * ttime;
 			}
 			// dataVolumes[.][nofHours] are daily (0-24) values
 			if (this.count == 1) {
-				data.volumes[MIN][this.nofHours] = sumVolumes;
-				data.volumes[SUM][this.nofHours] = sumVolumes;
-				data.volumes[MAX][this.nofHours] = sumVolumes;
+				this.volumes[vol(MIN, link, this.nofHours)] = sumVolumes;
+				this.volumes[vol(SUM, link, this.nofHours)] = sumVolumes;
+				this.volumes[vol(MAX, link, this.nofHours)] = sumVolumes;
 			} else {
-				if (sumVolumes < data.volumes[MIN][this.nofHours]) data.volumes[MIN][this.nofHours] = sumVolumes;
-				data.volumes[SUM][this.nofHours] += sumVolumes;
-				if (sumVolumes > data.volumes[MAX][this.nofHours]) data.volumes[MAX][this.nofHours] = sumVolumes;
+				if (sumVolumes < this.volumes[vol(MIN, link, this.nofHours)]) this.volumes[vol(MIN, link, this.nofHours)] = sumVolumes;
+				this.volumes[vol(SUM, link, this.nofHours)] += sumVolumes;
+				if (sumVolumes > this.volumes[vol(MAX, link, this.nofHours)]) this.volumes[vol(MAX, link, this.nofHours)] = sumVolumes;
 			}
 		}
 	}
 
+	@SuppressWarnings("unchecked")
 	public void reset() {
-		this.linkData.clear();
 		this.count = 0;
 		log.info( " resetting `count' to zero.  This info is here since we want to check when this" +
 				" is happening during normal simulation runs.  kai, jan'11") ;
 
-		// initialize our data-table
-		for (Link link : this.network.getLinks().values()) {
-			LinkData data = new LinkData(new double[NOF_STATS][this.nofHours + 1], new double[NOF_STATS][this.nofHours]);
-			this.linkData.put(link.getId(), data);
+		// initialize our data-table, re-using the arrays as long as the links of the network stay the same
+		boolean sameLinks = this.linkIds.length == this.network.getLinks().size();
+		for (Id<Link> linkId : this.network.getLinks().keySet()) {
+			if (!sameLinks) {
+				break;
+			}
+			sameLinks = this.linkIndices.containsKey(linkId);
+		}
+		if (sameLinks) {
+			Arrays.fill(this.volumes, 0.0);
+			Arrays.fill(this.ttimes, 0.0);
+		} else {
+			this.linkIds = new TreeSet<>(this.network.getLinks().keySet()).toArray(new Id[0]);
+			this.linkIndices.clear();
+			for (int link = 0; link < this.linkIds.length; link++) {
+				this.linkIndices.put(this.linkIds[link], link);
+			}
+			this.volumes = new double[NOF_STATS * this.linkIds.length * (this.nofHours + 1)];
+			this.ttimes = new double[NOF_STATS * this.linkIds.length * this.nofHours];
 		}
+	}
+
+	private int vol(final int stat, final int link, final int hour) {
+		return (stat * this.linkIds.length + link) * (this.nofHours + 1) + hour;
+	}
 
+	private int tt(final int stat, final int link, final int hour) {
+		return (stat * this.linkIds.length + link) * this.nofHours + hour;
 	}
 
 	public void writeFile(final String filename) {
@@ -182,57 +202,56 @@ public class CalcLinkStats {
 			out.write("\n");
 
 			// write data
-			for (Map.Entry<Id<Link>, LinkData> entry : this.linkData.entrySet()) {
-				Id<Link> linkId = entry.getKey();
-				LinkData data = entry.getValue();
-				Link link = this.network.getLinks().get(linkId);
+			for (int link = 0; link < this.linkIds.length; link++) {
+				Id<Link> linkId = this.linkIds[link];
+				Link l = this.network.getLinks().get(linkId);
 
 				out.write(linkId.toString());
 				out.write("\t"); // origId, no longer supported
-				out.write("\t" + link.getFromNode().getId().toString());
-				out.write("\t" + link.getToNode().getId().toString());
-				out.write("\t" + Double.toString(link.getLength()));
-				out.write("\t" + Double.toString(link.getFreespeed()));
-				out.write("\t" + Double.toString(link.getCapacity()));
+				out.write("\t" + l.getFromNode().getId().toString());
+				out.write("\t" + l.getToNode().getId().toString());
+				out.write("\t" + Double.toString(l.getLength()));
+				out.write("\t" + Double.toString(l.getFreespeed()));
+				out.write("\t" + Double.toString(l.getCapacity()));
 
 				// HRS0-1, HRS1-2, ... HRS23-24
 //				int[] sum = {0, 0, 0};
 				for (int i = 0; i < this.nofHours; i++) {
-					out.write("\t" + Double.toString(data.volumes[MIN][i]));
-//					sum[MIN] = sum[MIN] + data.volumes[MIN][i];
-					out.write("\t" + Double.toString((data.volumes[SUM][i]) / this.count));
-//					sum[SUM] = sum[SUM] + data.volumes[SUM][i];
-					out.write("\t" + Double.toString(data.volumes[MAX][i]));
-//					sum[MAX] = sum[MAX] + data.volumes[MAX][i];
+					out.write("\t" + Double.toString(this.volumes[vol(MIN, link, i)]));
+//					sum[MIN] = sum[MIN] + this.volumes[vol(MIN, link, i)];
+					out.write("\t" + Double.toString((this.volumes[vol(SUM, link, i)]) / this.count));
+//					sum[SUM] = sum[SUM] + this.volumes[vol(SUM, link, i)];
+					out.write("\t" + Double.toString(this.volumes[vol(MAX, link, i)]));
+//					sum[MAX] = sum[MAX] + this.volumes[vol(MAX, link, i)];
 				}
 
 				// HRS0-nofHours
-				out.write("\t" + Double.toString(data.volumes[MIN][this.nofHours]));
-				out.write("\t" + Double.toString((data.volumes[SUM][this.nofHours]) / this.count));
-				out.write("\t" + Double.toString(data.volumes[MAX][this.nofHours]));
+				out.write("\t" + Double.toString(this.volumes[vol(MIN, link, this.nofHours)]));
+				out.write("\t" + Double.toString((this.volumes[vol(SUM, link, this.nofHours)]) / this.count));
+				out.write("\t" + Double.toString(this.volumes[vol(MAX, link, this.nofHours)]));
 
 				// TRAVELTIME0-1, TRAVELTIME1-2, ... TRAVELTIME23-24
 				for (int i = 0; i < this.nofHours; i++) {
-					String ttimesMin = Double.toString(data.ttimes[MIN][i]);
+					String ttimesMin = Double.toString(this.ttimes[tt(MIN, link, i)]);
 					out.write("\t" + ttimesMin);
-					if (data.volumes[SUM][i] == 0) {
+					if (this.volumes[vol(SUM, link, i)] == 0) {
 						// nobody traveled along the link in this hour, so we cannot calculate an average
 						// use the value available or the minimum instead (min and max should be the same, =freespeed)
-						double ttsum = data.ttimes[SUM][i];
+						double ttsum = this.ttimes[tt(SUM, link, i)];
 						if (ttsum != 0.0) {
 							out.write("\t" + Double.toString(ttsum));
 						} else {
 							out.write("\t" + ttimesMin);
 						}
 					} else {
-						double ttsum = data.ttimes[SUM][i];
+						double ttsum = this.ttimes[tt(SUM, link, i)];
 						if (ttsum == 0) {
 							out.write("\t" + ttimesMin);
 						} else {
-							out.write("\t" + Double.toString(ttsum / data.volumes[SUM][i]));
+							out.write("\t" + Double.toString(ttsum / this.volumes[vol(SUM, link, i)]));
 						}
 					}
-					out.write("\t" + Double.toString(data.ttimes[MAX][i]));
+					out.write("\t" + Double.toString(this.ttimes[tt(MAX, link, i)]));
 				}
 				out.write("\n");
 			}
@@ -274,64 +293,64 @@ public class CalcLinkStats {
 				String[] parts = StringUtils.explode(line, '\t');
 				if (parts.length == 154) {
 					Id<Link> linkId = Id.create(parts[0], Link.class);
-					LinkData data = this.linkData.get(linkId);
-					if (data == null) {
+					Integer link = this.linkIndices.get(linkId);
+					if (link == null) {
 						System.err.println("CalcLinkStats.readFile(); unknown link: " + linkId.toString());
 					} else {
 						int baseTTimes;
 						for (int i = 0; i < this.nofHours; i++) {
-							data.volumes[MIN][i] = Double.parseDouble(parts[7 + i*3]);
-							data.volumes[MIN][i] *= this.volScaleFactor;
-							data.volumes[SUM][i] = Double.parseDouble(parts[8 + i*3]);
-							data.volumes[SUM][i] *= this.volScaleFactor;
-							data.volumes[MAX][i] = Double.parseDouble(parts[9 + i*3]);
-							data.volumes[MAX][i] *= this.volScaleFactor;
+							this.volumes[vol(MIN, link, i)] = Double.parseDouble(parts[7 + i*3]);
+							this.volumes[vol(MIN, link, i)] *= this.volScaleFactor;
+							this.volumes[vol(SUM, link, i)] = Double.parseDouble(parts[8 + i*3]);
+							this.volumes[vol(SUM, link, i)] *= this.volScaleFactor;
+							this.volumes[vol(MAX, link, i)] = Double.parseDouble(parts[9 + i*3]);
+							this.volumes[vol(MAX, link, i)] *= this.volScaleFactor;
 							baseTTimes = 7 + (this.nofHours+1)*3;
-							data.ttimes[MIN][i] = Double.parseDouble(parts[baseTTimes + i*3]);
-							if (data.volumes[SUM][i] == 0) {
-								data.ttimes[SUM][i] = Double.parseDouble(parts[baseTTimes + i*3 + 1]);
+							this.ttimes[tt(MIN, link, i)] = Double.parseDouble(parts[baseTTimes + i*3]);
+							if (this.volumes[vol(SUM, link, i)] == 0) {
+								this.ttimes[tt(SUM, link, i)] = Double.parseDouble(parts[baseTTimes + i*3 + 1]);
 							} else {
-								data.ttimes[SUM][i] = Double.parseDouble(parts[baseTTimes + i*3 + 1]) * data.volumes[SUM][i];
+								this.ttimes[tt(SUM, link, i)] = Double.parseDouble(parts[baseTTimes + i*3 + 1]) * this.volumes[vol(SUM, link, i)];
 							}
-							data.ttimes[MAX][i] = Double.parseDouble(parts[baseTTimes + i*3 + 2]);
+							this.ttimes[tt(MAX, link, i)] = Double.parseDouble(parts[baseTTimes + i*3 + 2]);
 						}
-						data.volumes[MIN][this.nofHours] = Double.parseDouble(parts[7 + this.nofHours*3]);
-						data.volumes[MIN][this.nofHours] *= this.volScaleFactor;
-						data.volumes[SUM][this.nofHours] = Double.parseDouble(parts[8 + this.nofHours*3]);
-						data.volumes[SUM][this.nofHours] *= this.volScaleFactor;
-						data.volumes[MAX][this.nofHours] = Double.parseDouble(parts[9 + this.nofHours*3]);
-						data.volumes[MAX][this.nofHours] *= this.volScaleFactor;
+						this.volumes[vol(MIN, link, this.nofHours)] = Double.parseDouble(parts[7 + this.nofHours*3]);
+						this.volumes[vol(MIN, link, this.nofHours)] *= this.volScaleFactor;
+						this.volumes[vol(SUM, link, this.nofHours)] = Double.parseDouble(parts[8 + this.nofHours*3]);
+						this.volumes[vol(SUM, link, this.nofHours)] *= this.volScaleFactor;
+						this.volumes[vol(MAX, link, this.nofHours)] = Double.parseDouble(parts[9 + this.nofHours*3]);
+						this.volumes[vol(MAX, link, this.nofHours)] *= this.volScaleFactor;
 					}
 				}
 				else if (parts.length == 153) {
 					String linkId = parts[0];
-					LinkData data = this.linkData.get(Id.create(linkId, Link.class));
-					if (data == null) {
+					Integer link = this.linkIndices.get(Id.create(linkId, Link.class));
+					if (link == null) {
 						System.err.println("CalcLinkStats.readFile(); unknown link: " + linkId);
 					} else {
 						int baseTTimes;
 						for (int i = 0; i < this.nofHours; i++) {
-							data.volumes[MIN][i] = Double.parseDouble(parts[6 + i*3]);
-							data.volumes[MIN][i] *= this.volScaleFactor;
-							data.volumes[SUM][i] = Integer.parseInt(parts[7 + i*3]);
-							data.volumes[SUM][i] *= this.volScaleFactor;
-							data.volumes[MAX][i] = Double.parseDouble(parts[8 + i*3]);
-							data.volumes[MAX][i] *= this.volScaleFactor;
+							this.volumes[vol(MIN, link, i)] = Double.parseDouble(parts[6 + i*3]);
+							this.volumes[vol(MIN, link, i)] *= this.volScaleFactor;
+							this.volumes[vol(SUM, link, i)] = Integer.parseInt(parts[7 + i*3]);
+							this.volumes[vol(SUM, link, i)] *= this.volScaleFactor;
+							this.volumes[vol(MAX, link, i)] = Double.parseDouble(parts[8 + i*3]);
+							this.volumes[vol(MAX, link, i)] *= this.volScaleFactor;
 							baseTTimes = 6 + (this.nofHours+1)*3;
-							data.ttimes[MIN][i] = Double.parseDouble(parts[baseTTimes + i*3]);
-							if (data.volumes[SUM][i] == 0) {
-								data.ttimes[SUM][i] = Double.parseDouble(parts[baseTTimes + i*3 + 1]);
+							this.ttimes[tt(MIN, link, i)] = Double.parseDouble(parts[baseTTimes + i*3]);
+							if (this.volumes[vol(SUM, link, i)] == 0) {
+								this.ttimes[tt(SUM, link, i)] = Double.parseDouble(parts[baseTTimes + i*3 + 1]);
 							} else {
-								data.ttimes[SUM][i] = Double.parseDouble(parts[baseTTimes + i*3 + 1]) * data.volumes[SUM][i];
+								this.ttimes[tt(SUM, link, i)] = Double.parseDouble(parts[baseTTimes + i*3 + 1]) * this.volumes[vol(SUM, link, i)];
 							}
-							data.ttimes[MAX][i] = Double.parseDouble(parts[baseTTimes + i*3 + 2]);
+							this.ttimes[tt(MAX, link, i)] = Double.parseDouble(parts[baseTTimes + i*3 + 2]);
 						}
-						data.volumes[MIN][this.nofHours] = Double.parseDouble(parts[6 + this.nofHours*3]);
-						data.volumes[MIN][this.nofHours] *= this.volScaleFactor;
-						data.volumes[SUM][this.nofHours] = Double.parseDouble(parts[7 + this.nofHours*3]);
-						data.volumes[SUM][this.nofHours] *= this.volScaleFactor;
-						data.volumes[MAX][this.nofHours] = Double.parseDouble(parts[8 + this.nofHours*3]);
-						data.volumes[MAX][this.nofHours] *= this.volScaleFactor;
+						this.volumes[vol(MIN, link, this.nofHours)] = Double.parseDouble(parts[6 + this.nofHours*3]);
+						this.volumes[vol(MIN, link, this.nofHours)] *= this.volScaleFactor;
+						this.volumes[vol(SUM, link, this.nofHours)] = Double.parseDouble(parts[7 + this.nofHours*3]);
+						this.volumes[vol(SUM, link, this.nofHours)] *= this.volScaleFactor;
+						this.volumes[vol(MAX, link, this.nofHours)] = Double.parseDouble(parts[8 + this.nofHours*3]);
+						this.volumes[vol(MAX, link, this.nofHours)] *= this.volScaleFactor;
 					}
 				}
 				else {
@@ -358,8 +377,8 @@ public class CalcLinkStats {
 	 * @return if no data is available, an array with length 0 is returned.
 	 */
 	public double[] getAvgLinkVolumes(final Id<Link> linkId) {
-		LinkData data = this.linkData.get(linkId);
-		if (data == null) {
+		Integer link = this.linkIndices.get(linkId);
+		if (link == null) {
 			return new double[0];
 		}
 		if (this.count == 0) {
@@ -367,7 +386,7 @@ public class CalcLinkStats {
 		}
 		double[] volumes = new double[this.nofHours];
 		for (int i = 0; i < this.nofHours; i++) {
-			volumes[i] = (data.volumes[SUM][i]) / (this.count);
+			volumes[i] = (this.volumes[vol(SUM, link, i)]) / (this.count);
 		}
 		return volumes;
 	}
@@ -381,8 +400,8 @@ public class CalcLinkStats {
 	 */
 	@Deprecated
 	protected double[] getAvgTravelTimes(final Id<Link> linkId) {
-		LinkData data = this.linkData.get(linkId);
-		if (data == null) {
+		Integer link = this.linkIndices.get(linkId);
+		if (link == null) {
 			return new double[0];
 		}
 		if (this.count == 0) {
@@ -395,9 +414,9 @@ public class CalcLinkStats {
 		double[] avgTTimes = new double[this.nofHours];
 		
 		for (int i = 0; i < this.nofHours; i++) {
-			volumes[i] = (data.volumes[SUM][i]) / (this.count);
-			ttimesMin[i] = (data.ttimes[MIN][i]) / (this.count);
-			ttimesSum[i] = (data.ttimes[SUM][i]) / (this.count);
+			volumes[i] = (this.volumes[vol(SUM, link, i)]) / (this.count);
+			ttimesMin[i] = (this.ttimes[tt(MIN, link, i)]) / (this.count);
+			ttimesSum[i] = (this.ttimes[tt(SUM, link, i)]) / (this.count);
 
 			if (volumes[i] == 0.) {
 				avgTTimes[i] = ttimesMin[i];
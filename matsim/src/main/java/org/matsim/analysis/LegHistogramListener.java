@@ -24,10 +24,10 @@ import org.apache.log4j.Logger;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.events.BeforeMobsimEvent;
 import org.matsim.core.controler.events.IterationEndsEvent;
-import org.matsim.core.controler.events.IterationStartsEvent;
-import org.matsim.core.controler.listener.IterationEndsListener;
-import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.controler.listener.ConcurrentIterationEndsListener;
 
 import javax.inject.Inject;
 
@@ -38,7 +38,7 @@ import javax.inject.Inject;
  *
  * @author mrieser
  */
-final class LegHistogramListener implements IterationEndsListener, IterationStartsListener {
+final class LegHistogramListener implements ConcurrentIterationEndsListener, BeforeMobsimListener {
 
 	@Inject private LegHistogram histogram;
 	@Inject private ControlerConfigGroup controlerConfigGroup;
@@ -47,7 +47,8 @@ final class LegHistogramListener implements IterationEndsListener, IterationStar
 	static private final Logger log = Logger.getLogger(LegHistogramListener.class);
 
 	@Override
-	public void notifyIterationStarts(final IterationStartsEvent event) {
+	public void notifyBeforeMobsim(final BeforeMobsimEvent event) {
+		// not at the start of the iteration, the histogram of the previous iteration may still be written in the background
 		this.histogram.reset(event.getIteration());
 	}
 
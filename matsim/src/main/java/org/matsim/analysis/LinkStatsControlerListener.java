@@ -24,10 +24,10 @@ import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.LinkStatsConfigGroup;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.events.BeforeMobsimEvent;
 import org.matsim.core.controler.events.IterationEndsEvent;
-import org.matsim.core.controler.events.IterationStartsEvent;
-import org.matsim.core.controler.listener.IterationEndsListener;
-import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.controler.listener.ConcurrentIterationEndsListener;
 import org.matsim.core.router.util.TravelTime;
 
 import javax.inject.Inject;
@@ -37,7 +37,7 @@ import java.util.Map;
 /**
  * @author mrieser
  */
-final class LinkStatsControlerListener implements IterationEndsListener, IterationStartsListener {
+final class LinkStatsControlerListener implements ConcurrentIterationEndsListener, BeforeMobsimListener {
 
 	@Inject private LinkStatsConfigGroup linkStatsConfigGroup;
 	@Inject private ControlerConfigGroup controlerConfigGroup;
@@ -64,9 +64,9 @@ final class LinkStatsControlerListener implements IterationEndsListener, Iterati
 	}
 
 	@Override
-	public void notifyIterationStarts(IterationStartsEvent event) {
+	public void notifyBeforeMobsim(BeforeMobsimEvent event) {
 		if (this.doReset) {
-			// resetting at the beginning of an iteration, to allow others to use the data until the very end of the previous iteration
+			// resetting just before the mobsim, to allow others to use the data until the very end of the previous iteration
 			this.linkStats.reset();
 			this.doReset = false;
 		}
@@ -22,13 +22,18 @@
 
 package org.matsim.analysis;
 
+import org.matsim.core.config.groups.LinkStatsConfigGroup;
 import org.matsim.core.controler.AbstractModule;
 
 
 public class VolumesAnalyzerModule extends AbstractModule {
     @Override
     public void install() {
-        bind(VolumesAnalyzer.class).asEagerSingleton();
+        if (getConfig().linkStats().getVolumesStorage() == LinkStatsConfigGroup.VolumesStorage.arrays) {
+            bind(VolumesAnalyzer.class).to(ArrayVolumesAnalyzer.class).asEagerSingleton();
+        } else {
+            bind(VolumesAnalyzer.class).asEagerSingleton();
+        }
     }
 
 }
@@ -61,13 +61,20 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 		Map<String, Id<?>> map = cache.get(type);
 		if (map == null) {
 			map = new ConcurrentHashMap<String, Id<?>>();
-			cache.put(type, map);
+			Map<String, Id<?>> existingMap = cache.putIfAbsent(type, map);
+			if (existingMap != null) {
+				map = existingMap;
+			}
 		}
 		Gbl.assertNotNull(key);
 		Id<?> id = map.get(key);
 		if (id == null) {
+			// putIfAbsent: concurrent callers (e.g. parallel readers) must all end up with the same instance
 			id = new IdImpl<T>(key);
-			map.put(key, id);
+			Id<?> existingId = map.putIfAbsent(key, id);
+			if (existingId != null) {
+				id = existingId;
+			}
 		}
 		
 		return (Id<T>) id;
@@ -96,7 +96,7 @@ public final class ConfigConsistencyCheckerImpl implements ConfigConsistencyChec
 
 	private static void checkEventsFormatLanesSignals(final Config c) {
 		if (c.qsim().isUseLanes()) {
-			if (!c.controler().getEventsFileFormats().contains(EventsFileFormat.xml)){
+			if (!c.controler().getEventsFileFormats().contains(EventsFileFormat.xml) && !c.controler().getEventsFileFormats().contains(EventsFileFormat.indexedXml)){
 				log.error("Xml events are not enabled, but lanes and possibly signal systems" +
 						"are enalbed. Events from this features will only be written to the xml format, consider" +
 						"to add xml events in the controler config module");
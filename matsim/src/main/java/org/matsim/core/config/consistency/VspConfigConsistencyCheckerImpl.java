@@ -86,7 +86,7 @@ public final class VspConfigConsistencyCheckerImpl implements ConfigConsistencyC
 		// === controler:
 		
 		Set<EventsFileFormat> formats = config.controler().getEventsFileFormats();
-		if ( !formats.contains(EventsFileFormat.xml) ) {
+		if ( !formats.contains(EventsFileFormat.xml) && !formats.contains(EventsFileFormat.indexedXml) ) {
 			problem = true ;
 			System.out.flush() ;
 			log.log( lvl, "did not find xml as one of the events file formats. vsp default is using xml events.");
@@ -39,7 +39,9 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 
 	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks}
 
-	public enum EventsFileFormat {xml}
+	public enum EventsFileFormat {xml, indexedXml}
+
+	public enum PlansFileFormat {xml, binary}
 
 	public static final String GROUP_NAME = "controler";
 
@@ -53,9 +55,14 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final String SNAPSHOT_FORMAT = "snapshotFormat";
 	private static final String WRITE_EVENTS_INTERVAL = "writeEventsInterval";
 	private static final String WRITE_PLANS_INTERVAL = "writePlansInterval";
+	private static final String PLANS_FILE_FORMAT = "plansFileFormat";
 	private static final String OVERWRITE_FILE = "overwriteFiles";
 	private static final String CREATE_GRAPHS = "createGraphs";
 	private static final String DUMP_DATA_AT_END = "dumpDataAtEnd";
+	private static final String COMPRESSION_THREADS = "compressionThreads";
+	private static final String WRITE_OUTPUT_IN_BACKGROUND = "writeOutputInBackground";
+	private static final String PIPELINED_ITERATIONS = "pipelinedIterations";
+	private static final String COLLECT_METRICS = "collectMetrics";
 
 	/*package*/ static final String MOBSIM = "mobsim";
 	public enum MobsimType {qsim, JDEQSim}
@@ -76,11 +83,16 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 
 	private int writeEventsInterval=10;
 	private int writePlansInterval=10;
+	private PlansFileFormat plansFileFormat = PlansFileFormat.xml;
 	private Set<String> snapshotFormat = Collections.emptySet();
 	private String mobsim = MobsimType.qsim.toString();
 	private int writeSnapshotsInterval = 1;
 	private boolean createGraphs = true;
 	private boolean dumpDataAtEnd = true;
+	private int compressionThreads = 1;
+	private boolean writeOutputInBackground = false;
+	private boolean pipelinedIterations = false;
+	private boolean collectMetrics = false;
 	private OverwriteFileSetting overwriteFileSetting = OverwriteFileSetting.failIfDirectoryExists;
 
 	public ControlerConfigGroup() {
@@ -93,12 +105,15 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		map.put(ROUTINGALGORITHM_TYPE, "The type of routing (least cost path) algorithm used, may have the values: " + RoutingAlgorithmType.Dijkstra + ", " + 
 				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + " or "  + RoutingAlgorithmType.FastAStarLandmarks);
 		map.put(RUNID, "An identifier for the current run which is used as prefix for output files and mentioned in output xml files etc.");
-		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
+		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml, indexedXml."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
+				"indexedXml writes the same xml events file, plus an index allowing to read the events of single persons, vehicles or time windows directly."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
 				"Multiple values can be specified separated by commas (',').");
 		map.put(WRITE_EVENTS_INTERVAL, "iterationNumber % writeEventsInterval == 0 defines in which iterations events are written " +
 				"to a file. `0' disables events writing completely.");
 		map.put(WRITE_PLANS_INTERVAL, "iterationNumber % writePlansInterval == 0 defines (hopefully) in which iterations plans are " +
 				"written to a file. `0' disables plans writing completely.  Some plans in early iterations are always written");
+		map.put(PLANS_FILE_FORMAT, "Default="+PlansFileFormat.xml+"; Specifies the file format of the plans written in the iterations. Currently supported: xml, binary."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
+				"binary writes a compact plans.bin.gz file, which is much faster to read when restarting a run from an intermediate iteration.");
 		map.put(LINKTOLINK_ROUTING_ENABLED, "Default=false. If enabled, the router takes travel times needed for turning moves into account."
 		        + " Cannot be used if the (Fast)AStarLandmarks routing or TravelTimeCalculator.separateModes is enabled.");
 		map.put(FIRST_ITERATION, "Default=0; "); // TODO: add description
@@ -120,6 +135,15 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		map.put(WRITE_SNAPSHOTS_INTERVAL, "iterationNumber % " + WRITE_SNAPSHOTS_INTERVAL + " == 0 defines in which iterations snapshots are written " +
 				"to a file. `0' disables snapshots writing completely");
 		map.put(DUMP_DATA_AT_END, "true if at the end of a run, plans, network, config etc should be dumped to a file");
+		map.put(COMPRESSION_THREADS, "Default=1; number of threads used to gzip-compress output files (events, plans, ...). "
+				+ "With more than 1 thread, files are compressed block-wise in parallel; they remain readable by gunzip and all MATSim readers.");
+		map.put(WRITE_OUTPUT_IN_BACKGROUND, "Default=false; if true, the regular plans dumps are written while the mobsim is running, "
+				+ "and the output files at the end of a run are written concurrently. Do not use this if the mobsim modifies the plans, e.g. with within-day replanning.");
+		map.put(PIPELINED_ITERATIONS, "Default=false; if true, the iteration ends listeners which do not depend on the population (link stats, leg histogram, counts) "
+				+ "run in the background while the other iteration ends listeners, the iteration starts listeners and the replanning of the next iteration run. "
+				+ "They are done before the next mobsim starts, so results are the same as without pipelining.");
+		map.put(COLLECT_METRICS, "Default=false; if true, counters and timings of the mobsim, the events handling, the routers, the replanning and the scoring "
+				+ "are collected and written to metrics.csv in the output directory after each iteration.");
 		return map;
 	}
 
@@ -343,6 +367,56 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	public void setDumpDataAtEnd(boolean dumpDataAtEnd) {
 		this.dumpDataAtEnd = dumpDataAtEnd;
 	}
+
+	@StringGetter(PLANS_FILE_FORMAT)
+	public PlansFileFormat getPlansFileFormat() {
+		return plansFileFormat;
+	}
+
+	@StringSetter(PLANS_FILE_FORMAT)
+	public void setPlansFileFormat(PlansFileFormat plansFileFormat) {
+		this.plansFileFormat = plansFileFormat;
+	}
+
+	@StringGetter(COMPRESSION_THREADS)
+	public int getCompressionThreads() {
+		return compressionThreads;
+	}
+
+	@StringSetter(COMPRESSION_THREADS)
+	public void setCompressionThreads(int compressionThreads) {
+		this.compressionThreads = compressionThreads;
+	}
+
+	@StringGetter(WRITE_OUTPUT_IN_BACKGROUND)
+	public boolean isWriteOutputInBackground() {
+		return writeOutputInBackground;
+	}
+
+	@StringSetter(WRITE_OUTPUT_IN_BACKGROUND)
+	public void setWriteOutputInBackground(boolean writeOutputInBackground) {
+		this.writeOutputInBackground = writeOutputInBackground;
+	}
+
+	@StringGetter(PIPELINED_ITERATIONS)
+	public boolean isPipelinedIterations() {
+		return pipelinedIterations;
+	}
+
+	@StringSetter(PIPELINED_ITERATIONS)
+	public void setPipelinedIterations(boolean pipelinedIterations) {
+		this.pipelinedIterations = pipelinedIterations;
+	}
+
+	@StringGetter(COLLECT_METRICS)
+	public boolean isCollectMetrics() {
+		return collectMetrics;
+	}
+
+	@StringSetter(COLLECT_METRICS)
+	public void setCollectMetrics(boolean collectMetrics) {
+		this.collectMetrics = collectMetrics;
+	}
 	// ---
 	int writePlansUntilIteration = 1 ;
 	public int getWritePlansUntilIteration() {
@@ -361,6 +435,9 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	}
 	@Override 
 	protected void checkConsistency(Config config) {
+		if ( this.compressionThreads < 1 ) {
+			throw new RuntimeException( COMPRESSION_THREADS + " must be at least 1, but is " + this.compressionThreads );
+		}
 		if ( config.controler().getOverwriteFileSetting() == OverwriteFileSetting.overwriteExistingFiles ) {
 			log.warn( "setting overwriting behavior to "+overwriteFileSetting );
 			log.warn( "this is not recommended, as it might result in a directory containing output from several model runs" );
@@ -29,6 +29,8 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	private static final Logger log = Logger.getLogger(GlobalConfigGroup.class);
 
 	public static final String GROUP_NAME = "global";
+
+	public enum ReplanningScheduling { roundRobin, workStealing }
 	private boolean insistingOnDeprecatedConfigVersion = true ;
 	
 	public GlobalConfigGroup() {
@@ -38,10 +40,14 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	private static final String RANDOM_SEED = "randomSeed";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
 	private static final String COORDINATE_SYSTEM = "coordinateSystem";
+	private static final String REPLANNING_SCHEDULING = "replanningScheduling";
+	private static final String PARALLEL_SCENARIO_LOADING = "parallelScenarioLoading";
 
 	private long randomSeed = 4711L;
 	private int numberOfThreads = 2;
 	private String coordinateSystem = "Atlantis";
+	private ReplanningScheduling replanningScheduling = ReplanningScheduling.roundRobin;
+	private boolean parallelScenarioLoading = false;
 	
 	@Override
 	public Map<String, String> getComments() {
@@ -49,6 +55,13 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "\"global\" number of threads.  "
 				+ "This number is used, e.g., for replanning, but NOT in the mobsim.  "
 				+ "This can typically be set to as many cores as you have available, or possibly even slightly more.") ;
+		map.put(REPLANNING_SCHEDULING, "How plans are distributed to the threads of multi-threaded replanning modules.  "
+				+ ReplanningScheduling.roundRobin + " (default) deals the plans to the threads in turn, which makes runs reproducible.  "
+				+ ReplanningScheduling.workStealing + " lets each thread take the next chunk of plans once it is done, so threads which drew "
+				+ "expensive plans do not hold up the others.  Results then depend on the timing of the threads if the modules use random numbers.") ;
+		map.put(PARALLEL_SCENARIO_LOADING, "If true, input files which do not depend on each other (e.g. network, transit schedule, households "
+				+ "and the object attribute files) are read in parallel, using up to " + NUMBER_OF_THREADS + " threads.  "
+				+ "The population is read once the network and the facilities are loaded.  Default: false.") ;
 		return map ;
 	}
 
@@ -82,6 +95,24 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		this.coordinateSystem = coordinateSystem;
 	}
 	
+	@StringGetter( REPLANNING_SCHEDULING )
+	public ReplanningScheduling getReplanningScheduling() {
+		return this.replanningScheduling;
+	}
+	@StringSetter( REPLANNING_SCHEDULING )
+	public void setReplanningScheduling(final ReplanningScheduling replanningScheduling) {
+		this.replanningScheduling = replanningScheduling;
+	}
+
+	@StringGetter( PARALLEL_SCENARIO_LOADING )
+	public boolean isParallelScenarioLoading() {
+		return this.parallelScenarioLoading;
+	}
+	@StringSetter( PARALLEL_SCENARIO_LOADING )
+	public void setParallelScenarioLoading(final boolean parallelScenarioLoading) {
+		this.parallelScenarioLoading = parallelScenarioLoading;
+	}
+
 	private static final String INSITING_ON_DEPRECATED_CONFIG_VERSION = "insistingOnDeprecatedConfigVersion" ;
 	@StringGetter( INSITING_ON_DEPRECATED_CONFIG_VERSION )
 	public final boolean isInsistingOnDeprecatedConfigVersion() { return this.insistingOnDeprecatedConfigVersion ; }
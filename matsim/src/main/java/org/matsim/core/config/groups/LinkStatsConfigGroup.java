@@ -30,11 +30,15 @@ public final class LinkStatsConfigGroup extends ReflectiveConfigGroup {
 
 	public static final String GROUP_NAME = "linkStats";
 
+	public enum VolumesStorage { maps, arrays }
+
 	private static final String WRITELINKSTATSINTERVAL = "writeLinkStatsInterval";
 	private static final String AVERAGELINKSTATSOVERITERATIONS = "averageLinkStatsOverIterations";
+	private static final String VOLUMES_STORAGE = "volumesStorage";
 
 	private int writeLinkStatsInterval = 10;
 	private int averageLinkStatsOverIterations = 5;
+	private VolumesStorage volumesStorage = VolumesStorage.maps;
 
 	public LinkStatsConfigGroup() {
 		super(GROUP_NAME);
@@ -46,6 +50,9 @@ public final class LinkStatsConfigGroup extends ReflectiveConfigGroup {
 		comments.put(WRITELINKSTATSINTERVAL, "Specifies how often the link stats should be calculated and written. Use 0 to disable the generation of link stats.");
 		comments.put(AVERAGELINKSTATSOVERITERATIONS, "Specifies over how many iterations the link volumes should be averaged that are used for the " +
 				"link statistics. Use 1 or 0 to only use the link volumes of a single iteration. This values cannot be larger than the value specified for " + WRITELINKSTATSINTERVAL);
+		comments.put(VOLUMES_STORAGE, "Defines how the link volumes used for the link statistics and the counts comparison are stored. " +
+				VolumesStorage.maps + " (default) creates arrays for the links with volumes in each iteration, " + VolumesStorage.arrays +
+				" counts the volumes of all links in one array which is re-used in every iteration, and may be fed with events by several threads.");
 		return comments;
 	}
 
@@ -68,4 +75,14 @@ public final class LinkStatsConfigGroup extends ReflectiveConfigGroup {
 	public void setAverageLinkStatsOverIterations(int averageLinkStatsOverIterations) {
 		this.averageLinkStatsOverIterations = averageLinkStatsOverIterations;
 	}
+
+	@StringGetter( VOLUMES_STORAGE )
+	public VolumesStorage getVolumesStorage() {
+		return this.volumesStorage;
+	}
+
+	@StringSetter( VOLUMES_STORAGE )
+	public void setVolumesStorage(VolumesStorage volumesStorage) {
+		this.volumesStorage = volumesStorage;
+	}
 }
@@ -38,6 +38,7 @@ public final class NetworkConfigGroup extends ReflectiveConfigGroup {
 
 	private static final String LANEDEFINITIONSINPUTFILE = "laneDefinitionsFile";
 	private static final String INPUT_CRS = "inputCRS";
+	private static final String USE_BINARY_IMAGE_CACHE = "useBinaryImageCache";
 
 	private String inputFile = null;
 
@@ -49,6 +50,8 @@ public final class NetworkConfigGroup extends ReflectiveConfigGroup {
 
 	private String laneDefinitionsFile = null;
 
+	private boolean useBinaryImageCache = false;
+
 	public NetworkConfigGroup() {
 		super(NetworkConfigGroup.GROUP_NAME);
 	}
@@ -61,6 +64,10 @@ public final class NetworkConfigGroup extends ReflectiveConfigGroup {
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
 
+		comments.put( USE_BINARY_IMAGE_CACHE , "If true, a binary image of the network (including the change events of a time-variant network)" +
+				" is written next to the input file after reading it, and read instead of the input file as long as neither the input" +
+				" files nor the coordinate systems change. Default: false." );
+
 		return comments;
 	}
 
@@ -124,4 +131,14 @@ public final class NetworkConfigGroup extends ReflectiveConfigGroup {
 	public void setInputCRS(String inputCRS) {
 		this.inputCRS = inputCRS;
 	}
+
+	@StringGetter( USE_BINARY_IMAGE_CACHE )
+	public boolean isUseBinaryImageCache() {
+		return this.useBinaryImageCache;
+	}
+
+	@StringSetter( USE_BINARY_IMAGE_CACHE )
+	public void setUseBinaryImageCache(final boolean useBinaryImageCache) {
+		this.useBinaryImageCache = useBinaryImageCache;
+	}
 }
@@ -65,6 +65,8 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 
 	private static final String WRITE_EXPERIENCED_PLANS = "writeExperiencedPlans";
 
+	private static final String NUMBER_OF_SCORING_SHARDS = "numberOfScoringShards";
+
 	private static final String MARGINAL_UTL_OF_MONEY = "marginalUtilityOfMoney";
 
 	private static final String UTL_OF_LINE_SWITCH = "utilityOfLineSwitch";
@@ -325,6 +327,10 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 				"[utils/unit_of_money] conversion of money (e.g. toll, distance cost) into utils. Normall positive (i.e. toll/cost/fare are processed as negative amounts of money).");
 		map.put(WRITE_EXPERIENCED_PLANS,
 				"write a plans file in each iteration directory which contains what each agent actually did, and the score it received.");
+		map.put(NUMBER_OF_SCORING_SHARDS,
+				"number of threads among which the persons are partitioned for scoring. Each thread converts the events of its persons "
+						+ "into legs and activities and passes them to their scoring functions, so scoring functions are never called concurrently "
+						+ "for the same person. Default: 0, i.e. all events are scored in the events handling thread(s).");
 
 		return map;
 	}
@@ -672,6 +678,14 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 		delegate.setWriteExperiencedPlans(writeExperiencedPlans);
 	}
 
+	public int getNumberOfScoringShards() {
+		return delegate.getNumberOfScoringShards();
+	}
+
+	public void setNumberOfScoringShards(int numberOfScoringShards) {
+		delegate.setNumberOfScoringShards(numberOfScoringShards);
+	}
+
 	public double getMarginalUtlOfWaiting_utils_hr() {
 		if (getScoringParameters(null) != null)
 			return getScoringParameters(null).getMarginalUtlOfWaiting_utils_hr();
@@ -1399,6 +1413,8 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 
 		private boolean writeExperiencedPlans = false;
 
+		private int numberOfScoringShards = 0;
+
 		private Double fractionOfIterationsToStartScoreMSA = null;
 
 		private boolean usingOldScoringBelowZeroUtilityDuration = false;
@@ -1472,6 +1488,20 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 			this.writeExperiencedPlans = writeExperiencedPlans;
 		}
 
+		@StringGetter(NUMBER_OF_SCORING_SHARDS)
+		public int getNumberOfScoringShards() {
+			return numberOfScoringShards;
+		}
+
+		@StringSetter(NUMBER_OF_SCORING_SHARDS)
+		public void setNumberOfScoringShards(int numberOfScoringShards) {
+			testForLocked();
+			if (numberOfScoringShards < 0) {
+				throw new IllegalArgumentException("number of scoring shards must not be negative: " + numberOfScoringShards);
+			}
+			this.numberOfScoringShards = numberOfScoringShards;
+		}
+
 	}
 
 }
@@ -34,20 +34,31 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 	public abstract static class NetworkRouteType {
 		public static final String LinkNetworkRoute = "LinkNetworkRoute";
 		public static final String CompressedNetworkRoute = "CompressedNetworkRoute";
+		public static final String PooledNetworkRoute = "PooledNetworkRoute";
 	}
 
 	public enum ActivityDurationInterpretation { minOfDurationAndEndTime, tryEndTimeThenDuration, @Deprecated endTimeOnly }
+
+	public enum PlanElementStorage { objects, columnar }
+
+	public enum PersonAttributesStorage { maps, columnar }
 	private static final String INPUT_FILE = "inputPlansFile";
 	private static final String INPUT_PERSON_ATTRIBUTES_FILE = "inputPersonAttributesFile";
 	private static final String NETWORK_ROUTE_TYPE = "networkRouteType";
 	private static final String SUBPOPULATION_ATTRIBUTE = "subpopulationAttributeName";
 	private static final String INPUT_CRS = "inputCRS";
+	private static final String PLAN_ELEMENT_STORAGE = "planElementStorage";
+	private static final String PERSON_ATTRIBUTES_STORAGE = "personAttributesStorage";
+	private static final String USE_PERSON_ATTRIBUTES_IMAGE_CACHE = "usePersonAttributesImageCache";
 
 	private String inputFile = null;
 	private String networkRouteType = NetworkRouteType.LinkNetworkRoute;
 	private String inputPersonAttributeFile = null;
 	private String subpopulationAttributeName = "subpopulation";
 	private String inputCRS = null;
+	private PlanElementStorage planElementStorage = PlanElementStorage.objects;
+	private PersonAttributesStorage personAttributesStorage = PersonAttributesStorage.maps;
+	private boolean usePersonAttributesImageCache = false;
 	
 	//--
 	
@@ -67,10 +78,26 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 				NETWORK_ROUTE_TYPE,
 				"Defines how routes are stored in memory. Currently supported: " +
 				NetworkRouteType.LinkNetworkRoute + ", " +
-				NetworkRouteType.CompressedNetworkRoute + ".");
+				NetworkRouteType.CompressedNetworkRoute + ", " +
+				NetworkRouteType.PooledNetworkRoute + ". " +
+				NetworkRouteType.PooledNetworkRoute + " stores identical routes of different plans only once.");
+		comments.put(
+				PLAN_ELEMENT_STORAGE,
+				"Defines how activities and legs are stored in memory. " + PlanElementStorage.objects + " (default) uses one object per " +
+				"activity and leg, " + PlanElementStorage.columnar + " stores them in primitive arrays shared by all plans, which needs about half " +
+				"the memory for the plans of large populations, but is slower to access.");
 		comments.put(
 				INPUT_PERSON_ATTRIBUTES_FILE,
 				"Path to a file containing person attributes (required file format: ObjectAttributes).");
+		comments.put(
+				PERSON_ATTRIBUTES_STORAGE,
+				"Defines how person attributes are stored in memory. " + PersonAttributesStorage.maps + " (default) uses one map per " +
+				"person, " + PersonAttributesStorage.columnar + " stores each attribute in one column of primitive values or " +
+				"dictionary-encoded strings, which needs considerably less memory for large populations.");
+		comments.put(
+				USE_PERSON_ATTRIBUTES_IMAGE_CACHE,
+				"If true, a binary image of the person attributes is written next to the person attributes file after reading it, " +
+				"and read instead of the xml file as long as that file does not change. Default: false.");
 		comments.put(
 				SUBPOPULATION_ATTRIBUTE,
 				"Name of the (Object)Attribute defining the subpopulation to which pertains a Person"+
@@ -132,6 +159,36 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		this.networkRouteType = routeType;
 	}
 
+	@StringGetter( PLAN_ELEMENT_STORAGE )
+	public PlanElementStorage getPlanElementStorage() {
+		return this.planElementStorage;
+	}
+
+	@StringSetter( PLAN_ELEMENT_STORAGE )
+	public void setPlanElementStorage(final PlanElementStorage planElementStorage) {
+		this.planElementStorage = planElementStorage;
+	}
+
+	@StringGetter( PERSON_ATTRIBUTES_STORAGE )
+	public PersonAttributesStorage getPersonAttributesStorage() {
+		return this.personAttributesStorage;
+	}
+
+	@StringSetter( PERSON_ATTRIBUTES_STORAGE )
+	public void setPersonAttributesStorage(final PersonAttributesStorage personAttributesStorage) {
+		this.personAttributesStorage = personAttributesStorage;
+	}
+
+	@StringGetter( USE_PERSON_ATTRIBUTES_IMAGE_CACHE )
+	public boolean isUsePersonAttributesImageCache() {
+		return this.usePersonAttributesImageCache;
+	}
+
+	@StringSetter( USE_PERSON_ATTRIBUTES_IMAGE_CACHE )
+	public void setUsePersonAttributesImageCache(final boolean usePersonAttributesImageCache) {
+		this.usePersonAttributesImageCache = usePersonAttributesImageCache;
+	}
+
 	@StringGetter( SUBPOPULATION_ATTRIBUTE )
 	public String getSubpopulationAttributeName() {
 		return subpopulationAttributeName;
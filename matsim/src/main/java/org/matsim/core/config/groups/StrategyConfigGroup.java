@@ -274,6 +274,13 @@ public final class StrategyConfigGroup extends ConfigGroup {
 		map.put(ReflectiveDelegate.EXTERNAL_EXE_TMP_FILE_ROOT_DIR, "root directory for temporary files generated by the external executable. Provided as a service; "
 				+ "I don't think this is used by MATSim.") ;
 		map.put(ReflectiveDelegate.EXTERNAL_EXE_TIME_OUT, "time out value (in seconds) after which matsim will consider the external strategy as failed") ;
+		map.put(ReflectiveDelegate.PARALLEL_PLAN_SELECTION, "Default=false; if true, plans removal, strategy choice and plan selection are done with global.numberOfThreads "
+				+ "threads. Every person then gets its own random numbers, derived from its position in the population, so the results do not depend on "
+				+ "the number of threads, but differ from the results with parallelPlanSelection=false.") ;
+		map.put(ReflectiveDelegate.INCREMENTAL_REROUTE_TRAVEL_TIME_CHANGE_THRESHOLD, "Default=0.1; used by IncrementalReRoute: relative change of the "
+				+ "travel time of a link in any time bin from which on the link counts as changed, e.g. 0.1 for 10%.") ;
+		map.put(ReflectiveDelegate.INCREMENTAL_REROUTE_SEARCH_RADIUS, "Default=1000.0; used by IncrementalReRoute: plans with an activity within "
+				+ "this distance (in meters) of a changed link are re-routed. 0 only re-routes plans whose routes cross a changed link.") ;
 		return map ;
 	}
 
@@ -386,6 +393,30 @@ public final class StrategyConfigGroup extends ConfigGroup {
 		delegate.setFractionOfIterationsToDisableInnovation(fraction);
 	}
 
+	public boolean isParallelPlanSelection() {
+		return delegate.isParallelPlanSelection();
+	}
+
+	public void setParallelPlanSelection(boolean parallelPlanSelection) {
+		delegate.setParallelPlanSelection(parallelPlanSelection);
+	}
+
+	public double getIncrementalReRouteTravelTimeChangeThreshold() {
+		return delegate.getIncrementalReRouteTravelTimeChangeThreshold();
+	}
+
+	public void setIncrementalReRouteTravelTimeChangeThreshold(double threshold) {
+		delegate.setIncrementalReRouteTravelTimeChangeThreshold(threshold);
+	}
+
+	public double getIncrementalReRouteSearchRadius() {
+		return delegate.getIncrementalReRouteSearchRadius();
+	}
+
+	public void setIncrementalReRouteSearchRadius(double searchRadius) {
+		delegate.setIncrementalReRouteSearchRadius(searchRadius);
+	}
+
 	@Override
 	public final Map<String, String> getParams() {
 		return delegate.getParams();
@@ -398,6 +429,9 @@ public final class StrategyConfigGroup extends ConfigGroup {
 		 static final String EXTERNAL_EXE_TIME_OUT = "ExternalExeTimeOut";
 		 static final String ITERATION_FRACTION_TO_DISABLE_INNOVATION = "fractionOfIterationsToDisableInnovation" ;
 		 static final String PLAN_SELECTOR_FOR_REMOVAL = "planSelectorForRemoval" ;
+		 static final String PARALLEL_PLAN_SELECTION = "parallelPlanSelection" ;
+		 static final String INCREMENTAL_REROUTE_TRAVEL_TIME_CHANGE_THRESHOLD = "incrementalReRouteTravelTimeChangeThreshold" ;
+		 static final String INCREMENTAL_REROUTE_SEARCH_RADIUS = "incrementalReRouteSearchRadius" ;
 
 		private int maxAgentPlanMemorySize = 5;
 		private String externalExeConfigTemplate = null;
@@ -405,6 +439,11 @@ public final class StrategyConfigGroup extends ConfigGroup {
 		private long externalExeTimeOut = 3600;
 
 		private String planSelectorForRemoval = "WorstPlanSelector";
+
+		private boolean parallelPlanSelection = false;
+
+		private double incrementalReRouteTravelTimeChangeThreshold = 0.1;
+		private double incrementalReRouteSearchRadius = 1000.0;
 		
 		//---
 		private double fraction = Double.POSITIVE_INFINITY ;
@@ -474,6 +513,36 @@ public final class StrategyConfigGroup extends ConfigGroup {
 		public void setFractionOfIterationsToDisableInnovation(double fraction) {
 			this.fraction = fraction;
 		}
+
+		@StringGetter( PARALLEL_PLAN_SELECTION )
+		public boolean isParallelPlanSelection() {
+			return parallelPlanSelection;
+		}
+
+		@StringSetter( PARALLEL_PLAN_SELECTION )
+		public void setParallelPlanSelection(boolean parallelPlanSelection) {
+			this.parallelPlanSelection = parallelPlanSelection;
+		}
+
+		@StringGetter( INCREMENTAL_REROUTE_TRAVEL_TIME_CHANGE_THRESHOLD )
+		public double getIncrementalReRouteTravelTimeChangeThreshold() {
+			return incrementalReRouteTravelTimeChangeThreshold;
+		}
+
+		@StringSetter( INCREMENTAL_REROUTE_TRAVEL_TIME_CHANGE_THRESHOLD )
+		public void setIncrementalReRouteTravelTimeChangeThreshold(double threshold) {
+			this.incrementalReRouteTravelTimeChangeThreshold = threshold;
+		}
+
+		@StringGetter( INCREMENTAL_REROUTE_SEARCH_RADIUS )
+		public double getIncrementalReRouteSearchRadius() {
+			return incrementalReRouteSearchRadius;
+		}
+
+		@StringSetter( INCREMENTAL_REROUTE_SEARCH_RADIUS )
+		public void setIncrementalReRouteSearchRadius(double searchRadius) {
+			this.incrementalReRouteSearchRadius = searchRadius;
+		}
 	}
 }
 
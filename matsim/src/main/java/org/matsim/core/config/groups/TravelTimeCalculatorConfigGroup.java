@@ -32,7 +32,7 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 
 	public static final String GROUPNAME = "travelTimeCalculator";
 
-	public enum TravelTimeCalculatorType {TravelTimeCalculatorArray,TravelTimeCalculatorHashMap}
+	public enum TravelTimeCalculatorType {TravelTimeCalculatorArray,TravelTimeCalculatorHashMap,TravelTimeCalculatorConcurrentArray}
 
 	private static final String TRAVEL_TIME_CALCULATOR = "travelTimeCalculator";
 	private static final String TRAVEL_TIME_BIN_SIZE = "travelTimeBinSize";
@@ -85,7 +85,8 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 			str.append(type.toString());
 			str.append(' ');
 		}
-		map.put( TRAVEL_TIME_CALCULATOR, "possible values: " + str.toString());
+		map.put( TRAVEL_TIME_CALCULATOR, "possible values: " + str.toString()
+				+ ". TravelTimeCalculatorConcurrentArray allows the calculator to handle events from several threads at the same time.");
 		return map;
 	}
 
@@ -24,6 +24,12 @@ import org.matsim.analysis.IterationStopWatch;
 import org.matsim.core.config.Config;
 import org.matsim.core.controler.listener.ControlerListener;
 import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.utils.metrics.Metrics;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /*package*/ abstract class AbstractController {
     // we already had one case where a method of this was removed, causing downstream failures; better just not
@@ -43,6 +49,9 @@ import org.matsim.core.gbl.MatsimRandom;
 
 
     private Integer thisIteration = null;
+
+    private ExecutorService concurrentIterationEndsListenersExecutor = null;
+    private Future<?> concurrentIterationEndsListeners = null;
     
     protected AbstractController() {
         this(new ControlerListenerManagerImpl(), new IterationStopWatch(), null);
@@ -106,8 +115,28 @@ import org.matsim.core.gbl.MatsimRandom;
     protected abstract boolean continueIterations(int iteration);
 
     private void doIterations(Config config) throws MatsimRuntimeModifications.UnexpectedShutdownException {
-        for (int iteration = config.controler().getFirstIteration(); continueIterations(iteration); iteration++) {
-            iteration(config, iteration);
+        if (config.controler().isCollectMetrics()) {
+            Metrics.reset();
+            Metrics.setEnabled(true);
+        }
+        if (config.controler().isPipelinedIterations()) {
+            this.concurrentIterationEndsListenersExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "IterationEndsListeners");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        try {
+            for (int iteration = config.controler().getFirstIteration(); continueIterations(iteration); iteration++) {
+                iteration(config, iteration);
+            }
+            waitForConcurrentIterationEndsListeners();
+        } finally {
+            if (this.concurrentIterationEndsListenersExecutor != null) {
+                this.concurrentIterationEndsListenersExecutor.shutdown();
+                this.concurrentIterationEndsListenersExecutor = null;
+            }
+            Metrics.setEnabled(false);
         }
     }
     
@@ -153,7 +182,12 @@ import org.matsim.core.gbl.MatsimRandom;
             @Override
             public void run() {
                 log.info(MARKER + "ITERATION " + iteration + " fires iteration end event");
-                controlerListenerManagerImpl.fireControlerIterationEndsEvent(iteration);
+                if (config.controler().isPipelinedIterations()) {
+                    startConcurrentIterationEndsListeners(iteration);
+                    controlerListenerManagerImpl.fireControlerIterationEndsEvent(iteration, false);
+                } else {
+                    controlerListenerManagerImpl.fireControlerIterationEndsEvent(iteration);
+                }
             }
         });
 
@@ -162,6 +196,10 @@ import org.matsim.core.gbl.MatsimRandom;
         if (config.controler().isCreateGraphs()) {
             this.getStopwatch().writeGraphFile(this.getControlerIO().getOutputFilename("stopwatch"));
         }
+        if (config.controler().isCollectMetrics()) {
+            Metrics.writeIteration(iteration, this.getControlerIO().getOutputFilename("metrics.csv"),
+                    iteration != config.controler().getFirstIteration());
+        }
         log.info(MARKER + "ITERATION " + iteration + " ENDS");
         log.info(Controler.DIVIDER);
     }
@@ -173,6 +211,17 @@ import org.matsim.core.gbl.MatsimRandom;
         // For instance, ParallelEventsManagerImpl leaves Threads waiting if we don't do this
         // and an Exception occurs in the Mobsim.
         try {
+            // The concurrent iteration ends listeners of the previous iteration run while the iteration starts
+            // listeners and the replanning run. They read the event handlers, which are reset before the mobsim.
+            if (config.controler().isPipelinedIterations()) {
+                iterationStep("waitForIterationEndsListeners", new Runnable() {
+                    @Override
+                    public void run() {
+                        waitForConcurrentIterationEndsListeners();
+                    }
+                });
+            }
+
             iterationStep("beforeMobsimListeners", new Runnable() {
                 @Override
                 public void run() {
@@ -214,6 +263,40 @@ import org.matsim.core.gbl.MatsimRandom;
         }
     }
 
+    /**
+     * Calls the {@link org.matsim.core.controler.listener.ConcurrentIterationEndsListener}s on the controler's
+     * background thread, while the main thread calls the other iteration ends listeners and finishes the iteration.
+     * They are joined before the mobsim of the next iteration, see {@link #waitForConcurrentIterationEndsListeners()}.
+     */
+    private void startConcurrentIterationEndsListeners(final int iteration) {
+        log.info("calling the concurrent iteration ends listeners in the background...");
+        this.concurrentIterationEndsListeners = this.concurrentIterationEndsListenersExecutor.submit(() -> {
+            controlerListenerManagerImpl.fireControlerIterationEndsEvent(iteration, true);
+            log.info("[it." + iteration + "] all concurrent ControlerIterationEndsListeners called.");
+        });
+    }
+
+    /**
+     * Waits for the concurrent iteration ends listeners of the previous iteration and rethrows their failure, if any.
+     * This is done after the replanning, but before the before mobsim listeners, which reset the event handlers
+     * read by these listeners (volumes, travel times, leg histogram).
+     */
+    private void waitForConcurrentIterationEndsListeners() {
+        if (this.concurrentIterationEndsListeners == null) {
+            return;
+        }
+        try {
+            this.concurrentIterationEndsListeners.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("calling the iteration ends listeners in the background failed.", e.getCause());
+        } finally {
+            this.concurrentIterationEndsListeners = null;
+        }
+    }
+
     private void iterationStep(String iterationStepName, Runnable iterationStep) throws MatsimRuntimeModifications.UnexpectedShutdownException {
         this.getStopwatch().beginOperation(iterationStepName);
         iterationStep.run();
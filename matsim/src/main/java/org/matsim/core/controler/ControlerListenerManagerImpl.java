@@ -153,22 +153,34 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 	 *
 	 */
 	public void fireControlerIterationEndsEvent(final int iteration) {
+		fireControlerIterationEndsEvent(iteration, null);
+		log.info("[it." + iteration + "] all ControlerIterationEndsListeners called.");
+	}
+
+	/**
+	 * Notifies either only the {@link ConcurrentIterationEndsListener}s, or only the other ControlerIterationEndsListeners,
+	 * or all of them if <code>concurrentListeners</code> is <code>null</code>. Core listeners are still called before the others.
+	 */
+	/*package*/ void fireControlerIterationEndsEvent(final int iteration, final Boolean concurrentListeners) {
 		IterationEndsEvent event = new IterationEndsEvent(this.controler, iteration);
 		{
 			IterationEndsListener[] listener = this.coreListenerList.getListeners(IterationEndsListener.class);
             for (IterationEndsListener aListener : listener) {
-                log.info("calling notifyIterationEnds on " + aListener.getClass().getName());
-                aListener.notifyIterationEnds(event);
+                if (concurrentListeners == null || (aListener instanceof ConcurrentIterationEndsListener) == concurrentListeners) {
+                    log.info("calling notifyIterationEnds on " + aListener.getClass().getName());
+                    aListener.notifyIterationEnds(event);
+                }
             }
 		}
 		{
 			IterationEndsListener[] listener = this.listenerList.getListeners(IterationEndsListener.class);
             for (IterationEndsListener aListener : listener) {
-                log.info("calling notifyIterationEnds on " + aListener.getClass().getName());
-                aListener.notifyIterationEnds(event);
+                if (concurrentListeners == null || (aListener instanceof ConcurrentIterationEndsListener) == concurrentListeners) {
+                    log.info("calling notifyIterationEnds on " + aListener.getClass().getName());
+                    aListener.notifyIterationEnds(event);
+                }
             }
 		}
-		log.info("[it." + iteration + "] all ControlerIterationEndsListeners called.");
 	}
 
 	/**
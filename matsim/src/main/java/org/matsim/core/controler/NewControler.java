@@ -29,6 +29,7 @@ import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.controler.corelisteners.*;
 import org.matsim.core.controler.listener.ControlerListener;
 import org.matsim.core.mobsim.framework.Mobsim;
+import org.matsim.core.utils.io.IOUtils;
 
 import javax.inject.Inject;
 import java.util.Set;
@@ -72,6 +73,7 @@ class NewControler extends AbstractController implements ControlerI {
 	@Override
 	public final void run() {
 		super.setupOutputDirectory(outputDirectoryHierarchy);
+		IOUtils.setNumberOfCompressionThreads(controlerConfigGroup.getCompressionThreads());
 		super.run(this.config);
 		OutputDirectoryLogging.closeOutputDirLogging();
 	}
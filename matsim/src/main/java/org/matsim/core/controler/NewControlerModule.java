@@ -13,5 +13,7 @@ public final class NewControlerModule extends AbstractModule {
 		bind(OutputDirectoryHierarchy.class).asEagerSingleton();
 		bind(TerminationCriterion.class).to(TerminateAtFixedIterationNumber.class);
 		bind(MatsimServices.class).to(MatsimServicesImpl.class);
+		bind(SharedExecutor.class).asEagerSingleton();
+		addControlerListenerBinding().to(SharedExecutor.class);
 	}
 }
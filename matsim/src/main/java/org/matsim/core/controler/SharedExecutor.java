@@ -0,0 +1,88 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SharedExecutor.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.log4j.Logger;
+import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.ShutdownListener;
+
+/**
+ * A pool of global.numberOfThreads threads which lives as long as the Controler, so that components
+ * which run work in parallel do not have to start and stop threads of their own. The pool is created on
+ * first use and shut down when the Controler shuts down.
+ * <p></p>
+ * Tasks submitted to the pool must not wait for other tasks of the pool.
+ */
+@Singleton
+public final class SharedExecutor implements ShutdownListener {
+
+	private static final Logger log = Logger.getLogger(SharedExecutor.class);
+
+	private final int numberOfThreads;
+	private ThreadPoolExecutor executor = null;
+
+	@Inject
+	public SharedExecutor(GlobalConfigGroup globalConfigGroup) {
+		this.numberOfThreads = Math.max(globalConfigGroup.getNumberOfThreads(), 1);
+	}
+
+	/**
+	 * Returns the pool, creating it if it has not been created yet or has been shut down.
+	 */
+	public synchronized ExecutorService getExecutorService() {
+		if (this.executor == null) {
+			log.info("Creating shared executor with " + this.numberOfThreads + " threads.");
+			final AtomicInteger threadCounter = new AtomicInteger(0);
+			this.executor = new ThreadPoolExecutor(this.numberOfThreads, this.numberOfThreads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable, "SharedExecutor." + threadCounter.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			});
+			// idle threads of runs without a shutdown event, e.g. standalone mobsims, do not linger
+			this.executor.allowCoreThreadTimeOut(true);
+		}
+		return this.executor;
+	}
+
+	public synchronized void shutdown() {
+		if (this.executor != null) {
+			this.executor.shutdown();
+			this.executor = null;
+		}
+	}
+
+	@Override
+	public void notifyShutdown(ShutdownEvent event) {
+		this.shutdown();
+	}
+
+}
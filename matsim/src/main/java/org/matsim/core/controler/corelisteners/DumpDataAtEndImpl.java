@@ -62,8 +62,14 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Singleton
 final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
@@ -117,24 +123,53 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 		if ( event.isUnexpected() ) {
 			return ;
 		}
-		dumpPlans();
-		dumpNetwork();
-		dumpConfig();
-		dumpFacilities();
-		dumpNetworkChangeEvents();
-
-		dumpTransitSchedule();
-		dumpTransitVehicles();
-		dumpVehicles();
-		dumpHouseholds();
-		dumpLanes();
-		dumpCounts();
+		List<Runnable> dumps = new ArrayList<>();
+		dumps.add(this::dumpPlans);
+		dumps.add(this::dumpNetwork);
+		dumps.add(this::dumpConfig);
+		dumps.add(this::dumpFacilities);
+		dumps.add(this::dumpNetworkChangeEvents);
+
+		dumps.add(this::dumpTransitSchedule);
+		dumps.add(this::dumpTransitVehicles);
+		dumps.add(this::dumpVehicles);
+		dumps.add(this::dumpHouseholds);
+		dumps.add(this::dumpLanes);
+		dumps.add(this::dumpCounts);
 
 		if (!event.isUnexpected() && vspConfig.isWritingOutputEvents() && (controlerConfigGroup.getWriteEventsInterval()!=0)) {
-			dumpOutputEvents();
+			dumps.add(this::dumpOutputEvents);
 		}
 		
-		dumpExperiencedPlans() ;
+		dumps.add(this::dumpExperiencedPlans);
+
+		if ( controlerConfigGroup.isWriteOutputInBackground() ) {
+			// the dumps write independent files and only read the data, so they can run concurrently
+			runConcurrently(dumps);
+		} else {
+			for (Runnable dump : dumps) {
+				dump.run();
+			}
+		}
+	}
+
+	private void runConcurrently(List<Runnable> dumps) {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.global().getNumberOfThreads()));
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (Runnable dump : dumps) {
+				futures.add(executor.submit(dump));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Exception while dumping data at end.", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
 	}
 
 	private void dumpOutputEvents() {
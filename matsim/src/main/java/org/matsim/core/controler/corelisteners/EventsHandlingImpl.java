@@ -38,6 +38,7 @@ import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.controler.listener.ShutdownListener;
 import org.matsim.core.events.algorithms.EventWriter;
 import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.events.algorithms.IndexedEventWriterXML;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -85,9 +86,17 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 			for (EventsFileFormat format : eventsFileFormats) {
 				switch (format) {
 				case xml:
+					if (eventsFileFormats.contains(EventsFileFormat.indexedXml)) {
+						// the indexed writer writes the same file, plus the index
+						break;
+					}
 					this.eventWriters.add(new EventWriterXML(controlerIO.getIterationFilename(event.getIteration(), 
 							Controler.FILENAME_EVENTS_XML)));
 					break;
+				case indexedXml:
+					this.eventWriters.add(new IndexedEventWriterXML(controlerIO.getIterationFilename(event.getIteration(), 
+							Controler.FILENAME_EVENTS_XML)));
+					break;
 				default:
 					log.warn("Unknown events file format specified: " + format.toString() + ".");
 				}
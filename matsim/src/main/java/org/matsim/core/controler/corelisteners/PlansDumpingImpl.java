@@ -28,8 +28,13 @@ import org.matsim.api.core.v01.population.PopulationWriter;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.events.AfterMobsimEvent;
 import org.matsim.core.controler.events.BeforeMobsimEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.AfterMobsimListener;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.controler.listener.ShutdownListener;
+import org.matsim.core.population.io.BinaryPopulationWriter;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -42,11 +47,18 @@ import org.matsim.core.utils.geometry.transformations.TransformationFactory;
  * ({@link ControlerConfigGroup#getWritePlansInterval()} as well as in the first
  * iteration, just in case someone might check that the replanning worked
  * correctly in the first iteration.
+ * <p></p>
+ * With {@link ControlerConfigGroup#getPlansFileFormat()} set to <code>binary</code>, the plans are
+ * written with the {@link BinaryPopulationWriter}, e.g. to allow restarting from such an iteration quickly.
+ * <p></p>
+ * If {@link ControlerConfigGroup#isWriteOutputInBackground()} is set, the plans are written
+ * by a separate thread while the mobsim is running. The mobsim does not modify the plans in
+ * the standard setup, and the dump is guaranteed to be finished before scoring starts.
  *
  * @author mrieser
  */
 @Singleton
-final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
+final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener, AfterMobsimListener, ShutdownListener {
 
 	static final private Logger log = Logger.getLogger(PlansDumpingImpl.class);
 
@@ -59,10 +71,17 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 
 	private int writeMoreUntilIteration;
 
+	private final boolean writeInBackground;
+	private final ControlerConfigGroup.PlansFileFormat plansFileFormat;
+	private Thread backgroundDump = null;
+	private volatile Throwable backgroundDumpFailure = null;
+
 	@Inject
 	PlansDumpingImpl(ControlerConfigGroup config) {
 		this.writePlansInterval = config.getWritePlansInterval();
 		this.writeMoreUntilIteration = config.getWritePlansUntilIteration() ;
+		this.writeInBackground = config.isWriteOutputInBackground();
+		this.plansFileFormat = config.getPlansFileFormat();
 	}
 
 	@Override
@@ -71,27 +90,83 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 		final boolean regularWritePlans = writingPlansAtAll && (event.getIteration()>0 && event.getIteration() % writePlansInterval== 0);
 		final boolean earlyIteration = event.getIteration() <= writeMoreUntilIteration ;
 		if ( writingPlansAtAll && (regularWritePlans || earlyIteration) ) {
-			stopwatch.beginOperation("dump all plans");
-			log.info("dumping plans...");
-			final String inputCRS = config.plans().getInputCRS();
-			final String internalCRS = config.global().getCoordinateSystem();
+			final String filename = controlerIO.getIterationFilename(event.getIteration(),
+					plansFileFormat == ControlerConfigGroup.PlansFileFormat.binary ? "plans.bin.gz" : "plans.xml.gz");
+			if ( writeInBackground ) {
+				log.info("dumping plans in the background...");
+				this.backgroundDump = new Thread(() -> {
+					try {
+						dumpPlans(filename);
+					} catch (Throwable t) {
+						this.backgroundDumpFailure = t;
+					}
+				}, "PlansDumping");
+				this.backgroundDump.start();
+			} else {
+				stopwatch.beginOperation("dump all plans");
+				dumpPlans(filename);
+				stopwatch.endOperation("dump all plans");
+			}
+		}
+	}
 
-			if ( inputCRS == null ) {
-				new PopulationWriter(population, network).write(controlerIO.getIterationFilename(event.getIteration(), "plans.xml.gz"));
+	@Override
+	public void notifyAfterMobsim(final AfterMobsimEvent event) {
+		waitForBackgroundDump();
+	}
+
+	@Override
+	public void notifyShutdown(final ShutdownEvent event) {
+		waitForBackgroundDump();
+	}
+
+	private void waitForBackgroundDump() {
+		if ( this.backgroundDump == null ) {
+			return;
+		}
+		stopwatch.beginOperation("wait for plans dump");
+		try {
+			this.backgroundDump.join();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} finally {
+			this.backgroundDump = null;
+			stopwatch.endOperation("wait for plans dump");
+		}
+		Throwable failure = this.backgroundDumpFailure;
+		this.backgroundDumpFailure = null;
+		if ( failure != null ) {
+			throw new RuntimeException("dumping plans in the background failed.", failure);
+		}
+	}
+
+	private void dumpPlans(final String filename) {
+		log.info("dumping plans...");
+		final String inputCRS = config.plans().getInputCRS();
+		final String internalCRS = config.global().getCoordinateSystem();
+
+		if ( inputCRS == null ) {
+			if ( plansFileFormat == ControlerConfigGroup.PlansFileFormat.binary ) {
+				new BinaryPopulationWriter(population).write(filename);
+			} else {
+				new PopulationWriter(population, network).write(filename);
 			}
-			else {
-				log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
+		}
+		else {
+			log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
 
-				final CoordinateTransformation transformation =
-						TransformationFactory.getCoordinateTransformation(
-								internalCRS,
-								inputCRS );
+			final CoordinateTransformation transformation =
+					TransformationFactory.getCoordinateTransformation(
+							internalCRS,
+							inputCRS );
 
-				new PopulationWriter(transformation, population, network).write(controlerIO.getIterationFilename(event.getIteration(), "plans.xml.gz"));
+			if ( plansFileFormat == ControlerConfigGroup.PlansFileFormat.binary ) {
+				new BinaryPopulationWriter(transformation, population).write(filename);
+			} else {
+				new PopulationWriter(transformation, population, network).write(filename);
 			}
-			log.info("finished plans dump.");
-			stopwatch.endOperation("dump all plans");
 		}
+		log.info("finished plans dump.");
 	}
 
 }
@@ -22,9 +22,16 @@ package org.matsim.core.controler.corelisteners;
 
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.controler.events.ReplanningEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
 import org.matsim.core.controler.listener.ReplanningListener;
+import org.matsim.core.controler.listener.ShutdownListener;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.PooledNetworkRouteFactory;
+import org.matsim.core.population.routes.RouteFactory;
 import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.replanning.StrategyManager;
+import org.matsim.core.replanning.modules.AbstractMultithreadedModule;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -40,7 +47,7 @@ import javax.inject.Provider;
  * @author mrieser
  */
 @Singleton
-final class PlansReplanningImpl implements PlansReplanning, ReplanningListener {
+final class PlansReplanningImpl implements PlansReplanning, ReplanningListener, ShutdownListener {
 
 	private final Provider<ReplanningContext> replanningContextProvider;
 	private Population population;
@@ -56,6 +63,21 @@ final class PlansReplanningImpl implements PlansReplanning, ReplanningListener {
 	@Override
 	public void notifyReplanning(final ReplanningEvent event) {
 		strategyManager.run(population, event.getIteration(), replanningContextProvider.get());
+
+		// columnar plans store the elements created by the replanning as objects until they are compacted
+		PopulationUtils.compactPlanElements(population);
+
+		// plans removed by the replanning may have released many pooled routes
+		RouteFactory networkRouteFactory = population.getFactory().getRouteFactories().getRouteFactory(NetworkRoute.class);
+		if (networkRouteFactory instanceof PooledNetworkRouteFactory) {
+			((PooledNetworkRouteFactory) networkRouteFactory).compact();
+		}
+	}
+
+	@Override
+	public void notifyShutdown(final ShutdownEvent event) {
+		strategyManager.shutdownPlanSelectionThreads();
+		AbstractMultithreadedModule.shutdownExecutors();
 	}
 
 }
@@ -0,0 +1,37 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ConcurrentIterationEndsListener.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler.listener;
+
+/**
+ * Marks an {@link IterationEndsListener} which may be notified while the other iteration ends listeners
+ * of the same iteration are running, see
+ * {@link org.matsim.core.config.groups.ControlerConfigGroup#isPipelinedIterations()}.
+ * <p></p>
+ * Implementations must neither read nor modify the population and must not draw from
+ * {@link org.matsim.core.gbl.MatsimRandom}. They are called one after the other on a single background thread
+ * owned by the controler, and may still run during the iteration starts listeners and the replanning of the
+ * next iteration. They are guaranteed to have finished before the before mobsim listeners of the next iteration
+ * are called; an exception thrown by them is rethrown there. Data they read must therefore not be reset before
+ * the next mobsim, and no other listener may read their output before that point.
+ */
+public interface ConcurrentIterationEndsListener extends IterationEndsListener {
+
+}
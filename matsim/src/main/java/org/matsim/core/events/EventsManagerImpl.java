@@ -64,6 +64,8 @@ import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityE
 import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.utils.metrics.Counter;
+import org.matsim.core.utils.metrics.Metrics;
 
 /**
  * EventHandling
@@ -84,6 +86,9 @@ public final class EventsManagerImpl implements EventsManager {
 
 	private static final Logger log = Logger.getLogger(EventsManagerImpl.class);
 
+	/** counts each event once per instance processing it, i.e. once per handler partition of the parallel events managers */
+	private static final Counter PROCESSED = Metrics.counter("events.processed");
+
 	static private class HandlerData {
 
 		protected Class<?> eventklass;
@@ -129,6 +134,7 @@ public final class EventsManagerImpl implements EventsManager {
 	@Override
 	public void processEvent(final Event event) {
 		this.counter++;
+		PROCESSED.increment();
 		if (this.counter == this.nextCounterMsg) {
 			this.nextCounterMsg *= 4;
 			log.info(" event # " + this.counter);
@@ -0,0 +1,172 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IndexedEventsReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Stack;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.algorithms.EventsFileIndex;
+import org.matsim.core.events.algorithms.IndexedEventWriterXML;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.vehicles.Vehicle;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads selected events from an events file written by {@link IndexedEventWriterXML}. With the
+ * help of the {@link EventsFileIndex}, only the blocks of the file containing matching events are
+ * read and decompressed, and only the matching events are passed to the events manager.
+ */
+public final class IndexedEventsReader {
+
+	private static final byte[] BLOCK_PREFIX = "<events>".getBytes(IOUtils.CHARSET_UTF8);
+	private static final byte[] BLOCK_SUFFIX = "</events>".getBytes(IOUtils.CHARSET_UTF8);
+
+	private final EventsManager events;
+	private final String eventsFilename;
+	private final boolean isCompressed;
+	private final EventsFileIndex index;
+	private final EventsReaderXMLv1 converter;
+
+	/**
+	 * @param events the events manager the read events are passed to
+	 * @param eventsFilename an events file for which an index exists
+	 */
+	public IndexedEventsReader(final EventsManager events, final String eventsFilename) {
+		this.events = events;
+		this.eventsFilename = eventsFilename;
+		this.isCompressed = eventsFilename.toLowerCase(Locale.ROOT).endsWith(".gz");
+		this.index = EventsFileIndex.read(EventsFileIndex.getIndexFilename(eventsFilename));
+		this.converter = new EventsReaderXMLv1(events);
+	}
+
+	public void addCustomEventMapper(String eventType, EventsReaderXMLv1.CustomEventMapper cem) {
+		this.converter.addCustomEventMapper(eventType, cem);
+	}
+
+	/**
+	 * Reads all events with <code>fromTime &lt;= time &lt;= toTime</code>.
+	 */
+	public void readEvents(final double fromTime, final double toTime) {
+		readBlocks(this.index.getBlocksForTimeRange(fromTime, toTime), atts -> {
+			double time = Double.parseDouble(atts.getValue("time"));
+			return time >= fromTime && time <= toTime;
+		});
+	}
+
+	/**
+	 * Reads all events referring to the given person, e.g. as <code>person</code> or <code>driverId</code>.
+	 */
+	public void readEvents(final Id<Person> personId) {
+		readBlocks(this.index.getBlocksForPerson(personId), new AttributeMatcher(EventsFileIndex.PERSON_ATTRIBUTES, personId.toString()));
+	}
+
+	/**
+	 * Reads all events referring to the given vehicle.
+	 */
+	public void readEventsOfVehicle(final Id<Vehicle> vehicleId) {
+		readBlocks(this.index.getBlocksForVehicle(vehicleId), new AttributeMatcher(EventsFileIndex.VEHICLE_ATTRIBUTES, vehicleId.toString()));
+	}
+
+	private void readBlocks(final int[] blocks, final Predicate<Attributes> filter) {
+		if (blocks.length == 0) {
+			return;
+		}
+		Arrays.sort(blocks);
+		try (RandomAccessFile file = new RandomAccessFile(this.eventsFilename, "r")) {
+			for (int block : blocks) {
+				byte[] data = new byte[(int) this.index.getBlockLength(block)];
+				file.seek(this.index.getBlockOffset(block));
+				file.readFully(data);
+				InputStream blockStream = new ByteArrayInputStream(data);
+				if (this.isCompressed) {
+					blockStream = new GZIPInputStream(blockStream);
+				}
+				// a block only contains event tags, wrap them so the parser sees a complete document
+				InputStream document = new SequenceInputStream(new ByteArrayInputStream(BLOCK_PREFIX),
+						new SequenceInputStream(blockStream, new ByteArrayInputStream(BLOCK_SUFFIX)));
+				new BlockParser(filter).parse(document);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private final class BlockParser extends MatsimXmlParser {
+		private final Predicate<Attributes> filter;
+
+		BlockParser(final Predicate<Attributes> filter) {
+			this.filter = filter;
+			this.setValidating(false);
+		}
+
+		@Override
+		public void startTag(final String name, final Attributes atts, final Stack<String> context) {
+			if (EventsReaderXMLv1.EVENT.equals(name) && this.filter.test(atts)) {
+				IndexedEventsReader.this.events.processEvent(IndexedEventsReader.this.converter.createEvent(atts));
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			// ignore characters, see EventsReaderXMLv1
+		}
+
+		@Override
+		public void endTag(final String name, final String content, final Stack<String> context) {
+		}
+	}
+
+	private static final class AttributeMatcher implements Predicate<Attributes> {
+		private final List<String> keys;
+		private final String id;
+
+		AttributeMatcher(final List<String> keys, final String id) {
+			this.keys = keys;
+			this.id = id;
+		}
+
+		@Override
+		public boolean test(final Attributes atts) {
+			for (String key : this.keys) {
+				if (this.id.equals(atts.getValue(key))) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+}
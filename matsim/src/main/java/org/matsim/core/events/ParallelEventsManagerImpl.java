@@ -28,6 +28,8 @@ import org.matsim.api.core.v01.events.Event;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.utils.metrics.Counter;
+import org.matsim.core.utils.metrics.Metrics;
 
 import javax.inject.Inject;
 
@@ -72,6 +74,8 @@ public final class ParallelEventsManagerImpl implements EventsManager {
 
 	private final static Logger log = Logger.getLogger(ParallelEventsManagerImpl.class);
 
+	private static final Counter SUBMITTED = Metrics.counter("events.submitted");
+
 	// this number should be set in the following way:
 	// if the number of events is estimated as x, then this number
 	// could be set to x/10
@@ -111,6 +115,7 @@ public final class ParallelEventsManagerImpl implements EventsManager {
 
 	@Override
 	public void processEvent(final Event event) {
+		SUBMITTED.increment();
 		if (parallelMode) {
 			for (int i = 0; i < eventsProcessThread.length; i++) {
 				eventsProcessThread[i].processEvent(event);
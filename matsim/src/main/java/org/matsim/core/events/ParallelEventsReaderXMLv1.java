@@ -0,0 +1,302 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelEventsReaderXMLv1.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.utils.io.MatsimXmlParser;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Pipelined variant of {@link EventsReaderXMLv1}. Reading is split into three stages:
+ * <ol>
+ * <li>the calling thread decompresses and tokenizes the file and copies the attributes of
+ * each <code>event</code>-tag into blocks,</li>
+ * <li>a pool of worker threads converts the blocks into {@link Event} objects,</li>
+ * <li>the converted events are passed to the {@link EventsManager}.</li>
+ * </ol>
+ * In the default (ordered) mode, a dedicated delivery thread passes the events to the events
+ * manager in exactly the order they appear in the file. In the unordered mode, each worker
+ * delivers its block as soon as it is converted; blocks may then be delivered out of order, but
+ * never concurrently, so handlers still do not need to be thread-safe.
+ * <p></p>
+ * Custom event mappers must be registered before reading starts, as they are called from the
+ * worker threads.
+ */
+public final class ParallelEventsReaderXMLv1 extends MatsimXmlParser {
+
+	private final static Logger log = Logger.getLogger(ParallelEventsReaderXMLv1.class);
+
+	private final static int DEFAULT_EVENTS_PER_BLOCK = 1000;
+	private final static Future<Event[]> END_OF_EVENTS = new FutureTask<>(() -> null);
+
+	private final EventsManager events;
+	private final EventsReaderXMLv1 converter;
+	private final int numThreads;
+	private final boolean ordered;
+	private int eventsPerBlock = DEFAULT_EVENTS_PER_BLOCK;
+
+	private ThreadPoolExecutor executor = null;
+	private BlockingQueue<Future<Event[]>> pendingBlocks = null;
+	private Thread deliveryThread = null;
+	private List<Attributes> currentBlock = null;
+	private final Object deliveryLock = new Object();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	/**
+	 * Creates a reader that delivers the events in the order they appear in the file.
+	 *
+	 * @param events the events manager to which the events are passed
+	 * @param numThreads the number of threads converting tag attributes into events
+	 */
+	public ParallelEventsReaderXMLv1(final EventsManager events, final int numThreads) {
+		this(events, numThreads, true);
+	}
+
+	/**
+	 * @param events the events manager to which the events are passed
+	 * @param numThreads the number of threads converting tag attributes into events
+	 * @param ordered whether the events must be delivered in file order. Set to <code>false</code>
+	 * only if none of the registered handlers depends on the order of the events.
+	 */
+	public ParallelEventsReaderXMLv1(final EventsManager events, final int numThreads, final boolean ordered) {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException("numThreads must be at least 1, but is " + numThreads);
+		}
+		this.events = events;
+		this.converter = new EventsReaderXMLv1(events);
+		this.numThreads = numThreads;
+		this.ordered = ordered;
+		this.setValidating(false);// events-files have no DTD, thus they cannot validate
+	}
+
+	public void addCustomEventMapper(String eventType, EventsReaderXMLv1.CustomEventMapper cem) {
+		this.converter.addCustomEventMapper(eventType, cem);
+	}
+
+	/**
+	 * Sets how many events are converted together by one worker thread. Larger blocks reduce the
+	 * synchronization overhead, smaller blocks reduce the latency and memory footprint.
+	 */
+	public void setEventsPerBlock(final int eventsPerBlock) {
+		if (eventsPerBlock < 1) {
+			throw new IllegalArgumentException("eventsPerBlock must be at least 1, but is " + eventsPerBlock);
+		}
+		this.eventsPerBlock = eventsPerBlock;
+	}
+
+	@Override
+	public void startDocument() throws SAXException {
+		// the threads of a previous read aborted by the parser itself, e.g. because of malformed XML
+		shutdownPipeline();
+		final AtomicInteger threadCounter = new AtomicInteger(0);
+		/* The work queue is bounded and saturated tasks are run by the parsing thread itself. This
+		 * throttles the parser if the conversion cannot keep up, instead of buffering the whole file. */
+		this.executor = new ThreadPoolExecutor(this.numThreads, this.numThreads, 10, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(4 * this.numThreads), runnable -> {
+					Thread thread = new Thread(runnable, "EventsConverter-" + threadCounter.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+		this.failure.set(null);
+		this.currentBlock = new ArrayList<>(this.eventsPerBlock);
+
+		if (this.ordered) {
+			this.pendingBlocks = new ArrayBlockingQueue<>(8 * this.numThreads);
+			this.deliveryThread = new Thread(this::deliverInOrder, "EventsDelivery");
+			this.deliveryThread.setDaemon(true);
+			this.deliveryThread.start();
+		}
+	}
+
+	@Override
+	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
+		if (EventsReaderXMLv1.EVENT.equals(name)) {
+			// copy the attributes, the object is re-used by the parser
+			this.currentBlock.add(new AttributesImpl(atts));
+			if (this.currentBlock.size() >= this.eventsPerBlock) {
+				submitCurrentBlock();
+			}
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		// ignore characters to prevent OutOfMemoryExceptions, see EventsReaderXMLv1
+	}
+
+	@Override
+	public void endTag(final String name, final String content, final Stack<String> context) {
+	}
+
+	@Override
+	public void endDocument() throws SAXException {
+		if (!this.currentBlock.isEmpty()) {
+			submitCurrentBlock();
+		}
+		try {
+			if (this.ordered) {
+				this.pendingBlocks.put(END_OF_EVENTS);
+				this.deliveryThread.join();
+			}
+			this.executor.shutdown();
+			this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			shutdownPipeline();
+			throw new RuntimeException(e);
+		}
+		this.currentBlock = null;
+		checkFailure();
+		shutdownPipeline();
+	}
+
+	private void submitCurrentBlock() {
+		checkFailure();
+		final List<Attributes> block = this.currentBlock;
+		this.currentBlock = new ArrayList<>(this.eventsPerBlock);
+		if (this.ordered) {
+			FutureTask<Event[]> task = new FutureTask<>(new BlockConverter(block));
+			try {
+				this.pendingBlocks.put(task);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			this.executor.execute(task);
+		} else {
+			this.executor.execute(() -> {
+				try {
+					Event[] converted = new BlockConverter(block).call();
+					synchronized (this.deliveryLock) {
+						if (this.failure.get() == null) {
+							deliver(converted);
+						}
+					}
+				} catch (Throwable t) {
+					this.failure.compareAndSet(null, t);
+				}
+			});
+		}
+	}
+
+	private void deliverInOrder() {
+		try {
+			Future<Event[]> block;
+			while ((block = this.pendingBlocks.take()) != END_OF_EVENTS) {
+				if (this.failure.get() == null) {
+					try {
+						deliver(block.get());
+					} catch (ExecutionException e) {
+						this.failure.compareAndSet(null, e.getCause());
+					} catch (RuntimeException | Error e) {
+						this.failure.compareAndSet(null, e);
+					}
+				}
+				/* after a failure, the remaining blocks are only drained so the parser does not block */
+			}
+		} catch (InterruptedException e) {
+			// interrupted by shutdownPipeline(), this only records something if no failure is known yet
+			this.failure.compareAndSet(null, e);
+		}
+	}
+
+	private void deliver(final Event[] converted) {
+		for (Event event : converted) {
+			this.events.processEvent(event);
+		}
+	}
+
+	/**
+	 * Throws the first failure of a worker or the delivery thread, after stopping all threads of
+	 * the current read, as the parser will not call endDocument() anymore.
+	 */
+	private void checkFailure() {
+		Throwable t = this.failure.get();
+		if (t != null) {
+			shutdownPipeline();
+			log.error("Reading events failed.", t);
+			if (t instanceof RuntimeException) {
+				throw (RuntimeException) t;
+			}
+			throw new RuntimeException(t);
+		}
+	}
+
+	/**
+	 * Stops the threads of the current read and waits until they have terminated, so none of them
+	 * can record a failure or deliver an event after this method returns.
+	 */
+	private void shutdownPipeline() {
+		try {
+			if (this.executor != null) {
+				this.executor.shutdownNow();
+				this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				this.executor = null;
+			}
+			if (this.deliveryThread != null) {
+				/* The delivery thread may wait for a new block, or for a block which will never be
+				 * converted because shutdownNow() removed it from the executor. Interrupting it ends
+				 * the thread in both cases. */
+				this.deliveryThread.interrupt();
+				this.deliveryThread.join();
+				this.deliveryThread = null;
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		this.pendingBlocks = null;
+	}
+
+	private final class BlockConverter implements Callable<Event[]> {
+		private final List<Attributes> block;
+
+		BlockConverter(final List<Attributes> block) {
+			this.block = block;
+		}
+
+		@Override
+		public Event[] call() {
+			Event[] converted = new Event[this.block.size()];
+			for (int i = 0; i < converted.length; i++) {
+				converted[i] = ParallelEventsReaderXMLv1.this.converter.createEvent(this.block.get(i));
+			}
+			return converted;
+		}
+	}
+
+}
@@ -30,6 +30,8 @@ import java.util.concurrent.LinkedBlockingQueue;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.gbl.Gbl;
+import org.matsim.core.utils.metrics.Histogram;
+import org.matsim.core.utils.metrics.Metrics;
 
 /**
  * The wrapper around the Events class for allowing parallelization.
@@ -37,6 +39,9 @@ import org.matsim.core.gbl.Gbl;
  * @author rashid_waraich
  */
 /*package*/ class ProcessEventThread implements Runnable {
+	/** the length of the queue, sampled whenever the pre input buffer is emptied into it */
+	private static final Histogram QUEUE_DEPTH = Metrics.histogram("events.queueDepth");
+
 	private final List<Event> preInputBuffer;
 	private final BlockingQueue<Event> eventQueue;
 	private final EventsManager events;
@@ -65,6 +70,9 @@ import org.matsim.core.gbl.Gbl;
 	private void emptyPreBuffer() {
 		eventQueue.addAll( preInputBuffer );
 		preInputBuffer.clear();
+		if (Metrics.isEnabled()) {
+			QUEUE_DEPTH.record(eventQueue.size());
+		}
 	}
 
 	@Override
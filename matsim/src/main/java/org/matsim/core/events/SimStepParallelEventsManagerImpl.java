@@ -26,6 +26,9 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.groups.ParallelEventHandlingConfigGroup;
 import org.matsim.core.events.handler.EventHandler;
 import org.matsim.core.gbl.Gbl;
+import org.matsim.core.utils.metrics.Counter;
+import org.matsim.core.utils.metrics.Histogram;
+import org.matsim.core.utils.metrics.Metrics;
 
 import javax.inject.Inject;
 import java.lang.Thread.UncaughtExceptionHandler;
@@ -50,6 +53,10 @@ import java.util.concurrent.atomic.AtomicReference;
 class SimStepParallelEventsManagerImpl implements EventsManager {
 
 	private final static Logger log = Logger.getLogger(SimStepParallelEventsManagerImpl.class);
+
+	private static final Counter SUBMITTED = Metrics.counter("events.submitted");
+	/** the length of the queue of the first thread, sampled every 1024 events */
+	private static final Histogram QUEUE_DEPTH = Metrics.histogram("events.queueDepth");
 	
 	private final int numOfThreads;
 	private CyclicBarrier simStepEndBarrier;
@@ -94,9 +101,13 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 
 	@Override
 	public void processEvent(final Event event) {
-		this.counter.incrementAndGet();
+		long count = this.counter.incrementAndGet();
+		SUBMITTED.increment();
 		
 		if (parallelMode) {
+			if ((count & 1023) == 0 && Metrics.isEnabled()) {
+				QUEUE_DEPTH.record(runnables[0].eventsQueue.size());
+			}
 			runnables[0].processEvent(event);
 		} else delegate.processEvent(event);
 	}
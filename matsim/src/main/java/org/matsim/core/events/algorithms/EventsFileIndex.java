@@ -0,0 +1,223 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsFileIndex.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.vehicles.Vehicle;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+
+/**
+ * Index of an events file written by {@link IndexedEventWriterXML}. The events file is split into
+ * blocks, each of which can be read (and, for compressed files, decompressed) on its own. For
+ * every block, the index stores its byte range in the file and the time span of the contained
+ * events; for every person and vehicle, it stores the blocks containing events referring to it.
+ * <p></p>
+ * The index is stored as a gzip-compressed binary sidecar file next to the events file, see
+ * {@link #getIndexFilename(String)}.
+ *
+ * @see org.matsim.core.events.IndexedEventsReader
+ */
+public final class EventsFileIndex {
+
+	public static final String FILE_SUFFIX = ".idx";
+
+	/** event attributes whose values are indexed as person ids */
+	public static final List<String> PERSON_ATTRIBUTES = Collections.unmodifiableList(Arrays.asList("person", "agent", "driverId"));
+	/** event attributes whose values are indexed as vehicle ids */
+	public static final List<String> VEHICLE_ATTRIBUTES = Collections.unmodifiableList(Arrays.asList("vehicle", "vehicleId"));
+
+	private static final int MAGIC = 0x4d454958; // "MEIX"
+	private static final int VERSION = 1;
+
+	private final TLongArrayList offsets = new TLongArrayList();
+	private final TLongArrayList lengths = new TLongArrayList();
+	private final TDoubleArrayList minTimes = new TDoubleArrayList();
+	private final TDoubleArrayList maxTimes = new TDoubleArrayList();
+	private final Map<String, TIntArrayList> personBlocks = new HashMap<>();
+	private final Map<String, TIntArrayList> vehicleBlocks = new HashMap<>();
+
+	public static String getIndexFilename(final String eventsFilename) {
+		return eventsFilename + FILE_SUFFIX;
+	}
+
+	/*package*/ int addBlock(final long offset, final long length, final double minTime, final double maxTime) {
+		this.offsets.add(offset);
+		this.lengths.add(length);
+		this.minTimes.add(minTime);
+		this.maxTimes.add(maxTime);
+		return this.offsets.size() - 1;
+	}
+
+	/*package*/ void addPersonOccurrence(final String personId, final int block) {
+		addOccurrence(this.personBlocks, personId, block);
+	}
+
+	/*package*/ void addVehicleOccurrence(final String vehicleId, final int block) {
+		addOccurrence(this.vehicleBlocks, vehicleId, block);
+	}
+
+	private static void addOccurrence(final Map<String, TIntArrayList> blocksById, final String id, final int block) {
+		TIntArrayList blocks = blocksById.get(id);
+		if (blocks == null) {
+			blocks = new TIntArrayList(4);
+			blocksById.put(id, blocks);
+		}
+		// blocks are written one after the other, so it is enough to compare with the last entry
+		if (blocks.isEmpty() || blocks.get(blocks.size() - 1) != block) {
+			blocks.add(block);
+		}
+	}
+
+	public int getNumberOfBlocks() {
+		return this.offsets.size();
+	}
+
+	public long getBlockOffset(final int block) {
+		return this.offsets.get(block);
+	}
+
+	public long getBlockLength(final int block) {
+		return this.lengths.get(block);
+	}
+
+	public double getBlockMinTime(final int block) {
+		return this.minTimes.get(block);
+	}
+
+	public double getBlockMaxTime(final int block) {
+		return this.maxTimes.get(block);
+	}
+
+	/**
+	 * @return the indices of the blocks containing events referring to the given person, in file order.
+	 */
+	public int[] getBlocksForPerson(final Id<Person> personId) {
+		TIntArrayList blocks = this.personBlocks.get(personId.toString());
+		return blocks == null ? new int[0] : blocks.toArray();
+	}
+
+	/**
+	 * @return the indices of the blocks containing events referring to the given vehicle, in file order.
+	 */
+	public int[] getBlocksForVehicle(final Id<Vehicle> vehicleId) {
+		TIntArrayList blocks = this.vehicleBlocks.get(vehicleId.toString());
+		return blocks == null ? new int[0] : blocks.toArray();
+	}
+
+	/**
+	 * @return the indices of the blocks possibly containing events with <code>fromTime &lt;= time &lt;= toTime</code>, in file order.
+	 */
+	public int[] getBlocksForTimeRange(final double fromTime, final double toTime) {
+		TIntArrayList blocks = new TIntArrayList();
+		for (int i = 0; i < this.offsets.size(); i++) {
+			if (this.maxTimes.get(i) >= fromTime && this.minTimes.get(i) <= toTime) {
+				blocks.add(i);
+			}
+		}
+		return blocks.toArray();
+	}
+
+	public void write(final String filename) {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(filename))))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(this.offsets.size());
+			for (int i = 0; i < this.offsets.size(); i++) {
+				out.writeLong(this.offsets.get(i));
+				out.writeLong(this.lengths.get(i));
+				out.writeDouble(this.minTimes.get(i));
+				out.writeDouble(this.maxTimes.get(i));
+			}
+			writeOccurrences(out, this.personBlocks);
+			writeOccurrences(out, this.vehicleBlocks);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeOccurrences(final DataOutputStream out, final Map<String, TIntArrayList> blocksById) throws IOException {
+		out.writeInt(blocksById.size());
+		for (Map.Entry<String, TIntArrayList> e : blocksById.entrySet()) {
+			out.writeUTF(e.getKey());
+			TIntArrayList blocks = e.getValue();
+			out.writeInt(blocks.size());
+			for (int i = 0; i < blocks.size(); i++) {
+				out.writeInt(blocks.get(i));
+			}
+		}
+	}
+
+	public static EventsFileIndex read(final String filename) {
+		EventsFileIndex index = new EventsFileIndex();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(filename))))) {
+			if (in.readInt() != MAGIC) {
+				throw new IllegalArgumentException(filename + " is not an events file index.");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IllegalArgumentException("Unsupported events file index version " + version + " in " + filename);
+			}
+			int numBlocks = in.readInt();
+			for (int i = 0; i < numBlocks; i++) {
+				index.addBlock(in.readLong(), in.readLong(), in.readDouble(), in.readDouble());
+			}
+			readOccurrences(in, index.personBlocks);
+			readOccurrences(in, index.vehicleBlocks);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return index;
+	}
+
+	private static void readOccurrences(final DataInputStream in, final Map<String, TIntArrayList> blocksById) throws IOException {
+		int numIds = in.readInt();
+		for (int i = 0; i < numIds; i++) {
+			String id = in.readUTF();
+			int numBlocks = in.readInt();
+			TIntArrayList blocks = new TIntArrayList(numBlocks);
+			for (int b = 0; b < numBlocks; b++) {
+				blocks.add(in.readInt());
+			}
+			blocksById.put(id, blocks);
+		}
+	}
+
+}
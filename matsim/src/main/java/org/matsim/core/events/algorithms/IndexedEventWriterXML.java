@@ -0,0 +1,194 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IndexedEventWriterXML.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes events in the same format as {@link EventWriterXML}, but additionally creates an
+ * {@link EventsFileIndex} next to the events file, allowing to read only the events of a
+ * single person, vehicle or time window with {@link org.matsim.core.events.IndexedEventsReader}.
+ * <p></p>
+ * To make this possible, the events are written in blocks. A new block is started whenever
+ * the time of the events passes the end of the current time bin, or the maximum number of
+ * events per block is reached. If the file is gzip-compressed, every block is written as a
+ * gzip member of its own. Standard tools (<code>gunzip</code>, {@link java.util.zip.GZIPInputStream})
+ * read such files as one continuous stream, so the events file stays compatible with all
+ * existing readers.
+ */
+public final class IndexedEventWriterXML implements EventWriter, BasicEventHandler {
+
+	public static final double DEFAULT_TIME_BIN_SIZE = 900.0;
+	public static final int DEFAULT_MAX_EVENTS_PER_BLOCK = 20000;
+
+	private final String indexFilename;
+	private final boolean useCompression;
+	private final double timeBinSize;
+	private final int maxEventsPerBlock;
+	private final OutputStream fileOut;
+	private final EventsFileIndex index = new EventsFileIndex();
+
+	private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream(1 << 20);
+	private final BufferedWriter blockWriter = new BufferedWriter(new OutputStreamWriter(this.blockBytes, IOUtils.CHARSET_UTF8));
+	private final ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream(1 << 18);
+	private long filePosition = 0;
+
+	private int eventsInBlock = 0;
+	private double blockEndTime = Double.NEGATIVE_INFINITY;
+	private double blockMinTime = Double.POSITIVE_INFINITY;
+	private double blockMaxTime = Double.NEGATIVE_INFINITY;
+	private int currentBlock;
+
+	public IndexedEventWriterXML(final String outfilename) {
+		this(outfilename, DEFAULT_TIME_BIN_SIZE, DEFAULT_MAX_EVENTS_PER_BLOCK);
+	}
+
+	/**
+	 * @param outfilename the events file to write; the index is written to {@link EventsFileIndex#getIndexFilename(String)}
+	 * @param timeBinSize a new block is started for every time bin of this size
+	 * @param maxEventsPerBlock a new block is started if the current block contains this many events,
+	 * limiting the amount of data to be read for a single query
+	 */
+	public IndexedEventWriterXML(final String outfilename, final double timeBinSize, final int maxEventsPerBlock) {
+		this.indexFilename = EventsFileIndex.getIndexFilename(outfilename);
+		this.useCompression = outfilename.toLowerCase(Locale.ROOT).endsWith(".gz");
+		this.timeBinSize = timeBinSize;
+		this.maxEventsPerBlock = maxEventsPerBlock;
+		try {
+			this.fileOut = new FileOutputStream(outfilename);
+			this.currentBlock = this.index.getNumberOfBlocks();
+			// the header is written as a block of its own, so every indexed block contains only events
+			this.blockWriter.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<events version=\"1.0\">\n");
+			writeBlock();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		double time = event.getTime();
+		if (this.eventsInBlock >= this.maxEventsPerBlock || (this.eventsInBlock > 0 && time >= this.blockEndTime)) {
+			finishBlock();
+		}
+		if (this.eventsInBlock == 0) {
+			this.blockEndTime = (Math.floor(time / this.timeBinSize) + 1) * this.timeBinSize;
+		}
+		this.eventsInBlock++;
+		if (time < this.blockMinTime) {
+			this.blockMinTime = time;
+		}
+		if (time > this.blockMaxTime) {
+			this.blockMaxTime = time;
+		}
+		try {
+			this.blockWriter.append("\t<event ");
+			Map<String, String> attr = event.getAttributes();
+			for (Map.Entry<String, String> entry : attr.entrySet()) {
+				this.blockWriter.append(entry.getKey());
+				this.blockWriter.append("=\"");
+				this.blockWriter.append(EventWriterXML.encodeAttributeValue(entry.getValue()));
+				this.blockWriter.append("\" ");
+			}
+			this.blockWriter.append(" />\n");
+			for (String key : EventsFileIndex.PERSON_ATTRIBUTES) {
+				String id = attr.get(key);
+				if (id != null) {
+					this.index.addPersonOccurrence(id, this.currentBlock);
+				}
+			}
+			for (String key : EventsFileIndex.VEHICLE_ATTRIBUTES) {
+				String id = attr.get(key);
+				if (id != null) {
+					this.index.addVehicleOccurrence(id, this.currentBlock);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void finishBlock() {
+		try {
+			long offset = this.filePosition;
+			writeBlock();
+			int block = this.index.addBlock(offset, this.filePosition - offset, this.blockMinTime, this.blockMaxTime);
+			if (block != this.currentBlock) {
+				throw new IllegalStateException("inconsistent block numbering: " + block + " vs " + this.currentBlock);
+			}
+			this.currentBlock = block + 1;
+			this.eventsInBlock = 0;
+			this.blockMinTime = Double.POSITIVE_INFINITY;
+			this.blockMaxTime = Double.NEGATIVE_INFINITY;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		this.blockWriter.flush();
+		if (this.useCompression) {
+			this.compressedBytes.reset();
+			try (GZIPOutputStream gzip = new GZIPOutputStream(this.compressedBytes, 1 << 16)) {
+				this.blockBytes.writeTo(gzip);
+			}
+			this.compressedBytes.writeTo(this.fileOut);
+			this.filePosition += this.compressedBytes.size();
+		} else {
+			this.blockBytes.writeTo(this.fileOut);
+			this.filePosition += this.blockBytes.size();
+		}
+		this.blockBytes.reset();
+	}
+
+	@Override
+	public void closeFile() {
+		if (this.eventsInBlock > 0) {
+			finishBlock();
+		}
+		try {
+			this.blockWriter.write("</events>");
+			writeBlock();
+			this.fileOut.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.index.write(this.indexFilename);
+	}
+
+	@Override
+	public void reset(final int iter) {
+	}
+
+}
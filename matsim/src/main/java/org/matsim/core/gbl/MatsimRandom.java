@@ -58,6 +58,9 @@ public abstract class MatsimRandom {
 	private static final Random random = new Random(DEFAULT_RANDOM_SEED);
 //	private static final Random random = new InstrumentedRandom(DEFAULT_RANDOM_SEED);
 
+	/** random number generators replacing the global one in single threads, see {@link #setRandomForCurrentThread(Random)} */
+	private static final ThreadLocal<Random> threadRandom = new ThreadLocal<>();
+
 	/** Resets the random number generator with a default random seed. */
 	public static void reset() {
 		reset(DEFAULT_RANDOM_SEED);
@@ -70,19 +73,42 @@ public abstract class MatsimRandom {
 	public static void reset(final long seed) {
 		lastUsedSeed = seed;
 		internalCounter = 0;
-		getRandom().setSeed(seed);
+		random.setSeed(seed);
 //		prepareRNG(random);
 	}
 	public static Random getRandom() {
-		return random;
+		Random r = threadRandom.get();
+		return r == null ? random : r;
+	}
+
+	/** Makes {@link #getRandom()} return the given random number generator when called from the current thread,
+	 * or the global one again if <code>null</code> is given. This allows code running in parallel to draw reproducible
+	 * random numbers, also in code it calls which uses {@link #getRandom()}.
+	 *
+	 * @param rng the random number generator to be used by the current thread, or <code>null</code>
+	 */
+	public static void setRandomForCurrentThread(final Random rng) {
+		if (rng == null) {
+			threadRandom.remove();
+		} else {
+			threadRandom.set(rng);
+		}
 	}
 
 	/** Returns an instance of a random number generator, which can be used
-	 * locally, e.g. in threads.
+	 * locally, e.g. in threads. In a thread with its own random number generator, see
+	 * {@link #setRandomForCurrentThread(Random)}, the instance is seeded from that generator, so it
+	 * does not depend on how many instances other threads have created.
 	 *
 	 * @return pseudo random number generator
 	 */
 	public static Random getLocalInstance() {
+		Random threadRng = threadRandom.get();
+		if (threadRng != null) {
+			Random r = new Random(threadRng.nextLong());
+			prepareRNG(r);
+			return r;
+		}
 		internalCounter++;
 		Random r = new Random(lastUsedSeed + internalCounter*23l);
 		prepareRNG(r);
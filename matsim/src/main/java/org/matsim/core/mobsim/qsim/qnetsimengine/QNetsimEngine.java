@@ -59,6 +59,9 @@ import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNetwork;
+import org.matsim.core.utils.metrics.Histogram;
+import org.matsim.core.utils.metrics.Metrics;
+import org.matsim.core.utils.metrics.Timer;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vis.snapshotwriters.SnapshotLinkWidthCalculator;
@@ -94,6 +97,9 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 
 	private static final int INFO_PERIOD = 3600;
 
+	private static final Timer STEP_TIMER = Metrics.timer("qsim.netsimStep");
+	private static final Histogram ACTIVE_LINKS = Metrics.histogram("qsim.activeLinks");
+
 	private QNetwork network;
 
 	private final Map<Id<Vehicle>, QVehicle> vehicles = new HashMap<>();
@@ -268,7 +274,12 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	 */
 	@Override
 	public void doSimStep(final double time) {
+		long start = STEP_TIMER.start();
 		run(time);
+		STEP_TIMER.stop(start);
+		if (Metrics.isEnabled()) {
+			ACTIVE_LINKS.record(this.getNumberOfSimulatedLinks());
+		}
 
 		this.printSimLog(time);
 	}
@@ -22,6 +22,8 @@ package org.matsim.core.mobsim.qsim.qnetsimengine;
 
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.utils.metrics.Counter;
+import org.matsim.core.utils.metrics.Metrics;
 
 import java.util.*;
 import java.util.concurrent.Callable;
@@ -36,6 +38,9 @@ import java.util.concurrent.Phaser;
  */
 class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnable, Callable<Boolean> {
 
+	private static final Counter NODES_MOVED = Metrics.counter("qsim.nodesMoved");
+	private static final Counter LINKS_MOVED = Metrics.counter("qsim.linksMoved");
+
 	private double time = 0.0;
 
 	private volatile boolean simulationRunning = true;
@@ -168,18 +173,22 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		boolean remainsActive;
 		this.lockNodes = true;
 		QNodeImpl node;
+		int moved = 0;
 		Iterator<QNodeImpl> simNodes = this.nodesQueue.iterator();
 		while (simNodes.hasNext()) {
 			node = simNodes.next();
 			remainsActive = node.doSimStep(time);
 			if (!remainsActive) simNodes.remove();
+			moved++;
 		}
+		NODES_MOVED.add(moved);
 		this.lockNodes = false;
 	}
 	private void moveLinks() {
 		boolean remainsActive;
 		lockLinks = true;
 		QLinkI link;
+		LINKS_MOVED.add(this.linksList.size());
 		ListIterator<QLinkI> simLinks = this.linksList.listIterator();
 		while (simLinks.hasNext()) {
 			link = simLinks.next();
@@ -0,0 +1,198 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryNetworkReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network.io;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.network.NetworkChangeEvent;
+import org.matsim.core.network.NetworkChangeEvent.ChangeType;
+import org.matsim.core.network.NetworkChangeEvent.ChangeValue;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.utils.io.BinaryImageInput;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+
+import static org.matsim.core.network.io.BinaryNetworkWriter.*;
+
+/**
+ * Reads a network image written by {@link BinaryNetworkWriter} into a network, which should be empty. Links are
+ * created by the factory of the network, so time-variant networks get time-variant links and the network change
+ * events of the image are applied to them.
+ */
+public final class BinaryNetworkReader implements MatsimReader {
+
+	private final static Logger log = Logger.getLogger(BinaryNetworkReader.class);
+
+	private final Network network;
+	private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter();
+
+	public BinaryNetworkReader(final Network network) {
+		this.network = network;
+	}
+
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		this.attributesConverter.putAttributeConverters( converters );
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		log.info("reading binary network from " + filename);
+		parse(IOUtils.getInputStream(filename));
+	}
+
+	public void readURL(final URL url) {
+		log.info("reading binary network from " + url);
+		parse(IOUtils.getInputStream(url));
+	}
+
+	/**
+	 * Reads the network from the input stream and closes it.
+	 */
+	public void parse(final InputStream stream) {
+		try (BinaryImageInput in = new BinaryImageInput(stream)) {
+			in.readHeader(MAGIC, VERSION);
+			String name = in.readString();
+			if (name != null) {
+				this.network.setName(name);
+			}
+			this.network.setCapacityPeriod(in.readDouble());
+			this.network.setEffectiveCellSize(in.readDouble());
+			this.network.setEffectiveLaneWidth(in.readDouble());
+			in.readAttributes(this.network.getAttributes(), this.attributesConverter);
+			Node[] nodes = readNodes(in);
+			Link[] links = readLinks(in, nodes);
+			readChangeEvents(in, links);
+			log.info("read " + nodes.length + " nodes and " + links.length + " links.");
+		}
+	}
+
+	private Node[] readNodes(final BinaryImageInput in) {
+		int count = in.readVarInt();
+		String[] ids = new String[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = in.readRawString();
+		}
+		double[] x = in.readDoubles(count);
+		double[] y = in.readDoubles(count);
+		boolean[] hasZ = in.readBooleans(count);
+		double[] z = in.readDoubles(count);
+		NetworkFactory factory = this.network.getFactory();
+		Node[] nodes = new Node[count];
+		for (int i = 0; i < count; i++) {
+			Coord coord = hasZ[i] ? new Coord(x[i], y[i], z[i]) : new Coord(x[i], y[i]);
+			nodes[i] = factory.createNode(Id.create(ids[i], Node.class), coord);
+			String type = in.readString();
+			if (type != null) {
+				NetworkUtils.setType(nodes[i], type);
+			}
+			String origId = in.readString();
+			if (origId != null) {
+				NetworkUtils.setOrigId(nodes[i], origId);
+			}
+			in.readAttributes(nodes[i].getAttributes(), this.attributesConverter);
+			this.network.addNode(nodes[i]);
+		}
+		return nodes;
+	}
+
+	private Link[] readLinks(final BinaryImageInput in, final Node[] nodes) {
+		int count = in.readVarInt();
+		String[] ids = new String[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = in.readRawString();
+		}
+		int[] fromNodes = in.readInts(count);
+		int[] toNodes = in.readInts(count);
+		double[] lengths = in.readDoubles(count);
+		double[] freespeeds = in.readDoubles(count);
+		double[] capacities = in.readDoubles(count);
+		double[] lanes = in.readDoubles(count);
+		List<Set<String>> modeSets = new ArrayList<>();
+		int modeSetCount = in.readVarInt();
+		for (int i = 0; i < modeSetCount; i++) {
+			int size = in.readVarInt();
+			Set<String> modeSet = new HashSet<>();
+			for (int j = 0; j < size; j++) {
+				modeSet.add(in.readString().intern());
+			}
+			modeSets.add(modeSet);
+		}
+		int[] modes = in.readInts(count);
+		NetworkFactory factory = this.network.getFactory();
+		Link[] links = new Link[count];
+		for (int i = 0; i < count; i++) {
+			Link link = factory.createLink(Id.create(ids[i], Link.class), nodes[fromNodes[i]], nodes[toNodes[i]]);
+			link.setLength(lengths[i]);
+			link.setFreespeed(freespeeds[i]);
+			link.setCapacity(capacities[i]);
+			link.setNumberOfLanes(lanes[i]);
+			link.setAllowedModes(modeSets.get(modes[i]));
+			in.readAttributes(link.getAttributes(), this.attributesConverter);
+			this.network.addLink(link);
+			links[i] = link;
+		}
+		return links;
+	}
+
+	private void readChangeEvents(final BinaryImageInput in, final Link[] links) {
+		int count = in.readVarInt();
+		if (count == 0) {
+			return;
+		}
+		List<NetworkChangeEvent> events = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			NetworkChangeEvent event = new NetworkChangeEvent(in.readDouble());
+			event.setFreespeedChange(readChangeValue(in));
+			event.setFlowCapacityChange(readChangeValue(in));
+			event.setLanesChange(readChangeValue(in));
+			int linkCount = in.readVarInt();
+			for (int linkIndex : in.readInts(linkCount)) {
+				event.addLink(links[linkIndex]);
+			}
+			events.add(event);
+		}
+		NetworkUtils.setNetworkChangeEvents(this.network, events);
+	}
+
+	private static ChangeValue readChangeValue(final BinaryImageInput in) {
+		int type = in.readVarInt();
+		if (type == 0) {
+			return null;
+		}
+		return new ChangeValue(ChangeType.values()[type - 1], in.readDouble());
+	}
+
+}
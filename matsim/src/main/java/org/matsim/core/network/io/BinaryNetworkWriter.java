@@ -0,0 +1,215 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryNetworkWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network.io;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.api.internal.MatsimWriter;
+import org.matsim.core.network.NetworkChangeEvent;
+import org.matsim.core.network.NetworkChangeEvent.ChangeValue;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.TimeDependentNetwork;
+import org.matsim.core.utils.io.BinaryImageOutput;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+
+/**
+ * Writes a binary image of a network, including the attributes of the network, its nodes and links, and the
+ * network change events of time-variant networks. The image can be read with {@link BinaryNetworkReader} much
+ * faster than the xml formats, as the node and link properties are stored column-wise and read in bulk. It is
+ * meant as a cache of networks which are read often, see {@link org.matsim.core.utils.io.BinaryImageCache},
+ * not as an exchange format.
+ * <p></p>
+ * Coordinates are written as they are, i.e. in the internal coordinate system.
+ */
+public final class BinaryNetworkWriter implements MatsimWriter {
+
+	private final static Logger log = Logger.getLogger(BinaryNetworkWriter.class);
+
+	/** the first four bytes of a binary network image, "MNET" */
+	public static final int MAGIC = 0x4d4e4554;
+	public static final int VERSION = 1;
+
+	private final Network network;
+	private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter();
+
+	public BinaryNetworkWriter(final Network network) {
+		this.network = network;
+	}
+
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		this.attributesConverter.putAttributeConverters( converters );
+	}
+
+	@Override
+	public void write(final String filename) {
+		write(IOUtils.getOutputStream(filename));
+		log.info("Network written to: " + filename);
+	}
+
+	/**
+	 * Writes the network to the output stream and closes it.
+	 */
+	public void write(final OutputStream stream) {
+		try (BinaryImageOutput out = new BinaryImageOutput(stream)) {
+			out.writeHeader(MAGIC, VERSION);
+			out.writeString(this.network.getName());
+			out.writeDouble(this.network.getCapacityPeriod());
+			out.writeDouble(this.network.getEffectiveCellSize());
+			out.writeDouble(this.network.getEffectiveLaneWidth());
+			out.writeAttributes(this.network.getAttributes(), this.attributesConverter);
+			Map<Id<Node>, Integer> nodeIndices = writeNodes(out);
+			Map<Id<Link>, Integer> linkIndices = writeLinks(out, nodeIndices);
+			writeChangeEvents(out, linkIndices);
+		}
+	}
+
+	private Map<Id<Node>, Integer> writeNodes(final BinaryImageOutput out) {
+		Collection<? extends Node> nodes = this.network.getNodes().values();
+		int count = nodes.size();
+		double[] x = new double[count];
+		double[] y = new double[count];
+		double[] z = new double[count];
+		boolean[] hasZ = new boolean[count];
+		Map<Id<Node>, Integer> nodeIndices = new HashMap<>(count * 2);
+		out.writeVarInt(count);
+		int i = 0;
+		for (Node node : nodes) {
+			out.writeRawString(node.getId().toString());
+			Coord coord = node.getCoord();
+			x[i] = coord.getX();
+			y[i] = coord.getY();
+			hasZ[i] = coord.hasZ();
+			z[i] = coord.hasZ() ? coord.getZ() : 0.0;
+			nodeIndices.put(node.getId(), i);
+			i++;
+		}
+		out.writeDoubles(x, count);
+		out.writeDoubles(y, count);
+		out.writeBooleans(hasZ, count);
+		out.writeDoubles(z, count);
+		for (Node node : nodes) {
+			out.writeString(NetworkUtils.getType(node));
+			out.writeString(NetworkUtils.getOrigId(node));
+			out.writeAttributes(node.getAttributes(), this.attributesConverter);
+		}
+		return nodeIndices;
+	}
+
+	private Map<Id<Link>, Integer> writeLinks(final BinaryImageOutput out, final Map<Id<Node>, Integer> nodeIndices) {
+		Collection<? extends Link> links = this.network.getLinks().values();
+		int count = links.size();
+		int[] fromNodes = new int[count];
+		int[] toNodes = new int[count];
+		double[] lengths = new double[count];
+		double[] freespeeds = new double[count];
+		double[] capacities = new double[count];
+		double[] lanes = new double[count];
+		int[] modes = new int[count];
+		// most links share one of few sets of allowed modes
+		Map<Set<String>, Integer> modeSetIndices = new HashMap<>();
+		List<Set<String>> modeSets = new ArrayList<>();
+		Map<Id<Link>, Integer> linkIndices = new HashMap<>(count * 2);
+		out.writeVarInt(count);
+		int i = 0;
+		for (Link link : links) {
+			out.writeRawString(link.getId().toString());
+			fromNodes[i] = nodeIndices.get(link.getFromNode().getId());
+			toNodes[i] = nodeIndices.get(link.getToNode().getId());
+			lengths[i] = link.getLength();
+			freespeeds[i] = link.getFreespeed();
+			capacities[i] = link.getCapacity();
+			lanes[i] = link.getNumberOfLanes();
+			Integer modeSet = modeSetIndices.get(link.getAllowedModes());
+			if (modeSet == null) {
+				modeSet = modeSets.size();
+				modeSets.add(link.getAllowedModes());
+				modeSetIndices.put(link.getAllowedModes(), modeSet);
+			}
+			modes[i] = modeSet;
+			linkIndices.put(link.getId(), i);
+			i++;
+		}
+		out.writeInts(fromNodes, count);
+		out.writeInts(toNodes, count);
+		out.writeDoubles(lengths, count);
+		out.writeDoubles(freespeeds, count);
+		out.writeDoubles(capacities, count);
+		out.writeDoubles(lanes, count);
+		out.writeVarInt(modeSets.size());
+		for (Set<String> modeSet : modeSets) {
+			out.writeVarInt(modeSet.size());
+			for (String mode : modeSet) {
+				out.writeString(mode);
+			}
+		}
+		out.writeInts(modes, count);
+		for (Link link : links) {
+			out.writeAttributes(link.getAttributes(), this.attributesConverter);
+		}
+		return linkIndices;
+	}
+
+	private void writeChangeEvents(final BinaryImageOutput out, final Map<Id<Link>, Integer> linkIndices) {
+		if (!(this.network instanceof TimeDependentNetwork)) {
+			out.writeVarInt(0);
+			return;
+		}
+		Collection<NetworkChangeEvent> events = NetworkUtils.getNetworkChangeEvents(this.network);
+		out.writeVarInt(events.size());
+		for (NetworkChangeEvent event : events) {
+			out.writeDouble(event.getStartTime());
+			writeChangeValue(out, event.getFreespeedChange());
+			writeChangeValue(out, event.getFlowCapacityChange());
+			writeChangeValue(out, event.getLanesChange());
+			int[] links = new int[event.getLinks().size()];
+			int i = 0;
+			for (Link link : event.getLinks()) {
+				links[i++] = linkIndices.get(link.getId());
+			}
+			out.writeVarInt(links.length);
+			out.writeInts(links, links.length);
+		}
+	}
+
+	private static void writeChangeValue(final BinaryImageOutput out, final ChangeValue value) {
+		if (value == null) {
+			out.writeVarInt(0);
+		} else {
+			out.writeVarInt(value.getType().ordinal() + 1);
+			out.writeDouble(value.getValue());
+		}
+	}
+
+}
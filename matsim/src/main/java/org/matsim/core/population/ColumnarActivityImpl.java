@@ -0,0 +1,156 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarActivityImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * View on an activity stored in a row of {@link PlanElementColumns}. Views are created on demand by
+ * {@link ColumnarPlanImpl}, so there may be several views on an activity, which are equal.
+ * <p></p>
+ * An activity created by the factory has columns of its own until it is added to a plan. It then
+ * moves into the columns of the plan, so changes made to it afterwards are still reflected in the plan.
+ */
+/* deliberately package */ final class ColumnarActivityImpl implements Activity {
+
+	/*package*/ PlanElementColumns columns;
+	/*package*/ int row;
+
+	/*package*/ ColumnarActivityImpl(final PlanElementColumns columns, final int row) {
+		this.columns = columns;
+		this.row = row;
+	}
+
+	/*package*/ static ColumnarActivityImpl createDetached(final String type) {
+		PlanElementColumns columns = new PlanElementColumns(true);
+		return new ColumnarActivityImpl(columns, columns.addActivity(type));
+	}
+
+	@Override
+	public double getEndTime() {
+		return this.columns.getActEndTime(this.row);
+	}
+
+	@Override
+	public void setEndTime(final double seconds) {
+		this.columns.setActEndTime(this.row, seconds);
+	}
+
+	@Override
+	public String getType() {
+		return this.columns.getActType(this.row);
+	}
+
+	@Override
+	public void setType(final String type) {
+		this.columns.setActType(this.row, type);
+	}
+
+	@Override
+	public Coord getCoord() {
+		return this.columns.getActCoord(this.row);
+	}
+
+	@Override
+	public void setCoord(final Coord coord) {
+		this.columns.setActCoord(this.row, coord);
+	}
+
+	@Override
+	public double getStartTime() {
+		return this.columns.getActStartTime(this.row);
+	}
+
+	@Override
+	public void setStartTime(final double seconds) {
+		this.columns.setActStartTime(this.row, seconds);
+	}
+
+	@Override
+	public double getMaximumDuration() {
+		return this.columns.getActMaximumDuration(this.row);
+	}
+
+	@Override
+	public void setMaximumDuration(final double seconds) {
+		this.columns.setActMaximumDuration(this.row, seconds);
+	}
+
+	@Override
+	public Id<Link> getLinkId() {
+		return this.columns.getActLinkId(this.row);
+	}
+
+	@Override
+	public Id<ActivityFacility> getFacilityId() {
+		return this.columns.getActFacilityId(this.row);
+	}
+
+	@Override
+	public void setLinkId(final Id<Link> id) {
+		this.columns.setActLinkId(this.row, id);
+	}
+
+	@Override
+	public void setFacilityId(final Id<ActivityFacility> id) {
+		this.columns.setActFacilityId(this.row, id);
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		return this.columns.getActAttributes(this.row);
+	}
+
+	/**
+	 * Views are equal if they refer to the same row, i.e. to the same activity.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (!(obj instanceof ColumnarActivityImpl)) {
+			return false;
+		}
+		ColumnarActivityImpl other = (ColumnarActivityImpl) obj;
+		return this.columns == other.columns && this.row == other.row;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * System.identityHashCode(this.columns) + this.row;
+	}
+
+	@Override
+	public String toString() {
+		return "[type=" + this.getType() + "]" +
+				"[coord=" + this.getCoord() + "]" +
+				"[linkId=" + this.getLinkId() + "]" +
+				"[startTime=" + Time.writeTime(this.getStartTime()) + "]" +
+				"[endTime=" + Time.writeTime(this.getEndTime()) + "]" +
+				"[duration=" + Time.writeTime(this.getMaximumDuration()) + "]" +
+				"[facilityId=" + this.getFacilityId() + "]" ;
+	}
+
+}
@@ -0,0 +1,117 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarLegImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * View on a leg stored in a row of {@link PlanElementColumns}, see {@link ColumnarActivityImpl}.
+ */
+/* deliberately package */ final class ColumnarLegImpl implements Leg {
+
+	/*package*/ PlanElementColumns columns;
+	/*package*/ int row;
+
+	/*package*/ ColumnarLegImpl(final PlanElementColumns columns, final int row) {
+		this.columns = columns;
+		this.row = row;
+	}
+
+	/*package*/ static ColumnarLegImpl createDetached(final String mode) {
+		PlanElementColumns columns = new PlanElementColumns(true);
+		return new ColumnarLegImpl(columns, columns.addLeg(mode));
+	}
+
+	@Override
+	public String getMode() {
+		return this.columns.getLegMode(this.row);
+	}
+
+	@Override
+	public void setMode(final String mode) {
+		this.columns.setLegMode(this.row, mode);
+	}
+
+	@Override
+	public Route getRoute() {
+		return this.columns.getLegRoute(this.row);
+	}
+
+	@Override
+	public void setRoute(final Route route) {
+		this.columns.setLegRoute(this.row, route);
+	}
+
+	@Override
+	public double getDepartureTime() {
+		return this.columns.getLegDepartureTime(this.row);
+	}
+
+	@Override
+	public void setDepartureTime(final double seconds) {
+		this.columns.setLegDepartureTime(this.row, seconds);
+	}
+
+	@Override
+	public double getTravelTime() {
+		return this.columns.getLegTravelTime(this.row);
+	}
+
+	@Override
+	public void setTravelTime(final double seconds) {
+		this.columns.setLegTravelTime(this.row, seconds);
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		return this.columns.getLegAttributes(this.row);
+	}
+
+	/**
+	 * Views are equal if they refer to the same row, i.e. to the same leg.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (!(obj instanceof ColumnarLegImpl)) {
+			return false;
+		}
+		ColumnarLegImpl other = (ColumnarLegImpl) obj;
+		return this.columns == other.columns && this.row == other.row;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * System.identityHashCode(this.columns) + this.row;
+	}
+
+	@Override
+	public String toString() {
+		return "[mode=" + this.getMode() + "]" +
+				"[depTime=" + Time.writeTime(this.getDepartureTime()) + "]" +
+				"[travTime=" + Time.writeTime(this.getTravelTime()) + "]" +
+				"[arrTime=" + Time.writeTime(this.getDepartureTime() + this.getTravelTime()) + "]" +
+				"[route=" + this.getRoute() + "]";
+	}
+
+}
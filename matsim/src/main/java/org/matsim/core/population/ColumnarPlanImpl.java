@@ -0,0 +1,469 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarPlanImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.matsim.api.core.v01.Customizable;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.scenario.CustomizableUtils;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
+
+import static org.matsim.core.population.PlanElementColumns.*;
+
+/**
+ * Implementation of {@link Plan} which stores its activities and legs in {@link PlanElementColumns} instead of
+ * individual objects. The columns are shared by all plans of the population, the plan only keeps the rows of its
+ * elements. {@link #getPlanElements()} returns a list of {@link ColumnarActivityImpl} and {@link ColumnarLegImpl}
+ * views, which are created on access. The plan keeps the views it handed out until it is trimmed or compacted, so
+ * the list returns the same object for an element in the meantime, e.g. during the replanning of the plan. Views
+ * on the same element are equal, so the list can be searched and modified as usual.
+ * <p></p>
+ * Activities and legs created by the {@link ColumnarPopulationFactoryImpl} are moved into the columns when they
+ * are added. All other plan elements, e.g. the ones created by a router through the default factory or elements of
+ * other populations, are stored as they are, so they can still be modified after they were added. {@link #compact()}
+ * moves their data into the columns as well.
+ * <p></p>
+ * Accessing the plan elements and compacting are synchronized on the plan.
+ */
+/* deliberately package */ final class ColumnarPlanImpl implements Plan {
+
+	private static final int[] NO_ELEMENTS = new int[0];
+
+	private PlanElementColumns columns;
+	/** the plan elements, each encoded as <code>row &lt;&lt; 2 | kind</code> */
+	private int[] elements = NO_ELEMENTS;
+	private int size = 0;
+	/**
+	 * per position, the plan element stored as object, or the view on the activity or leg handed out since the
+	 * plan was trimmed or compacted; allocated when needed
+	 */
+	private PlanElement[] objects = null;
+	private final ElementList elementList = new ElementList();
+
+	private double score = 0.0;
+	private boolean hasScore = false;
+	private Person person = null;
+	private String type = null;
+
+	private Customizable customizableDelegate = null;
+	private Attributes attributes = null;
+
+	/* package */ ColumnarPlanImpl(final PlanElementColumns columns) {
+		this.columns = columns;
+	}
+
+	/* package */ PlanElementColumns getColumns() {
+		return this.columns;
+	}
+
+	@Override
+	public Person getPerson() {
+		return this.person;
+	}
+
+	@Override
+	public void setPerson(final Person person) {
+		this.person = person;
+	}
+
+	@Override
+	public Double getScore() {
+		return this.hasScore ? this.score : null;
+	}
+
+	@Override
+	public void setScore(final Double score) {
+		this.hasScore = score != null;
+		this.score = this.hasScore ? score : 0.0;
+	}
+
+	@Override
+	public String getType() {
+		return this.type;
+	}
+
+	@Override
+	public void setType(final String type) {
+		this.type = type;
+	}
+
+	@Override
+	public List<PlanElement> getPlanElements() {
+		return this.elementList;
+	}
+
+	@Override
+	public void addLeg(final Leg leg) {
+		this.elementList.add(leg);
+	}
+
+	@Override
+	public void addActivity(final Activity act) {
+		this.elementList.add(act);
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		if (this.attributes == null) {
+			this.attributes = new Attributes();
+		}
+		return this.attributes;
+	}
+
+	@Override
+	public Map<String, Object> getCustomAttributes() {
+		if (this.customizableDelegate == null) {
+			this.customizableDelegate = CustomizableUtils.createCustomizable();
+		}
+		return this.customizableDelegate.getCustomAttributes();
+	}
+
+	/**
+	 * Reduces the memory used by the plan to the minimum needed for its current elements, and drops the views
+	 * handed out so far. The views stay connected to the plan, but the plan hands out new views from now on.
+	 */
+	/*package*/ synchronized void trim() {
+		if (this.elements.length != this.size) {
+			this.elements = Arrays.copyOf(this.elements, this.size);
+		}
+		dropViews();
+		if (this.attributes != null && this.attributes.isEmpty()) {
+			this.attributes = null;
+		}
+	}
+
+	private void dropViews() {
+		if (this.objects == null) {
+			return;
+		}
+		boolean hasObjects = false;
+		for (int i = 0; i < this.size; i++) {
+			if ((this.elements[i] & 3) == OTHER) {
+				hasObjects = true;
+			} else {
+				this.objects[i] = null;
+			}
+		}
+		this.objects = hasObjects ? Arrays.copyOf(this.objects, this.size) : null;
+	}
+
+	/**
+	 * Moves the data of all activities and legs which are stored as objects into the columns, and trims the plan.
+	 * The activities and legs stored as objects are replaced by views: changes made to these objects afterwards are
+	 * no longer reflected in the plan, so this must only be called when no one holds references to them, e.g. at the
+	 * end of the replanning.
+	 *
+	 * @return <code>true</code> if elements were moved into the columns, <code>false</code> if there was nothing to compact
+	 */
+	/*package*/ synchronized boolean compact() {
+		boolean compacted = false;
+		for (int i = 0; i < this.size; i++) {
+			if ((this.elements[i] & 3) == OTHER) {
+				this.elements[i] = absorb(this.columns, this.objects[i]);
+				compacted |= this.elements[i] != OTHER;
+			}
+		}
+		trim();
+		return compacted;
+	}
+
+	/**
+	 * Like {@link #compact()}, but copies all elements into <code>target</code>, which then become the columns of the
+	 * plan. The views handed out before are moved to the new rows, so they stay connected to the plan.
+	 */
+	/*package*/ synchronized void compactInto(final PlanElementColumns target) {
+		for (int i = 0; i < this.size; i++) {
+			int code = this.elements[i];
+			PlanElement pe = this.objects != null && this.objects[i] != null ? this.objects[i] : decode(code);
+			this.elements[i] = absorb(target, pe);
+			if ((code & 3) == OTHER) {
+				continue;
+			}
+			if (pe instanceof ColumnarActivityImpl) {
+				((ColumnarActivityImpl) pe).columns = target;
+				((ColumnarActivityImpl) pe).row = this.elements[i] >>> 2;
+			} else if (pe instanceof ColumnarLegImpl) {
+				((ColumnarLegImpl) pe).columns = target;
+				((ColumnarLegImpl) pe).row = this.elements[i] >>> 2;
+			}
+		}
+		this.columns = target;
+		trim();
+	}
+
+	private static int absorb(final PlanElementColumns target, final PlanElement pe) {
+		if (pe instanceof Activity) {
+			int row = target.addActivity((Activity) pe);
+			target.setActAttributes(row, nonEmptyAttributes(pe));
+			return code(row, ACTIVITY);
+		}
+		if (pe instanceof Leg) {
+			int row = target.addLeg((Leg) pe);
+			target.setLegRoute(row, ((Leg) pe).getRoute());
+			target.setLegAttributes(row, nonEmptyAttributes(pe));
+			return code(row, LEG);
+		}
+		return OTHER;
+	}
+
+	private static Attributes nonEmptyAttributes(final PlanElement pe) {
+		Attributes attributes;
+		if (pe instanceof ColumnarActivityImpl) {
+			attributes = ((ColumnarActivityImpl) pe).columns.peekActAttributes(((ColumnarActivityImpl) pe).row);
+		} else if (pe instanceof ColumnarLegImpl) {
+			attributes = ((ColumnarLegImpl) pe).columns.peekLegAttributes(((ColumnarLegImpl) pe).row);
+		} else {
+			attributes = pe.getAttributes();
+		}
+		return attributes == null || attributes.isEmpty() ? null : attributes;
+	}
+
+	/**
+	 * Replaces the content of this plan with a copy of <code>in</code>, see {@link PopulationUtils#copyFromTo(Plan, Plan)}.
+	 * The copied activities and legs are directly stored in the columns of this plan.
+	 */
+	/*package*/ void copyFrom(final Plan in) {
+		PlanElementColumns copy = this.columns;
+		List<PlanElement> planElements = in.getPlanElements();
+		int[] codes = new int[planElements.size()];
+		for (int i = 0; i < codes.length; i++) {
+			PlanElement pe = planElements.get(i);
+			if (pe instanceof Activity) {
+				int row = copy.addActivity((Activity) pe);
+				Attributes attributes = nonEmptyAttributes(pe);
+				if (attributes != null) {
+					AttributesUtils.copyTo(attributes, copy.getActAttributes(row));
+				}
+				codes[i] = code(row, ACTIVITY);
+			} else if (pe instanceof Leg) {
+				Leg leg = (Leg) pe;
+				int row = copy.addLeg(leg);
+				if (leg.getRoute() != null) {
+					copy.setLegRoute(row, leg.getRoute().clone());
+				}
+				Attributes attributes = nonEmptyAttributes(pe);
+				if (attributes != null) {
+					AttributesUtils.copyTo(attributes, copy.getLegAttributes(row));
+				}
+				codes[i] = code(row, LEG);
+			} else {
+				throw new IllegalArgumentException("unrecognized plan element type discovered");
+			}
+		}
+		this.elementList.reset(codes);
+		this.setScore(in.getScore());
+		this.setType(in.getType());
+		AttributesUtils.copyAttributesFromTo(in, this);
+	}
+
+	private static int code(final int row, final int kind) {
+		return (row << 2) | kind;
+	}
+
+	/**
+	 * @return the element at the position, with the view handed out before, if any
+	 */
+	private PlanElement getElement(final int index) {
+		PlanElement pe = this.objects == null ? null : this.objects[index];
+		if (pe == null) {
+			pe = decode(this.elements[index]);
+			setElement(index, this.elements[index], pe);
+		}
+		return pe;
+	}
+
+	/**
+	 * Sets the element at the position; if it is stored in the columns, it is the view to hand out from now on.
+	 */
+	private void setElement(final int index, final int code, final PlanElement pe) {
+		this.elements[index] = code;
+		if (this.objects == null) {
+			this.objects = new PlanElement[this.elements.length];
+		}
+		this.objects[index] = pe;
+	}
+
+	private PlanElement decode(final int code) {
+		int row = code >>> 2;
+		switch (code & 3) {
+			case ACTIVITY:
+				return new ColumnarActivityImpl(this.columns, row);
+			case LEG:
+				return new ColumnarLegImpl(this.columns, row);
+			default:
+				throw new IllegalStateException("plan element " + code + " is not stored in the columns");
+		}
+	}
+
+	private int encode(final PlanElement pe) {
+		if (pe instanceof ColumnarActivityImpl) {
+			ColumnarActivityImpl act = (ColumnarActivityImpl) pe;
+			if (act.columns == this.columns) {
+				return code(act.row, ACTIVITY);
+			}
+			if (act.columns.detached) {
+				int row = this.columns.addActivity(act);
+				this.columns.setActAttributes(row, act.columns.peekActAttributes(act.row));
+				act.columns = this.columns;
+				act.row = row;
+				return code(row, ACTIVITY);
+			}
+		} else if (pe instanceof ColumnarLegImpl) {
+			ColumnarLegImpl leg = (ColumnarLegImpl) pe;
+			if (leg.columns == this.columns) {
+				return code(leg.row, LEG);
+			}
+			if (leg.columns.detached) {
+				int row = this.columns.addLeg(leg);
+				this.columns.setLegRoute(row, leg.getRoute());
+				this.columns.setLegAttributes(row, leg.columns.peekLegAttributes(leg.row));
+				leg.columns = this.columns;
+				leg.row = row;
+				return code(row, LEG);
+			}
+		}
+		return OTHER;
+	}
+
+	@Override
+	public String toString() {
+
+		String scoreString = "undefined";
+		if (this.getScore() != null) {
+			scoreString = this.getScore().toString();
+		}
+		String personIdString = "undefined" ;
+		if ( this.getPerson() != null ) {
+			personIdString = this.getPerson().getId().toString() ;
+		}
+
+		return "[score=" + scoreString + "]" +
+				"[nof_acts_legs=" + getPlanElements().size() + "]" +
+				"[type=" + this.type + "]" +
+				"[personId=" + personIdString + "]" ;
+	}
+
+	private final class ElementList extends AbstractList<PlanElement> implements RandomAccess {
+
+		@Override
+		public PlanElement get(final int index) {
+			synchronized (ColumnarPlanImpl.this) {
+				checkIndex(index);
+				return getElement(index);
+			}
+		}
+
+		@Override
+		public PlanElement set(final int index, final PlanElement element) {
+			synchronized (ColumnarPlanImpl.this) {
+				checkIndex(index);
+				PlanElement previous = getElement(index);
+				setElement(index, encode(element), element);
+				return previous;
+			}
+		}
+
+		@Override
+		public void add(final int index, final PlanElement element) {
+			synchronized (ColumnarPlanImpl.this) {
+				int n = ColumnarPlanImpl.this.size;
+				if (index < 0 || index > n) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + n);
+				}
+				int code = encode(element);
+				int[] codes = ColumnarPlanImpl.this.elements;
+				if (n == codes.length) {
+					codes = Arrays.copyOf(codes, n < 4 ? 4 : n + (n >> 1));
+					ColumnarPlanImpl.this.elements = codes;
+					if (ColumnarPlanImpl.this.objects != null) {
+						ColumnarPlanImpl.this.objects = Arrays.copyOf(ColumnarPlanImpl.this.objects, codes.length);
+					}
+				}
+				System.arraycopy(codes, index, codes, index + 1, n - index);
+				if (ColumnarPlanImpl.this.objects != null) {
+					System.arraycopy(ColumnarPlanImpl.this.objects, index, ColumnarPlanImpl.this.objects, index + 1, n - index);
+				}
+				setElement(index, code, element);
+				ColumnarPlanImpl.this.size = n + 1;
+				this.modCount++;
+			}
+		}
+
+		@Override
+		public PlanElement remove(final int index) {
+			synchronized (ColumnarPlanImpl.this) {
+				checkIndex(index);
+				PlanElement previous = getElement(index);
+				removeRange(index, index + 1);
+				return previous;
+			}
+		}
+
+		@Override
+		protected void removeRange(final int fromIndex, final int toIndex) {
+			synchronized (ColumnarPlanImpl.this) {
+				int n = ColumnarPlanImpl.this.size;
+				int[] codes = ColumnarPlanImpl.this.elements;
+				System.arraycopy(codes, toIndex, codes, fromIndex, n - toIndex);
+				PlanElement[] objects = ColumnarPlanImpl.this.objects;
+				if (objects != null) {
+					System.arraycopy(objects, toIndex, objects, fromIndex, n - toIndex);
+					Arrays.fill(objects, n - (toIndex - fromIndex), n, null);
+				}
+				ColumnarPlanImpl.this.size = n - (toIndex - fromIndex);
+				this.modCount++;
+			}
+		}
+
+		@Override
+		public int size() {
+			synchronized (ColumnarPlanImpl.this) {
+				return ColumnarPlanImpl.this.size;
+			}
+		}
+
+		private void reset(final int[] codes) {
+			synchronized (ColumnarPlanImpl.this) {
+				ColumnarPlanImpl.this.elements = codes;
+				ColumnarPlanImpl.this.objects = null;
+				ColumnarPlanImpl.this.size = codes.length;
+				this.modCount++;
+			}
+		}
+
+		private void checkIndex(final int index) {
+			if (index < 0 || index >= ColumnarPlanImpl.this.size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + ColumnarPlanImpl.this.size);
+			}
+		}
+	}
+
+}
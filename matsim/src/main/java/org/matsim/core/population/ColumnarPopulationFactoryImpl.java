@@ -0,0 +1,79 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarPopulationFactoryImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.routes.RouteFactories;
+
+/**
+ * Population factory creating {@link ColumnarPlanImpl}s, which store their activities and legs
+ * in primitive columns shared by all plans of the factory, see {@link PlansConfigGroup.PlanElementStorage#columnar}.
+ */
+/* deliberately package */ final class ColumnarPopulationFactoryImpl extends PopulationFactoryImpl {
+
+	private volatile PlanElementColumns columns = new PlanElementColumns(false);
+
+	ColumnarPopulationFactoryImpl(RouteFactories routeFactory) {
+		super(routeFactory);
+	}
+
+	@Override
+	public Plan createPlan() {
+		return new ColumnarPlanImpl(this.columns);
+	}
+
+	/*package*/ PlanElementColumns getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Sets the columns used by the plans created from now on, see {@link PopulationUtils#compactPlanElements(org.matsim.api.core.v01.population.Population)}.
+	 */
+	/*package*/ void setColumns(final PlanElementColumns columns) {
+		this.columns = columns;
+	}
+
+	@Override
+	public Activity createActivityFromCoord(final String actType, final Coord coord) {
+		Activity act = ColumnarActivityImpl.createDetached(actType);
+		act.setCoord(coord);
+		return act;
+	}
+
+	@Override
+	public Activity createActivityFromLinkId(final String actType, final Id<Link> linkId) {
+		Activity act = ColumnarActivityImpl.createDetached(actType);
+		act.setLinkId(linkId);
+		return act;
+	}
+
+	@Override
+	public Leg createLeg(final String legMode) {
+		return ColumnarLegImpl.createDetached(legMode);
+	}
+
+}
@@ -80,7 +80,14 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 		if (oldPlan == null) {
 			return null;
 		}
-		Plan newPlan = PopulationUtils.createPlan(oldPlan.getPerson());
+		Plan newPlan;
+		if (oldPlan instanceof ColumnarPlanImpl) {
+			// keep the copy columnar, the default factory would create an object-based plan
+			newPlan = new ColumnarPlanImpl(((ColumnarPlanImpl) oldPlan).getColumns());
+			newPlan.setPerson(oldPlan.getPerson());
+		} else {
+			newPlan = PopulationUtils.createPlan(oldPlan.getPerson());
+		}
 		PopulationUtils.copyFromTo(oldPlan, newPlan);
 		this.getPlans().add(newPlan);
 		this.setSelectedPlan(newPlan);
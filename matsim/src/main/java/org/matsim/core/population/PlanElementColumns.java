@@ -0,0 +1,377 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PlanElementColumns.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * Stores the activities and legs of {@link ColumnarPlanImpl}s in columns, i.e. one array per attribute
+ * with one row per activity or leg. The columns are shared by all plans created by a
+ * {@link ColumnarPopulationFactoryImpl}, so a plan only keeps the row numbers of its elements. Times and
+ * coordinates are stored as primitive doubles. Columns which only contain default values, e.g. facility ids,
+ * start times or attributes in most scenarios, are not allocated at all.
+ * <p></p>
+ * The columns are split into chunks of a fixed number of rows. Rows are only appended and never moved or
+ * reused, so {@link ColumnarActivityImpl} and {@link ColumnarLegImpl} can refer to their data by row, and
+ * the rows of removed plans stay unused until {@link PopulationUtils#compactPlanElements} copies the
+ * elements of all plans into new columns.
+ * <p></p>
+ * Rows can be appended by several threads at the same time, e.g. by the replanning threads. A single row
+ * is not thread-safe, like the other implementations of plan elements.
+ */
+final class PlanElementColumns {
+
+	/*package*/ static final int ACTIVITY = 0;
+	/*package*/ static final int LEG = 1;
+	/*package*/ static final int OTHER = 2;
+
+	private static final int CHUNK_BITS = 12;
+
+	// the columns of the activity chunks
+	private static final int ACT_X = 0;
+	private static final int ACT_Y = 1;
+	private static final int ACT_Z = 2;
+	private static final int ACT_START_TIME = 3;
+	private static final int ACT_END_TIME = 4;
+	private static final int ACT_DURATION = 5;
+	private static final int ACT_DOUBLE_COLUMNS = 6;
+	private static final int ACT_LINK_ID = 0;
+	private static final int ACT_FACILITY_ID = 1;
+	private static final int ACT_ATTRIBUTES = 2;
+	private static final int ACT_OBJECT_COLUMNS = 3;
+
+	// the columns of the leg chunks
+	private static final int LEG_DEPARTURE_TIME = 0;
+	private static final int LEG_TRAVEL_TIME = 1;
+	private static final int LEG_DOUBLE_COLUMNS = 2;
+	private static final int LEG_ROUTE = 0;
+	private static final int LEG_ATTRIBUTES = 1;
+	private static final int LEG_OBJECT_COLUMNS = 2;
+
+	/**
+	 * <code>true</code> if these columns belong to a single activity or leg which was created
+	 * by the factory, but was not yet added to a plan.
+	 */
+	/*package*/ final boolean detached;
+
+	private final int chunkBits;
+	private final int rowMask;
+
+	private volatile Chunk[] activityChunks = new Chunk[0];
+	private int activityCount = 0;
+	private volatile Chunk[] legChunks = new Chunk[0];
+	private int legCount = 0;
+
+	/*package*/ PlanElementColumns(final boolean detached) {
+		this.detached = detached;
+		this.chunkBits = detached ? 0 : CHUNK_BITS;
+		this.rowMask = (1 << this.chunkBits) - 1;
+	}
+
+	/*package*/ synchronized int getActivityCount() {
+		return this.activityCount;
+	}
+
+	/*package*/ synchronized int getLegCount() {
+		return this.legCount;
+	}
+
+	// activities
+
+	/**
+	 * @return the row of a new activity with the given type and default values otherwise
+	 */
+	/*package*/ int addActivity(final String type) {
+		int row;
+		synchronized (this) {
+			row = this.activityCount++;
+			if ((row >>> this.chunkBits) == this.activityChunks.length) {
+				this.activityChunks = appendChunk(this.activityChunks, ACT_DOUBLE_COLUMNS, ACT_OBJECT_COLUMNS);
+			}
+		}
+		setActType(row, type);
+		return row;
+	}
+
+	/**
+	 * @return the row of a new activity with the values of <code>act</code>, except its attributes
+	 */
+	/*package*/ int addActivity(final Activity act) {
+		int row = addActivity(act.getType());
+		setActLinkId(row, act.getLinkId());
+		setActFacilityId(row, act.getFacilityId());
+		setActCoord(row, act.getCoord());
+		setActStartTime(row, act.getStartTime());
+		setActEndTime(row, act.getEndTime());
+		setActMaximumDuration(row, act.getMaximumDuration());
+		return row;
+	}
+
+	/*package*/ String getActType(final int row) {
+		return this.activityChunks[row >>> this.chunkBits].names[row & this.rowMask];
+	}
+
+	/*package*/ void setActType(final int row, final String type) {
+		this.activityChunks[row >>> this.chunkBits].names[row & this.rowMask] = type.intern();
+	}
+
+	/*package*/ Id<Link> getActLinkId(final int row) {
+		return getObject(this.activityChunks, ACT_LINK_ID, row);
+	}
+
+	/*package*/ void setActLinkId(final int row, final Id<Link> linkId) {
+		setObject(this.activityChunks, ACT_LINK_ID, row, linkId);
+	}
+
+	/*package*/ Id<ActivityFacility> getActFacilityId(final int row) {
+		return getObject(this.activityChunks, ACT_FACILITY_ID, row);
+	}
+
+	/*package*/ void setActFacilityId(final int row, final Id<ActivityFacility> facilityId) {
+		setObject(this.activityChunks, ACT_FACILITY_ID, row, facilityId);
+	}
+
+	/*package*/ Coord getActCoord(final int row) {
+		double x = getDouble(this.activityChunks, ACT_X, row, Double.NaN);
+		if (Double.isNaN(x)) {
+			return null;
+		}
+		double y = getDouble(this.activityChunks, ACT_Y, row, Double.NaN);
+		double z = getDouble(this.activityChunks, ACT_Z, row, Double.NEGATIVE_INFINITY);
+		if (z == Double.NEGATIVE_INFINITY) {
+			return new Coord(x, y);
+		}
+		return new Coord(x, y, z);
+	}
+
+	/*package*/ void setActCoord(final int row, final Coord coord) {
+		if (coord == null) {
+			setDouble(this.activityChunks, ACT_X, row, Double.NaN, Double.NaN);
+			return;
+		}
+		setDouble(this.activityChunks, ACT_X, row, coord.getX(), Double.NaN);
+		setDouble(this.activityChunks, ACT_Y, row, coord.getY(), Double.NaN);
+		setDouble(this.activityChunks, ACT_Z, row, coord.hasZ() ? coord.getZ() : Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+	}
+
+	/*package*/ double getActStartTime(final int row) {
+		return getDouble(this.activityChunks, ACT_START_TIME, row, Time.UNDEFINED_TIME);
+	}
+
+	/*package*/ void setActStartTime(final int row, final double time) {
+		setDouble(this.activityChunks, ACT_START_TIME, row, time, Time.UNDEFINED_TIME);
+	}
+
+	/*package*/ double getActEndTime(final int row) {
+		return getDouble(this.activityChunks, ACT_END_TIME, row, Time.UNDEFINED_TIME);
+	}
+
+	/*package*/ void setActEndTime(final int row, final double time) {
+		setDouble(this.activityChunks, ACT_END_TIME, row, time, Time.UNDEFINED_TIME);
+	}
+
+	/*package*/ double getActMaximumDuration(final int row) {
+		return getDouble(this.activityChunks, ACT_DURATION, row, Time.UNDEFINED_TIME);
+	}
+
+	/*package*/ void setActMaximumDuration(final int row, final double duration) {
+		setDouble(this.activityChunks, ACT_DURATION, row, duration, Time.UNDEFINED_TIME);
+	}
+
+	/**
+	 * @return the attributes of the activity, or <code>null</code> if they were never accessed
+	 */
+	/*package*/ Attributes peekActAttributes(final int row) {
+		return getObject(this.activityChunks, ACT_ATTRIBUTES, row);
+	}
+
+	/*package*/ Attributes getActAttributes(final int row) {
+		Attributes attributes = peekActAttributes(row);
+		if (attributes == null) {
+			attributes = new Attributes();
+			setActAttributes(row, attributes);
+		}
+		return attributes;
+	}
+
+	/*package*/ void setActAttributes(final int row, final Attributes attributes) {
+		setObject(this.activityChunks, ACT_ATTRIBUTES, row, attributes);
+	}
+
+	// legs
+
+	/**
+	 * @return the row of a new leg with the given mode and default values otherwise
+	 */
+	/*package*/ int addLeg(final String mode) {
+		int row;
+		synchronized (this) {
+			row = this.legCount++;
+			if ((row >>> this.chunkBits) == this.legChunks.length) {
+				this.legChunks = appendChunk(this.legChunks, LEG_DOUBLE_COLUMNS, LEG_OBJECT_COLUMNS);
+			}
+		}
+		setLegMode(row, mode);
+		return row;
+	}
+
+	/**
+	 * @return the row of a new leg with the values of <code>leg</code>, except its route and attributes
+	 */
+	/*package*/ int addLeg(final Leg leg) {
+		int row = addLeg(leg.getMode());
+		setLegDepartureTime(row, leg.getDepartureTime());
+		setLegTravelTime(row, leg.getTravelTime());
+		return row;
+	}
+
+	/*package*/ String getLegMode(final int row) {
+		return this.legChunks[row >>> this.chunkBits].names[row & this.rowMask];
+	}
+
+	/*package*/ void setLegMode(final int row, final String mode) {
+		this.legChunks[row >>> this.chunkBits].names[row & this.rowMask] = mode;
+	}
+
+	/*package*/ Route getLegRoute(final int row) {
+		return getObject(this.legChunks, LEG_ROUTE, row);
+	}
+
+	/*package*/ void setLegRoute(final int row, final Route route) {
+		setObject(this.legChunks, LEG_ROUTE, row, route);
+	}
+
+	/*package*/ double getLegDepartureTime(final int row) {
+		return getDouble(this.legChunks, LEG_DEPARTURE_TIME, row, Time.UNDEFINED_TIME);
+	}
+
+	/*package*/ void setLegDepartureTime(final int row, final double time) {
+		setDouble(this.legChunks, LEG_DEPARTURE_TIME, row, time, Time.UNDEFINED_TIME);
+	}
+
+	/*package*/ double getLegTravelTime(final int row) {
+		return getDouble(this.legChunks, LEG_TRAVEL_TIME, row, Time.UNDEFINED_TIME);
+	}
+
+	/*package*/ void setLegTravelTime(final int row, final double time) {
+		setDouble(this.legChunks, LEG_TRAVEL_TIME, row, time, Time.UNDEFINED_TIME);
+	}
+
+	/**
+	 * @return the attributes of the leg, or <code>null</code> if they were never accessed
+	 */
+	/*package*/ Attributes peekLegAttributes(final int row) {
+		return getObject(this.legChunks, LEG_ATTRIBUTES, row);
+	}
+
+	/*package*/ Attributes getLegAttributes(final int row) {
+		Attributes attributes = peekLegAttributes(row);
+		if (attributes == null) {
+			attributes = new Attributes();
+			setLegAttributes(row, attributes);
+		}
+		return attributes;
+	}
+
+	/*package*/ void setLegAttributes(final int row, final Attributes attributes) {
+		setObject(this.legChunks, LEG_ATTRIBUTES, row, attributes);
+	}
+
+	// helpers
+
+	private Chunk[] appendChunk(final Chunk[] chunks, final int doubleColumns, final int objectColumns) {
+		Chunk[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+		grown[chunks.length] = new Chunk(1 << this.chunkBits, doubleColumns, objectColumns);
+		return grown;
+	}
+
+	private double getDouble(final Chunk[] chunks, final int column, final int row, final double defaultValue) {
+		double[] values = chunks[row >>> this.chunkBits].doubles.get(column);
+		return values == null ? defaultValue : values[row & this.rowMask];
+	}
+
+	/**
+	 * Sets a value in a column of a chunk, which is only allocated once it contains a value different
+	 * from <code>defaultValue</code>.
+	 */
+	private void setDouble(final Chunk[] chunks, final int column, final int row, final double value, final double defaultValue) {
+		Chunk chunk = chunks[row >>> this.chunkBits];
+		double[] values = chunk.doubles.get(column);
+		if (values == null) {
+			if (Double.compare(value, defaultValue) == 0) {
+				return;
+			}
+			double[] allocated = new double[chunk.names.length];
+			Arrays.fill(allocated, defaultValue);
+			chunk.doubles.compareAndSet(column, null, allocated);
+			values = chunk.doubles.get(column);
+		}
+		values[row & this.rowMask] = value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T getObject(final Chunk[] chunks, final int column, final int row) {
+		Object[] values = chunks[row >>> this.chunkBits].objects.get(column);
+		return values == null ? null : (T) values[row & this.rowMask];
+	}
+
+	private void setObject(final Chunk[] chunks, final int column, final int row, final Object value) {
+		Chunk chunk = chunks[row >>> this.chunkBits];
+		Object[] values = chunk.objects.get(column);
+		if (values == null) {
+			if (value == null) {
+				return;
+			}
+			chunk.objects.compareAndSet(column, null, new Object[chunk.names.length]);
+			values = chunk.objects.get(column);
+		}
+		values[row & this.rowMask] = value;
+	}
+
+	/**
+	 * A fixed number of rows of activities or legs. The columns are allocated with the first value
+	 * different from the default value, possibly by several threads at the same time.
+	 */
+	private static final class Chunk {
+		/** activity types or leg modes, which are always set */
+		final String[] names;
+		final AtomicReferenceArray<double[]> doubles;
+		final AtomicReferenceArray<Object[]> objects;
+
+		Chunk(final int rows, final int doubleColumns, final int objectColumns) {
+			this.names = new String[rows];
+			this.doubles = new AtomicReferenceArray<>(doubleColumns);
+			this.objects = new AtomicReferenceArray<>(objectColumns);
+		}
+	}
+
+}
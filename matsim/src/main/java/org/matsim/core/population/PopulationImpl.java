@@ -24,6 +24,7 @@ import java.util.Map;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.PopulationFactory;
 import org.matsim.core.scenario.Lockable;
@@ -41,12 +42,17 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 	private String name;
 	private Map<Id<Person>, Person> persons = new LinkedHashMap<>();
 	private final PopulationFactory populationFactory;
-	private final ObjectAttributes personAttributes = new ObjectAttributes();
+	private final ObjectAttributes personAttributes;
 	private long counter = 0;
 	private long nextMsg = 1;
 
 	PopulationImpl(PopulationFactory populationFactory2) {
+		this(populationFactory2, new ObjectAttributes());
+	}
+
+	PopulationImpl(PopulationFactory populationFactory2, ObjectAttributes personAttributes) {
 		this.populationFactory = populationFactory2 ;
+		this.personAttributes = personAttributes ;
 	}
 
 	@Override
@@ -58,6 +64,12 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 		if ( p instanceof Lockable ) {
 			((Lockable) p).setLocked();
 		}
+		for ( Plan plan : p.getPlans() ) {
+			if ( plan instanceof ColumnarPlanImpl ) {
+				// the plan grows in steps while it is built up, and keeps the views handed out so far
+				((ColumnarPlanImpl) plan).trim();
+			}
+		}
 
 		// show counter
 		this.counter++;
@@ -53,6 +53,7 @@ import org.matsim.core.gbl.Gbl;
 import org.matsim.core.population.io.PopulationWriter;
 import org.matsim.core.population.io.StreamingPopulationReader;
 import org.matsim.core.population.routes.CompressedNetworkRouteFactory;
+import org.matsim.core.population.routes.PooledNetworkRouteFactory;
 import org.matsim.core.population.routes.LinkNetworkRouteFactory;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.population.routes.RouteFactories;
@@ -66,6 +67,8 @@ import org.matsim.core.utils.io.UncheckedIOException;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.facilities.ActivityFacilities;
 import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.ColumnarObjectAttributes;
+import org.matsim.utils.objectattributes.ObjectAttributes;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 import org.matsim.utils.objectattributes.attributable.AttributesUtils;
 
@@ -116,11 +119,67 @@ public final class PopulationUtils {
 			factory = new LinkNetworkRouteFactory();
 		} else if (PlansConfigGroup.NetworkRouteType.CompressedNetworkRoute.equals(networkRouteType) && network != null) {
 			factory = new CompressedNetworkRouteFactory(network);
+		} else if (PlansConfigGroup.NetworkRouteType.PooledNetworkRoute.equals(networkRouteType)) {
+			factory = new PooledNetworkRouteFactory();
 		} else {
 			throw new IllegalArgumentException("The type \"" + networkRouteType + "\" is not a supported type for network routes.");
 		}
 		routeFactory.setRouteFactory(NetworkRoute.class, factory);
-		return new PopulationImpl(new PopulationFactoryImpl(routeFactory));
+		ObjectAttributes personAttributes =
+				plansConfigGroup.getPersonAttributesStorage() == PlansConfigGroup.PersonAttributesStorage.columnar ?
+				new ColumnarObjectAttributes() : new ObjectAttributes();
+		if (plansConfigGroup.getPlanElementStorage() == PlansConfigGroup.PlanElementStorage.columnar) {
+			return new PopulationImpl(new ColumnarPopulationFactoryImpl(routeFactory), personAttributes);
+		}
+		return new PopulationImpl(new PopulationFactoryImpl(routeFactory), personAttributes);
+	}
+
+	/**
+	 * Moves activities and legs which were added to the plans by the replanning into the columns of the population,
+	 * if the population uses {@link PlansConfigGroup.PlanElementStorage#columnar}; does nothing otherwise.
+	 * The activities and legs added as objects, e.g. by a router, are replaced by views in the plans, so this must
+	 * only be called when no one holds references to them, e.g. at the end of the replanning.
+	 * <p></p>
+	 * Once most rows of the columns belong to plans which were removed or modified, the elements of all plans are
+	 * copied into new columns, and the old ones are reclaimed by the garbage collector.
+	 */
+	public static void compactPlanElements(Population population) {
+		if (!(population.getFactory() instanceof ColumnarPopulationFactoryImpl)) {
+			return;
+		}
+		ColumnarPopulationFactoryImpl factory = (ColumnarPopulationFactoryImpl) population.getFactory();
+		PlanElementColumns columns = factory.getColumns();
+		long elements = 0;
+		for (Person person : population.getPersons().values()) {
+			for (Plan plan : person.getPlans()) {
+				if (plan instanceof ColumnarPlanImpl) {
+					elements += plan.getPlanElements().size();
+				}
+			}
+		}
+		long rows = (long) columns.getActivityCount() + columns.getLegCount();
+		if (rows > 2 * elements) {
+			PlanElementColumns compacted = new PlanElementColumns(false);
+			for (Person person : population.getPersons().values()) {
+				for (Plan plan : person.getPlans()) {
+					if (plan instanceof ColumnarPlanImpl) {
+						((ColumnarPlanImpl) plan).compactInto(compacted);
+					}
+				}
+			}
+			factory.setColumns(compacted);
+			log.info("copied the " + elements + " plan elements into new columns, releasing " + rows + " rows.");
+			return;
+		}
+		long compacted = 0;
+		for (Person person : population.getPersons().values()) {
+			for (Plan plan : person.getPlans()) {
+				if (plan instanceof ColumnarPlanImpl && ((ColumnarPlanImpl) plan).compact()) {
+					compacted++;
+				}
+			}
+		}
+		log.info("compacted the plan elements of " + compacted + " plans.");
 	}
 
 	//	public static Population createStreamingPopulation(PlansConfigGroup plansConfigGroup, Network network) {
@@ -785,6 +844,10 @@ public final class PopulationUtils {
 	 * @param out 
 	 **/
 	public static void copyFromTo(final Plan in, Plan out) {
+		if (out instanceof ColumnarPlanImpl) {
+			((ColumnarPlanImpl) out).copyFrom(in);
+			return;
+		}
 		out.getPlanElements().clear();
 		out.setScore(in.getScore());
 		out.setType(in.getType());
@@ -0,0 +1,295 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.io.BinaryImageInput;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.misc.Counter;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.vehicles.Vehicle;
+
+import static org.matsim.core.population.io.BinaryPopulationWriter.*;
+
+/**
+ * Reads a population written by {@link BinaryPopulationWriter} and adds the persons
+ * to the population of the scenario.
+ */
+public final class BinaryPopulationReader implements MatsimReader {
+
+	private final static Logger log = Logger.getLogger(BinaryPopulationReader.class);
+
+	private final CoordinateTransformation coordinateTransformation;
+	private final Population population;
+	private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter();
+	private final Counter counter = new Counter("[" + this.getClass().getSimpleName() + "] read person # ");
+
+	private BinaryImageInput in = null;
+	private final List<Id<Link>> linkIds = new ArrayList<>();
+
+	public BinaryPopulationReader(final Scenario scenario) {
+		this(new IdentityTransformation(), scenario);
+	}
+
+	/**
+	 * @param coordinateTransformation transformation from the CRS of the file to the internal CRS
+	 */
+	public BinaryPopulationReader(final CoordinateTransformation coordinateTransformation, final Scenario scenario) {
+		this.coordinateTransformation = coordinateTransformation;
+		this.population = scenario.getPopulation();
+	}
+
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		this.attributesConverter.putAttributeConverters( converters );
+	}
+
+	/**
+	 * @return <code>true</code> if the name of the file indicates that it is a binary population,
+	 * i.e. it ends with <code>.bin</code> or <code>.bin.gz</code>.
+	 */
+	public static boolean isBinaryPopulationFilename(final String filename) {
+		String name = filename.toLowerCase(Locale.ROOT);
+		return name.endsWith(".bin") || name.endsWith(".bin.gz");
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		log.info("reading binary population from " + filename);
+		parse(IOUtils.getInputStream(filename));
+	}
+
+	public void readURL(final URL url) {
+		log.info("reading binary population from " + url);
+		parse(IOUtils.getInputStream(url));
+	}
+
+	/**
+	 * Reads the population from the input stream and closes it.
+	 */
+	public void parse(final InputStream stream) {
+		try (BinaryImageInput imageIn = new BinaryImageInput(stream)) {
+			this.in = imageIn;
+			imageIn.readHeader(MAGIC, VERSION);
+			String name = imageIn.readString();
+			if (name != null) {
+				this.population.setName(name);
+			}
+			imageIn.readAttributes(this.population.getAttributes(), this.attributesConverter);
+			PopulationFactory factory = this.population.getFactory();
+			int tag;
+			while ((tag = imageIn.readVarInt()) == PERSON) {
+				this.population.addPerson(readPerson(factory));
+				this.counter.incCounter();
+			}
+			if (tag != END) {
+				throw new RuntimeException("Unexpected element " + tag + " in binary population file.");
+			}
+		} finally {
+			this.in = null;
+			this.linkIds.clear();
+			this.counter.printCounter();
+			this.counter.reset();
+		}
+	}
+
+	private Person readPerson(final PopulationFactory factory) {
+		Person person = factory.createPerson(Id.create(this.in.readRawString(), Person.class));
+		this.in.readAttributes(person.getAttributes(), this.attributesConverter);
+		Plan plan = null;
+		int tag;
+		while ((tag = this.in.readVarInt()) != END) {
+			switch (tag) {
+				case PLAN:
+					trimPlan(plan);
+					plan = readPlan(person, factory);
+					break;
+				case ACTIVITY:
+					plan.addActivity(readActivity(factory));
+					break;
+				case LEG:
+					plan.addLeg(readLeg(factory));
+					break;
+				default:
+					throw new RuntimeException("Unexpected element " + tag + " in person " + person.getId());
+			}
+		}
+		trimPlan(plan);
+		return person;
+	}
+
+	private static void trimPlan(final Plan plan) {
+		if (plan != null && plan.getPlanElements() instanceof ArrayList<?>) {
+			((ArrayList<?>) plan.getPlanElements()).trimToSize();
+		}
+	}
+
+	private Plan readPlan(final Person person, final PopulationFactory factory) {
+		int flags = this.in.readVarInt();
+		Plan plan = factory.createPlan();
+		person.addPlan(plan);
+		if ((flags & FLAG_SELECTED) != 0) {
+			person.setSelectedPlan(plan);
+		}
+		if ((flags & FLAG_SCORE) != 0) {
+			plan.setScore(this.in.readDouble());
+		}
+		String type = this.in.readString();
+		if (type != null) {
+			plan.setType(type);
+		}
+		this.in.readAttributes(plan.getAttributes(), this.attributesConverter);
+		return plan;
+	}
+
+	private Activity readActivity(final PopulationFactory factory) {
+		int flags = this.in.readVarInt();
+		String type = this.in.readString();
+		Id<Link> linkId = (flags & FLAG_LINK) != 0 ? readLinkId() : null;
+		Coord coord = null;
+		if ((flags & FLAG_COORD) != 0) {
+			double x = this.in.readDouble();
+			double y = this.in.readDouble();
+			coord = (flags & FLAG_COORD_Z) != 0 ? new Coord(x, y, this.in.readDouble()) : new Coord(x, y);
+			coord = this.coordinateTransformation.transform(coord);
+		}
+		Activity act;
+		if (linkId != null) {
+			act = factory.createActivityFromLinkId(type, linkId);
+			if (coord != null) {
+				act.setCoord(coord);
+			}
+		} else {
+			act = factory.createActivityFromCoord(type, coord);
+		}
+		if ((flags & FLAG_FACILITY) != 0) {
+			act.setFacilityId(Id.create(this.in.readString(), ActivityFacility.class));
+		}
+		act.setStartTime(readTime());
+		act.setMaximumDuration(readTime());
+		act.setEndTime(readTime());
+		this.in.readAttributes(act.getAttributes(), this.attributesConverter);
+		return act;
+	}
+
+	private Leg readLeg(final PopulationFactory factory) {
+		int flags = this.in.readVarInt();
+		Leg leg = factory.createLeg(this.in.readString());
+		leg.setDepartureTime(readTime());
+		leg.setTravelTime(readTime());
+		this.in.readAttributes(leg.getAttributes(), this.attributesConverter);
+		if ((flags & FLAG_ROUTE) != 0) {
+			RouteFactories routeFactories = factory.getRouteFactories();
+			Class<? extends Route> routeClass = routeFactories.getRouteClassForType(this.in.readString());
+			Id<Link> startLinkId = readLinkId();
+			Id<Link> endLinkId = readLinkId();
+			Route route = routeFactories.createRoute(routeClass, startLinkId, endLinkId);
+			route.setTravelTime(readTime());
+			route.setDistance(this.in.readDouble());
+			if ((flags & FLAG_NETWORK_ROUTE) != 0) {
+				int count = this.in.readVarInt();
+				List<Id<Link>> routeLinkIds = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					routeLinkIds.add(readLinkId());
+				}
+				String vehicleId = this.in.readString();
+				if (route instanceof NetworkRoute) {
+					NetworkRoute networkRoute = (NetworkRoute) route;
+					networkRoute.setLinkIds(startLinkId, routeLinkIds, endLinkId);
+					if (vehicleId != null) {
+						networkRoute.setVehicleId(Id.create(vehicleId, Vehicle.class));
+					}
+				} else {
+					// the route type is configured differently than when the file was written
+					StringBuilder description = new StringBuilder();
+					for (Id<Link> linkId : routeLinkIds) {
+						description.append(linkId.toString()).append(' ');
+					}
+					route.setRouteDescription(description.toString().trim());
+				}
+			} else {
+				String description = this.in.readRawString();
+				if (description != null) {
+					route.setRouteDescription(description);
+				}
+			}
+			leg.setRoute(route);
+		}
+		return leg;
+	}
+
+	private double readTime() {
+		int code = this.in.readVarInt();
+		if (code == TIME_UNDEFINED) {
+			return Time.UNDEFINED_TIME;
+		}
+		if (code == TIME_DOUBLE) {
+			return this.in.readDouble();
+		}
+		return code - TIME_OFFSET;
+	}
+
+	/**
+	 * Link ids are cached by their index in the string table, so routes are
+	 * built from the indices without looking up the ids again.
+	 */
+	private Id<Link> readLinkId() {
+		int index = this.in.readStringIndex();
+		if (index < 0) {
+			return null;
+		}
+		while (this.linkIds.size() <= index) {
+			this.linkIds.add(null);
+		}
+		Id<Link> linkId = this.linkIds.get(index);
+		if (linkId == null) {
+			linkId = Id.create(this.in.getString(index), Link.class);
+			this.linkIds.set(index, linkId);
+		}
+		return linkId;
+	}
+
+}
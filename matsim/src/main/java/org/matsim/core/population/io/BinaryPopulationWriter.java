@@ -0,0 +1,245 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.api.internal.MatsimWriter;
+import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.io.BinaryImageOutput;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.misc.Counter;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+
+/**
+ * Writes a population in a compact binary format, containing the same information as
+ * <code>population_v6</code>. It is meant for snapshots of the population which have to be
+ * read again quickly, e.g. to restart a run from an intermediate iteration, and can be read
+ * with {@link BinaryPopulationReader}.
+ * <p></p>
+ * The file is written with {@link BinaryImageOutput}, so repeated strings like activity types,
+ * modes and link ids are written only once and afterwards referenced by their index in a string
+ * table. Network routes are written as arrays of such indices, times and counts are written as
+ * variable-length integers. If the filename ends with ".gz", the file is additionally
+ * gzip-compressed.
+ */
+public final class BinaryPopulationWriter implements MatsimWriter {
+
+	private final static Logger log = Logger.getLogger(BinaryPopulationWriter.class);
+
+	/** the first four bytes of a binary population file, "MPOP" */
+	public static final int MAGIC = 0x4d504f50;
+	/*package*/ static final int VERSION = 2;
+
+	/*package*/ static final int END = 0;
+	/*package*/ static final int PERSON = 1;
+	/*package*/ static final int PLAN = 2;
+	/*package*/ static final int ACTIVITY = 3;
+	/*package*/ static final int LEG = 4;
+
+	/*package*/ static final int TIME_UNDEFINED = 0;
+	/*package*/ static final int TIME_DOUBLE = 1;
+	/*package*/ static final int TIME_OFFSET = 2;
+
+	/*package*/ static final int FLAG_SELECTED = 1;
+	/*package*/ static final int FLAG_SCORE = 2;
+	/*package*/ static final int FLAG_LINK = 1;
+	/*package*/ static final int FLAG_COORD = 2;
+	/*package*/ static final int FLAG_COORD_Z = 4;
+	/*package*/ static final int FLAG_FACILITY = 8;
+	/*package*/ static final int FLAG_ROUTE = 1;
+	/*package*/ static final int FLAG_NETWORK_ROUTE = 2;
+
+	private final CoordinateTransformation coordinateTransformation;
+	private final Population population;
+	private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter();
+	private final Counter counter = new Counter("[" + this.getClass().getSimpleName() + "] dumped person # ");
+
+	private BinaryImageOutput out = null;
+
+	public BinaryPopulationWriter(final Population population) {
+		this(new IdentityTransformation(), population);
+	}
+
+	/**
+	 * @param coordinateTransformation transformation from the internal CRS to the CRS in which the file should be written
+	 * @param population the population to write to file
+	 */
+	public BinaryPopulationWriter(final CoordinateTransformation coordinateTransformation, final Population population) {
+		this.coordinateTransformation = coordinateTransformation;
+		this.population = population;
+	}
+
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		this.attributesConverter.putAttributeConverters( converters );
+	}
+
+	@Override
+	public void write(final String filename) {
+		write(IOUtils.getOutputStream(filename));
+		log.info("Population written to: " + filename);
+	}
+
+	/**
+	 * Writes the population to the output stream and closes it.
+	 */
+	public void write(final OutputStream outputStream) {
+		try (BinaryImageOutput imageOut = new BinaryImageOutput(outputStream)) {
+			this.out = imageOut;
+			imageOut.writeHeader(MAGIC, VERSION);
+			imageOut.writeString(this.population.getName());
+			imageOut.writeAttributes(this.population.getAttributes(), this.attributesConverter);
+			for (Person person : PopulationUtils.getSortedPersons(this.population).values()) {
+				writePerson(person);
+				this.counter.incCounter();
+			}
+			imageOut.writeVarInt(END);
+		} finally {
+			this.out = null;
+			this.counter.printCounter();
+			this.counter.reset();
+		}
+	}
+
+	private void writePerson(final Person person) {
+		this.out.writeVarInt(PERSON);
+		this.out.writeRawString(person.getId().toString());
+		this.out.writeAttributes(person.getAttributes(), this.attributesConverter);
+		for (Plan plan : person.getPlans()) {
+			this.out.writeVarInt(PLAN);
+			int flags = (PersonUtils.isSelected(plan) ? FLAG_SELECTED : 0) | (plan.getScore() != null ? FLAG_SCORE : 0);
+			this.out.writeVarInt(flags);
+			if (plan.getScore() != null) {
+				this.out.writeDouble(plan.getScore());
+			}
+			this.out.writeString(plan.getType());
+			this.out.writeAttributes(plan.getAttributes(), this.attributesConverter);
+			for (PlanElement pe : plan.getPlanElements()) {
+				if (pe instanceof Activity) {
+					writeActivity((Activity) pe);
+				} else if (pe instanceof Leg) {
+					writeLeg((Leg) pe);
+				}
+			}
+		}
+		this.out.writeVarInt(END);
+	}
+
+	private void writeActivity(final Activity act) {
+		this.out.writeVarInt(ACTIVITY);
+		int flags = 0;
+		if (act.getLinkId() != null) {
+			flags |= FLAG_LINK;
+		}
+		if (act.getCoord() != null) {
+			flags |= act.getCoord().hasZ() ? FLAG_COORD | FLAG_COORD_Z : FLAG_COORD;
+		}
+		if (act.getFacilityId() != null) {
+			flags |= FLAG_FACILITY;
+		}
+		this.out.writeVarInt(flags);
+		this.out.writeString(act.getType());
+		if (act.getLinkId() != null) {
+			this.out.writeString(act.getLinkId().toString());
+		}
+		if (act.getCoord() != null) {
+			Coord coord = this.coordinateTransformation.transform(act.getCoord());
+			this.out.writeDouble(coord.getX());
+			this.out.writeDouble(coord.getY());
+			if (act.getCoord().hasZ()) {
+				this.out.writeDouble(coord.getZ());
+			}
+		}
+		if (act.getFacilityId() != null) {
+			this.out.writeString(act.getFacilityId().toString());
+		}
+		writeTime(act.getStartTime());
+		writeTime(act.getMaximumDuration());
+		writeTime(act.getEndTime());
+		this.out.writeAttributes(act.getAttributes(), this.attributesConverter);
+	}
+
+	private void writeLeg(final Leg leg) {
+		this.out.writeVarInt(LEG);
+		Route route = leg.getRoute();
+		int flags = 0;
+		if (route != null) {
+			flags |= route instanceof NetworkRoute ? FLAG_ROUTE | FLAG_NETWORK_ROUTE : FLAG_ROUTE;
+		}
+		this.out.writeVarInt(flags);
+		this.out.writeString(leg.getMode());
+		writeTime(leg.getDepartureTime());
+		writeTime(leg.getTravelTime());
+		this.out.writeAttributes(leg.getAttributes(), this.attributesConverter);
+		if (route != null) {
+			this.out.writeString(route.getRouteType());
+			this.out.writeString(route.getStartLinkId() == null ? null : route.getStartLinkId().toString());
+			this.out.writeString(route.getEndLinkId() == null ? null : route.getEndLinkId().toString());
+			writeTime(route.getTravelTime());
+			this.out.writeDouble(route.getDistance());
+			if (route instanceof NetworkRoute) {
+				NetworkRoute networkRoute = (NetworkRoute) route;
+				List<Id<Link>> linkIds = networkRoute.getLinkIds();
+				this.out.writeVarInt(linkIds.size());
+				for (Id<Link> linkId : linkIds) {
+					this.out.writeString(linkId.toString());
+				}
+				this.out.writeString(networkRoute.getVehicleId() == null ? null : networkRoute.getVehicleId().toString());
+			} else {
+				this.out.writeRawString(route.getRouteDescription());
+			}
+		}
+	}
+
+	/**
+	 * Times are mostly whole seconds, which are written as small variable-length integers.
+	 */
+	private void writeTime(final double time) {
+		if (Time.isUndefinedTime(time)) {
+			this.out.writeVarInt(TIME_UNDEFINED);
+		} else if (time >= 0 && time < Integer.MAX_VALUE - TIME_OFFSET && time == Math.floor(time)) {
+			this.out.writeVarInt((int) time + TIME_OFFSET);
+		} else {
+			this.out.writeVarInt(TIME_DOUBLE);
+			this.out.writeDouble(time);
+		}
+	}
+
+}
@@ -0,0 +1,322 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelPopulationReaderMatsimV6.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributes;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Parallel implementation of the PopulationReaderMatsimV6. The main thread only reads the
+ * file and collects the xml data of the persons in blocks. The blocks are interpreted by a
+ * pool of threads, creating the persons with their plans, routes and attributes. The persons
+ * are added to the population by the main thread in the order of the blocks, so the order
+ * of the persons in the population is the same as in the file.
+ * <p></p>
+ * Like in {@link ParallelPopulationReaderMatsimV4}, this approach is not compatible with
+ * population streaming. When streaming is activated, or only one thread is configured,
+ * the xml data is interpreted directly by the non-parallel reader.
+ */
+/* deliberately package */ class ParallelPopulationReaderMatsimV6 extends PopulationReaderMatsimV6 {
+
+	private static final Logger log = Logger.getLogger(ParallelPopulationReaderMatsimV6.class);
+
+	private final static String POPULATION = "population";
+	private final static String PERSON = "person";
+
+	/*package*/ static final int PERSONS_PER_BLOCK = 100;
+
+	private final CoordinateTransformation coordinateTransformation;
+	private final Scenario scenario;
+	private final boolean isSequential;
+	private final int numThreads;
+	private final Map<Class<?>, AttributeConverter<?>> attributeConverters = new HashMap<>();
+
+	private ExecutorService executor = null;
+	private final Deque<Future<List<Person>>> pendingBlocks = new ArrayDeque<>();
+	private List<Tag> currentBlock = new ArrayList<>();
+	private int personsInBlock = 0;
+	private boolean inPerson = false;
+
+	public ParallelPopulationReaderMatsimV6(final Scenario scenario) {
+		this( new IdentityTransformation() , scenario );
+	}
+
+	public ParallelPopulationReaderMatsimV6(
+			final CoordinateTransformation coordinateTransformation,
+			final Scenario scenario) {
+		super( coordinateTransformation , scenario );
+		this.coordinateTransformation = coordinateTransformation;
+		this.scenario = scenario;
+
+		if ( scenario.getPopulation() instanceof StreamingPopulationReader.StreamingPopulation ) {
+			log.warn("Population streaming is activated - cannot use " + ParallelPopulationReaderMatsimV6.class.getName() + "!");
+			this.isSequential = true;
+			this.numThreads = 1;
+		} else {
+			this.numThreads = Math.max(1, scenario.getConfig().global().getNumberOfThreads());
+			this.isSequential = this.numThreads == 1;
+		}
+	}
+
+	@Override
+	public void putAttributeConverter( final Class<?> clazz , AttributeConverter<?> converter ) {
+		super.putAttributeConverter( clazz , converter );
+		this.attributeConverters.put( clazz , converter );
+	}
+
+	@Override
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		super.putAttributeConverters( converters );
+		this.attributeConverters.putAll( converters );
+	}
+
+	@Override
+	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
+		if (this.isSequential) {
+			super.startTag(name, atts, context);
+			return;
+		}
+
+		if (PERSON.equals(name)) {
+			this.inPerson = true;
+		}
+		if (this.inPerson) {
+			// We have to create copies of the attributes because the object is re-used by the parser!
+			this.currentBlock.add(new StartTag(name, new AttributesImpl(atts)));
+		} else {
+			if (POPULATION.equals(name)) {
+				log.info("Start parallel population reading with " + this.numThreads + " threads...");
+				initExecutor();
+			}
+			super.startTag(name, atts, context);
+		}
+	}
+
+	@Override
+	public void endTag(final String name, final String content, final Stack<String> context) {
+		if (this.isSequential) {
+			super.endTag(name, content, context);
+			return;
+		}
+
+		if (this.inPerson) {
+			this.currentBlock.add(new EndTag(name, content));
+			if (PERSON.equals(name)) {
+				this.inPerson = false;
+				this.personsInBlock++;
+				if (this.personsInBlock == PERSONS_PER_BLOCK) {
+					submitBlock();
+				}
+			}
+		} else {
+			if (POPULATION.equals(name)) {
+				submitBlock();
+				try {
+					while (!this.pendingBlocks.isEmpty()) {
+						addNextBlock();
+					}
+				} finally {
+					this.pendingBlocks.clear();
+					this.executor.shutdownNow();
+					this.executor = null;
+				}
+				log.info("Finished parallel population reading...");
+			}
+			super.endTag(name, content, context);
+		}
+	}
+
+	private void initExecutor() {
+		final AtomicInteger threadCounter = new AtomicInteger(0);
+		this.executor = Executors.newFixedThreadPool(this.numThreads, runnable -> {
+			Thread thread = new Thread(runnable, ParallelPopulationReaderMatsimV6.class.getSimpleName() + "-" + threadCounter.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private void submitBlock() {
+		if (this.personsInBlock > 0) {
+			this.pendingBlocks.addLast(this.executor.submit(new BlockParser(this.currentBlock)));
+			this.currentBlock = new ArrayList<>();
+			this.personsInBlock = 0;
+		}
+
+		// add finished blocks as early as possible, and limit the amount of xml data held in memory
+		while (!this.pendingBlocks.isEmpty() && this.pendingBlocks.peekFirst().isDone()) {
+			addNextBlock();
+		}
+		while (this.pendingBlocks.size() > 4 * this.numThreads) {
+			addNextBlock();
+		}
+	}
+
+	private void addNextBlock() {
+		try {
+			for (Person person : this.pendingBlocks.removeFirst().get()) {
+				this.scenario.getPopulation().addPerson(person);
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Interprets the xml data of a block of persons with a non-parallel reader,
+	 * collecting the persons instead of adding them to the population.
+	 */
+	private final class BlockParser implements Callable<List<Person>> {
+		private final List<Tag> tags;
+
+		BlockParser(final List<Tag> tags) {
+			this.tags = tags;
+		}
+
+		@Override
+		public List<Person> call() {
+			CollectorPopulation collector = new CollectorPopulation(ParallelPopulationReaderMatsimV6.this.scenario.getPopulation());
+			PopulationReaderMatsimV6 reader = new PopulationReaderMatsimV6(
+					ParallelPopulationReaderMatsimV6.this.coordinateTransformation,
+					ParallelPopulationReaderMatsimV6.this.scenario,
+					collector);
+			reader.putAttributeConverters(ParallelPopulationReaderMatsimV6.this.attributeConverters);
+
+			// replay the tags, maintaining the context like MatsimXmlParser does
+			Stack<String> context = new Stack<>();
+			context.push(POPULATION);
+			for (Tag tag : this.tags) {
+				if (tag instanceof StartTag) {
+					reader.startTag(tag.name, ((StartTag) tag).atts, context);
+					context.push(tag.name);
+				} else {
+					context.pop();
+					reader.endTag(tag.name, ((EndTag) tag).content, context);
+				}
+			}
+			return collector.persons;
+		}
+	}
+
+	private static class CollectorPopulation implements Population {
+
+		private final Population population;
+		private final List<Person> persons = new ArrayList<>(PERSONS_PER_BLOCK);
+
+		CollectorPopulation(Population population) {
+			this.population = population;
+		}
+
+		@Override
+		public PopulationFactory getFactory() {
+			return this.population.getFactory();
+		}
+
+		@Override
+		public void addPerson(Person p) {
+			this.persons.add(p);
+		}
+
+		@Override
+		public ObjectAttributes getPersonAttributes() {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public String getName() {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public void setName(String name) {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public Map<Id<Person>, ? extends Person> getPersons() {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public Person removePerson(Id<Person> personId) {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public org.matsim.utils.objectattributes.attributable.Attributes getAttributes() {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+	}
+
+	private abstract static class Tag {
+		final String name;
+
+		Tag(final String name) {
+			this.name = name;
+		}
+	}
+
+	private static final class StartTag extends Tag {
+		final Attributes atts;
+
+		StartTag(final String name, final Attributes atts) {
+			super(name);
+			this.atts = atts;
+		}
+	}
+
+	private static final class EndTag extends Tag {
+		final String content;
+
+		EndTag(final String name, final String content) {
+			super(name);
+			this.content = content;
+		}
+	}
+}
@@ -101,8 +101,9 @@ public final class PopulationReader extends MatsimXmlParser {
 		super.setDoctype(doctype);
 		switch ( doctype ) {
 			case POPULATION_V6:
+				// the parallel reader falls back to non-parallel reading for streaming or a single thread
 				this.delegate =
-						new PopulationReaderMatsimV6(
+						new ParallelPopulationReaderMatsimV6(
 								coordinateTransformation,
 								this.scenario);
 				((PopulationReaderMatsimV6) delegate).putAttributeConverters( attributeConverters );
@@ -165,7 +165,7 @@ import org.xml.sax.Attributes;
 		Integer age = null ;
 		if (ageString != null)
 			age = Integer.parseInt(ageString);
-		this.currperson = PopulationUtils.getFactory().createPerson(Id.create(atts.getValue(ATTR_PERSON_ID), Person.class));
+		this.currperson = this.plans.getFactory().createPerson(Id.create(atts.getValue(ATTR_PERSON_ID), Person.class));
 		PersonUtils.setSex(this.currperson, atts.getValue(ATTR_PERSON_SEX));
 		PersonUtils.setAge(this.currperson, age);
 		PersonUtils.setLicence(this.currperson, atts.getValue(ATTR_PERSON_LICENSE));
@@ -192,7 +192,12 @@ import org.xml.sax.Attributes;
 					"Attribute 'selected' of Element 'Plan' is neither 'yes' nor 'no'.");
 		}
 		this.routeDescription = null;
-		this.currplan = PersonUtils.createAndAddPlan(this.currperson, selected);
+		// plans and plan elements are created by the factory of the population, which may store them differently
+		this.currplan = this.plans.getFactory().createPlan();
+		this.currperson.addPlan(this.currplan);
+		if (selected) {
+			this.currperson.setSelectedPlan(this.currplan);
+		}
 
 		String scoreString = atts.getValue(ATTR_PLAN_SCORE);
 		if (scoreString != null) {
@@ -210,14 +215,16 @@ import org.xml.sax.Attributes;
 		if (atts.getValue(ATTR_ACT_LINK) != null) {
 			Id<Link> linkId = Id.create(atts.getValue(ATTR_ACT_LINK), Link.class);
 			final Id<Link> linkId1 = linkId;
-			this.curract = PopulationUtils.createAndAddActivityFromLinkId(this.currplan, atts.getValue(ATTR_ACT_TYPE), linkId1);
+			this.curract = this.plans.getFactory().createActivityFromLinkId(atts.getValue(ATTR_ACT_TYPE), linkId1);
+			this.currplan.addActivity(this.curract);
 			if ((atts.getValue(ATTR_ACT_X) != null) && (atts.getValue(ATTR_ACT_Y) != null)) {
 				final Coord coord = parseCoord( atts );
 				this.curract.setCoord(coord);
 			}
 		} else if ((atts.getValue(ATTR_ACT_X) != null) && (atts.getValue(ATTR_ACT_Y) != null)) {
 			final Coord coord = parseCoord( atts );
-			this.curract = PopulationUtils.createAndAddActivityFromCoord(this.currplan, atts.getValue(ATTR_ACT_TYPE), coord);
+			this.curract = this.plans.getFactory().createActivityFromCoord(atts.getValue(ATTR_ACT_TYPE), coord);
+			this.currplan.addActivity(this.curract);
 		} else {
 			throw new IllegalArgumentException("In this version of MATSim either the coords or the link must be specified for an Act.");
 		}
@@ -311,7 +318,8 @@ import org.xml.sax.Attributes;
 		if (VALUE_UNDEF.equals(mode)) {
 			mode = "undefined";
 		}
-		this.currleg = PopulationUtils.createAndAddLeg( this.currplan, mode.intern() );
+		this.currleg = this.plans.getFactory().createLeg( mode.intern() );
+		this.currplan.addLeg( this.currleg );
 		this.currleg.setDepartureTime(Time.parseTime(atts.getValue(ATTR_LEG_DEPTIME)));
 		this.currleg.setTravelTime(Time.parseTime(atts.getValue(ATTR_LEG_TRAVTIME)));
 //		LegImpl r = this.currleg;
@@ -26,8 +26,6 @@ import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.*;
 import org.matsim.core.api.internal.MatsimReader;
-import org.matsim.core.population.PersonUtils;
-import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.population.routes.RouteFactories;
 import org.matsim.core.population.routes.RouteUtils;
@@ -113,9 +111,20 @@ import java.util.Stack;
 	public PopulationReaderMatsimV6(
 			final CoordinateTransformation coordinateTransformation,
 			final Scenario scenario) {
+		this( coordinateTransformation , scenario , scenario.getPopulation() );
+	}
+
+	/**
+	 * Reads the persons into <code>plans</code> instead of the population of the scenario,
+	 * the scenario is only used to look up the network and the config.
+	 */
+	/*package*/ PopulationReaderMatsimV6(
+			final CoordinateTransformation coordinateTransformation,
+			final Scenario scenario,
+			final Population plans) {
 		this.coordinateTransformation = coordinateTransformation;
 		this.scenario = scenario;
-		this.plans = scenario.getPopulation();
+		this.plans = plans;
 	}
 
 	public void putAttributeConverter( final Class<?> clazz , AttributeConverter<?> converter ) {
@@ -139,7 +148,7 @@ import java.util.Stack;
 			case ATTRIBUTES:
 				switch( context.peek() ) {
 					case POPULATION:
-						currAttributes = scenario.getPopulation().getAttributes();
+						currAttributes = this.plans.getAttributes();
 						break;
 					case PERSON:
 						currAttributes = currperson.getAttributes();
@@ -208,7 +217,7 @@ import java.util.Stack;
 	}
 
 	private void startPerson(final Attributes atts) {
-		this.currperson = PopulationUtils.getFactory().createPerson(Id.create(atts.getValue(ATTR_PERSON_ID), Person.class));
+		this.currperson = this.plans.getFactory().createPerson(Id.create(atts.getValue(ATTR_PERSON_ID), Person.class));
 	}
 
 	private void startPlan(final Attributes atts) {
@@ -225,7 +234,12 @@ import java.util.Stack;
 					"Attribute 'selected' of Element 'Plan' is neither 'yes' nor 'no'.");
 		}
 		this.routeDescription = null;
-		this.currplan = PersonUtils.createAndAddPlan(this.currperson, selected);
+		// plans and plan elements are created by the factory of the population, which may store them differently
+		this.currplan = this.plans.getFactory().createPlan();
+		this.currperson.addPlan(this.currplan);
+		if (selected) {
+			this.currperson.setSelectedPlan(this.currplan);
+		}
 
 		String scoreString = atts.getValue(ATTR_PLAN_SCORE);
 		if (scoreString != null) {
@@ -243,14 +257,16 @@ import java.util.Stack;
 		if (atts.getValue(ATTR_ACT_LINK) != null) {
 			Id<Link> linkId = Id.create(atts.getValue(ATTR_ACT_LINK), Link.class);
 			final Id<Link> linkId1 = linkId;
-			this.curract = PopulationUtils.createAndAddActivityFromLinkId(this.currplan, atts.getValue(ATTR_ACT_TYPE), linkId1);
+			this.curract = this.plans.getFactory().createActivityFromLinkId(atts.getValue(ATTR_ACT_TYPE), linkId1);
+			this.currplan.addActivity(this.curract);
 			if ((atts.getValue(ATTR_ACT_X) != null) && (atts.getValue(ATTR_ACT_Y) != null)) {
 				final Coord coord = parseCoord( atts );
 				this.curract.setCoord(coord);
 			}
 		} else if ((atts.getValue(ATTR_ACT_X) != null) && (atts.getValue(ATTR_ACT_Y) != null)) {
 			final Coord coord = parseCoord( atts );
-			this.curract = PopulationUtils.createAndAddActivityFromCoord(this.currplan, atts.getValue(ATTR_ACT_TYPE), coord);
+			this.curract = this.plans.getFactory().createActivityFromCoord(atts.getValue(ATTR_ACT_TYPE), coord);
+			this.currplan.addActivity(this.curract);
 		} else {
 			throw new IllegalArgumentException("In this version of MATSim either the coords or the link must be specified for an Act.");
 		}
@@ -356,7 +372,8 @@ import java.util.Stack;
 		if (VALUE_UNDEF.equals(mode)) {
 			mode = "undefined";
 		}
-		this.currleg = PopulationUtils.createAndAddLeg( this.currplan, mode.intern() );
+		this.currleg = this.plans.getFactory().createLeg( mode.intern() );
+		this.currplan.addLeg( this.currleg );
 		this.currleg.setDepartureTime(Time.parseTime(atts.getValue(ATTR_LEG_DEPTIME)));
 		this.currleg.setTravelTime(Time.parseTime(atts.getValue(ATTR_LEG_TRAVTIME)));
 //		LegImpl r = this.currleg;
@@ -380,10 +397,10 @@ import java.util.Stack;
 			}
 		}
 		
-		RouteFactories factory = this.scenario.getPopulation().getFactory().getRouteFactories();
+		RouteFactories factory = this.plans.getFactory().getRouteFactories();
 		Class<? extends Route> routeClass = factory.getRouteClassForType(routeType);
 		
-		this.currRoute = this.scenario.getPopulation().getFactory().getRouteFactories().createRoute(routeClass, startLinkId == null ? null : Id.create(startLinkId, Link.class), endLinkId == null ? null : Id.create(endLinkId, Link.class));
+		this.currRoute = factory.createRoute(routeClass, startLinkId == null ? null : Id.create(startLinkId, Link.class), endLinkId == null ? null : Id.create(endLinkId, Link.class));
 		this.currleg.setRoute(this.currRoute);
 
 		if (atts.getValue("trav_time") != null) {
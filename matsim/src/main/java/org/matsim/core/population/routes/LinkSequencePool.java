@@ -0,0 +1,212 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LinkSequencePool.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+
+/**
+ * A thread-safe pool of link sequences used by {@link PooledNetworkRouteImpl}. Link ids are
+ * mapped to consecutive int indices, and every sequence of links is stored as packed
+ * <code>int[]</code> of such indices. Sequences with the same content are stored only once and
+ * shared by all routes using them; the shared arrays are never modified.
+ * <p></p>
+ * The pool only holds weak references to the sequences, so sequences no longer used by any
+ * route, e.g. because the plan containing the route was removed, can be garbage collected.
+ * The entries of such sequences are removed from the pool by {@link #compact()}.
+ */
+final class LinkSequencePool {
+
+	/*package*/ static final int[] EMPTY = new int[0];
+
+	private final ConcurrentMap<Id<Link>, Integer> linkIndices = new ConcurrentHashMap<>();
+	private volatile Id<Link>[] linkIds = newIdArray(1024);
+	private int linkCount = 0;
+
+	private final ConcurrentMap<SequenceKey, WeakSequenceKey> sequences = new ConcurrentHashMap<>();
+	private final ReferenceQueue<int[]> collectedSequences = new ReferenceQueue<>();
+
+	@SuppressWarnings("unchecked")
+	private static Id<Link>[] newIdArray(final int size) {
+		return new Id[size];
+	}
+
+	/*package*/ int getIndex(final Id<Link> linkId) {
+		Integer index = this.linkIndices.get(linkId);
+		if (index == null) {
+			index = registerLink(linkId);
+		}
+		return index;
+	}
+
+	private synchronized int registerLink(final Id<Link> linkId) {
+		Integer index = this.linkIndices.get(linkId);
+		if (index != null) {
+			return index;
+		}
+		Id<Link>[] ids = this.linkIds;
+		if (this.linkCount == ids.length) {
+			ids = Arrays.copyOf(ids, ids.length * 2);
+		}
+		ids[this.linkCount] = linkId;
+		this.linkIds = ids;
+		// the index is published only after the id was stored, see getLinkId()
+		this.linkIndices.put(linkId, this.linkCount);
+		return this.linkCount++;
+	}
+
+	/*package*/ Id<Link> getLinkId(final int index) {
+		return this.linkIds[index];
+	}
+
+	/**
+	 * @return the pooled sequence of link indices for the given link ids
+	 */
+	/*package*/ int[] getSequence(final List<Id<Link>> linkIds) {
+		if (linkIds == null || linkIds.isEmpty()) {
+			return EMPTY;
+		}
+		int[] sequence = new int[linkIds.size()];
+		for (int i = 0; i < sequence.length; i++) {
+			sequence[i] = getIndex(linkIds.get(i));
+		}
+		return intern(sequence);
+	}
+
+	/**
+	 * @return a sequence with the same content as <code>sequence</code>, either an already pooled one
+	 * or <code>sequence</code> itself, which must not be modified afterwards.
+	 */
+	/*package*/ int[] intern(final int[] sequence) {
+		if (sequence.length == 0) {
+			return EMPTY;
+		}
+		SequenceKey probe = new StrongSequenceKey(sequence);
+		while (true) {
+			WeakSequenceKey existing = this.sequences.get(probe);
+			if (existing == null) {
+				WeakSequenceKey key = new WeakSequenceKey(sequence, probe.hash, this.collectedSequences);
+				existing = this.sequences.putIfAbsent(key, key);
+				if (existing == null) {
+					return sequence;
+				}
+			}
+			int[] pooled = existing.reference.get();
+			if (pooled != null) {
+				return pooled;
+			}
+			// collected in the meantime, but not yet removed
+			this.sequences.remove(existing, existing);
+		}
+	}
+
+	/**
+	 * Removes the entries of sequences which are no longer used by any route.
+	 *
+	 * @return the number of sequences remaining in the pool
+	 */
+	/*package*/ int compact() {
+		Reference<? extends int[]> collected;
+		while ((collected = this.collectedSequences.poll()) != null) {
+			WeakSequenceKey key = ((SequenceReference) collected).key;
+			this.sequences.remove(key, key);
+		}
+		return this.sequences.size();
+	}
+
+	/*package*/ int getNumberOfLinks() {
+		return this.linkIndices.size();
+	}
+
+	private abstract static class SequenceKey {
+		final int hash;
+
+		SequenceKey(final int hash) {
+			this.hash = hash;
+		}
+
+		abstract int[] getSequence();
+
+		@Override
+		public final int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public final boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof SequenceKey) || ((SequenceKey) obj).hash != this.hash) {
+				return false;
+			}
+			int[] sequence = getSequence();
+			// collected sequences are only equal to themselves
+			return sequence != null && Arrays.equals(sequence, ((SequenceKey) obj).getSequence());
+		}
+	}
+
+	private static final class StrongSequenceKey extends SequenceKey {
+		private final int[] sequence;
+
+		StrongSequenceKey(final int[] sequence) {
+			super(Arrays.hashCode(sequence));
+			this.sequence = sequence;
+		}
+
+		@Override
+		int[] getSequence() {
+			return this.sequence;
+		}
+	}
+
+	private static final class WeakSequenceKey extends SequenceKey {
+		final SequenceReference reference;
+
+		WeakSequenceKey(final int[] sequence, final int hash, final ReferenceQueue<int[]> queue) {
+			super(hash);
+			this.reference = new SequenceReference(sequence, this, queue);
+		}
+
+		@Override
+		int[] getSequence() {
+			return this.reference.get();
+		}
+	}
+
+	private static final class SequenceReference extends WeakReference<int[]> {
+		final WeakSequenceKey key;
+
+		SequenceReference(final int[] sequence, final WeakSequenceKey key, final ReferenceQueue<int[]> queue) {
+			super(sequence, queue);
+			this.key = key;
+		}
+	}
+
+}
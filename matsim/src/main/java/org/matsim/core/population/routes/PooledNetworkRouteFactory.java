@@ -0,0 +1,58 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PooledNetworkRouteFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Route;
+
+/**
+ * Creates network routes which share identical link sequences, see {@link PooledNetworkRouteImpl}.
+ * All routes created by one factory use the same pool.
+ */
+public final class PooledNetworkRouteFactory implements RouteFactory {
+
+	private final static Logger log = Logger.getLogger(PooledNetworkRouteFactory.class);
+
+	private final LinkSequencePool pool = new LinkSequencePool();
+
+	@Override
+	public Route createRoute(final Id<Link> startLinkId, final Id<Link> endLinkId) {
+		return new PooledNetworkRouteImpl(startLinkId, endLinkId, this.pool);
+	}
+
+	@Override
+	public String getCreatedRouteType() {
+		return LinkNetworkRouteImpl.ROUTE_TYPE;
+	}
+
+	/**
+	 * Removes the link sequences which are no longer used by any route from the pool.
+	 * Only sequences already garbage collected can be removed, so this is best called
+	 * regularly, e.g. after the replanning.
+	 */
+	public void compact() {
+		int size = this.pool.compact();
+		log.info("pooled network routes: " + size + " distinct link sequences on " + this.pool.getNumberOfLinks() + " links.");
+	}
+
+}
@@ -0,0 +1,207 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PooledNetworkRouteImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Implementation of {@link NetworkRoute} which stores the links of the route as a sequence
+ * of int indices in a {@link LinkSequencePool}. Routes with the same links share the same
+ * sequence, which reduces the memory needed for the routes of a large population considerably,
+ * as many agents and plans use identical routes. Unlike {@link CompressedNetworkRouteImpl},
+ * no information is lost and no network is needed.
+ * <p></p>
+ * The shared sequences are never modified: {@link #setLinkIds(Id, List, Id)} always assigns
+ * a new sequence to the route, so other routes are not affected by the change.
+ */
+final class PooledNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
+
+	private final LinkSequencePool pool;
+	private int[] links = LinkSequencePool.EMPTY;
+	private double travelCost = Double.NaN;
+	private Id<Vehicle> vehicleId = null;
+
+	PooledNetworkRouteImpl(final Id<Link> startLinkId, final Id<Link> endLinkId, final LinkSequencePool pool) {
+		super(startLinkId, endLinkId);
+		this.pool = pool;
+	}
+
+	@Override
+	public PooledNetworkRouteImpl clone() {
+		// the sequence is immutable and can be shared with the clone
+		return (PooledNetworkRouteImpl) super.clone();
+	}
+
+	@Override
+	public List<Id<Link>> getLinkIds() {
+		return new LinkIdList(this.links, this.pool);
+	}
+
+	@Override
+	public NetworkRoute getSubRoute(final Id<Link> fromLinkId, final Id<Link> toLinkId) {
+		// see LinkNetworkRouteImpl for the meaning of the indices
+		int fromIndex = -1;
+		int toIndex = -1;
+
+		if (fromLinkId.equals(this.getStartLinkId())) {
+			fromIndex = 0;
+		} else {
+			for (int i = 0, n = this.links.length; (i < n) && (fromIndex < 0); i++) {
+				if (fromLinkId.equals(this.pool.getLinkId(this.links[i]))) {
+					fromIndex = i+1;
+				}
+			}
+			if (fromIndex < 0 && fromLinkId.equals(this.getEndLinkId())) {
+				fromIndex = this.links.length;
+			}
+			if (fromIndex < 0) {
+				throw new IllegalArgumentException("Cannot create subroute because fromLinkId is not part of the route.");
+			}
+		}
+
+		if (fromLinkId.equals(toLinkId)) {
+			toIndex = fromIndex - 1;
+		} else {
+			for (int i = fromIndex, n = this.links.length; (i < n) && (toIndex < 0); i++) {
+				Id<Link> linkId = this.pool.getLinkId(this.links[i]);
+				if (fromLinkId.equals(linkId)) {
+					fromIndex = i+1; // in case of a loop, cut it short
+				}
+				if (toLinkId.equals(linkId)) {
+					toIndex = i;
+				}
+			}
+			if (toIndex < 0 && toLinkId.equals(this.getEndLinkId())) {
+				toIndex = this.links.length;
+			}
+			if (toIndex < 0) {
+				throw new IllegalArgumentException("Cannot create subroute because toLinkId is not part of the route.");
+			}
+		}
+		PooledNetworkRouteImpl ret = new PooledNetworkRouteImpl(fromLinkId, toLinkId, this.pool);
+		if (toIndex > fromIndex) {
+			ret.links = this.pool.intern(Arrays.copyOfRange(this.links, fromIndex, toIndex));
+		}
+		return ret;
+	}
+
+	@Override
+	public double getTravelCost() {
+		return this.travelCost;
+	}
+
+	@Override
+	public void setTravelCost(final double travelCost) {
+		this.travelCost = travelCost;
+	}
+
+	@Override
+	public void setLinkIds(final Id<Link> startLinkId, final List<Id<Link>> srcRoute, final Id<Link> endLinkId) {
+		setStartLinkId(startLinkId);
+		setEndLinkId(endLinkId);
+		this.links = this.pool.getSequence(srcRoute);
+	}
+
+	@Override
+	public Id<Vehicle> getVehicleId() {
+		return this.vehicleId;
+	}
+
+	@Override
+	public void setVehicleId(final Id<Vehicle> vehicleId) {
+		this.vehicleId = vehicleId;
+	}
+
+	@Override
+	public String getRouteDescription() {
+		StringBuilder desc = new StringBuilder(100);
+		desc.append(this.getStartLinkId().toString());
+		for (int index : this.links) {
+			desc.append(" ");
+			desc.append(this.pool.getLinkId(index).toString());
+		}
+		// If the start links equals the end link additionally check if its is a round trip.
+		if (!this.getEndLinkId().equals(this.getStartLinkId()) || this.links.length > 0) {
+			desc.append(" ");
+			desc.append(this.getEndLinkId().toString());
+		}
+		return desc.toString();
+	}
+
+	@Override
+	public void setRouteDescription(final String routeDescription) {
+		List<Id<Link>> linkIds = NetworkUtils.getLinkIds(routeDescription);
+		Id<Link> startLinkId = getStartLinkId();
+		Id<Link> endLinkId = getEndLinkId();
+		if (linkIds.size() > 0) {
+			startLinkId = linkIds.remove(0);
+		}
+		if (linkIds.size() > 0) {
+			endLinkId = linkIds.remove(linkIds.size() - 1);
+		}
+		this.setLinkIds(startLinkId, linkIds, endLinkId);
+	}
+
+	@Override
+	public String getRouteType() {
+		return LinkNetworkRouteImpl.ROUTE_TYPE;
+	}
+
+	@Override
+	public String toString() {
+		String str = super.toString();
+		str += " linkIds=" + this.getLinkIds() ;
+		str += " travelCost=" + this.getTravelCost() ;
+		return str ;
+	}
+
+	/**
+	 * Read-only view of a sequence as list of link ids.
+	 */
+	private static final class LinkIdList extends AbstractList<Id<Link>> implements RandomAccess {
+		private final int[] links;
+		private final LinkSequencePool pool;
+
+		LinkIdList(final int[] links, final LinkSequencePool pool) {
+			this.links = links;
+			this.pool = pool;
+		}
+
+		@Override
+		public Id<Link> get(final int index) {
+			return this.pool.getLinkId(this.links[index]);
+		}
+
+		@Override
+		public int size() {
+			return this.links.length;
+		}
+	}
+
+}
@@ -79,6 +79,14 @@ public final class RouteFactories {
 		}
 	}
 
+	/**
+	 * @return the factory registered for the specified route type, or the default factory if none is registered.
+	 */
+	public RouteFactory getRouteFactory(final Class<? extends Route> routeClass) {
+		RouteFactory factory = this.routeFactories.get(routeClass);
+		return factory == null ? this.defaultFactory : factory;
+	}
+
 	public Class<? extends Route> getRouteClassForType(String routeType) {
 		Class<? extends Route> routeClass = this.type2class.get(routeType);
 		if (routeClass == null) {
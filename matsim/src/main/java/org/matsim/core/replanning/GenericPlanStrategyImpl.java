@@ -26,6 +26,7 @@ import org.matsim.core.replanning.selectors.PlanSelector;
 import org.matsim.core.replanning.selectors.RandomUnscoredPlanSelector;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author nagel
@@ -37,7 +38,7 @@ public class GenericPlanStrategyImpl<T extends BasicPlan, I> implements GenericP
 	private GenericPlanStrategyModule<T> firstModule = null;
 	private final ArrayList<GenericPlanStrategyModule<T>> modules = new ArrayList<>();
 	private final ArrayList<T> plans = new ArrayList<>();
-	private long counter = 0;
+	private final AtomicLong counter = new AtomicLong(0);
 	private ReplanningContext replanningContext;
 	private final static Logger log = Logger.getLogger(PlanStrategyImpl.class);
 
@@ -66,7 +67,20 @@ public class GenericPlanStrategyImpl<T extends BasicPlan, I> implements GenericP
 	
 	@Override
 	public void run(final HasPlansAndId<T, I> person) {
-		this.counter++;
+		T plan = selectPlan(person);
+		if (plan != null) {
+			handlePlan(plan);
+		}
+	}
+
+	/**
+	 * The part of {@link #run(HasPlansAndId)} which only concerns the person itself: selects a plan and, if there
+	 * is a module, makes a copy of it the selected plan. May be called for several persons in parallel.
+	 *
+	 * @return the copy which has to be passed to {@link #handlePlan(BasicPlan)}, or <code>null</code> if there is no module.
+	 */
+	/*package*/ T selectPlan(final HasPlansAndId<T, I> person) {
+		this.counter.incrementAndGet();
 		
 		// if there is at least one unscored plan, find that one:
 		T plan = new RandomUnscoredPlanSelector<T, I>().selectPlan(person) ;
@@ -88,15 +102,20 @@ public class GenericPlanStrategyImpl<T extends BasicPlan, I> implements GenericP
 		if (this.firstModule != null) {
 			
 			// set the working plan to a copy of the selected plan:
-			plan = person.createCopyOfSelectedPlanAndMakeSelected();
-			
-			// add new plan to container that contains the plans that are handled by this PlanStrategy:
-			this.plans.add(plan);
-
-			// start working on this new plan:
-			this.firstModule.handlePlan(plan);
+			return person.createCopyOfSelectedPlanAndMakeSelected();
 		}
+		return null;
+	}
+
+	/**
+	 * The part of {@link #run(HasPlansAndId)} which hands the copied plan to the modules. Not thread-safe.
+	 */
+	/*package*/ void handlePlan(final T plan) {
+		// add new plan to container that contains the plans that are handled by this PlanStrategy:
+		this.plans.add(plan);
 
+		// start working on this new plan:
+		this.firstModule.handlePlan(plan);
 	}
 
 	@Override
@@ -122,8 +141,8 @@ public class GenericPlanStrategyImpl<T extends BasicPlan, I> implements GenericP
 			}
 		}
 		this.plans.clear();
-		log.info("Plan-Strategy finished, " + this.counter + " plans handled. Strategy: " + this.toString());
-		this.counter = 0;
+		log.info("Plan-Strategy finished, " + this.counter.get() + " plans handled. Strategy: " + this.toString());
+		this.counter.set(0);
 	}
 
 	@Override
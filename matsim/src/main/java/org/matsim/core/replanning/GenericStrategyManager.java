@@ -25,7 +25,15 @@ import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.population.BasicPlan;
@@ -72,6 +80,11 @@ public class GenericStrategyManager<PL extends BasicPlan, AG extends HasPlansAnd
 	private PlanSelector<PL, AG> removalPlanSelector = new GenericWorstPlanForRemovalSelector<>();
 
 	private String subpopulationAttributeName = null;
+
+	private int planSelectionThreads = 0;
+
+	/** created on the first parallel plan selection and kept until {@link #shutdownPlanSelectionThreads()} */
+	private ThreadPoolExecutor planSelectionExecutor = null;
 	
 	public GenericStrategyManager() {
 	}
@@ -84,6 +97,31 @@ public class GenericStrategyManager<PL extends BasicPlan, AG extends HasPlansAnd
 		this.subpopulationAttributeName = name;
 	}
 
+	/**
+	 * Enables parallel plans removal, strategy choice and plan selection if set to a value &gt; 0. Every person then draws its random
+	 * numbers from a generator seeded from its position in the population, so the results do not depend on the number of threads.
+	 * The plans are still passed to the strategy modules in the order of the persons.  Note that the results differ from the ones
+	 * with the default value 0, where all persons draw from the global random number generator one after the other.
+	 * <p></p>
+	 * The threads are kept between iterations, see {@link #shutdownPlanSelectionThreads()}.
+	 */
+	public final void setPlanSelectionThreads(final int numberOfThreads) {
+		if (numberOfThreads != this.planSelectionThreads) {
+			shutdownPlanSelectionThreads();
+		}
+		this.planSelectionThreads = numberOfThreads;
+	}
+
+	/**
+	 * Shuts down the threads of the parallel plan selection. They are started again if the manager is run afterwards.
+	 */
+	public final void shutdownPlanSelectionThreads() {
+		if (this.planSelectionExecutor != null) {
+			this.planSelectionExecutor.shutdown();
+			this.planSelectionExecutor = null;
+		}
+	}
+
 	/**
 	 * Adds a strategy to this manager with the specified weight. This weight
 	 * compared to the sum of weights of all strategies in this manager defines
@@ -194,26 +232,13 @@ public class GenericStrategyManager<PL extends BasicPlan, AG extends HasPlansAnd
 		}
 
 		// then go through the population and ...
-		for (HasPlansAndId<PL, AG> person : persons ) {
-
-			// ... reduce the number of plans to the allowed maximum (in evol comp lang this is "selection")
-			if ((this.maxPlansPerAgent > 0) && (person.getPlans().size() > this.maxPlansPerAgent)) {
-				removePlans( person, this.maxPlansPerAgent);
-			}
-
-			// ... choose the strategy to be used for this person (in evol comp lang this would be the choice of the mutation operator)
-			String subpopName = null;
-			if (this.subpopulationAttributeName != null) {
-				subpopName = (String) subPopLookup.getAttribute(person.getId().toString(), this.subpopulationAttributeName);
-			}
-			GenericPlanStrategy<PL, AG> strategy = this.chooseStrategy(person, subpopName);
-
-			if (strategy==null) {
-				throw new RuntimeException("No strategy found! Have you defined at least one replanning strategy per subpopulation?");
+		if (this.planSelectionThreads > 0) {
+			runParallel(persons, subPopLookup);
+		} else {
+			for (HasPlansAndId<PL, AG> person : persons ) {
+				// ... choose the strategy for this person and run it:
+				chooseStrategyAndRemovePlans(person, subPopLookup).run(person);
 			}
-			
-			// ... and run the strategy:
-			strategy.run(person);
 		}
 
 		// finally make sure all strategies have finished there work
@@ -223,6 +248,114 @@ public class GenericStrategyManager<PL extends BasicPlan, AG extends HasPlansAnd
 
 	}
 
+	private GenericPlanStrategy<PL, AG> chooseStrategyAndRemovePlans(final HasPlansAndId<PL, AG> person, final ObjectAttributes subPopLookup) {
+		// ... reduce the number of plans to the allowed maximum (in evol comp lang this is "selection")
+		if ((this.maxPlansPerAgent > 0) && (person.getPlans().size() > this.maxPlansPerAgent)) {
+			removePlans( person, this.maxPlansPerAgent);
+		}
+
+		// ... choose the strategy to be used for this person (in evol comp lang this would be the choice of the mutation operator)
+		String subpopName = null;
+		if (this.subpopulationAttributeName != null) {
+			subpopName = (String) subPopLookup.getAttribute(person.getId().toString(), this.subpopulationAttributeName);
+		}
+		GenericPlanStrategy<PL, AG> strategy = this.chooseStrategy(person, subpopName);
+
+		if (strategy==null) {
+			throw new RuntimeException("No strategy found! Have you defined at least one replanning strategy per subpopulation?");
+		}
+		return strategy;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void runParallel(final Iterable<? extends HasPlansAndId<PL, AG>> persons, final ObjectAttributes subPopLookup) {
+		final List<HasPlansAndId<PL, AG>> personList = new ArrayList<>();
+		for (HasPlansAndId<PL, AG> person : persons) {
+			personList.add(person);
+		}
+		final int numberOfPersons = personList.size();
+		final GenericPlanStrategy<PL, AG>[] strategies = new GenericPlanStrategy[numberOfPersons];
+		final Object[] plans = new Object[numberOfPersons];
+		// the seeds are fixed before any thread starts, so they do not depend on the scheduling of the threads:
+		final long seed = MatsimRandom.getRandom().nextLong();
+		final long[] personSeeds = new long[numberOfPersons];
+		for (int i = 0; i < numberOfPersons; i++) {
+			personSeeds[i] = getPersonSeed(seed, i);
+		}
+		final AtomicReference<Throwable> hadException = new AtomicReference<>();
+
+		if (this.planSelectionExecutor == null) {
+			final AtomicInteger threadCounter = new AtomicInteger(0);
+			this.planSelectionExecutor = new ThreadPoolExecutor(this.planSelectionThreads, this.planSelectionThreads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable, "PlanSelection." + threadCounter.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			});
+			// the threads are kept for the next iteration, but not forever
+			this.planSelectionExecutor.allowCoreThreadTimeOut(true);
+		}
+
+		// every task handles a contiguous block of persons:
+		List<Future<?>> futures = new ArrayList<>(this.planSelectionThreads);
+		for (int t = 0; t < this.planSelectionThreads; t++) {
+			final int from = (int) ((long) numberOfPersons * t / this.planSelectionThreads);
+			final int to = (int) ((long) numberOfPersons * (t + 1) / this.planSelectionThreads);
+			futures.add(this.planSelectionExecutor.submit(() -> {
+				Random rnd = new Random();
+				MatsimRandom.setRandomForCurrentThread(rnd);
+				try {
+					for (int i = from; i < to && hadException.get() == null; i++) {
+						rnd.setSeed(personSeeds[i]);
+						HasPlansAndId<PL, AG> person = personList.get(i);
+						GenericPlanStrategy<PL, AG> strategy = chooseStrategyAndRemovePlans(person, subPopLookup);
+						strategies[i] = strategy;
+						if (strategy instanceof GenericPlanStrategyImpl) {
+							plans[i] = ((GenericPlanStrategyImpl<PL, AG>) strategy).selectPlan(person);
+						}
+					}
+				} catch (Throwable e) {
+					hadException.compareAndSet(null, e);
+				} finally {
+					MatsimRandom.setRandomForCurrentThread(null);
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException | ExecutionException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		if (hadException.get() != null) {
+			throw new RuntimeException("Plan selection crashed in one of the threads.", hadException.get());
+		}
+
+		// the modules get the plans in the order of the persons, independent of the number of threads:
+		for (int i = 0; i < numberOfPersons; i++) {
+			GenericPlanStrategy<PL, AG> strategy = strategies[i];
+			if (strategy instanceof GenericPlanStrategyImpl) {
+				if (plans[i] != null) {
+					((GenericPlanStrategyImpl<PL, AG>) strategy).handlePlan((PL) plans[i]);
+				}
+			} else {
+				// strategies we cannot split into selection and modules are run here, with the global random number generator
+				strategy.run(personList.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Derives a well mixed seed for the person at the given position (splitmix64), so that neighbouring persons get unrelated random numbers.
+	 */
+	private static long getPersonSeed(final long seed, final int personIndex) {
+		long z = seed + (personIndex + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
 	private Collection<GenericPlanStrategy<PL, AG>> distinctStrategies() {
 		// Leaving out duplicate strategies in different subpopulations
 		Collection<GenericPlanStrategy<PL, AG>> strategies = new LinkedHashSet<>();
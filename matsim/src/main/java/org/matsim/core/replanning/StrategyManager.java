@@ -26,6 +26,7 @@ import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.api.internal.MatsimManager;
 import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.config.groups.PlansConfigGroup;
 import org.matsim.core.config.groups.StrategyConfigGroup;
 import org.matsim.core.replanning.selectors.PlanSelector;
@@ -51,11 +52,14 @@ public class StrategyManager implements MatsimManager {
 
 	@Inject
 	StrategyManager(StrategyConfigGroup strategyConfigGroup, PlansConfigGroup plansConfigGroup,
-					ControlerConfigGroup controlerConfigGroup,
+					ControlerConfigGroup controlerConfigGroup, GlobalConfigGroup globalConfigGroup,
 					Map<StrategyConfigGroup.StrategySettings, PlanStrategy> planStrategies) {
 
 		this();
 		setMaxPlansPerAgent(strategyConfigGroup.getMaxAgentPlanMemorySize());
+		if (strategyConfigGroup.isParallelPlanSelection()) {
+			setPlanSelectionThreads(Math.max(1, globalConfigGroup.getNumberOfThreads()));
+		}
 
 		int globalInnovationDisableAfter = (int) ((controlerConfigGroup.getLastIteration() - controlerConfigGroup.getFirstIteration())
 				* strategyConfigGroup.getFractionOfIterationsToDisableInnovation() + controlerConfigGroup.getFirstIteration());
@@ -99,6 +103,20 @@ public class StrategyManager implements MatsimManager {
 		delegate.setSubpopulationAttributeName(name);
 	}
 
+	/**
+	 * @see GenericStrategyManager#setPlanSelectionThreads(int)
+	 */
+	public final void setPlanSelectionThreads(final int numberOfThreads) {
+		delegate.setPlanSelectionThreads(numberOfThreads);
+	}
+
+	/**
+	 * @see GenericStrategyManager#shutdownPlanSelectionThreads()
+	 */
+	public final void shutdownPlanSelectionThreads() {
+		delegate.shutdownPlanSelectionThreads();
+	}
+
 	@Deprecated
 	public final void addStrategyForDefaultSubpopulation(
 			final PlanStrategy strategy,
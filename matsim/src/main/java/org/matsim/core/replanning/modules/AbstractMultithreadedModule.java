@@ -24,13 +24,25 @@ import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.replanning.PlanStrategyModule;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup.ReplanningScheduling;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 import org.matsim.core.replanning.ReplanningContext;
+import org.matsim.core.utils.metrics.Metrics;
+import org.matsim.core.utils.metrics.Timer;
 import org.matsim.core.utils.misc.Counter;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -50,6 +62,18 @@ import java.util.concurrent.atomic.AtomicReference;
  * "fast threads"), it helps building reproducible runs.  Additionally, as the threads are only
  * started after all to-be-handled plans are added, we can use unsynchronized data structures.
  * <p></p>
+ * With {@link ReplanningScheduling#workStealing}, the plans are not dealt to the threads in advance.
+ * Instead, each thread takes the next chunk of plans whenever it is done with the previous one, so a
+ * thread which drew expensive plans does not hold up the others.  The threads are kept between iterations,
+ * until {@link #shutdownExecutors()} is called at the end of the run.  Each thread creates its own plan
+ * algorithm instance when it handles its first plan, and keeps it as long as the instance may be reused.
+ * As it is no longer determined which plan algorithm instance handles which plan, runs are only
+ * reproducible if the plan algorithms do not depend on the plans they handled before, e.g. through
+ * random numbers.
+ * <p></p>
+ * In both cases, the time each thread was busy is logged in <code>finishReplanning()</code>, which shows
+ * how well the load was balanced.
+ * <p></p>
  * Design comments/questions:<ul>
  * <li> As a consequence of the design, the instances that getPlanAlgoInstance() returns, need to be thread-safe.  kai, dec'12
  * For an example with discussions, see {@link tutorial.programming.multiThreadedPlanStrategy.RunWithMultithreadedModule}
@@ -58,12 +82,29 @@ import java.util.concurrent.atomic.AtomicReference;
  * @author mrieser
  */
 abstract public class AbstractMultithreadedModule implements PlanStrategyModule {
+	private static final int CHUNKS_PER_THREAD = 8;
+	private static final int MAX_CHUNK_SIZE = 100;
+
+	/** the executors of all modules using work stealing, guarded by itself */
+	private static final Set<ThreadPoolExecutor> executors = new HashSet<>();
+
 	private final int numOfThreads;
+	private final ReplanningScheduling scheduling;
 
+	private PlanAlgorithm[] algos = null;
 	private PlanAlgoThread[] algothreads = null;
 	private Thread[] threads = null;
+	private List<Plan> plans = null;
+	private ThreadPoolExecutor executor = null;
+	/** the plan algorithm of each thread of the executor */
+	private ThreadLocal<PlanAlgorithm> workerAlgos = null;
+	/** the instance created on the calling thread to name the module, taken by the first thread needing one */
+	private final AtomicReference<PlanAlgorithm> spareAlgo = new AtomicReference<>(null);
 	private PlanAlgorithm directAlgo = null;
 	private String name = null;
+	private Counter counter = null;
+	/** measures the handling of single plans */
+	private Timer timer = null;
 
 	private int count = 0;
 
@@ -82,12 +123,26 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	 */
 	abstract public PlanAlgorithm getPlanAlgoInstance();
 
+	/**
+	 * @return <code>true</code> if the instances returned by {@link #getPlanAlgoInstance()} may be used again in later
+	 * iterations, so they are only created once.  This is not the case if they depend on the replanning context or
+	 * on other data of the iteration, hence the default is <code>false</code>.
+	 */
+	protected boolean isPlanAlgoInstanceReusable() {
+		return false;
+	}
+
 	public AbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
-		this.numOfThreads = globalConfigGroup.getNumberOfThreads();
+		this(globalConfigGroup.getNumberOfThreads(), globalConfigGroup.getReplanningScheduling());
 	}
 
 	public AbstractMultithreadedModule(final int numOfThreads) {
+		this(numOfThreads, ReplanningScheduling.roundRobin);
+	}
+
+	public AbstractMultithreadedModule(final int numOfThreads, final ReplanningScheduling scheduling) {
 		this.numOfThreads = numOfThreads;
+		this.scheduling = scheduling;
 	}
 	
 	protected void beforePrepareReplanningHook(@SuppressWarnings("unused") ReplanningContext replanningContextTmp) {
@@ -102,9 +157,12 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	public final void prepareReplanning(ReplanningContext replanningContextTmp) {
 		this.beforePrepareReplanningHook(replanningContextTmp);
 		this.replanningContext = replanningContextTmp;
+		initAlgos();
 		if (this.numOfThreads == 0) {
 			// it seems, no threads are desired :(
-			this.directAlgo = getPlanAlgoInstance();
+			this.directAlgo = this.algos[0];
+		} else if (this.scheduling == ReplanningScheduling.workStealing) {
+			this.plans = new ArrayList<>();
 		} else {
 			initThreads();
 		}
@@ -117,12 +175,16 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 	@Override
 	public final void handlePlan(final Plan plan) {
-		if (this.directAlgo == null) {
-			this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
-			this.count++;
-		} else {
+		if (this.directAlgo != null) {
+			long start = this.timer.start();
 			this.directAlgo.run(plan);
+			this.timer.stop(start);
+		} else if (this.plans != null) {
+			this.plans.add(plan);
+		} else {
+			this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
 		}
+		this.count++;
 	}
 
 	protected void beforeFinishReplanningHook() {
@@ -138,22 +200,9 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		
 		if (this.directAlgo == null) {
 			// only try to start threads if we did not directly work on all the plans
-			log.info("[" + this.name + "] starting " + this.threads.length + " threads, handling " + this.count + " plans");
-
-			// start threads
-			for (Thread thread : this.threads) {
-				thread.start();
-			}
-
-			// wait until each thread is finished
-			try {
-				for (Thread thread : this.threads) {
-					thread.join();
-				}
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
-			}
-			log.info("[" + this.name + "] all " + this.threads.length + " threads finished.");
+			long start = System.nanoTime();
+			long[] busyTimes = this.plans == null ? runThreads() : runWorkStealing();
+			logTimes(System.nanoTime() - start, busyTimes);
 			Throwable throwable = this.hadException.get();
 			if (throwable != null) {
 				throw new RuntimeException("Some threads crashed, thus not all plans may have been handled.", throwable);
@@ -162,30 +211,189 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		// reset
 		this.algothreads = null;
 		this.threads = null;
+		this.plans = null;
+		this.directAlgo = null;
+		if (!isPlanAlgoInstanceReusable()) {
+			this.algos = null;
+			this.workerAlgos = null;
+		}
 		this.replanningContext = null;
 		this.count = 0;
 		
 		this.afterFinishReplanningHook();
 	}
 
+	private long[] runThreads() {
+		log.info("[" + this.name + "] starting " + this.threads.length + " threads, handling " + this.count + " plans");
+
+		// start threads
+		for (Thread thread : this.threads) {
+			thread.start();
+		}
+
+		// wait until each thread is finished
+		try {
+			for (Thread thread : this.threads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		log.info("[" + this.name + "] all " + this.threads.length + " threads finished.");
+		long[] busyTimes = new long[this.algothreads.length];
+		for (int i = 0; i < busyTimes.length; i++) {
+			busyTimes[i] = this.algothreads[i].busyTime;
+		}
+		return busyTimes;
+	}
+
+	private long[] runWorkStealing() {
+		final List<Plan> plansToHandle = this.plans;
+		final int chunkSize = Math.max(1, Math.min(MAX_CHUNK_SIZE, plansToHandle.size() / (this.numOfThreads * CHUNKS_PER_THREAD)));
+		log.info("[" + this.name + "] handling " + plansToHandle.size() + " plans with " + this.numOfThreads
+				+ " threads in chunks of " + chunkSize + " plans");
+
+		final AtomicInteger nextPlan = new AtomicInteger(0);
+		final Timer planTimer = this.timer;
+		final ThreadLocal<PlanAlgorithm> threadAlgos = this.workerAlgos;
+		final boolean reusable = isPlanAlgoInstanceReusable();
+		List<Future<Long>> futures = new ArrayList<>(this.numOfThreads);
+		// no shutdown of the executor between its creation and the submission of the tasks
+		synchronized (executors) {
+			if (this.executor == null || this.executor.isShutdown()) {
+				final AtomicInteger threadCounter = new AtomicInteger(0);
+				final String threadName = this.name;
+				this.executor = new ThreadPoolExecutor(this.numOfThreads, this.numOfThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, threadName + "." + threadCounter.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				});
+				// the threads are kept for the next iteration, but not forever
+				this.executor.allowCoreThreadTimeOut(true);
+				executors.add(this.executor);
+			}
+			for (int t = 0; t < this.numOfThreads; t++) {
+				futures.add(this.executor.submit(() -> {
+					long busyTime = 0;
+					try {
+						PlanAlgorithm algo = threadAlgos.get();
+						int from;
+						while (AbstractMultithreadedModule.this.hadException.get() == null
+								&& (from = nextPlan.getAndAdd(chunkSize)) < plansToHandle.size()) {
+							long start = System.nanoTime();
+							int to = Math.min(from + chunkSize, plansToHandle.size());
+							for (int i = from; i < to; i++) {
+								long planStart = planTimer.start();
+								algo.run(plansToHandle.get(i));
+								planTimer.stop(planStart);
+								AbstractMultithreadedModule.this.counter.incCounter();
+							}
+							busyTime += System.nanoTime() - start;
+						}
+					} finally {
+						if (!reusable) {
+							// the instance belongs to this iteration, the thread must not keep it alive
+							threadAlgos.remove();
+						}
+					}
+					return busyTime;
+				}));
+			}
+		}
+
+		long[] busyTimes = new long[futures.size()];
+		for (int i = 0; i < busyTimes.length; i++) {
+			try {
+				busyTimes[i] = futures.get(i).get();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				log.error("Thread died with exception. Will stop after all threads finished.", e.getCause());
+				this.hadException.set(e.getCause());
+			}
+		}
+		return busyTimes;
+	}
+
+	private void logTimes(final long wallTime, final long[] busyTimes) {
+		long min = Long.MAX_VALUE;
+		long max = 0;
+		long sum = 0;
+		for (long busyTime : busyTimes) {
+			min = Math.min(min, busyTime);
+			max = Math.max(max, busyTime);
+			sum += busyTime;
+		}
+		log.info("[" + this.name + "] handled " + this.count + " plans in " + TimeUnit.NANOSECONDS.toMillis(wallTime) + " ms;"
+				+ " busy time per thread: min " + TimeUnit.NANOSECONDS.toMillis(min)
+				+ " ms, avg " + TimeUnit.NANOSECONDS.toMillis(sum / Math.max(1, busyTimes.length))
+				+ " ms, max " + TimeUnit.NANOSECONDS.toMillis(max) + " ms");
+	}
+
+	private void initAlgos() {
+		this.hadException.set(null);
+		if (this.numOfThreads > 0 && this.scheduling == ReplanningScheduling.workStealing) {
+			initWorkerAlgos();
+		} else if (this.algos == null) {
+			this.algos = new PlanAlgorithm[Math.max(1, this.numOfThreads)];
+			for (int i = 0; i < this.algos.length; i++) {
+				this.algos[i] = getPlanAlgoInstance();
+			}
+			if (this.algos[0] != null) {
+				this.name = this.algos[0].getClass().getSimpleName();
+			}
+		}
+		this.counter = new Counter("[" + this.name + "] handled plan # ");
+		this.timer = Metrics.timer("replanning." + (this.name != null ? this.name : getClass().getSimpleName()));
+	}
+
+	private void initWorkerAlgos() {
+		if (this.workerAlgos != null) {
+			return;
+		}
+		PlanAlgorithm first = getPlanAlgoInstance();
+		if (first != null) {
+			this.name = first.getClass().getSimpleName();
+		}
+		this.spareAlgo.set(first);
+		this.workerAlgos = ThreadLocal.withInitial(() -> {
+			PlanAlgorithm algo = this.spareAlgo.getAndSet(null);
+			return algo != null ? algo : createPlanAlgoInstance();
+		});
+	}
+
+	/**
+	 * Called by the threads of the executor. Implementations of getPlanAlgoInstance() were only ever called
+	 * from one thread, so they need not be thread-safe.
+	 */
+	private synchronized PlanAlgorithm createPlanAlgoInstance() {
+		return getPlanAlgoInstance();
+	}
+
+	/**
+	 * Shuts down the threads which the modules keep between iterations for {@link ReplanningScheduling#workStealing}.
+	 * Modules used again afterwards start new threads.
+	 */
+	public static void shutdownExecutors() {
+		synchronized (executors) {
+			for (ThreadPoolExecutor executor : executors) {
+				executor.shutdown();
+			}
+			executors.clear();
+		}
+	}
+
 	private void initThreads() {
 		if (this.threads != null) {
 			throw new RuntimeException("threads are already initialized");
 		}
 
-		this.hadException.set(null);
 		this.threads = new Thread[this.numOfThreads];
 		this.algothreads = new PlanAlgoThread[this.numOfThreads];
 
-		Counter counter = null;
 		// setup threads
 		for (int i = 0; i < this.numOfThreads; i++) {
-			PlanAlgorithm algo = getPlanAlgoInstance();
-			if (i == 0) {
-				this.name = algo.getClass().getSimpleName();
-				counter = new Counter("[" + this.name + "] handled plan # ");
-			}
-			PlanAlgoThread algothread = new PlanAlgoThread(algo, counter);
+			PlanAlgoThread algothread = new PlanAlgoThread(this.algos[i], this.counter, this.timer);
 			Thread thread = new Thread(algothread, this.name + "." + i);
 			thread.setUncaughtExceptionHandler(this.exceptionHandler);
 			this.threads[i] = thread;
@@ -218,10 +426,13 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		private final PlanAlgorithm planAlgo;
 		private final List<Plan> plans = new LinkedList<>();
 		private final Counter counter;
+		private final Timer timer;
+		private long busyTime = 0;
 
-		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter) {
+		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter, final Timer timer) {
 			this.planAlgo = algo;
 			this.counter = counter;
+			this.timer = timer;
 		}
 
 		public void addPlanToThread(final Plan plan) {
@@ -230,10 +441,14 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 		@Override
 		public void run() {
+			long start = System.nanoTime();
 			for (Plan plan : this.plans) {
+				long planStart = this.timer.start();
 				this.planAlgo.run(plan);
+				this.timer.stop(planStart);
 				this.counter.incCounter();
 			}
+			this.busyTime = System.nanoTime() - start;
 		}
 	}
 }
@@ -0,0 +1,190 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IncrementalReRoute.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.replanning.modules;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Provider;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.StrategyConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.algorithms.PlanAlgorithm;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.replanning.ReplanningContext;
+import org.matsim.core.router.PlanRouter;
+import org.matsim.core.router.TripRouter;
+import org.matsim.core.trafficmonitoring.TravelTimeCalculator;
+import org.matsim.core.utils.collections.QuadTree;
+import org.matsim.facilities.ActivityFacilities;
+
+/**
+ * Like {@link ReRoute}, but only re-routes plans which may be affected by the changes of the travel times
+ * since the iteration before: plans with a network route crossing a link whose travel time changed
+ * significantly, and plans with an activity close to such a link. All other plans are kept as they are.
+ * <p></p>
+ * The changes are taken from {@link TravelTimeCalculator#getRelativeTravelTimeChange(Link)}. As long as
+ * they are not known, e.g. in the first iterations, all plans are re-routed.
+ */
+public class IncrementalReRoute extends AbstractMultithreadedModule {
+
+	private static final Logger log = Logger.getLogger(IncrementalReRoute.class);
+
+	private final ActivityFacilities facilities;
+	private final Provider<TripRouter> tripRouterProvider;
+	private final Network network;
+	private final TravelTimeCalculator travelTimeCalculator;
+	private final double travelTimeChangeThreshold;
+	private final double searchRadius;
+
+	private boolean rerouteAll = true;
+	private Set<Id<Link>> changedLinks = null;
+	private QuadTree<Link> changedLinksTree = null;
+	private final AtomicInteger reroutedPlans = new AtomicInteger(0);
+	private final AtomicInteger keptPlans = new AtomicInteger(0);
+
+	/**
+	 * @param travelTimeChangeThreshold relative change of the travel time on a link in any time bin from which on the
+	 * link counts as changed, see {@link StrategyConfigGroup#getIncrementalReRouteTravelTimeChangeThreshold()}
+	 * @param searchRadius distance in meters around changed links within which activities count as affected, see
+	 * {@link StrategyConfigGroup#getIncrementalReRouteSearchRadius()}
+	 */
+	public IncrementalReRoute(ActivityFacilities facilities, Provider<TripRouter> tripRouterProvider, GlobalConfigGroup globalConfigGroup,
+			Network network, TravelTimeCalculator travelTimeCalculator, double travelTimeChangeThreshold, double searchRadius) {
+		super(globalConfigGroup);
+		this.facilities = facilities;
+		this.tripRouterProvider = tripRouterProvider;
+		this.network = network;
+		this.travelTimeCalculator = travelTimeCalculator;
+		this.travelTimeChangeThreshold = travelTimeChangeThreshold;
+		this.searchRadius = searchRadius;
+		this.travelTimeCalculator.setRecordTravelTimeChanges(true);
+	}
+
+	@Override
+	protected void beforePrepareReplanningHook(ReplanningContext replanningContextTmp) {
+		this.reroutedPlans.set(0);
+		this.keptPlans.set(0);
+		this.rerouteAll = false;
+		this.changedLinks = new HashSet<>();
+		double[] bbox = NetworkUtils.getBoundingBox(this.network.getNodes().values());
+		this.changedLinksTree = new QuadTree<>(bbox[0], bbox[1], bbox[2], bbox[3]);
+		for (Link link : this.network.getLinks().values()) {
+			double change = this.travelTimeCalculator.getRelativeTravelTimeChange(link);
+			if (change == Double.POSITIVE_INFINITY) {
+				log.info("travel time changes are not known yet, all plans will be re-routed.");
+				this.rerouteAll = true;
+				this.changedLinks = null;
+				this.changedLinksTree = null;
+				return;
+			}
+			if (change >= this.travelTimeChangeThreshold) {
+				this.changedLinks.add(link.getId());
+				Coord coord = link.getCoord();
+				this.changedLinksTree.put(coord.getX(), coord.getY(), link);
+			}
+		}
+		log.info(this.changedLinks.size() + " of " + this.network.getLinks().size() + " links have travel time changes of at least "
+				+ (this.travelTimeChangeThreshold * 100) + "%.");
+	}
+
+	@Override
+	protected void afterFinishReplanningHook() {
+		log.info("re-routed " + this.reroutedPlans.get() + " plans, kept the routes of " + this.keptPlans.get() + " plans.");
+	}
+
+	@Override
+	public PlanAlgorithm getPlanAlgoInstance() {
+		final PlanRouter router = new PlanRouter(this.tripRouterProvider.get(), this.facilities);
+		return new PlanAlgorithm() {
+			@Override
+			public void run(Plan plan) {
+				if (isAffected(plan)) {
+					router.run(plan);
+					reroutedPlans.incrementAndGet();
+				} else {
+					keptPlans.incrementAndGet();
+				}
+			}
+		};
+	}
+
+	/*package*/ boolean isAffected(final Plan plan) {
+		if (this.rerouteAll) {
+			return true;
+		}
+		for (PlanElement pe : plan.getPlanElements()) {
+			if (pe instanceof Leg) {
+				Route route = ((Leg) pe).getRoute();
+				if (route == null) {
+					return true;
+				}
+				if (route instanceof NetworkRoute && crossesChangedLink((NetworkRoute) route)) {
+					return true;
+				}
+			} else if (pe instanceof Activity && this.searchRadius > 0 && this.changedLinksTree.size() > 0) {
+				Coord coord = getCoord((Activity) pe);
+				if (coord != null && !this.changedLinksTree.getDisk(coord.getX(), coord.getY(), this.searchRadius).isEmpty()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private boolean crossesChangedLink(final NetworkRoute route) {
+		if (this.changedLinks.contains(route.getStartLinkId()) || this.changedLinks.contains(route.getEndLinkId())) {
+			return true;
+		}
+		for (Id<Link> linkId : route.getLinkIds()) {
+			if (this.changedLinks.contains(linkId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Coord getCoord(final Activity act) {
+		if (act.getCoord() != null) {
+			return act.getCoord();
+		}
+		if (act.getLinkId() != null) {
+			Link link = this.network.getLinks().get(act.getLinkId());
+			if (link != null) {
+				return link.getCoord();
+			}
+		}
+		return null;
+	}
+
+}
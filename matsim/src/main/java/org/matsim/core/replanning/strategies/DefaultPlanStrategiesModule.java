@@ -97,6 +97,9 @@ public class DefaultPlanStrategiesModule extends AbstractModule {
         if (usedStrategyNames.contains(DefaultStrategy.ReRoute.toString())) {
             addPlanStrategyBinding(DefaultStrategy.ReRoute.toString()).toProvider(ReRoute.class);
         }
+        if (usedStrategyNames.contains(DefaultStrategy.IncrementalReRoute.toString())) {
+            addPlanStrategyBinding(DefaultStrategy.IncrementalReRoute.toString()).toProvider(IncrementalReRoute.class);
+        }
         if (usedStrategyNames.contains(DefaultStrategy.TimeAllocationMutator.toString())) {
             addPlanStrategyBinding(DefaultStrategy.TimeAllocationMutator.toString()).toProvider(TimeAllocationMutator.class);
         }
@@ -137,7 +140,7 @@ public class DefaultPlanStrategiesModule extends AbstractModule {
     
 
     public static enum DefaultStrategy { ReRoute, TimeAllocationMutator, @Deprecated ChangeLegMode, TimeAllocationMutator_ReRoute, 
-    	@Deprecated ChangeSingleLegMode, ChangeSingleTripMode, SubtourModeChoice, ChangeTripMode, @Deprecated TripSubtourModeChoice }
+    	@Deprecated ChangeSingleLegMode, ChangeSingleTripMode, SubtourModeChoice, ChangeTripMode, @Deprecated TripSubtourModeChoice, IncrementalReRoute }
     
     // yyyy Why are the following always implementing Providers of the full implementations, and not just the interface 
     // (i.e. Provider<GenericPlanSelector<Plan,Person>)?  kai, jan'15
@@ -0,0 +1,67 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.replanning.strategies;
+
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.StrategyConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.replanning.PlanStrategy;
+import org.matsim.core.replanning.PlanStrategyImpl;
+import org.matsim.core.replanning.PlanStrategyImpl.Builder;
+import org.matsim.core.replanning.selectors.RandomPlanSelector;
+import org.matsim.core.router.TripRouter;
+import org.matsim.core.trafficmonitoring.TravelTimeCalculator;
+import org.matsim.facilities.ActivityFacilities;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+public class IncrementalReRoute implements Provider<PlanStrategy> {
+
+	@Inject private GlobalConfigGroup globalConfigGroup;
+	@Inject private StrategyConfigGroup strategyConfigGroup;
+	@Inject private TravelTimeCalculatorConfigGroup travelTimeCalculatorConfigGroup;
+	@Inject private ActivityFacilities facilities;
+	@Inject private Network network;
+	@Inject private Provider<TripRouter> tripRouterProvider;
+	@Inject private Injector injector;
+
+	@Override
+	public PlanStrategy get() {
+		// with separate modes, the travel time changes of car are used:
+		TravelTimeCalculator travelTimeCalculator = travelTimeCalculatorConfigGroup.getSeparateModes() ?
+				injector.getInstance(Key.get(TravelTimeCalculator.class, Names.named(TransportMode.car))) :
+				injector.getInstance(TravelTimeCalculator.class);
+		Builder builder = new PlanStrategyImpl.Builder(new RandomPlanSelector<Plan,Person>()) ;
+		builder.addStrategyModule(new org.matsim.core.replanning.modules.IncrementalReRoute(facilities, tripRouterProvider, globalConfigGroup,
+				network, travelTimeCalculator, strategyConfigGroup.getIncrementalReRouteTravelTimeChangeThreshold(),
+				strategyConfigGroup.getIncrementalReRouteSearchRadius()));
+		return builder.build() ;
+	}
+
+}
@@ -38,6 +38,9 @@ import org.matsim.core.router.util.PreProcessDijkstra;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.collections.RouterPriorityQueue;
+import org.matsim.core.utils.metrics.Histogram;
+import org.matsim.core.utils.metrics.Metrics;
+import org.matsim.core.utils.metrics.Timer;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.vehicles.Vehicle;
 
@@ -87,6 +90,9 @@ import org.matsim.vehicles.Vehicle;
 
 	private final static Logger log = Logger.getLogger(Dijkstra.class);
 
+	private static final Timer QUERY_TIMER = Metrics.timer("router.query");
+	private static final Histogram SETTLED_NODES = Metrics.histogram("router.settledNodes");
+
 	/**
 	 * The network on which we find routes.
 	 */
@@ -223,6 +229,7 @@ import org.matsim.vehicles.Vehicle;
 		checkNodeBelongToNetwork(fromNode);
 		checkNodeBelongToNetwork(toNode);
 		
+		long start = QUERY_TIMER.start();
 		augmentIterationId(); // this call makes the class not thread-safe
 		this.person = person2;
 		this.vehicle = vehicle2;
@@ -236,13 +243,17 @@ import org.matsim.vehicles.Vehicle;
 
 		Node foundToNode = searchLogic(fromNode, toNode, pendingNodes);
 		
-		if (foundToNode == null) return null;
-		else {
+		if (foundToNode == null) {
+			QUERY_TIMER.stop(start);
+			return null;
+		} else {
 			DijkstraNodeData outData = getData(foundToNode);
 			double arrivalTime = outData.getTime();
 			
 			// now construct and return the path
-			return constructPath(fromNode, foundToNode, startTime, arrivalTime);			
+			Path path = constructPath(fromNode, foundToNode, startTime, arrivalTime);
+			QUERY_TIMER.stop(start);
+			return path;
 		}
 	}
 
@@ -299,11 +310,13 @@ import org.matsim.vehicles.Vehicle;
 	/*package*/ Node searchLogic(final Node fromNode, final Node toNode, final RouterPriorityQueue<Node> pendingNodes) {
 		
 		boolean stillSearching = true;
+		int settledNodes = 0;
 		
 		while (stillSearching) {
 			Node outNode = pendingNodes.poll();
 
 			if (outNode == null) {
+				SETTLED_NODES.record(settledNodes);
 				log.warn("No route was found from node " + fromNode.getId() + " to node " + toNode.getId() + ". Some possible reasons:");
 				log.warn("  * Network is not connected.  Run NetworkCleaner().") ;
 				log.warn("  * Network for considered mode does not even exist.  Modes need to be entered for each link in network.xml.");
@@ -312,12 +325,14 @@ import org.matsim.vehicles.Vehicle;
 				return null;
 			}
 
+			settledNodes++;
 			if (outNode == toNode) {
 				stillSearching = false;
 			} else {
 				relaxNode(outNode, toNode, pendingNodes);
 			}
 		}
+		SETTLED_NODES.record(settledNodes);
 		return toNode;
 	}
 	
@@ -19,6 +19,7 @@
  * *********************************************************************** */
 package org.matsim.core.router;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.matsim.api.core.v01.population.Person;
@@ -60,6 +61,27 @@ public interface RoutingModule {
 			double departureTime,
 			Person person);
 
+	/**
+	 * Computes the trips between the same locations for several departure times, e.g. to evaluate
+	 * shifted departures. The default routes every departure on its own; modules which can answer such
+	 * queries from one computation may override this, like the {@link TransitRouterWrapper} with a
+	 * {@link org.matsim.pt.router.ProfileTransitRouter}. Overrides which return other trips than
+	 * {@link #calcRoute} would must document which ones.
+	 *
+	 * @return the trips, in the order of the departure times
+	 */
+	public default List<List<? extends PlanElement>> calcRoutes(
+			Facility<?> fromFacility,
+			Facility<?> toFacility,
+			double[] departureTimes,
+			Person person) {
+		List<List<? extends PlanElement>> trips = new ArrayList<>(departureTimes.length);
+		for (double departureTime : departureTimes) {
+			trips.add(calcRoute(fromFacility, toFacility, departureTime, person));
+		}
+		return trips;
+	}
+
 	/**
 	 * Gives access to the activity types to consider as stages.
 	 * </ul>
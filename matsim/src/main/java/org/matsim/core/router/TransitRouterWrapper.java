@@ -30,6 +30,8 @@ import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.routes.RouteUtils;
 import org.matsim.facilities.Facility;
 import org.matsim.pt.PtConstants;
+import org.matsim.pt.router.ProfileJourney;
+import org.matsim.pt.router.ProfileTransitRouter;
 import org.matsim.pt.router.TransitRouter;
 import org.matsim.pt.routes.ExperimentalTransitRoute;
 import org.matsim.pt.transitSchedule.api.TransitSchedule;
@@ -94,6 +96,50 @@ public class TransitRouterWrapper implements RoutingModule {
 					walkRouter.calcRoute(fromFacility, toFacility, departureTime, person);
 	}
 
+	/**
+	 * If the transit router is a {@link ProfileTransitRouter}, computes one profile over all departure times.
+	 * For every departure time, the journey of the profile departing first at or after it is taken, waiting at the
+	 * first stop. As journeys of a profile which depart later also arrive later, this is the journey with the
+	 * <em>earliest arrival</em>, which is not necessarily the least-cost journey {@link #calcRoute} returns, e.g. if
+	 * it has more transfers. Departure times without such a journey in the profile, i.e. when walking arrives
+	 * earlier or all journeys depart after the latest of the departure times, are routed with {@link #calcRoute}.
+	 * <p></p>
+	 * Otherwise, every departure time is routed on its own.
+	 */
+	@Override
+	public List<List<? extends PlanElement>> calcRoutes(
+			final Facility<?> fromFacility,
+			final Facility<?> toFacility,
+			final double[] departureTimes,
+			final Person person) {
+		if (!(router instanceof ProfileTransitRouter) || departureTimes.length < 2) {
+			return RoutingModule.super.calcRoutes(fromFacility, toFacility, departureTimes, person);
+		}
+		double earliestDepartureTime = Double.POSITIVE_INFINITY;
+		double latestDepartureTime = Double.NEGATIVE_INFINITY;
+		for (double departureTime : departureTimes) {
+			earliestDepartureTime = Math.min(earliestDepartureTime, departureTime);
+			latestDepartureTime = Math.max(latestDepartureTime, departureTime);
+		}
+		List<ProfileJourney> profile = ((ProfileTransitRouter) router).calcProfile(
+				fromFacility, toFacility, earliestDepartureTime, latestDepartureTime, person);
+
+		List<List<? extends PlanElement>> trips = new ArrayList<>(departureTimes.length);
+		for (double departureTime : departureTimes) {
+			ProfileJourney journey = null;
+			for (ProfileJourney j : profile) {
+				if (j.getDepartureTime() >= departureTime) {
+					journey = j;
+					break;
+				}
+			}
+			trips.add(journey != null ?
+					fillWithActivities(journey.createLegs(departureTime), fromFacility, toFacility, departureTime, person) :
+						calcRoute(fromFacility, toFacility, departureTime, person));
+		}
+		return trips;
+	}
+
 	/**
 	 * This treats the TransitRouter as a third-party interface, where missing fields
 	 * must be filled in (distance, travel-time in routes).
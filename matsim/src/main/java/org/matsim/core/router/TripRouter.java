@@ -230,6 +230,47 @@ public final class TripRouter implements MatsimExtensionPoint {
 		throw new UnknownModeException( "unregistered main mode |"+mainMode+"|: does not pertain to "+routingModules.keySet() );
 	}
 
+	/**
+	 * Routes trips between the given O/D pair for several departure times, with the given main mode,
+	 * e.g. to evaluate shifted departures. Depending on the {@link RoutingModule}, this is faster than
+	 * routing every departure on its own, but may return other trips, see {@link RoutingModule#calcRoutes}.
+	 *
+	 * @return the trips, in the order of the departure times
+	 *
+	 * @throws UnknownModeException if no RoutingModule is registered for the
+	 * given mode.
+	 */
+	public synchronized List<List<? extends PlanElement>> calcRoutes(
+			final String mainMode,
+			final Facility fromFacility,
+			final Facility toFacility,
+			final double[] departureTimes,
+			final Person person) {
+		Gbl.assertNotNull( fromFacility );
+		Gbl.assertNotNull( toFacility );
+
+		RoutingModule module = routingModules.get( mainMode );
+
+		if (module != null) {
+			final List<List<? extends PlanElement>> trips =
+					module.calcRoutes(
+						fromFacility,
+						toFacility,
+						departureTimes,
+						person);
+
+			for ( List<? extends PlanElement> trip : trips ) {
+				if ( trip == null ) {
+					throw new NullPointerException( "Routing module "+module+" returned a null Trip for main mode "+mainMode );
+				}
+			}
+
+			return trips;
+		}
+
+		throw new UnknownModeException( "unregistered main mode |"+mainMode+"|: does not pertain to "+routingModules.keySet() );
+	}
+
 	public static class UnknownModeException extends RuntimeException {
 		private UnknownModeException(
 				final String msg) {
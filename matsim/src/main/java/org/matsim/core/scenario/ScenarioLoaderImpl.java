@@ -33,20 +33,29 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigGroup;
 import org.matsim.core.network.NetworkChangeEvent;
 import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.BinaryNetworkReader;
+import org.matsim.core.network.io.BinaryNetworkWriter;
 import org.matsim.core.network.io.MatsimNetworkReader;
 import org.matsim.core.network.io.NetworkChangeEventsParser;
 import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.io.BinaryPopulationReader;
 import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.core.utils.io.BinaryImageCache;
 import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.io.MatsimFileTypeGuesser;
 import org.matsim.core.utils.io.UncheckedIOException;
 import org.matsim.facilities.MatsimFacilitiesReader;
 import org.matsim.households.HouseholdsReaderV10;
 import org.matsim.lanes.data.LanesReader;
+import org.matsim.pt.transitSchedule.BinaryTransitScheduleReader;
+import org.matsim.pt.transitSchedule.BinaryTransitScheduleWriter;
 import org.matsim.pt.transitSchedule.api.TransitScheduleReader;
 import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributes;
+import org.matsim.utils.objectattributes.ObjectAttributesBinaryReader;
+import org.matsim.utils.objectattributes.ObjectAttributesBinaryWriter;
 import org.matsim.utils.objectattributes.ObjectAttributesXmlReader;
 import org.matsim.vehicles.VehicleReaderV1;
 
@@ -106,11 +115,19 @@ class ScenarioLoaderImpl {
 		String currentDir = new File("tmp").getAbsolutePath();
 		currentDir = currentDir.substring(0, currentDir.length() - 3);
 		log.info("loading scenario from base directory: " + currentDir);
+		if ( this.config.global().isParallelScenarioLoading() ) {
+			this.loadScenarioInParallel();
+			return this.scenario;
+		}
 		this.loadNetwork();
 		this.loadActivityFacilities();
+		this.loadActivityFacilityAttributes();
 		this.loadPopulation();
+		this.loadPersonAttributes();
 		this.loadHouseholds(); // tests internally if the file is there
+		this.loadHouseholdAttributes();
 		this.loadTransit(); // tests internally if the file is there
+		this.loadTransitAttributes();
 		this.loadTransitVehicles(); // tests internally if the file is there
 		if (this.config.vehicles().getVehiclesFile()!=null ) {
 			this.loadVehicles() ;
@@ -121,12 +138,48 @@ class ScenarioLoaderImpl {
 		return this.scenario;
 	}
 
+	/**
+	 * Reads the same files as {@link #loadScenario()}, but reads files which do not depend on each other in
+	 * parallel.  Only the population needs other elements: the network for route distances, and the facilities
+	 * for activity coordinates in older file formats.  Object attribute files only fill the attributes containers
+	 * and are thus read alongside the files of the objects they belong to.
+	 */
+	private void loadScenarioInParallel() {
+		ScenarioLoadingTasks tasks = new ScenarioLoadingTasks();
+		tasks.add("network", this::loadNetwork);
+		tasks.add("facilities", this::loadActivityFacilities);
+		tasks.add("facilityAttributes", this::loadActivityFacilityAttributes);
+		tasks.add("population", this::loadPopulation, "network", "facilities");
+		tasks.add("personAttributes", this::loadPersonAttributes);
+		tasks.add("households", this::loadHouseholds);
+		tasks.add("householdAttributes", this::loadHouseholdAttributes);
+		tasks.add("transitSchedule", this::loadTransit);
+		tasks.add("transitAttributes", this::loadTransitAttributes);
+		tasks.add("transitVehicles", this::loadTransitVehicles);
+		if (this.config.vehicles().getVehiclesFile()!=null ) {
+			tasks.add("vehicles", this::loadVehicles);
+		}
+		if (this.config.network().getLaneDefinitionsFile()!=null ) {
+			tasks.add("lanes", this::loadLanes);
+		}
+		log.info("loading scenario using " + this.config.global().getNumberOfThreads() + " threads");
+		tasks.run(this.config.global().getNumberOfThreads());
+	}
+
 	/**
 	 * Loads the network into the scenario of this class
 	 */
 	private void loadNetwork() {
 		if ((this.config.network() != null) && (this.config.network().getInputFile() != null)) {
 			URL networkUrl = this.config.network().getInputFileURL(this.config.getContext());
+			File imageFile = this.config.network().isUseBinaryImageCache() ? getNetworkImageFile(networkUrl) : null;
+			if (imageFile != null && imageFile.exists()) {
+				log.info("loading network from binary image " + imageFile + " of " + networkUrl);
+				BinaryNetworkReader reader = new BinaryNetworkReader(this.scenario.getNetwork());
+				reader.putAttributeConverters( attributeConverters );
+				reader.readFile(imageFile.getPath());
+				return;
+			}
 			log.info("loading network from " + networkUrl);
 			if ( config.network().getInputCRS() == null ) {
 				MatsimNetworkReader reader = new MatsimNetworkReader(this.scenario.getNetwork());
@@ -152,7 +205,28 @@ class ScenarioLoaderImpl {
 				parser.parse(this.config.network().getChangeEventsInputFileUrl(config.getContext()));
 				NetworkUtils.setNetworkChangeEvents(network,changeEvents);
 			}
+
+			if (imageFile != null) {
+				BinaryNetworkWriter writer = new BinaryNetworkWriter(this.scenario.getNetwork());
+				writer.putAttributeConverters( attributeConverters );
+				BinaryImageCache.writeImage(imageFile, writer::write);
+			}
+		}
+	}
+
+	/**
+	 * The image contains the coordinates in the internal coordinate system, and the change events if the network is
+	 * time-variant, so all of these are part of the key.
+	 */
+	private File getNetworkImageFile(URL networkUrl) {
+		List<URL> inputs = new ArrayList<>();
+		inputs.add(networkUrl);
+		boolean withChangeEvents = (this.config.network().getChangeEventsInputFile() != null) && this.config.network().isTimeVariantNetwork();
+		if (withChangeEvents) {
+			inputs.add(this.config.network().getChangeEventsInputFileUrl(this.config.getContext()));
 		}
+		return BinaryImageCache.getImageFile("network.bin", inputs, "v" + BinaryNetworkWriter.VERSION,
+				this.config.network().getInputCRS(), this.config.global().getCoordinateSystem(), String.valueOf(withChangeEvents));
 	}
 
 	private void loadActivityFacilities() {
@@ -181,6 +255,9 @@ class ScenarioLoaderImpl {
 		else {
 			log.info("no facilities file set in config, therefore not loading any facilities.  This is not a problem except if you are using facilities");
 		}
+	}
+
+	private void loadActivityFacilityAttributes() {
 		if ((this.config.facilities() != null) && (this.config.facilities().getInputFacilitiesAttributesFile() != null)) {
 			URL facilitiesAttributesURL = ConfigGroup.getInputFileURL(this.config.getContext(), this.config.facilities().getInputFacilitiesAttributesFile());
 			log.info("loading facility attributes from " + facilitiesAttributesURL);
@@ -198,7 +275,18 @@ class ScenarioLoaderImpl {
 			URL populationFileName = this.config.plans().getInputFileURL(this.config.getContext());
 			log.info("loading population from " + populationFileName);
 
-			if ( config.plans().getInputCRS() == null ) {
+			if ( BinaryPopulationReader.isBinaryPopulationFilename( populationFileName.getFile() ) ) {
+				final BinaryPopulationReader reader = config.plans().getInputCRS() == null ?
+						new BinaryPopulationReader( this.scenario ) :
+						new BinaryPopulationReader(
+								TransformationFactory.getCoordinateTransformation(
+										config.plans().getInputCRS(),
+										config.global().getCoordinateSystem() ),
+								this.scenario );
+				reader.putAttributeConverters( attributeConverters );
+				reader.readURL( populationFileName );
+			}
+			else if ( config.plans().getInputCRS() == null ) {
 				final PopulationReader reader = new PopulationReader(this.scenario);
 				reader.putAttributeConverters( attributeConverters );
 				reader.parse( populationFileName );
@@ -224,12 +312,31 @@ class ScenarioLoaderImpl {
 		else {
 			log.info("no population file set in config, not able to load population");
 		}
+	}
+
+	private void loadPersonAttributes() {
 		if ((this.config.plans() != null) && (this.config.plans().getInputPersonAttributeFile() != null)) {
 			URL personAttributesURL = this.config.plans().getInputPersonAttributeFileURL(this.config.getContext());
+			ObjectAttributes personAttributes = this.scenario.getPopulation().getPersonAttributes();
+			File imageFile = this.config.plans().isUsePersonAttributesImageCache() ?
+					BinaryImageCache.getImageFile("attributes.bin", Collections.singletonList(personAttributesURL),
+							"v" + ObjectAttributesBinaryWriter.VERSION) : null;
+			if (imageFile != null && imageFile.exists()) {
+				log.info("loading person attributes from binary image " + imageFile + " of " + personAttributesURL);
+				ObjectAttributesBinaryReader reader = new ObjectAttributesBinaryReader(personAttributes);
+				reader.putAttributeConverters( attributeConverters );
+				reader.readFile(imageFile.getPath());
+				return;
+			}
 			log.info("loading person attributes from " + personAttributesURL);
-			ObjectAttributesXmlReader reader = new ObjectAttributesXmlReader(this.scenario.getPopulation().getPersonAttributes());
+			ObjectAttributesXmlReader reader = new ObjectAttributesXmlReader(personAttributes);
 			reader.putAttributeConverters( attributeConverters );
 			reader.parse(personAttributesURL);
+			if (imageFile != null) {
+				ObjectAttributesBinaryWriter writer = new ObjectAttributesBinaryWriter(personAttributes);
+				writer.putAttributeConverters( attributeConverters );
+				BinaryImageCache.writeImage(imageFile, writer::write);
+			}
 		}
 		else {
 			log.info("no person-attributes file set in config, not loading any person attributes");
@@ -246,6 +353,9 @@ class ScenarioLoaderImpl {
 		else {
 			log.info("no households file set in config, not loading households");
 		}
+	}
+
+	private void loadHouseholdAttributes() {
 		final String fn = this.config.households().getInputHouseholdAttributesFile();
 		if ((this.config.households() != null) && ( fn != null)) {
 			URL householdAttributesFileName = ConfigGroup.getInputFileURL(this.config.getContext(), fn ) ;
@@ -266,7 +376,18 @@ class ScenarioLoaderImpl {
 			final String inputCRS = config.transit().getInputScheduleCRS();
 			final String internalCRS = config.global().getCoordinateSystem();
 
-			if ( inputCRS == null ) {
+			File imageFile = null;
+			if ( this.config.transit().isUseBinaryImageCache() ) {
+				imageFile = BinaryImageCache.getImageFile("schedule.bin", Collections.singletonList(transitScheduleFile),
+						"v" + BinaryTransitScheduleWriter.VERSION, inputCRS, internalCRS);
+			}
+			if ( imageFile != null && imageFile.exists() ) {
+				log.info("loading transit schedule from binary image " + imageFile + " of " + transitScheduleFile);
+				BinaryTransitScheduleReader reader = new BinaryTransitScheduleReader(this.scenario);
+				reader.putAttributeConverters( attributeConverters );
+				reader.readFile(imageFile.getPath());
+			}
+			else if ( inputCRS == null ) {
 				new TransitScheduleReader(this.scenario).readURL(this.config.transit().getTransitScheduleFileURL(this.config.getContext()));
 			}
 			else {
@@ -279,11 +400,18 @@ class ScenarioLoaderImpl {
 
 				new TransitScheduleReader( transformation , this.scenario).readURL(transitScheduleFile);
 			}
+			if ( imageFile != null && !imageFile.exists() ) {
+				BinaryTransitScheduleWriter writer = new BinaryTransitScheduleWriter(this.scenario.getTransitSchedule());
+				writer.putAttributeConverters( attributeConverters );
+				BinaryImageCache.writeImage(imageFile, writer::write);
+			}
 		}
 		else {
 			log.info("no transit schedule file set in config, not loading any transit schedule");
 		}
+	}
 
+	private void loadTransitAttributes() {
 		if ( this.config.transit().getTransitLinesAttributesFile() != null ) {
 			URL transitLinesAttributesFileName = IOUtils.newUrl(this.config.getContext(), this.config.transit().getTransitLinesAttributesFile());
 			log.info("loading transit lines attributes from " + transitLinesAttributesFileName);
@@ -0,0 +1,109 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScenarioLoadingTasks.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A small dependency graph of loading tasks. Every task starts as soon as all tasks it depends on are finished,
+ * so tasks which do not depend on each other run in parallel. Tasks must be added after the tasks they depend on,
+ * which also rules out cycles.
+ */
+/*package*/ final class ScenarioLoadingTasks {
+
+	private static final Logger log = Logger.getLogger(ScenarioLoadingTasks.class);
+
+	private final Map<String, Runnable> tasks = new LinkedHashMap<>();
+	private final Map<String, String[]> dependencies = new LinkedHashMap<>();
+
+	/*package*/ void add(String name, Runnable task, String... dependsOn) {
+		if (this.tasks.containsKey(name)) {
+			throw new IllegalArgumentException("there is already a loading task named " + name);
+		}
+		for (String dependency : dependsOn) {
+			if (!this.tasks.containsKey(dependency)) {
+				throw new IllegalArgumentException("loading task " + name + " depends on unknown task " + dependency);
+			}
+		}
+		this.tasks.put(name, task);
+		this.dependencies.put(name, dependsOn);
+	}
+
+	/**
+	 * Runs all tasks on at most the given number of threads and returns once all of them are finished. If a task
+	 * fails, the tasks depending on it are not run, and the exception is re-thrown once the other tasks are done.
+	 */
+	/*package*/ void run(int numberOfThreads) {
+		final AtomicInteger threadCounter = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, numberOfThreads), runnable -> {
+			Thread thread = new Thread(runnable, "ScenarioLoader." + threadCounter.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+			for (Map.Entry<String, Runnable> e : this.tasks.entrySet()) {
+				String[] dependsOn = this.dependencies.get(e.getKey());
+				CompletableFuture<?>[] prerequisites = new CompletableFuture<?>[dependsOn.length];
+				for (int i = 0; i < dependsOn.length; i++) {
+					prerequisites[i] = futures.get(dependsOn[i]);
+				}
+				futures.put(e.getKey(), CompletableFuture.allOf(prerequisites).thenRunAsync(e.getValue(), executor));
+			}
+			RuntimeException failure = null;
+			for (Map.Entry<String, CompletableFuture<Void>> e : futures.entrySet()) {
+				try {
+					e.getValue().join();
+				} catch (CompletionException ex) {
+					if (failure == null) {
+						log.error("loading task " + e.getKey() + " failed.");
+						failure = unwrap(ex);
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static RuntimeException unwrap(CompletionException ex) {
+		Throwable cause = ex.getCause();
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new RuntimeException(cause);
+	}
+
+}
@@ -23,17 +23,17 @@ package org.matsim.core.scoring;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.PersonMoneyEvent;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
 import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
 import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.population.Activity;
@@ -41,18 +41,24 @@ import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.internal.HasPersonId;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
 import org.matsim.core.controler.ControlerListenerManager;
+import org.matsim.core.controler.events.AfterMobsimEvent;
 import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.AfterMobsimListener;
 import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.events.algorithms.Vehicle2DriverEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.metrics.Counter;
+import org.matsim.core.utils.metrics.Metrics;
+import org.matsim.core.utils.metrics.Timer;
 import org.matsim.vehicles.Vehicle;
 
 import com.google.inject.Inject;
 
-import gnu.trove.TDoubleCollection;
 import gnu.trove.iterator.TDoubleIterator;
 import gnu.trove.list.array.TDoubleArrayList;
 
@@ -60,6 +66,10 @@ import gnu.trove.list.array.TDoubleArrayList;
  * This class helps EventsToScore by keeping ScoringFunctions for the entire Population - one per Person -, and dispatching Activities
  * and Legs to the ScoringFunctions. It also gives out the ScoringFunctions, so they can be given other events by EventsToScore.
  * It is not independently useful. Please do not make public.
+ * <p></p>
+ * If {@link PlanCalcScoreConfigGroup#getNumberOfScoringShards()} is larger than zero, the persons are partitioned into that many
+ * {@link ScoringShard}s. Each shard gets the events of its persons in a queue and converts them into legs and activities with its
+ * own {@link EventsToLegs} and {@link EventsToActivities} in its own thread, so no locking is needed in the scoring functions.
  * 
  * @author michaz
  *
@@ -69,10 +79,16 @@ import gnu.trove.list.array.TDoubleArrayList;
 	// can be changed there.  kai, sep'17
 	// I just removed that.  kai, apr'18
 	
-	@SuppressWarnings("unused")
 	private final static Logger log = Logger.getLogger(ScoringFunctionsForPopulation.class);
+
+	private static final Counter SCORED_LEGS = Metrics.counter("scoring.legs");
+	private static final Counter SCORED_ACTIVITIES = Metrics.counter("scoring.activities");
+	/** the time from the end of the mobsim until all scores are computed, including waiting for the shards */
+	private static final Timer FINISH_TIMER = Metrics.timer("scoring.finish");
 	private final Population population;
 	private final ScoringFunctionFactory scoringFunctionFactory;
+	private final Scenario scenario;
+	private final int numberOfShards;
 
 	/*
 	 * Replaced TreeMaps with (Linked)HashMaps since they should perform much better. For 'partialScores'
@@ -83,10 +99,16 @@ import gnu.trove.list.array.TDoubleArrayList;
 	 * should be faster and reduce the memory overhead.
 	 *
 	 * cdobler, nov'15
+	 *
+	 * The scoring functions and partial scores are now kept in arrays indexed by the position of the person in the
+	 * population, which keeps the deterministic order and allows the shards to work on them without locking.
 	 */
-	private final Map<Id<Person>, ScoringFunction> agentScorers = new HashMap<>();
-	private final Map<Id<Person>, TDoubleCollection> partialScores = new LinkedHashMap<>();
-	private final AtomicReference<Throwable> exception = new AtomicReference<>();
+	private Map<Id<Person>, Integer> personIndices = new HashMap<>();
+	private Person[] persons = new Person[0];
+	private ScoringFunction[] agentScorers = new ScoringFunction[0];
+	private TDoubleArrayList[] partialScores = new TDoubleArrayList[0];
+	private ScoringShard[] shards = null;
+	/*package*/ final AtomicReference<Throwable> exception = new AtomicReference<>();
 	
 //	/**
 //	 * For something like the bicycle scoring, we need to know individual links at the level of the scoring function.  This is a first sketch how this could be implemented.
@@ -96,9 +118,20 @@ import gnu.trove.list.array.TDoubleArrayList;
 	
 	private Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
 
-	@Inject
 	ScoringFunctionsForPopulation(ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
 								  Population population, ScoringFunctionFactory scoringFunctionFactory) {
+		this(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, null, 0);
+	}
+
+	@Inject
+	ScoringFunctionsForPopulation(ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
+								  Population population, ScoringFunctionFactory scoringFunctionFactory, Scenario scenario, PlanCalcScoreConfigGroup planCalcScoreConfigGroup) {
+		this(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, scenario,
+				planCalcScoreConfigGroup.getNumberOfScoringShards());
+	}
+
+	private ScoringFunctionsForPopulation(ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
+								  Population population, ScoringFunctionFactory scoringFunctionFactory, Scenario scenario, int numberOfShards) {
 		controlerListenerManager.addControlerListener(new IterationStartsListener() {
 			@Override
 			public void notifyIterationStarts(IterationStartsEvent event) {
@@ -107,24 +140,118 @@ import gnu.trove.list.array.TDoubleArrayList;
 		});
 		this.population = population;
 		this.scoringFunctionFactory = scoringFunctionFactory;
+		this.scenario = scenario;
+		this.numberOfShards = numberOfShards;
 		eventsManager.addHandler(this);
-		eventsToActivities.addActivityHandler(this);
-		eventsToLegs.addLegHandler(this);
+		if (numberOfShards > 0) {
+			log.info("scoring the persons in " + numberOfShards + " shards.");
+			// the legs and activities are produced by the shards themselves.  The EventsToLegs and EventsToActivities
+			// passed in here keep on working for all other handlers, e.g. the experienced plans.
+			controlerListenerManager.addControlerListener(new AfterMobsimListener() {
+				@Override
+				public void notifyAfterMobsim(AfterMobsimEvent event) {
+					finishShards();
+				}
+			});
+		} else {
+			eventsToActivities.addActivityHandler(this);
+			eventsToLegs.addLegHandler(this);
+		}
 //		if ( passLinkEventsToPerson ) {
 			eventsManager.addHandler(vehicles2Drivers);
 //		}
 	}
 
 	private void init() {
+		finishShards();
+		int size = population.getPersons().size();
+		this.personIndices = new HashMap<>(size * 2);
+		this.persons = new Person[size];
+		this.agentScorers = new ScoringFunction[size];
+		this.partialScores = new TDoubleArrayList[size];
+		int index = 0;
 		for (Person person : population.getPersons().values()) {
-			ScoringFunction data = scoringFunctionFactory.createNewScoringFunction(person);
-			this.agentScorers.put(person.getId(), data);
-			this.partialScores.put(person.getId(), new TDoubleArrayList());
+			this.personIndices.put(person.getId(), index);
+			this.persons[index] = person;
+			this.agentScorers[index] = scoringFunctionFactory.createNewScoringFunction(person);
+			this.partialScores[index] = new TDoubleArrayList();
+			index++;
+		}
+		if (this.numberOfShards > 0) {
+			ScoringShard[] newShards = new ScoringShard[this.numberOfShards];
+			for (int i = 0; i < newShards.length; i++) {
+				newShards[i] = new ScoringShard(this, this.scenario, i);
+				newShards[i].start();
+			}
+			this.shards = newShards;
+		}
+	}
+
+	/**
+	 * Sends the remaining events to the shards and waits until they have processed them. Does nothing if there are no running shards.
+	 */
+	private void finishShards() {
+		ScoringShard[] runningShards = this.shards;
+		if (runningShards == null) {
+			return;
+		}
+		this.shards = null;
+		for (ScoringShard shard : runningShards) {
+			shard.finish();
+		}
+		for (ScoringShard shard : runningShards) {
+			shard.waitForFinish();
+		}
+	}
+
+	/*package*/ int getPersonIndex(final Id<Person> personId) {
+		if (personId == null) {
+			return -1;
 		}
+		Integer index = this.personIndices.get(personId);
+		return index == null ? -1 : index;
 	}
 
 	@Override
-	synchronized public void handleEvent(Event o) {
+	public void handleEvent(Event o) {
+		ScoringShard[] currentShards = this.shards;
+		if (currentShards != null) {
+			dispatchToShards(o, currentShards);
+		} else {
+			synchronized (this) {
+				scoreEvent(o, this.vehicles2Drivers);
+			}
+		}
+	}
+
+	private void dispatchToShards(Event o, ScoringShard[] currentShards) {
+		if (o instanceof TransitDriverStartsEvent || o instanceof VehicleArrivesAtFacilityEvent) {
+			// needed by every shard to find out which transit line and route its persons are travelling with
+			for (ScoringShard shard : currentShards) {
+				shard.add(o);
+			}
+			return;
+		}
+		int index;
+		if (o instanceof HasPersonId) {
+			if (o instanceof VehicleEntersTrafficEvent) {
+				vehicles2Drivers.handleEvent((VehicleEntersTrafficEvent) o);
+			} else if (o instanceof VehicleLeavesTrafficEvent) {
+				vehicles2Drivers.handleEvent((VehicleLeavesTrafficEvent) o);
+			}
+			index = getPersonIndex(((HasPersonId) o).getPersonId());
+		} else if (o instanceof LinkEnterEvent) {
+			index = getPersonIndex(vehicles2Drivers.getDriverOfVehicle(((LinkEnterEvent) o).getVehicleId()));
+		} else {
+			return;
+		}
+		// persons which are not in the population, e.g. transit drivers, are not scored
+		if (index >= 0) {
+			currentShards[index % currentShards.length].add(o);
+		}
+	}
+
+	/*package*/ void scoreEvent(Event o, Vehicle2DriverEventHandler vehicles2Drivers) {
 		// this is for the stuff that is directly based on events.
 		// note that this passes on _all_ person events, even those which are aggregated into legs and activities.
 		// for the time being, not all PersonEvents may "implement HasPersonId".
@@ -176,25 +303,33 @@ import gnu.trove.list.array.TDoubleArrayList;
 
 	@Override
 	synchronized public void handleLeg(PersonExperiencedLeg o) {
-		Id<Person> agentId = o.getAgentId();
-		Leg leg = o.getLeg();
-		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
-		if (scoringFunction != null) {
+		scoreLeg(o);
+	}
+
+	/*package*/ void scoreLeg(PersonExperiencedLeg o) {
+		int index = getPersonIndex(o.getAgentId());
+		if (index >= 0) {
+			Leg leg = o.getLeg();
+			ScoringFunction scoringFunction = this.agentScorers[index];
 			scoringFunction.handleLeg(leg);
-			TDoubleCollection partialScoresForAgent = partialScores.get(agentId);
-			partialScoresForAgent.add(scoringFunction.getScore());
+			this.partialScores[index].add(scoringFunction.getScore());
+			SCORED_LEGS.increment();
 		}
 	}
 
 	@Override
 	synchronized public void handleActivity(PersonExperiencedActivity o) {
-		Id<Person> agentId = o.getAgentId();
-		Activity activity = o.getActivity();
-		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
-		if (scoringFunction != null) {
+		scoreActivity(o);
+	}
+
+	/*package*/ void scoreActivity(PersonExperiencedActivity o) {
+		int index = getPersonIndex(o.getAgentId());
+		if (index >= 0) {
+			Activity activity = o.getActivity();
+			ScoringFunction scoringFunction = this.agentScorers[index];
 			scoringFunction.handleActivity(activity);
-			TDoubleCollection partialScoresForAgent = partialScores.get(agentId);
-			partialScoresForAgent.add(scoringFunction.getScore());
+			this.partialScores[index].add(scoringFunction.getScore());
+			SCORED_ACTIVITIES.increment();
 		}
 	}
 
@@ -209,10 +344,13 @@ import gnu.trove.list.array.TDoubleArrayList;
 	 * @return The scoring function for the specified agent.
 	 */
 	public ScoringFunction getScoringFunctionForAgent(final Id<Person> agentId) {
-		return this.agentScorers.get(agentId);
+		int index = getPersonIndex(agentId);
+		return index < 0 ? null : this.agentScorers[index];
 	}
 
 	public void finishScoringFunctions() {
+		long start = FINISH_TIMER.start();
+		finishShards();
 		// Rethrow an exception in a scoring function (user code) if there was one.
 		Throwable throwable = exception.get();
 		if (throwable != null) {
@@ -222,19 +360,20 @@ import gnu.trove.list.array.TDoubleArrayList;
 				throw new RuntimeException(throwable);
 			}
 		}
-		for (ScoringFunction sf : this.agentScorers.values()) {
+		for (ScoringFunction sf : this.agentScorers) {
 			sf.finish();
 		}
-		for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
-			entry.getValue().add(this.getScoringFunctionForAgent(entry.getKey()).getScore());
+		for (int i = 0; i < this.agentScorers.length; i++) {
+			this.partialScores[i].add(this.agentScorers[i].getScore());
 		}
+		FINISH_TIMER.stop(start);
 	}
 
 	public void writePartialScores(String iterationFilename) {
 		try ( BufferedWriter out = IOUtils.getBufferedWriter(iterationFilename) ) {
-			for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
-				out.write(entry.getKey().toString());
-				TDoubleIterator iterator = entry.getValue().iterator();
+			for (int i = 0; i < this.persons.length; i++) {
+				out.write(this.persons[i].getId().toString());
+				TDoubleIterator iterator = this.partialScores[i].iterator();
 				while (iterator.hasNext()) {
 					out.write('\t' + String.valueOf(iterator.next()));
 				}
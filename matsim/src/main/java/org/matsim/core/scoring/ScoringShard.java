@@ -0,0 +1,164 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScoringShard.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.algorithms.Vehicle2DriverEventHandler;
+import org.matsim.core.events.handler.BasicEventHandler;
+
+/**
+ * Scores the persons of one partition of the population in its own thread, see {@link ScoringFunctionsForPopulation}.
+ * The events are handed over in batches; all events of a person must be passed to the same shard, in the order in which
+ * they were thrown.
+ */
+/*package*/ final class ScoringShard implements Runnable, BasicEventHandler, EventsToLegs.LegHandler, EventsToActivities.ActivityHandler {
+
+	private static final int BATCH_SIZE = 1024;
+	private static final int MAX_QUEUED_BATCHES = 64;
+	private static final List<Event> END_MARKER = Collections.emptyList();
+
+	private final ScoringFunctionsForPopulation scoringFunctions;
+	private final EventsManager events = EventsUtils.createEventsManager();
+	private final EventsToActivities eventsToActivities = new EventsToActivities();
+	private final Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
+	private final BlockingQueue<List<Event>> queue = new ArrayBlockingQueue<>(MAX_QUEUED_BATCHES);
+	private final Thread thread;
+
+	private List<Event> batch = new ArrayList<>(BATCH_SIZE);
+	private boolean finished = false;
+
+	ScoringShard(ScoringFunctionsForPopulation scoringFunctions, Scenario scenario, int shardNumber) {
+		this.scoringFunctions = scoringFunctions;
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		eventsToLegs.addLegHandler(this);
+		this.eventsToActivities.addActivityHandler(this);
+		this.events.addHandler(this.vehicles2Drivers);
+		this.events.addHandler(eventsToLegs);
+		this.events.addHandler(this.eventsToActivities);
+		this.events.addHandler(this);
+		this.thread = new Thread(this, "ScoringShard-" + shardNumber);
+		this.thread.setDaemon(true);
+	}
+
+	void start() {
+		this.thread.start();
+	}
+
+	/**
+	 * Must only be called from one thread at a time, i.e. from the thread handling the events.
+	 */
+	void add(Event event) {
+		this.batch.add(event);
+		if (this.batch.size() >= BATCH_SIZE) {
+			put(this.batch);
+			this.batch = new ArrayList<>(BATCH_SIZE);
+		}
+	}
+
+	/**
+	 * Hands over the remaining events. No events may be added afterwards.
+	 */
+	void finish() {
+		if (this.finished) {
+			return;
+		}
+		this.finished = true;
+		if (!this.batch.isEmpty()) {
+			put(this.batch);
+		}
+		this.batch = null;
+		put(END_MARKER);
+	}
+
+	void waitForFinish() {
+		try {
+			this.thread.join();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void put(List<Event> events) {
+		try {
+			this.queue.put(events);
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void run() {
+		boolean failed = false;
+		try {
+			while (true) {
+				List<Event> nextBatch = this.queue.take();
+				if (nextBatch == END_MARKER) {
+					break;
+				}
+				// after an exception, keep on taking the events so the events handling thread is not blocked
+				if (!failed) {
+					try {
+						for (Event event : nextBatch) {
+							this.events.processEvent(event);
+						}
+					} catch (Throwable e) {
+						failed = true;
+						this.scoringFunctions.exception.compareAndSet(null, e);
+					}
+				}
+			}
+			if (!failed) {
+				this.eventsToActivities.finish();
+			}
+		} catch (Throwable e) {
+			this.scoringFunctions.exception.compareAndSet(null, e);
+		}
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		this.scoringFunctions.scoreEvent(event, this.vehicles2Drivers);
+	}
+
+	@Override
+	public void handleLeg(PersonExperiencedLeg leg) {
+		this.scoringFunctions.scoreLeg(leg);
+	}
+
+	@Override
+	public void handleActivity(PersonExperiencedActivity activity) {
+		this.scoringFunctions.scoreActivity(activity);
+	}
+
+	@Override
+	public void reset(int iteration) {
+	}
+
+}
@@ -45,17 +45,25 @@ public final class CharyparNagelActivityScoring implements org.matsim.core.scori
 
 	private final ScoringParameters params;
 	private final OpeningIntervalCalculator openingIntervalCalculator;
+	/** if true, the opening times are taken from the activity parameters without asking the opening interval calculator */
+	private final boolean openingTimesFromParams;
 
 	private Activity firstActivity;
 
 	private static final Logger log = Logger.getLogger(CharyparNagelActivityScoring.class);
 
 	public CharyparNagelActivityScoring(final ScoringParameters params) {
-		this(params, new ActivityTypeOpeningIntervalCalculator(params));
+		this(params, new ActivityTypeOpeningIntervalCalculator(params), true);
 	}
 
 	public CharyparNagelActivityScoring(final ScoringParameters params, final OpeningIntervalCalculator openingIntervalCalculator) {
+		this(params, openingIntervalCalculator, false);
+	}
+
+	private CharyparNagelActivityScoring(final ScoringParameters params, final OpeningIntervalCalculator openingIntervalCalculator,
+			final boolean openingTimesFromParams) {
 		this.params = params;
+		this.openingTimesFromParams = openingTimesFromParams;
 		this.currentActivityStartTime = INITIAL_LAST_TIME;
 		this.firstActivityEndTime = INITIAL_FIRST_ACT_END_TIME;
 		this.score = INITIAL_SCORE;
@@ -82,12 +90,14 @@ public final class CharyparNagelActivityScoring implements org.matsim.core.scori
 
 	protected double calcActScore(final double arrivalTime, final double departureTime, final Activity act) {
 
-		ActivityUtilityParameters actParams = this.params.utilParams.get(act.getType());
-		if (actParams == null) {
+		int actTypeIndex = this.params.getActivityTypeIndex(act.getType());
+		if (actTypeIndex < 0) {
 			throw new IllegalArgumentException("acttype \"" + act.getType() + "\" is not known in utility parameters " +
 					"(module name=\"planCalcScore\" in the config file).");
 		}
 
+		ActivityUtilityParameters actParams = this.params.activityParamsByIndex[actTypeIndex];
+
 		double tmpScore = 0.0;
 
 		if (actParams.isScoreAtAll()) {
@@ -120,9 +130,16 @@ public final class CharyparNagelActivityScoring implements org.matsim.core.scori
 			 * assume A <= D
 			 */
 
-			double[] openingInterval = openingIntervalCalculator.getOpeningInterval(act);
-			double openingTime = openingInterval[0];
-			double closingTime = openingInterval[1];
+			double openingTime;
+			double closingTime;
+			if (this.openingTimesFromParams) {
+				openingTime = actParams.getOpeningTime();
+				closingTime = actParams.getClosingTime();
+			} else {
+				double[] openingInterval = openingIntervalCalculator.getOpeningInterval(act);
+				openingTime = openingInterval[0];
+				closingTime = openingInterval[1];
+			}
 
 			double activityStart = arrivalTime;
 			double activityEnd = departureTime;
@@ -155,21 +172,21 @@ public final class CharyparNagelActivityScoring implements org.matsim.core.scori
 			}
 
 			// utility of performing an action, duration is >= 1, thus log is no problem
-			double typicalDuration = actParams.getTypicalDuration();
+			// (performingFactor = marginalUtilityOfPerforming_s * typicalDuration, precompiled in the parameters)
+			double performingFactor = this.params.performingFactor[actTypeIndex];
+			double zeroUtilityDuration_s = this.params.zeroUtilityDuration_s[actTypeIndex];
 
 			if ( this.params.usingOldScoringBelowZeroUtilityDuration ) {
 				if (duration > 0) {
-					double utilPerf = this.params.marginalUtilityOfPerforming_s * typicalDuration
-							* Math.log((duration / 3600.0) / actParams.getZeroUtilityDuration_h());
+					double utilPerf = performingFactor * Math.log((duration / 3600.0) / actParams.getZeroUtilityDuration_h());
 					double utilWait = this.params.marginalUtilityOfWaiting_s * duration;
 					tmpScore += Math.max(0, Math.max(utilPerf, utilWait));
 				} else {
 					tmpScore += 2*this.params.marginalUtilityOfLateArrival_s*Math.abs(duration);
 				}
 			} else {
-				if ( duration >= 3600.*actParams.getZeroUtilityDuration_h() ) {
-					double utilPerf = this.params.marginalUtilityOfPerforming_s * typicalDuration
-							* Math.log((duration / 3600.0) / actParams.getZeroUtilityDuration_h());
+				if ( duration >= zeroUtilityDuration_s ) {
+					double utilPerf = performingFactor * Math.log((duration / 3600.0) / actParams.getZeroUtilityDuration_h());
 					// also removing the "wait" alternative scoring.
 					tmpScore += utilPerf ;
 				} else {
@@ -182,15 +199,15 @@ public final class CharyparNagelActivityScoring implements org.matsim.core.scori
 //					}
 					
 					// below zeroUtilityDuration, we linearly extend the slope ...:
-					double slopeAtZeroUtility = this.params.marginalUtilityOfPerforming_s * typicalDuration / ( 3600.*actParams.getZeroUtilityDuration_h() ) ;
+					double slopeAtZeroUtility = this.params.slopeAtZeroUtility[actTypeIndex] ;
 					if ( slopeAtZeroUtility < 0. ) {
 						// (beta_perf might be = 0)
 						System.err.println("beta_perf: " + this.params.marginalUtilityOfPerforming_s);
-						System.err.println("typicalDuration: " + typicalDuration );
+						System.err.println("typicalDuration: " + actParams.getTypicalDuration() );
 						System.err.println( "zero utl duration: " + actParams.getZeroUtilityDuration_h() );
 						throw new RuntimeException( "slope at zero utility < 0.; this should not happen ...");
 					}
-					double durationUnderrun = actParams.getZeroUtilityDuration_h()*3600. - duration ;
+					double durationUnderrun = zeroUtilityDuration_s - duration ;
 					if ( durationUnderrun < 0. ) {
 						throw new RuntimeException( "durationUnderrun < 0; this should not happen ...") ;
 					}
@@ -51,9 +51,11 @@ public class CharyparNagelLegScoring implements org.matsim.core.scoring.SumScori
 	private boolean nextStartPtLegIsFirstOfTrip = true ;
 	private boolean currentLegIsPtLeg = false;
 	private double lastActivityEndTime = Time.UNDEFINED_TIME ;
+	private final ModeUtilityParameters ptModeParams;
 	
 	public CharyparNagelLegScoring(final ScoringParameters params, Network network) {
 		this.params = params;
+		this.ptModeParams = params.modeParams.get(TransportMode.pt);
 		this.network = network;
 		this.nextEnterVehicleIsFirstOfTrip = true ;
 		this.nextStartPtLegIsFirstOfTrip = true ;
@@ -75,16 +77,13 @@ public class CharyparNagelLegScoring implements org.matsim.core.scoring.SumScori
 	protected double calcLegScore(final double departureTime, final double arrivalTime, final Leg leg) {
 		double tmpScore = 0.0;
 		double travelTime = arrivalTime - departureTime; // travel time in seconds	
-		ModeUtilityParameters modeParams = this.params.modeParams.get(leg.getMode());
-		if (modeParams == null) {
-			if (leg.getMode().equals(TransportMode.transit_walk) || leg.getMode().equals(TransportMode.access_walk) 
-					|| leg.getMode().equals(TransportMode.egress_walk) ) {
-				modeParams = this.params.modeParams.get(TransportMode.walk);
-			} else {
-//				modeParams = this.params.modeParams.get(TransportMode.other);
-				throw new RuntimeException("just encountered mode for which no scoring parameters are defined: " + leg.getMode().toString() ) ;
-			}
+		// (transit_walk, access_walk and egress_walk are mapped to walk in the compiled parameters if they have no parameters of their own)
+		int modeIndex = this.params.getModeIndex(leg.getMode());
+		if (modeIndex < 0) {
+//			modeParams = this.params.modeParams.get(TransportMode.other);
+			throw new RuntimeException("just encountered mode for which no scoring parameters are defined: " + leg.getMode().toString() ) ;
 		}
+		ModeUtilityParameters modeParams = this.params.modeParamsByIndex[modeIndex];
 		tmpScore += travelTime * modeParams.marginalUtilityOfTraveling_s;
 		if (modeParams.marginalUtilityOfDistance_m != 0.0
 				|| modeParams.monetaryDistanceCostRate != 0.0) {
@@ -102,7 +101,7 @@ public class CharyparNagelLegScoring implements org.matsim.core.scoring.SumScori
 				}
 			}
 			tmpScore += modeParams.marginalUtilityOfDistance_m * dist;
-			tmpScore += modeParams.monetaryDistanceCostRate * this.params.marginalUtilityOfMoney * dist;
+			tmpScore += this.params.monetaryDistanceUtility_m[modeIndex] * dist;
 		}
 		tmpScore += modeParams.constant;
 		// (yyyy once we have multiple legs without "real" activities in between, this will produce wrong results.  kai, dec'12)
@@ -128,14 +127,14 @@ public class CharyparNagelLegScoring implements org.matsim.core.scoring.SumScori
 			}
 			this.nextEnterVehicleIsFirstOfTrip = false ;
 			// add score of waiting, _minus_ score of travelling (since it is added in the legscoring above):
-			this.score += (event.getTime() - this.lastActivityEndTime) * (this.params.marginalUtilityOfWaitingPt_s - this.params.modeParams.get(TransportMode.pt).marginalUtilityOfTraveling_s) ;
+			this.score += (event.getTime() - this.lastActivityEndTime) * (this.params.marginalUtilityOfWaitingPt_s - this.ptModeParams.marginalUtilityOfTraveling_s) ;
 		}
 
 		if ( event instanceof PersonDepartureEvent ) {
 			this.currentLegIsPtLeg = TransportMode.pt.equals( ((PersonDepartureEvent)event).getLegMode() );
 			if ( currentLegIsPtLeg ) {
 				if ( !this.nextStartPtLegIsFirstOfTrip ) {
-					this.score -= params.modeParams.get(TransportMode.pt).constant ;
+					this.score -= this.ptModeParams.constant ;
 					// (yyyy deducting this again, since is it wrongly added above.  should be consolidated; this is so the code
 					// modification is minimally invasive.  kai, dec'12)
 				}
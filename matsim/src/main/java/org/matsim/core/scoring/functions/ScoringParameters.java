@@ -20,11 +20,13 @@
 
 package org.matsim.core.scoring.functions;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.internal.MatsimParameters;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
@@ -34,7 +36,9 @@ import org.matsim.core.config.groups.ScenarioConfigGroup;
 
 public class ScoringParameters implements MatsimParameters {
 
+	/** not to be modified after building, since the compiled tables below would not know about the changes. */
 	public final Map<String, ActivityUtilityParameters> utilParams;
+	/** not to be modified after building, since the compiled tables below would not know about the changes. */
 	public final Map<String, ModeUtilityParameters> modeParams;
 	public final double marginalUtilityOfWaiting_s;
 	public final double marginalUtilityOfLateArrival_s;
@@ -50,6 +54,23 @@ public class ScoringParameters implements MatsimParameters {
 	
 	public final double simulationPeriodInDays;
 
+	/*
+	 * Compiled form of utilParams and modeParams: activity types and modes are interned to small ints, and the
+	 * parameters as well as the constants derived from them are kept in arrays indexed by these ints.  This way,
+	 * the scoring functions do not have to look them up in the tree maps and recompute them for every activity and leg.
+	 */
+	private final Map<String, Integer> activityTypeIndices = new HashMap<>();
+	/*package*/ final ActivityUtilityParameters[] activityParamsByIndex;
+	/** marginalUtilityOfPerforming_s * typicalDuration_s */
+	/*package*/ final double[] performingFactor;
+	/*package*/ final double[] zeroUtilityDuration_s;
+	/*package*/ final double[] slopeAtZeroUtility;
+
+	private final Map<String, Integer> modeIndices = new HashMap<>();
+	/*package*/ final ModeUtilityParameters[] modeParamsByIndex;
+	/** monetaryDistanceCostRate * marginalUtilityOfMoney */
+	/*package*/ final double[] monetaryDistanceUtility_m;
+
 	private ScoringParameters(
 			final Map<String, ActivityUtilityParameters> utilParams,
 			final Map<String, ModeUtilityParameters> modeParams,
@@ -77,6 +98,56 @@ public class ScoringParameters implements MatsimParameters {
 		this.scoreActs = scoreActs;
 		this.usingOldScoringBelowZeroUtilityDuration = usingOldScoringBelowZeroUtilityDuration;
 		this.simulationPeriodInDays = simulationPeriodInDays;
+
+		this.activityParamsByIndex = new ActivityUtilityParameters[utilParams.size()];
+		this.performingFactor = new double[utilParams.size()];
+		this.zeroUtilityDuration_s = new double[utilParams.size()];
+		this.slopeAtZeroUtility = new double[utilParams.size()];
+		for (Map.Entry<String, ActivityUtilityParameters> e : utilParams.entrySet()) {
+			int index = this.activityTypeIndices.size();
+			this.activityTypeIndices.put(e.getKey(), index);
+			ActivityUtilityParameters actParams = e.getValue();
+			this.activityParamsByIndex[index] = actParams;
+			this.performingFactor[index] = marginalUtilityOfPerforming_s * actParams.getTypicalDuration();
+			this.zeroUtilityDuration_s[index] = 3600. * actParams.getZeroUtilityDuration_h();
+			this.slopeAtZeroUtility[index] = this.performingFactor[index] / this.zeroUtilityDuration_s[index];
+		}
+
+		this.modeParamsByIndex = new ModeUtilityParameters[modeParams.size()];
+		this.monetaryDistanceUtility_m = new double[modeParams.size()];
+		for (Map.Entry<String, ModeUtilityParameters> e : modeParams.entrySet()) {
+			int index = this.modeIndices.size();
+			this.modeIndices.put(e.getKey(), index);
+			ModeUtilityParameters params = e.getValue();
+			this.modeParamsByIndex[index] = params;
+			this.monetaryDistanceUtility_m[index] = params.monetaryDistanceCostRate * marginalUtilityOfMoney;
+		}
+		// the walk legs of pt trips are scored like walk if there are no parameters of their own
+		Integer walkIndex = this.modeIndices.get(TransportMode.walk);
+		if (walkIndex != null) {
+			for (String walkMode : new String[] {TransportMode.transit_walk, TransportMode.access_walk, TransportMode.egress_walk}) {
+				if (!this.modeIndices.containsKey(walkMode)) {
+					this.modeIndices.put(walkMode, walkIndex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the index of the activity type in the compiled parameter tables, or -1 if there are no parameters for this activity type.
+	 */
+	public int getActivityTypeIndex(final String activityType) {
+		Integer index = this.activityTypeIndices.get(activityType);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @return the index of the mode in the compiled parameter tables, or -1 if there are no parameters for this mode.
+	 * The walk legs of pt trips get the index of walk if they do not have parameters of their own.
+	 */
+	public int getModeIndex(final String mode) {
+		Integer index = this.modeIndices.get(mode);
+		return index == null ? -1 : index;
 	}
 
 	public static final class Builder {
@@ -40,8 +40,12 @@ public class MapBasedDataContainerProvider implements DataContainerProvider {
 	public DataContainer getTravelTimeData(final Id<Link> linkId, final boolean createIfMissing) {
 		DataContainer data = this.linkData.get(linkId);
 		if ((null == data) && createIfMissing) {
-			data = new DataContainer(this.ttDataFactory.createTravelTimeData(linkId));
-			this.linkData.put(linkId, data);
+			// putIfAbsent, so that concurrent event handlers end up with the same container
+			DataContainer newData = new DataContainer(this.ttDataFactory.createTravelTimeData(linkId));
+			data = this.linkData.putIfAbsent(linkId, newData);
+			if (data == null) {
+				data = newData;
+			}
 		}
 		return data;
 	}
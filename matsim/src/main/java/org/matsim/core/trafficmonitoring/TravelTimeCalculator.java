@@ -19,7 +19,7 @@
  * *********************************************************************** */
 package org.matsim.core.trafficmonitoring;
 
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -63,6 +63,9 @@ import com.google.inject.Inject;
  * use {@link TravelTimeDataHashMap} (see {@link #setTravelTimeDataFactory(TravelTimeDataFactory)}
  * as that one does not use any memory to time bins where no traffic occurred. By default,
  * {@link TravelTimeDataArray} is used.
+ * <p></p>
+ * With {@link TravelTimeDataConcurrentArray} (see {@link TravelTimeDataConcurrentArrayFactory}), the calculator may
+ * handle events from several threads at the same time, as long as the events of each vehicle arrive in order.
  * 
  * @author dgrether
  * @author mrieser
@@ -86,7 +89,8 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 
 	private final DataContainerProvider dataContainerProvider;
 	
-	private final Map<Id<Vehicle>, LinkEnterEvent> linkEnterEvents;
+	/** the link each vehicle entered last, and when; kept per vehicle and reused, see {@link LinkEnter} */
+	private final Map<Id<Vehicle>, LinkEnter> linkEnters;
 
 	private final Set<Id<Vehicle>> vehiclesToIgnore;
 	private final Set<String> analyzedModes;
@@ -98,6 +102,13 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 	private final boolean calculateLinkToLinkTravelTimes;
 
 	private TravelTimeDataFactory ttDataFactory = null;
+
+	private final Network network;
+
+	private boolean recordTravelTimeChanges = false;
+
+	/** travel times per time slot before the last reset, only for links where they differ from the free speed travel time */
+	private volatile Map<Id<Link>, float[]> previousTravelTimes = null;
 	
 	@Inject private QSimConfigGroup qsimConfig ;
 
@@ -116,6 +127,9 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 			case TravelTimeCalculatorHashMap:
 				calculator.setTravelTimeDataFactory(new TravelTimeDataHashMapFactory(network));
 				break;
+			case TravelTimeCalculatorConcurrentArray:
+				calculator.setTravelTimeDataFactory(new TravelTimeDataConcurrentArrayFactory(network, calculator.numSlots));
+				break;
 			default:
 				throw new RuntimeException(config.getTravelTimeCalculatorType() + " is unknown!");
 		}
@@ -166,6 +180,7 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 
 	TravelTimeCalculator(final Network network, final int timeslice, final int maxTime,
 								boolean calculateLinkTravelTimes, boolean calculateLinkToLinkTravelTimes, boolean filterModes, Set<String> analyzedModes) {
+		this.network = network;
 		this.calculateLinkTravelTimes = calculateLinkTravelTimes;
 		this.calculateLinkToLinkTravelTimes = calculateLinkToLinkTravelTimes;
 		this.filterAnalyzedModes = filterModes;
@@ -194,11 +209,12 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 			// assume that every link has 2 outgoing links as default
 			this.linkToLinkData = new ConcurrentHashMap<>((int) (network.getLinks().size() * 1.4 * 2));
 		}
-		this.linkEnterEvents = new ConcurrentHashMap<>();
+		this.linkEnters = new ConcurrentHashMap<>();
 
 		// if we just look at one mode, we need to ignore all vehicles with a different mode. However, the info re the mode is only in
 		// the vehicleEntersTraffic event.  So we need to memorize the ignored vehicles from there ...
-		this.vehiclesToIgnore = new HashSet<>();
+		// (concurrent, like the other maps, so that events may be handled by several threads)
+		this.vehiclesToIgnore = ConcurrentHashMap.newKeySet();
 
 
 		this.reset(0);
@@ -211,23 +227,27 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		 * performs a trip with one of those modes. if not, we skip the event. */
 		if (filterAnalyzedModes && vehiclesToIgnore.contains(e.getVehicleId())) return;
 
-		LinkEnterEvent oldEvent = this.linkEnterEvents.remove(e.getVehicleId());
-		if ((oldEvent != null) && this.calculateLinkToLinkTravelTimes) {
-			Tuple<Id<Link>, Id<Link>> fromToLink = new Tuple<>(oldEvent.getLinkId(), e.getLinkId());
+		LinkEnter enter = this.linkEnters.get(e.getVehicleId());
+		if (enter == null) {
+			enter = new LinkEnter();
+			this.linkEnters.put(e.getVehicleId(), enter);
+		} else if ((enter.linkId != null) && this.calculateLinkToLinkTravelTimes) {
+			Tuple<Id<Link>, Id<Link>> fromToLink = new Tuple<>(enter.linkId, e.getLinkId());
 			DataContainer data = getLinkToLinkTravelTimeData(fromToLink, true);
-			this.aggregator.addTravelTime(data.ttData, oldEvent.getTime(), e.getTime());
+			this.aggregator.addTravelTime(data.ttData, enter.time, e.getTime());
 			data.needsConsolidation = true;
 		}
-		this.linkEnterEvents.put(e.getVehicleId(), e);
+		enter.linkId = e.getLinkId();
+		enter.time = e.getTime();
 	}
 
 	@Override
 	public void handleEvent(final LinkLeaveEvent e) {
 		if (this.calculateLinkTravelTimes) {
-			LinkEnterEvent oldEvent = this.linkEnterEvents.get(e.getVehicleId());
-			if (oldEvent != null) {
+			LinkEnter enter = this.linkEnters.get(e.getVehicleId());
+			if (enter != null && enter.linkId != null) {
 				DataContainer data = this.dataContainerProvider.getTravelTimeData(e.getLinkId(), true);
-				this.aggregator.addTravelTime(data.ttData, oldEvent.getTime(), e.getTime());
+				this.aggregator.addTravelTime(data.ttData, enter.time, e.getTime());
 				data.needsConsolidation = true;
 			}
 		}
@@ -248,7 +268,7 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		/* remove EnterEvents from list when a vehicle arrives.
 		 * otherwise, the activity duration would counted as travel time, when the
 		 * vehicle departs again and leaves the link! */
-		this.linkEnterEvents.remove(event.getVehicleId());
+		forgetLinkEnter(event.getVehicleId());
 
 		// try to remove vehicles from set with filtered vehicles
 		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
@@ -259,16 +279,17 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		/* remove EnterEvents from list when a bus stops on a link.
 		 * otherwise, the stop time would counted as travel time, when the
 		 * bus departs again and leaves the link! */
-		this.linkEnterEvents.remove(event.getVehicleId());
+		forgetLinkEnter(event.getVehicleId());
 	}
 
 	@Override
 	public void handleEvent(VehicleAbortsEvent event) {
-		LinkEnterEvent e = this.linkEnterEvents.remove(event.getVehicleId());
-		if (e != null) {
-			DataContainer data = this.dataContainerProvider.getTravelTimeData(e.getLinkId(), true);
+		LinkEnter enter = this.linkEnters.get(event.getVehicleId());
+		if (enter != null && enter.linkId != null) {
+			DataContainer data = this.dataContainerProvider.getTravelTimeData(enter.linkId, true);
 			data.needsConsolidation = true;
-			this.aggregator.addStuckEventTravelTime(data.ttData, e.getTime(), event.getTime());
+			this.aggregator.addStuckEventTravelTime(data.ttData, enter.time, event.getTime());
+			enter.linkId = null;
 			if (this.calculateLinkToLinkTravelTimes 
 					&& event.getTime() < qsimConfig.getEndTime() 
 					// (we think that this only makes problems when the abort is not just because of mobsim end time. kai & theresa, jan'17) 
@@ -282,11 +303,21 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
 	}
 
+	private void forgetLinkEnter(final Id<Vehicle> vehicleId) {
+		LinkEnter enter = this.linkEnters.get(vehicleId);
+		if (enter != null) {
+			enter.linkId = null;
+		}
+	}
+
 	private DataContainer getLinkToLinkTravelTimeData(Tuple<Id<Link>, Id<Link>> fromLinkToLink, final boolean createIfMissing) {
 		DataContainer data = this.linkToLinkData.get(fromLinkToLink);
 		if ((null == data) && createIfMissing) {
-			data = new DataContainer(this.ttDataFactory.createTravelTimeData(fromLinkToLink.getFirst()));
-			this.linkToLinkData.put(fromLinkToLink, data);
+			DataContainer newData = new DataContainer(this.ttDataFactory.createTravelTimeData(fromLinkToLink.getFirst()));
+			data = this.linkToLinkData.putIfAbsent(fromLinkToLink, newData);
+			if (data == null) {
+				data = newData;
+			}
 		}
 		return data;
 	}
@@ -350,8 +381,84 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		return this.aggregator.getTravelTime(data.ttData, time);
 	}
 
+	/**
+	 * Returns the largest relative change of the travel time on the given link over all time slots, comparing
+	 * the current travel times with the ones before the last {@link #reset(int)}, i.e. usually the travel times
+	 * of the last iteration with the ones of the iteration before.
+	 *
+	 * @return the relative change, or {@link Double#POSITIVE_INFINITY} if the travel times before the last reset
+	 * are not known, see {@link #setRecordTravelTimeChanges(boolean)}.
+	 */
+	public double getRelativeTravelTimeChange(final Link link) {
+		Map<Id<Link>, float[]> previous = this.previousTravelTimes;
+		if (previous == null || !this.calculateLinkTravelTimes) {
+			return Double.POSITIVE_INFINITY;
+		}
+		float[] previousLinkTravelTimes = previous.get(link.getId());
+		if (previousLinkTravelTimes == null && this.dataContainerProvider.getTravelTimeData(link, false) == null) {
+			// free speed travel times before and now
+			return 0.0;
+		}
+		double maxChange = 0.0;
+		for (int i = 0; i < this.numSlots; i++) {
+			double time = i * this.timeSlice;
+			double before = previousLinkTravelTimes == null ? link.getLength() / link.getFreespeed(time) : previousLinkTravelTimes[i];
+			double change = Math.abs(getLinkTravelTime(link, time) - before) / Math.max(before, 1.0);
+			if (change > maxChange) {
+				maxChange = change;
+			}
+		}
+		return maxChange;
+	}
+
+	/**
+	 * If set, the travel times are remembered at every {@link #reset(int)}, so that {@link #getRelativeTravelTimeChange(Link)}
+	 * can be used. Only the travel times of links which differ from the free speed travel time are kept.
+	 */
+	public void setRecordTravelTimeChanges(final boolean recordTravelTimeChanges) {
+		this.recordTravelTimeChanges = recordTravelTimeChanges;
+		if (!recordTravelTimeChanges) {
+			this.previousTravelTimes = null;
+		}
+	}
+
+	private void recordTravelTimes() {
+		Map<Id<Link>, float[]> travelTimes = new HashMap<>();
+		for (Map.Entry<Id<Link>, DataContainer> e : this.linkData.entrySet()) {
+			Link link = this.network.getLinks().get(e.getKey());
+			if (link == null) {
+				continue;
+			}
+			DataContainer data = e.getValue();
+			if (data.needsConsolidation) {
+				consolidateData(data);
+			}
+			float[] linkTravelTimes = null;
+			for (int i = 0; i < this.numSlots; i++) {
+				double time = i * this.timeSlice;
+				double travelTime = this.aggregator.getTravelTime(data.ttData, time);
+				if (linkTravelTimes == null && travelTime != link.getLength() / link.getFreespeed(time)) {
+					linkTravelTimes = new float[this.numSlots];
+					for (int j = 0; j < i; j++) {
+						linkTravelTimes[j] = (float) (link.getLength() / link.getFreespeed(j * this.timeSlice));
+					}
+				}
+				if (linkTravelTimes != null) {
+					linkTravelTimes[i] = (float) travelTime;
+				}
+			}
+			if (linkTravelTimes != null) {
+				travelTimes.put(e.getKey(), linkTravelTimes);
+			}
+		}
+		this.previousTravelTimes = travelTimes;
+	}
+
 	@Override
 	public void reset(int iteration) {
+		if (this.calculateLinkTravelTimes && this.recordTravelTimeChanges) {
+			recordTravelTimes();
+		}
 		if (this.calculateLinkTravelTimes) {
 			for (DataContainer data : this.linkData.values()){
 				data.ttData.resetTravelTimes();
@@ -364,7 +471,7 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 				data.needsConsolidation = false;
 			}
 		}
-		this.linkEnterEvents.clear();
+		this.linkEnters.clear();
 		this.vehiclesToIgnore.clear();
 	}
 
@@ -440,6 +547,16 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		return this.timeSlice;
 	}
 
+	/**
+	 * The link a vehicle entered last and the time it entered it, instead of the whole event. The link is
+	 * <code>null</code> while the vehicle is not on a link, so the record can be reused for the next link.
+	 * Events of a vehicle are handled one after the other, so the fields need no synchronization.
+	 */
+	private static final class LinkEnter {
+		Id<Link> linkId = null;
+		double time;
+	}
+
 	/*package*/ static class DataContainer {
 		/*package*/ final TravelTimeData ttData;
 		/*package*/ volatile boolean needsConsolidation = false;
@@ -0,0 +1,86 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TravelTimeDataConcurrentArray.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.trafficmonitoring;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.matsim.api.core.v01.network.Link;
+
+/**
+ * Implementation of {@link TravelTimeData} like {@link TravelTimeDataArray}, but travel times may be added
+ * from several threads at the same time without locking: the sums and counts per time bin are updated
+ * atomically. The sums are kept as the raw long bits of the doubles.
+ * <p></p>
+ * As the sum and the count of a time bin are two separate values, a travel time read while travel times are
+ * added concurrently may be based on a sum which already contains a travel time that is not yet counted.
+ * Travel times read after the events are processed are exact.
+ */
+public class TravelTimeDataConcurrentArray implements TravelTimeData {
+	private final AtomicLongArray timeSum;
+	private final AtomicIntegerArray timeCnt;
+	private final Link link;
+
+	public TravelTimeDataConcurrentArray(final Link link, final int numSlots) {
+		this.timeSum = new AtomicLongArray(numSlots);
+		this.timeCnt = new AtomicIntegerArray(numSlots);
+		this.link = link;
+		resetTravelTimes();
+	}
+
+	@Override
+	public void resetTravelTimes() {
+		long zero = Double.doubleToRawLongBits(0.0);
+		for (int i = 0; i < this.timeSum.length(); i++) {
+			this.timeSum.set(i, zero);
+			this.timeCnt.set(i, 0);
+		}
+	}
+
+	@Override
+	public void setTravelTime( final int timeSlot, final double traveltime ) {
+		// only used when consolidating the data, i.e. not while travel times are added
+		this.timeSum.set(timeSlot, Double.doubleToRawLongBits(traveltime));
+		this.timeCnt.set(timeSlot, 1);
+	}
+
+	@Override
+	public void addTravelTime(final int timeSlot, final double traveltime) {
+		while (true) {
+			long oldBits = this.timeSum.get(timeSlot);
+			long newBits = Double.doubleToRawLongBits(Double.longBitsToDouble(oldBits) + traveltime);
+			if (this.timeSum.compareAndSet(timeSlot, oldBits, newBits)) {
+				break;
+			}
+		}
+		this.timeCnt.incrementAndGet(timeSlot);
+	}
+
+	@Override
+	public double getTravelTime(final int timeSlot, final double now) {
+		int cnt = this.timeCnt.get(timeSlot);
+		if (cnt == 0) {
+			return this.link.getLength() / this.link.getFreespeed(now);
+		}
+		return Double.longBitsToDouble(this.timeSum.get(timeSlot)) / cnt;
+	}
+
+}
@@ -0,0 +1,127 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryImageCache.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Locates binary images of input files, e.g. written by {@link org.matsim.core.network.io.BinaryNetworkWriter},
+ * which are cached next to the input files. The name of an image contains a hash of the content of the inputs it
+ * was built from, so an image is never used after one of its inputs changed; outdated images are simply not
+ * found any more and can be deleted.
+ */
+public final class BinaryImageCache {
+
+	private final static Logger log = Logger.getLogger(BinaryImageCache.class);
+
+	private BinaryImageCache() {
+	}
+
+	/**
+	 * @param extension the extension of the image file, identifying the type of image
+	 * @param inputs the input files the image is built from, the image is placed next to the first one
+	 * @param keys further values the image depends on, e.g. coordinate systems or the version of the image format
+	 * @return the image file (which need not exist), or <code>null</code> if the first input is not a local file
+	 */
+	public static File getImageFile(final String extension, final List<URL> inputs, final String... keys) {
+		File input = toFile(inputs.get(0));
+		if (input == null) {
+			return null;
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte[] buffer = new byte[1 << 16];
+			for (URL url : inputs) {
+				try (InputStream stream = url.openStream()) {
+					int n;
+					while ((n = stream.read(buffer)) > 0) {
+						digest.update(buffer, 0, n);
+					}
+				}
+			}
+			for (String key : keys) {
+				digest.update(String.valueOf(key).getBytes(IOUtils.CHARSET_UTF8));
+				digest.update((byte) 0);
+			}
+			StringBuilder hash = new StringBuilder();
+			byte[] hashBytes = digest.digest();
+			for (int i = 0; i < 8; i++) {
+				hash.append(String.format("%02x", hashBytes[i]));
+			}
+			return new File(input.getParentFile(), input.getName() + "." + hash + "." + extension);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static File toFile(final URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			return null;
+		}
+		try {
+			return new File(url.toURI());
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the image to a temporary file which is then moved to the image file, so other runs never see partially
+	 * written images. Failing to write the image is not an error, as the inputs can always be read again; it is only
+	 * logged.
+	 */
+	public static void writeImage(final File imageFile, final Consumer<OutputStream> writer) {
+		File tmpFile = null;
+		try {
+			tmpFile = File.createTempFile(imageFile.getName(), ".tmp", imageFile.getParentFile());
+			writer.accept(new FileOutputStream(tmpFile));
+			try {
+				Files.move(tmpFile.toPath(), imageFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile.toPath(), imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			log.info("binary image written to " + imageFile);
+		} catch (IOException | UncheckedIOException e) {
+			log.warn("could not write binary image " + imageFile + ", the input files will be read again next time.", e);
+			if (tmpFile != null) {
+				tmpFile.delete();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,197 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryImageInput.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+import static org.matsim.core.utils.io.BinaryImageOutput.*;
+
+/**
+ * Reads the primitives written by {@link BinaryImageOutput}. Blocks of numbers are read with a single read and
+ * converted in bulk.
+ * <p></p>
+ * All methods throw {@link UncheckedIOException} if reading fails.
+ */
+public final class BinaryImageInput implements Closeable {
+
+	private final DataInputStream in;
+	private final List<String> stringTable = new ArrayList<>();
+
+	public BinaryImageInput(final InputStream stream) {
+		this.in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+	}
+
+	/**
+	 * Reads the header written by {@link BinaryImageOutput#writeHeader(int, int)} and fails if it does not match.
+	 */
+	public void readHeader(final int magic, final int version) {
+		int actualMagic = readInt();
+		if (actualMagic != magic) {
+			throw new RuntimeException("Unexpected header " + Integer.toHexString(actualMagic) + " of binary image, expected " + Integer.toHexString(magic));
+		}
+		int actualVersion = readInt();
+		if (actualVersion != version) {
+			throw new RuntimeException("Unsupported version of binary image: " + actualVersion + ", expected " + version);
+		}
+	}
+
+	public int readInt() {
+		try {
+			return this.in.readInt();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public double readDouble() {
+		try {
+			return this.in.readDouble();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public boolean readBoolean() {
+		try {
+			return this.in.readBoolean();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public int readVarInt() {
+		try {
+			int value = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = this.in.readUnsignedByte();
+				value |= (b & 0x7f) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public int[] readInts(final int count) {
+		int[] values = new int[count];
+		readBlock(count * Integer.BYTES).asIntBuffer().get(values);
+		return values;
+	}
+
+	public double[] readDoubles(final int count) {
+		double[] values = new double[count];
+		readBlock(count * Double.BYTES).asDoubleBuffer().get(values);
+		return values;
+	}
+
+	public boolean[] readBooleans(final int count) {
+		byte[] bytes = readBlock(count).array();
+		boolean[] values = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = bytes[i] != 0;
+		}
+		return values;
+	}
+
+	private ByteBuffer readBlock(final int length) {
+		byte[] bytes = new byte[length];
+		try {
+			this.in.readFully(bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return ByteBuffer.wrap(bytes);
+	}
+
+	/**
+	 * @return the index of the string in the string table, or <code>-1</code> for <code>null</code>.
+	 * This allows to cache objects created from the strings, e.g. ids, by their index.
+	 */
+	public int readStringIndex() {
+		int code = readVarInt();
+		if (code == STRING_NULL) {
+			return -1;
+		}
+		if (code == STRING_NEW) {
+			this.stringTable.add(readUtf8());
+			return this.stringTable.size() - 1;
+		}
+		return code - STRING_OFFSET;
+	}
+
+	public String getString(final int index) {
+		return index < 0 ? null : this.stringTable.get(index);
+	}
+
+	public String readString() {
+		return getString(readStringIndex());
+	}
+
+	public String readRawString() {
+		int code = readVarInt();
+		if (code == STRING_NULL) {
+			return null;
+		}
+		if (code != STRING_NEW) {
+			throw new RuntimeException("Unexpected string reference in binary image.");
+		}
+		return readUtf8();
+	}
+
+	private String readUtf8() {
+		return new String(readBlock(readVarInt()).array(), IOUtils.CHARSET_UTF8);
+	}
+
+	public void readAttributes(final Attributes attributes, final ObjectAttributesConverter converter) {
+		int count = readVarInt();
+		for (int i = 0; i < count; i++) {
+			String key = readString();
+			String className = readString();
+			Object value = converter.convert(className, readRawString());
+			if (value != null) {
+				attributes.putAttribute(key, value);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			this.in.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
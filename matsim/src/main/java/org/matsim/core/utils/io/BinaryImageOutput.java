@@ -0,0 +1,215 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryImageOutput.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * Writes the primitives of binary images of MATSim data containers, e.g. of networks, transit schedules or
+ * populations, which are read again with {@link BinaryImageInput}. Columns of numbers are written as blocks of fixed-size values, so
+ * they can be read in bulk. Strings which are expected to occur repeatedly are written only once and afterwards
+ * referenced by their index in a string table, which is built up by the output and the input in the same way.
+ * <p></p>
+ * All methods throw {@link UncheckedIOException} if writing fails.
+ */
+public final class BinaryImageOutput implements Closeable {
+
+	/*package*/ static final int STRING_NULL = 0;
+	/*package*/ static final int STRING_NEW = 1;
+	/*package*/ static final int STRING_OFFSET = 2;
+
+	private final DataOutputStream out;
+	private final Map<String, Integer> stringTable = new HashMap<>();
+
+	public BinaryImageOutput(final OutputStream stream) {
+		this.out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+	}
+
+	/**
+	 * Writes the magic number and the version identifying the type of image.
+	 */
+	public void writeHeader(final int magic, final int version) {
+		writeInt(magic);
+		writeInt(version);
+	}
+
+	public void writeInt(final int value) {
+		try {
+			this.out.writeInt(value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void writeDouble(final double value) {
+		try {
+			this.out.writeDouble(value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void writeBoolean(final boolean value) {
+		try {
+			this.out.writeBoolean(value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes non-negative integers like counts and indices in one byte if they are smaller than 128.
+	 */
+	public void writeVarInt(final int value) {
+		try {
+			int v = value;
+			while ((v & ~0x7f) != 0) {
+				this.out.write((v & 0x7f) | 0x80);
+				v >>>= 7;
+			}
+			this.out.write(v);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the first <code>count</code> values as one block, to be read with {@link BinaryImageInput#readInts(int)}.
+	 */
+	public void writeInts(final int[] values, final int count) {
+		ByteBuffer buffer = ByteBuffer.allocate(count * Integer.BYTES);
+		buffer.asIntBuffer().put(values, 0, count);
+		writeBlock(buffer);
+	}
+
+	/**
+	 * Writes the first <code>count</code> values as one block, to be read with {@link BinaryImageInput#readDoubles(int)}.
+	 */
+	public void writeDoubles(final double[] values, final int count) {
+		ByteBuffer buffer = ByteBuffer.allocate(count * Double.BYTES);
+		buffer.asDoubleBuffer().put(values, 0, count);
+		writeBlock(buffer);
+	}
+
+	/**
+	 * Writes the first <code>count</code> values as one block, to be read with {@link BinaryImageInput#readBooleans(int)}.
+	 */
+	public void writeBooleans(final boolean[] values, final int count) {
+		ByteBuffer buffer = ByteBuffer.allocate(count);
+		for (int i = 0; i < count; i++) {
+			buffer.put(values[i] ? (byte) 1 : (byte) 0);
+		}
+		writeBlock(buffer);
+	}
+
+	private void writeBlock(final ByteBuffer buffer) {
+		try {
+			this.out.write(buffer.array(), 0, buffer.capacity());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes a string which is expected to occur repeatedly, using the string table.
+	 */
+	public void writeString(final String s) {
+		if (s == null) {
+			writeVarInt(STRING_NULL);
+			return;
+		}
+		Integer index = this.stringTable.get(s);
+		if (index == null) {
+			this.stringTable.put(s, this.stringTable.size());
+			writeVarInt(STRING_NEW);
+			writeUtf8(s);
+		} else {
+			writeVarInt(index + STRING_OFFSET);
+		}
+	}
+
+	/**
+	 * Writes a string which is not expected to occur again, e.g. an id, bypassing the string table.
+	 */
+	public void writeRawString(final String s) {
+		if (s == null) {
+			writeVarInt(STRING_NULL);
+		} else {
+			writeVarInt(STRING_NEW);
+			writeUtf8(s);
+		}
+	}
+
+	private void writeUtf8(final String s) {
+		byte[] bytes = s.getBytes(IOUtils.CHARSET_UTF8);
+		writeVarInt(bytes.length);
+		try {
+			this.out.write(bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the attributes, converted to strings. Attributes for which the converter knows no conversion are skipped.
+	 */
+	public void writeAttributes(final Attributes attributes, final ObjectAttributesConverter converter) {
+		if (attributes.size() == 0) {
+			writeVarInt(0);
+			return;
+		}
+		List<String[]> converted = new ArrayList<>(attributes.size());
+		for (Map.Entry<String, Object> attribute : attributes.getAsMap().entrySet()) {
+			String value = converter.convertToString(attribute.getValue());
+			if (value != null) {
+				converted.add(new String[] { attribute.getKey(), attribute.getValue().getClass().getCanonicalName(), value });
+			}
+		}
+		writeVarInt(converted.size());
+		for (String[] attribute : converted) {
+			writeString(attribute[0]);
+			writeString(attribute[1]);
+			writeRawString(attribute[2]);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
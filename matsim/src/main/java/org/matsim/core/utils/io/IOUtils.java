@@ -57,6 +57,33 @@ public class IOUtils {
 
 	private final static Logger log = Logger.getLogger(IOUtils.class);
 
+	// set by the controler's thread, read by every thread opening a file
+	private static volatile int numberOfCompressionThreads = 1;
+
+	/**
+	 * Sets the number of threads used to compress files written with gzip-compression. With
+	 * more than one thread, a {@link ParallelGZIPOutputStream} is used, the written files remain
+	 * readable by all gzip-capable tools. Streams which are already open keep their setting.
+	 */
+	public static void setNumberOfCompressionThreads(final int numberOfThreads) {
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("the number of compression threads must be at least 1, but is " + numberOfThreads);
+		}
+		numberOfCompressionThreads = numberOfThreads;
+	}
+
+	public static int getNumberOfCompressionThreads() {
+		return numberOfCompressionThreads;
+	}
+
+	private static OutputStream createGZIPOutputStream(final OutputStream out) throws IOException {
+		int threads = numberOfCompressionThreads;
+		if (threads > 1) {
+			return new ParallelGZIPOutputStream(out, threads);
+		}
+		return new GZIPOutputStream(out);
+	}
+
 	public static URL getUrlFromFileOrResource(String filename) {
 		if (filename.startsWith("~" + File.separator)) {
 			filename = System.getProperty("user.home") + filename.substring(1);
@@ -259,7 +286,7 @@ public class IOUtils {
 				if (append && f.exists() && (f.length() > 0)) {
 					throw new IllegalArgumentException("Appending to an existing gzip-compressed file is not supported.");
 				}
-				return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(filename, append)), charset));
+				return new BufferedWriter(new OutputStreamWriter(createGZIPOutputStream(new FileOutputStream(filename, append)), charset));
 			}
 			return new BufferedWriter(new OutputStreamWriter(new FileOutputStream (filename, append), charset));
 		} catch (IOException e) {
@@ -394,7 +421,7 @@ public class IOUtils {
 		}
 		try {
 			if (filename.toLowerCase(Locale.ROOT).endsWith(GZ)) {
-				return new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(filename)));
+				return new BufferedOutputStream(createGZIPOutputStream(new FileOutputStream(filename)));
 			} else {
 				return new BufferedOutputStream(new FileOutputStream (filename));
 			}
@@ -415,7 +442,7 @@ public class IOUtils {
 		}
 		try {
 			if (filename.toLowerCase(Locale.ROOT).endsWith(GZ)) {
-				return new PrintStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(filename))));
+				return new PrintStream(new BufferedOutputStream(createGZIPOutputStream(new FileOutputStream(filename))));
 			} else {
 				return new PrintStream(new BufferedOutputStream(new FileOutputStream (filename))) ;
 			}
@@ -20,6 +20,8 @@
 
 package org.matsim.core.utils.io;
 
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.util.Locale;
 
@@ -28,6 +30,8 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.log4j.Logger;
+import org.matsim.core.population.io.BinaryPopulationReader;
+import org.matsim.core.population.io.BinaryPopulationWriter;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -98,6 +102,8 @@ public class MatsimFileTypeGuesser extends DefaultHandler {
 			this.fileType = FileType.OTFVis;
 		} else if (name.endsWith(".veh.gz") || name.endsWith(".veh")) {
 			this.fileType = FileType.TransimsVehicle;
+		} else if (BinaryPopulationReader.isBinaryPopulationFilename(name)) {
+			guessFileTypeBinary(fileName);
 		}
 	}
 
@@ -121,6 +127,18 @@ public class MatsimFileTypeGuesser extends DefaultHandler {
 		return this.xmlSystemId;
 	}
 
+	private void guessFileTypeBinary(final String fileName) throws UncheckedIOException {
+		try (DataInputStream in = new DataInputStream(IOUtils.getInputStream(fileName))) {
+			if (in.readInt() == BinaryPopulationWriter.MAGIC) {
+				this.fileType = FileType.Population;
+			}
+		} catch (EOFException e) {
+			log.debug("File too short to contain a header: " + fileName);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	private void guessFileTypeXml(final String fileName) throws UncheckedIOException {
 		SAXParserFactory factory = SAXParserFactory.newInstance();
 		factory.setValidating(false);
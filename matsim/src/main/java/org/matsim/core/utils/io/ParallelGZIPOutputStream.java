@@ -0,0 +1,247 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelGZIPOutputStream.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A gzip output stream compressing the data with several threads, using the same approach as
+ * <a href="http://zlib.net/pigz/">pigz</a>: The data is split into blocks which are deflated
+ * independently, each block using the last 32 kB of the preceding block as dictionary to keep the
+ * compression ratio close to the one of a single-threaded compression. All blocks but the last are
+ * terminated with a sync flush, so their concatenation is one regular deflate stream. The result is a
+ * single standard gzip member which can be read by <code>gunzip</code> and {@link java.util.zip.GZIPInputStream}.
+ * <p></p>
+ * The checksum is calculated by the writing thread, the deflating is done by a pool of threads shared
+ * by all instances with the same number of threads. The number of blocks being compressed at the same
+ * time is limited per stream, so a fast producer is throttled instead of buffering unlimited data.
+ */
+public final class ParallelGZIPOutputStream extends FilterOutputStream {
+
+	private static final int BLOCK_SIZE = 128 * 1024;
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+	private static ExecutorService sharedExecutor = null;
+	private static int sharedExecutorThreads = 0;
+
+	private final ExecutorService executor;
+	private final int maxPendingBlocks;
+	private final int compressionLevel;
+	private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+	private final CRC32 crc = new CRC32();
+	private long uncompressedSize = 0;
+
+	private byte[] block = new byte[BLOCK_SIZE];
+	private int blockLength = 0;
+	private byte[] dictionary = null;
+	private boolean closed = false;
+
+	public ParallelGZIPOutputStream(final OutputStream out, final int numberOfThreads) throws IOException {
+		this(out, numberOfThreads, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	public ParallelGZIPOutputStream(final OutputStream out, final int numberOfThreads, final int compressionLevel) throws IOException {
+		super(out);
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads must be at least 1, but is " + numberOfThreads);
+		}
+		this.executor = getExecutor(numberOfThreads);
+		this.maxPendingBlocks = 2 * numberOfThreads;
+		this.compressionLevel = compressionLevel;
+		out.write(GZIP_HEADER);
+	}
+
+	private static synchronized ExecutorService getExecutor(final int numberOfThreads) {
+		if (sharedExecutor == null || sharedExecutorThreads != numberOfThreads) {
+			/* Streams still using a previous executor keep their reference to it. The previous executor is
+			 * not shut down; as its threads time out when idle, it simply disappears once these streams are done. */
+			final AtomicInteger threadCounter = new AtomicInteger(0);
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 30, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+						Thread thread = new Thread(runnable, "GZIPCompressor-" + threadCounter.getAndIncrement());
+						thread.setDaemon(true);
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+			sharedExecutor = executor;
+			sharedExecutorThreads = numberOfThreads;
+		}
+		return sharedExecutor;
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		this.block[this.blockLength++] = (byte) b;
+		if (this.blockLength == BLOCK_SIZE) {
+			submitBlock(false);
+		}
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException {
+		int offset = off;
+		int remaining = len;
+		while (remaining > 0) {
+			int count = Math.min(remaining, BLOCK_SIZE - this.blockLength);
+			System.arraycopy(b, offset, this.block, this.blockLength, count);
+			this.blockLength += count;
+			offset += count;
+			remaining -= count;
+			if (this.blockLength == BLOCK_SIZE) {
+				submitBlock(false);
+			}
+		}
+	}
+
+	private void submitBlock(final boolean isLast) throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed.");
+		}
+		final byte[] data = this.block;
+		final int length = this.blockLength;
+		this.crc.update(data, 0, length);
+		this.uncompressedSize += length;
+		this.pendingBlocks.addLast(this.executor.submit(new BlockCompressor(data, length, this.dictionary, isLast, this.compressionLevel)));
+		this.dictionary = length >= DICTIONARY_SIZE ? Arrays.copyOfRange(data, length - DICTIONARY_SIZE, length) : null;
+		this.block = new byte[BLOCK_SIZE];
+		this.blockLength = 0;
+
+		writeCompletedBlocks(false);
+		while (this.pendingBlocks.size() > this.maxPendingBlocks) {
+			writeNextBlock();
+		}
+	}
+
+	private void writeCompletedBlocks(final boolean all) throws IOException {
+		while (!this.pendingBlocks.isEmpty() && (all || this.pendingBlocks.peekFirst().isDone())) {
+			writeNextBlock();
+		}
+	}
+
+	private void writeNextBlock() throws IOException {
+		try {
+			this.out.write(this.pendingBlocks.removeFirst().get());
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Writes all blocks that are already compressed to the underlying stream. Like in
+	 * {@link java.util.zip.GZIPOutputStream}, data of the current, incomplete block is not flushed.
+	 */
+	@Override
+	public void flush() throws IOException {
+		writeCompletedBlocks(false);
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		try {
+			submitBlock(true);
+			writeCompletedBlocks(true);
+			this.closed = true;
+			writeIntLE(this.crc.getValue());
+			writeIntLE(this.uncompressedSize);
+		} finally {
+			this.closed = true;
+			this.pendingBlocks.clear();
+			this.out.close();
+		}
+	}
+
+	private void writeIntLE(final long value) throws IOException {
+		this.out.write((int) (value & 0xff));
+		this.out.write((int) ((value >> 8) & 0xff));
+		this.out.write((int) ((value >> 16) & 0xff));
+		this.out.write((int) ((value >> 24) & 0xff));
+	}
+
+	private static final class BlockCompressor implements Callable<byte[]> {
+		private final byte[] data;
+		private final int length;
+		private final byte[] dictionary;
+		private final boolean isLast;
+		private final int level;
+
+		BlockCompressor(final byte[] data, final int length, final byte[] dictionary, final boolean isLast, final int level) {
+			this.data = data;
+			this.length = length;
+			this.dictionary = dictionary;
+			this.isLast = isLast;
+			this.level = level;
+		}
+
+		@Override
+		public byte[] call() {
+			Deflater deflater = new Deflater(this.level, true);
+			try {
+				if (this.dictionary != null) {
+					deflater.setDictionary(this.dictionary);
+				}
+				deflater.setInput(this.data, 0, this.length);
+				ByteArrayOutputStream compressed = new ByteArrayOutputStream(this.length / 2 + 64);
+				byte[] buffer = new byte[16 * 1024];
+				if (this.isLast) {
+					deflater.finish();
+					while (!deflater.finished()) {
+						int count = deflater.deflate(buffer);
+						compressed.write(buffer, 0, count);
+					}
+				} else {
+					int count;
+					do {
+						// a sync flush ends the block on a byte boundary without ending the deflate stream
+						count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+						compressed.write(buffer, 0, count);
+					} while (count == buffer.length || !deflater.needsInput());
+				}
+				return compressed.toByteArray();
+			} finally {
+				deflater.end();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * Counter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts occurrences, e.g. processed events. Incrementing is lock-free and cheap under contention,
+ * and does nothing while {@link Metrics} are disabled.
+ */
+public final class Counter extends Metric {
+
+	private final LongAdder value = new LongAdder();
+
+	/*package*/ Counter(final String name) {
+		super(name);
+	}
+
+	public void increment() {
+		if (Metrics.isEnabled()) {
+			this.value.increment();
+		}
+	}
+
+	public void add(final long delta) {
+		if (Metrics.isEnabled()) {
+			this.value.add(delta);
+		}
+	}
+
+	public long getCount() {
+		return this.value.sum();
+	}
+
+	@Override
+	public String getType() {
+		return "counter";
+	}
+
+	@Override
+	/*package*/ double[] snapshot() {
+		long count = this.value.sum();
+		return new double[] { count, count, Double.NaN, Double.NaN, Double.NaN, Double.NaN };
+	}
+
+	@Override
+	public void reset() {
+		this.value.reset();
+	}
+
+}
@@ -0,0 +1,122 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * Histogram.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the distribution of non-negative values, e.g. the number of active links per time step.
+ * Values are counted in buckets by powers of two, so recording is lock-free and needs no memory,
+ * and percentiles are approximated by the upper bound of their bucket, i.e. they are exact up to
+ * a factor of two. Count, sum and maximum are exact. Recording does nothing while {@link Metrics}
+ * are disabled.
+ */
+public final class Histogram extends Metric {
+
+	/** bucket 0 holds values &lt;= 0, bucket i values in [2<sup>i-1</sup>, 2<sup>i</sup>) */
+	private static final int BUCKETS = 65;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+	/*package*/ Histogram(final String name) {
+		super(name);
+	}
+
+	public void record(final long value) {
+		if (Metrics.isEnabled()) {
+			recordValue(value);
+		}
+	}
+
+	/*package*/ void recordValue(final long value) {
+		this.buckets.incrementAndGet(bucket(value));
+		this.count.increment();
+		this.sum.add(value);
+		this.max.accumulate(value);
+	}
+
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * @param quantile between 0 and 1, e.g. 0.95
+	 * @return the approximate value below which the given share of the recorded values lies,
+	 * or {@link Double#NaN} if nothing was recorded.
+	 */
+	public double getPercentile(final double quantile) {
+		long total = this.count.sum();
+		if (total == 0) {
+			return Double.NaN;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += this.buckets.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), this.max.get());
+			}
+		}
+		return this.max.get();
+	}
+
+	@Override
+	public String getType() {
+		return "histogram";
+	}
+
+	@Override
+	/*package*/ double[] snapshot() {
+		long total = this.count.sum();
+		if (total == 0) {
+			return new double[] { 0, 0, Double.NaN, Double.NaN, Double.NaN, Double.NaN };
+		}
+		return new double[] { total, this.sum.sum(), this.max.get(),
+				getPercentile(0.5), getPercentile(0.95), getPercentile(0.99) };
+	}
+
+	@Override
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			this.buckets.set(i, 0);
+		}
+		this.count.reset();
+		this.sum.reset();
+		this.max.reset();
+	}
+
+	private static int bucket(final long value) {
+		return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+	}
+
+	private static long upperBound(final int bucket) {
+		if (bucket == 0) {
+			return 0;
+		}
+		return bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+
+}
@@ -0,0 +1,51 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * Metric.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.metrics;
+
+/**
+ * A named value collected while {@link Metrics} are enabled.
+ */
+public abstract class Metric {
+
+	private final String name;
+
+	/*package*/ Metric(final String name) {
+		this.name = name;
+	}
+
+	public final String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return the type written to the metrics file, e.g. <code>counter</code>
+	 */
+	public abstract String getType();
+
+	/**
+	 * Returns the values collected since the last reset: count, sum, maximum and the 50th, 95th
+	 * and 99th percentile. Values a metric does not have are {@link Double#NaN}.
+	 */
+	/*package*/ abstract double[] snapshot();
+
+	public abstract void reset();
+
+}
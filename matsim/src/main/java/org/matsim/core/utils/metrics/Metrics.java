@@ -0,0 +1,169 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * Metrics.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * A registry of counters, histograms and timers measuring the hot paths of a run: the mobsim
+ * steps, the events handling, the routers, the replanning and the scoring. Code to be measured
+ * keeps its metrics in static fields, e.g.
+ * <pre>
+ * private static final Timer QUERY_TIMER = Metrics.timer("router.query");
+ * </pre>
+ * Metrics are disabled by default; then recording only reads a volatile flag. The controler
+ * enables them with {@link org.matsim.core.config.groups.ControlerConfigGroup#isCollectMetrics()}
+ * and writes the values collected in each iteration with {@link #writeIteration(int, String, boolean)}.
+ */
+public final class Metrics {
+
+	private static final String SEP = ";";
+
+	private static volatile boolean enabled = false;
+
+	private static final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+	/** the start of the period whose values are written next, to compute rates */
+	private static long periodStart = System.nanoTime();
+
+	private Metrics() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static synchronized void setEnabled(final boolean enabled) {
+		if (enabled && !Metrics.enabled) {
+			periodStart = System.nanoTime();
+		}
+		Metrics.enabled = enabled;
+	}
+
+	public static Counter counter(final String name) {
+		return get(name, Counter.class, Counter::new);
+	}
+
+	public static Histogram histogram(final String name) {
+		return get(name, Histogram.class, Histogram::new);
+	}
+
+	public static Timer timer(final String name) {
+		return get(name, Timer.class, Timer::new);
+	}
+
+	public static Collection<Metric> getMetrics() {
+		return new TreeMap<>(metrics).values();
+	}
+
+	/**
+	 * Resets the values of all metrics. The metrics stay registered.
+	 */
+	public static synchronized void reset() {
+		for (Metric metric : metrics.values()) {
+			metric.reset();
+		}
+		periodStart = System.nanoTime();
+	}
+
+	/**
+	 * Writes the values collected since the last call, or the last reset, as one line per metric
+	 * and resets them. Metrics which were not recorded in this period are skipped. The rate per
+	 * second refers to the wall-clock time of the period, e.g. the events processed per second
+	 * of the iteration.
+	 * <p></p>
+	 * Values recorded while the file is written may count for either period, so this should be
+	 * called when the measured code is idle, e.g. at the end of an iteration.
+	 *
+	 * @param append if <code>false</code>, the file is overwritten and a header is written first
+	 */
+	public static synchronized void writeIteration(final int iteration, final String filename, final boolean append) {
+		long now = System.nanoTime();
+		double seconds = (now - periodStart) / 1e9;
+		List<String> lines = new ArrayList<>();
+		for (Map.Entry<String, Metric> e : new TreeMap<>(metrics).entrySet()) {
+			Metric metric = e.getValue();
+			double[] values = metric.snapshot();
+			metric.reset();
+			long count = (long) values[0];
+			if (count == 0) {
+				continue;
+			}
+			StringBuilder line = new StringBuilder();
+			line.append(iteration).append(SEP).append(e.getKey()).append(SEP).append(metric.getType())
+					.append(SEP).append(count)
+					.append(SEP).append(format(values[1]))
+					.append(SEP).append(format(values[1] / count))
+					.append(SEP).append(format(values[2]))
+					.append(SEP).append(format(values[3]))
+					.append(SEP).append(format(values[4]))
+					.append(SEP).append(format(values[5]))
+					.append(SEP).append(format(seconds > 0 ? count / seconds : Double.NaN));
+			lines.add(line.toString());
+		}
+		periodStart = now;
+
+		try (BufferedWriter writer = append ? IOUtils.getAppendingBufferedWriter(filename) : IOUtils.getBufferedWriter(filename)) {
+			if (!append) {
+				writer.write(String.join(SEP, "iteration", "metric", "type", "count", "sum", "mean", "max", "p50", "p95", "p99", "perSecond"));
+				writer.newLine();
+			}
+			for (String line : lines) {
+				writer.write(line);
+				writer.newLine();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String format(final double value) {
+		if (Double.isNaN(value)) {
+			return "";
+		}
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return Long.toString((long) value);
+		}
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	private static <T extends Metric> T get(final String name, final Class<T> type, final Function<String, T> factory) {
+		Metric metric = metrics.computeIfAbsent(name, factory);
+		if (!type.isInstance(metric)) {
+			throw new IllegalArgumentException("The metric " + name + " is a " + metric.getType() + ", not a " + type.getSimpleName() + ".");
+		}
+		return type.cast(metric);
+	}
+
+}
@@ -0,0 +1,84 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * Timer.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.metrics;
+
+/**
+ * Measures durations, e.g. of a mobsim time step, and reports them in milliseconds. Typical use:
+ * <pre>
+ * long start = timer.start();
+ * ...
+ * timer.stop(start);
+ * </pre>
+ * While {@link Metrics} are disabled, neither call reads the clock.
+ */
+public final class Timer extends Metric {
+
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+	private static final double NANOS_PER_MILLI = 1e6;
+
+	private final Histogram nanos;
+
+	/*package*/ Timer(final String name) {
+		super(name);
+		this.nanos = new Histogram(name);
+	}
+
+	/**
+	 * @return the start time to be passed to {@link #stop(long)}
+	 */
+	public long start() {
+		return Metrics.isEnabled() ? System.nanoTime() : NOT_STARTED;
+	}
+
+	public void stop(final long start) {
+		if (start != NOT_STARTED) {
+			this.nanos.recordValue(System.nanoTime() - start);
+		}
+	}
+
+	public void recordNanos(final long duration) {
+		this.nanos.record(duration);
+	}
+
+	public long getCount() {
+		return this.nanos.getCount();
+	}
+
+	@Override
+	public String getType() {
+		return "timer[ms]";
+	}
+
+	@Override
+	/*package*/ double[] snapshot() {
+		double[] values = this.nanos.snapshot();
+		for (int i = 1; i < values.length; i++) {
+			values[i] /= NANOS_PER_MILLI;
+		}
+		return values;
+	}
+
+	@Override
+	public void reset() {
+		this.nanos.reset();
+	}
+
+}
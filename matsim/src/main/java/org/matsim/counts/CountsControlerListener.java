@@ -31,7 +31,7 @@ import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.IterationEndsEvent;
 import org.matsim.core.controler.events.StartupEvent;
-import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.controler.listener.ConcurrentIterationEndsListener;
 import org.matsim.core.controler.listener.StartupListener;
 import org.matsim.core.utils.collections.CollectionUtils;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
@@ -53,7 +53,7 @@ import java.util.Set;
 /**
  * @author dgrether
  */
-class CountsControlerListener implements StartupListener, IterationEndsListener {
+class CountsControlerListener implements StartupListener, ConcurrentIterationEndsListener {
 
 	/*
 	 * String used to identify the operation in the IterationStopWatch.
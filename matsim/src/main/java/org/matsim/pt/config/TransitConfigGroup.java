@@ -47,12 +47,14 @@ public class TransitConfigGroup extends ReflectiveConfigGroup {
 	/*package*/ static final String VEHICLES_FILE = "vehiclesFile";
 	/*package*/ static final String TRANSIT_MODES = "transitModes";
 	private static final String SCHEDULE_CRS = "inputScheduleCRS";
+	private static final String USE_BINARY_IMAGE_CACHE = "useBinaryImageCache";
 
 	private String transitScheduleFile = null;
 	private String vehiclesFile = null;
 	private String transitLinesAttributesFile = null;
 	private String transitStopsAttributesFile = null;
 	private String inputScheduleCRS = null;
+	private boolean useBinaryImageCache = false;
 
 	private Set<String> transitModes;
 	
@@ -101,6 +103,8 @@ public class TransitConfigGroup extends ReflectiveConfigGroup {
 		comments.put( SCHEDULE_CRS , "The Coordinates Reference System in which the coordinates are expressed in the input file." +
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
+		comments.put(USE_BINARY_IMAGE_CACHE, "If true, a binary image of the transit schedule is written next to the schedule file after reading it, " +
+				"and read instead of the schedule file as long as neither the file nor the coordinate systems change. Default: false.");
 		return comments;
 	}
 
@@ -184,4 +188,14 @@ public class TransitConfigGroup extends ReflectiveConfigGroup {
 	public void setInputScheduleCRS(String inputScheduleCRS) {
 		this.inputScheduleCRS = inputScheduleCRS;
 	}
+
+	@StringGetter( USE_BINARY_IMAGE_CACHE )
+	public boolean isUseBinaryImageCache() {
+		return this.useBinaryImageCache;
+	}
+
+	@StringSetter( USE_BINARY_IMAGE_CACHE )
+	public void setUseBinaryImageCache(final boolean useBinaryImageCache) {
+		this.useBinaryImageCache = useBinaryImageCache;
+	}
 }
@@ -19,6 +19,7 @@
 
 package org.matsim.pt.config;
 
+import java.util.Arrays;
 import java.util.Map;
 
 import org.matsim.core.config.ReflectiveConfigGroup;
@@ -31,11 +32,17 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 	/*package*/ static final String EXTENSION_RADIUS = "extensionRadius";
 	/*package*/ static final String MAX_BEELINE_WALK_CONNECTION_DISTANCE = "maxBeelineWalkConnectionDistance";
 	/*package*/ static final String ADDITIONAL_TRANSFER_TIME = "additionalTransferTime";
+	/*package*/ static final String ROUTING_ALGORITHM_TYPE = "routingAlgorithmType";
+	/*package*/ static final String MAX_TRANSFERS = "maxTransfers";
+
+	public enum TransitRoutingAlgorithmType { Dijkstra, Raptor }
 
 	private double searchRadius = 1000.0;
 	private double extensionRadius = 200.0;
 	private double maxBeelineWalkConnectionDistance = 100.0;
 	private double additionalTransferTime = 0.0;
+	private TransitRoutingAlgorithmType routingAlgorithmType = TransitRoutingAlgorithmType.Dijkstra;
+	private int maxTransfers = 8;
 
 	private double directWalkFactor = 1. ;
 
@@ -54,6 +61,11 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 		comments.put(MAX_BEELINE_WALK_CONNECTION_DISTANCE, "maximum beeline distance between stops that agents could transfer to by walking");
 		comments.put(ADDITIONAL_TRANSFER_TIME, "additional time the router allocates when a line switch happens. Can be interpreted as a 'safety' time that agents need to safely transfer from one line to another");
 		comments.put(DIRECT_WALK_FACTOR, DIRECT_WALK_FACTOR_CMT);
+		comments.put(ROUTING_ALGORITHM_TYPE, "The algorithm of the default transit router. 'Dijkstra' searches a network of route stops, "
+				+ "'Raptor' works directly on the schedule, which needs less memory and is usually faster for large schedules. Possible values: "
+				+ Arrays.toString(TransitRoutingAlgorithmType.values()));
+		comments.put(MAX_TRANSFERS, "the maximum number of transfers between vehicles of a journey. Only used by the 'Raptor' routing algorithm, "
+				+ "which needs one round per vehicle; the 'Dijkstra' algorithm does not limit the number of transfers.");
 		return comments;
 	}
 
@@ -101,6 +113,31 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 		return this.additionalTransferTime;
 	}
 
+	@StringSetter( ROUTING_ALGORITHM_TYPE )
+	public void setRoutingAlgorithmType(final TransitRoutingAlgorithmType routingAlgorithmType) {
+		testForLocked() ;
+		this.routingAlgorithmType = routingAlgorithmType;
+	}
+
+	@StringGetter( ROUTING_ALGORITHM_TYPE )
+	public TransitRoutingAlgorithmType getRoutingAlgorithmType() {
+		return this.routingAlgorithmType;
+	}
+
+	@StringSetter( MAX_TRANSFERS )
+	public void setMaxTransfers(final int maxTransfers) {
+		testForLocked() ;
+		if (maxTransfers < 0) {
+			throw new IllegalArgumentException("maxTransfers must not be negative, but is " + maxTransfers);
+		}
+		this.maxTransfers = maxTransfers;
+	}
+
+	@StringGetter( MAX_TRANSFERS )
+	public int getMaxTransfers() {
+		return this.maxTransfers;
+	}
+
 	/**
 	 * {@value #DIRECT_WALK_FACTOR_CMT}
 	 */
@@ -34,7 +34,7 @@ import org.matsim.core.controler.events.IterationEndsEvent;
 import org.matsim.core.controler.events.StartupEvent;
 import org.matsim.core.controler.listener.AfterMobsimListener;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
-import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.controler.listener.ConcurrentIterationEndsListener;
 import org.matsim.core.controler.listener.StartupListener;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
@@ -51,7 +51,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-public class PtCountControlerListener implements StartupListener, IterationEndsListener,
+public class PtCountControlerListener implements StartupListener, ConcurrentIterationEndsListener,
 BeforeMobsimListener, AfterMobsimListener  {
 
 	private EventsManager eventsManager;
@@ -23,7 +23,9 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.matsim.pt.router.TransitRouterNetwork.TransitRouterNetworkLink;
 import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitRoute;
 import org.matsim.pt.transitSchedule.api.TransitRouteStop;
 import org.matsim.pt.transitSchedule.api.TransitSchedule;
@@ -35,6 +37,12 @@ import org.matsim.pt.transitSchedule.api.TransitSchedule;
  * 
  * (I renamed this class and put the TransitSchedule in the constructor to make the purpose clear. michaz '13)
  * 
+ * The departures of the schedule given to the constructor are indexed by route stop: the route stops of all routes
+ * of all lines are numbered in the order of the schedule, like the links of the {@link TransitRouterNetwork}, and
+ * their departure offsets and the sorted departures of their routes are kept in flat arrays. Queries for a
+ * {@link TransitRouterNetworkLink} use the route stop index of the link, without any map lookups. Other queries,
+ * and queries for routes added to the schedule later, go through a cache of sorted departures per route.
+ * 
  * Thread-safe.
  * 
  * @author mrieser
@@ -51,11 +59,55 @@ public class PreparedTransitSchedule {
 	 */
 	private final Map<TransitRoute, double[]> sortedDepartureCache = new ConcurrentHashMap<TransitRoute, double[]>();
 
+	/*
+	 * The index by route stop, immutable after construction. The routes and route stops are only kept to check
+	 * that a route stop index belongs to this schedule.
+	 */
+	private final TransitRoute[] routes;
+	private final TransitRouteStop[] routeStops;
+	private final double[] departureOffsets;
+	/** per route stop, the first and one after the last of the sorted departures of its route */
+	private final int[] departuresStart;
+	private final int[] departuresEnd;
+	private final double[] departures;
+
     /*
      * Conceptually, an instance of this class wraps a TransitSchedule to optimize a function of it.
      */
 	public PreparedTransitSchedule(TransitSchedule schedule) {
-		
+		int routeStopCount = 0;
+		int departureCount = 0;
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				routeStopCount += route.getStops().size();
+				departureCount += route.getDepartures().size();
+			}
+		}
+		this.routes = new TransitRoute[routeStopCount];
+		this.routeStops = new TransitRouteStop[routeStopCount];
+		this.departureOffsets = new double[routeStopCount];
+		this.departuresStart = new int[routeStopCount];
+		this.departuresEnd = new int[routeStopCount];
+		this.departures = new double[departureCount];
+		int rs = 0;
+		int d = 0;
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				int start = d;
+				for (Departure departure : route.getDepartures().values()) {
+					this.departures[d++] = departure.getDepartureTime();
+				}
+				Arrays.sort(this.departures, start, d);
+				for (TransitRouteStop stop : route.getStops()) {
+					this.routes[rs] = route;
+					this.routeStops[rs] = stop;
+					this.departureOffsets[rs] = stop.getDepartureOffset();
+					this.departuresStart[rs] = start;
+					this.departuresEnd[rs] = d;
+					rs++;
+				}
+			}
+		}
 	}
 
 	@Deprecated
@@ -63,12 +115,49 @@ public class PreparedTransitSchedule {
 	 * See other constructor.
 	 */
 	public PreparedTransitSchedule() {
+		this.routes = new TransitRoute[0];
+		this.routeStops = new TransitRouteStop[0];
+		this.departureOffsets = new double[0];
+		this.departuresStart = new int[0];
+		this.departuresEnd = new int[0];
+		this.departures = new double[0];
+	}
 
+	/**
+	 * Same as {@link #getNextDepartureTime(TransitRoute, TransitRouteStop, double)} for the route and the
+	 * from-stop of the link, looked up by the route stop index of the link.
+	 */
+	public double getNextDepartureTime(final TransitRouterNetworkLink link, final double depTime) {
+		int index = link.routeStopIndex;
+		if (index >= 0 && index < this.routeStops.length && this.routeStops[index] == link.fromNode.stop
+				&& this.routes[index] == link.route) {
+			return getNextDepartureTime(this.departures, this.departuresStart[index], this.departuresEnd[index],
+					this.departureOffsets[index], depTime);
+		}
+		return getNextDepartureTime(link.route, link.fromNode.stop, depTime);
 	}
-	
+
 	public double getNextDepartureTime(final TransitRoute route, final TransitRouteStop stop, final double depTime) {
+		double[] cache = sortedDepartureCache.get(route);
+		if (cache == null) {
+			cache = new double[route.getDepartures().size()];
+			int i = 0;
+			for (Departure dep : route.getDepartures().values()) {
+				cache[i++] = dep.getDepartureTime();
+			}
+			Arrays.sort(cache);
+			sortedDepartureCache.put(route, cache);
+		}
+		return getNextDepartureTime(cache, 0, cache.length, stop.getDepartureOffset(), depTime);
+	}
+
+	/**
+	 * @param departures the departure times at the terminus, sorted between <code>from</code> and <code>to</code>
+	 */
+	private static double getNextDepartureTime(final double[] departures, final int from, final int to,
+			final double departureOffset, final double depTime) {
 	
-		double earliestDepartureTimeAtTerminus = depTime - stop.getDepartureOffset();
+		double earliestDepartureTimeAtTerminus = depTime - departureOffset;
 		// This shifts my time back to the terminus.
 	
 		if (earliestDepartureTimeAtTerminus >= TransitRouterNetworkTravelTimeAndDisutility.MIDNIGHT) {
@@ -80,30 +169,20 @@ public class PreparedTransitSchedule {
 		}
 	
 		// this will search for the terminus departure that corresponds to my departure at the stop:
-		double[] cache = sortedDepartureCache.get(route);
-		if (cache == null) {
-			cache = new double[route.getDepartures().size()];
-			int i = 0;
-			for (Departure dep : route.getDepartures().values()) {
-				cache[i++] = dep.getDepartureTime();
-			}
-			Arrays.sort(cache);
-			sortedDepartureCache.put(route, cache);
-		}
-		int pos = Arrays.binarySearch(cache, earliestDepartureTimeAtTerminus);
+		int pos = Arrays.binarySearch(departures, from, to, earliestDepartureTimeAtTerminus);
 		if (pos < 0) {
 			// (if the departure time is not found _exactly_, binarySearch returns (-(insertion point) - 1).  That is
 			// retval = -(insertion point) - 1  or insertion point = -(retval+1) .
 			// This will, in fact, be the normal situation, so it is important to understand this.)
 			pos = -(pos + 1);
 		}
-		if (pos >= cache.length) {
-			pos = 0; // there is no later departure time, take the first in the morning
+		if (pos >= to) {
+			pos = from; // there is no later departure time, take the first in the morning
 		}
-		double bestDepartureTime = cache[pos];
+		double bestDepartureTime = departures[pos];
 		// (departure time at terminus)
 	
-		bestDepartureTime += stop.getDepartureOffset();
+		bestDepartureTime += departureOffset;
 		// (resulting departure time at stop)
 		
 		while (bestDepartureTime < depTime) {
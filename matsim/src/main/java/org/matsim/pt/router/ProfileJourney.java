@@ -0,0 +1,88 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ProfileJourney.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.routes.ExperimentalTransitRoute;
+
+/**
+ * One journey of the result of {@link ProfileTransitRouter#calcProfile}: the legs as returned by
+ * {@link TransitRouter#calcRoute} when departing at the departure time of the journey.
+ */
+public final class ProfileJourney {
+
+	private final double departureTime;
+	private final double arrivalTime;
+	private final List<Leg> legs;
+
+	public ProfileJourney(final double departureTime, final double arrivalTime, final List<Leg> legs) {
+		this.departureTime = departureTime;
+		this.arrivalTime = arrivalTime;
+		this.legs = Collections.unmodifiableList(legs);
+	}
+
+	public double getDepartureTime() {
+		return this.departureTime;
+	}
+
+	public double getArrivalTime() {
+		return this.arrivalTime;
+	}
+
+	/**
+	 * @return the legs of this journey; use {@link #createLegs(double)} to put them into a plan
+	 */
+	public List<Leg> getLegs() {
+		return this.legs;
+	}
+
+	/**
+	 * Creates a copy of the legs for a traveler leaving at the given time, which must not be after the
+	 * departure time of this journey. The traveler arrives at the same time, waiting longer at the
+	 * first stop, so the first pt leg takes longer.
+	 */
+	public List<Leg> createLegs(final double departureTime) {
+		if (departureTime > this.departureTime) {
+			throw new IllegalArgumentException("Cannot leave at " + Time.writeTime(departureTime)
+					+ " for a journey departing at " + Time.writeTime(this.departureTime) + ".");
+		}
+		double additionalWaitingTime = this.departureTime - departureTime;
+		List<Leg> legs = new ArrayList<>(this.legs.size());
+		boolean waited = false;
+		for (Leg leg : this.legs) {
+			Leg copy = PopulationUtils.createLeg(leg);
+			if (!waited && copy.getRoute() instanceof ExperimentalTransitRoute) {
+				copy.setTravelTime(copy.getTravelTime() + additionalWaitingTime);
+				copy.getRoute().setTravelTime(copy.getRoute().getTravelTime() + additionalWaitingTime);
+				waited = true;
+			}
+			legs.add(copy);
+		}
+		return legs;
+	}
+
+}
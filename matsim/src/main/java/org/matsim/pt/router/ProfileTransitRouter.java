@@ -0,0 +1,43 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ProfileTransitRouter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import java.util.List;
+
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.facilities.Facility;
+
+/**
+ * A {@link TransitRouter} which can also answer profile queries: instead of the best journey for one
+ * departure time, all journeys within a range of departure times which are not dominated by another
+ * journey, i.e. no other journey departs later and arrives earlier.
+ */
+public interface ProfileTransitRouter extends TransitRouter {
+
+	/**
+	 * @return the journeys departing not before <code>earliestDepartureTime</code> and not after
+	 * <code>latestDepartureTime</code>, ordered by their departure times. Departing later, they
+	 * also arrive later.
+	 */
+	public List<ProfileJourney> calcProfile(final Facility<?> fromFacility, final Facility<?> toFacility,
+			final double earliestDepartureTime, final double latestDepartureTime, final Person person);
+
+}
@@ -0,0 +1,337 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RaptorData.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.core.utils.collections.QuadTree;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * The transit schedule in the layout used by {@link RaptorTransitRouter}: stops, routes, route stops,
+ * departures and transfers are numbered, and their data is kept in flat arrays indexed by these numbers.
+ * The route stops of a route, the departures of a route, the route stops at a stop and the transfers
+ * from a stop are each stored contiguously, with an additional array pointing to the first entry of
+ * each route or stop.
+ * <p></p>
+ * Instances are immutable and can be shared by the routers of all threads. Like the
+ * {@link TransitRouterNetwork}, they do not reflect later changes of the schedule.
+ */
+public final class RaptorData {
+
+	private static final Logger log = Logger.getLogger(RaptorData.class);
+
+	final static double MIDNIGHT = TransitRouterNetworkTravelTimeAndDisutility.MIDNIGHT;
+
+	final TransitStopFacility[] stops;
+	final QuadTree<Integer> stopsQuadTree;
+	/** per stop, the first of its route stops in {@link #stopRouteStops}; one more entry than stops */
+	final int[] stopRouteStopsStart;
+	final int[] stopRouteStops;
+	/** per stop, the first of its transfers; one more entry than stops */
+	final int[] transfersStart;
+	final int[] transferStops;
+	final double[] transferDistances;
+
+	final TransitLine[] routeLines;
+	final TransitRoute[] routes;
+	/** per route, the first of its route stops; one more entry than routes */
+	final int[] routeStopsStart;
+	/** per route, the first of its departures in {@link #departures}; one more entry than routes */
+	final int[] departuresStart;
+	/** the departure times at the first stop, sorted per route */
+	final double[] departures;
+
+	final int[] routeStopRoutes;
+	final int[] routeStopStops;
+	final double[] arrivalOffsets;
+	final double[] departureOffsets;
+	/** the beeline distance from the previous stop of the route, as used for the links of the {@link TransitRouterNetwork} */
+	final double[] routeStopDistances;
+
+	private RaptorData(final TransitStopFacility[] stops, final QuadTree<Integer> stopsQuadTree,
+			final int[] stopRouteStopsStart, final int[] stopRouteStops,
+			final int[] transfersStart, final int[] transferStops, final double[] transferDistances,
+			final TransitLine[] routeLines, final TransitRoute[] routes, final int[] routeStopsStart,
+			final int[] departuresStart, final double[] departures,
+			final int[] routeStopRoutes, final int[] routeStopStops, final double[] arrivalOffsets,
+			final double[] departureOffsets, final double[] routeStopDistances) {
+		this.stops = stops;
+		this.stopsQuadTree = stopsQuadTree;
+		this.stopRouteStopsStart = stopRouteStopsStart;
+		this.stopRouteStops = stopRouteStops;
+		this.transfersStart = transfersStart;
+		this.transferStops = transferStops;
+		this.transferDistances = transferDistances;
+		this.routeLines = routeLines;
+		this.routes = routes;
+		this.routeStopsStart = routeStopsStart;
+		this.departuresStart = departuresStart;
+		this.departures = departures;
+		this.routeStopRoutes = routeStopRoutes;
+		this.routeStopStops = routeStopStops;
+		this.arrivalOffsets = arrivalOffsets;
+		this.departureOffsets = departureOffsets;
+		this.routeStopDistances = routeStopDistances;
+	}
+
+	/**
+	 * @param maxBeelineWalkConnectionDistance the maximum distance between stops for transfers,
+	 * see {@link TransitRouterConfig#getBeelineWalkConnectionDistance()}
+	 */
+	public static RaptorData createFromSchedule(final TransitSchedule schedule, final double maxBeelineWalkConnectionDistance) {
+		log.info("start creating raptor data");
+
+		// routes and route stops; routes without departures can never be used
+		List<TransitLine> routeLines = new ArrayList<>();
+		List<TransitRoute> routes = new ArrayList<>();
+		int routeStopCount = 0;
+		int departureCount = 0;
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				if (route.getStops().size() > 1 && !route.getDepartures().isEmpty()) {
+					routeLines.add(line);
+					routes.add(route);
+					routeStopCount += route.getStops().size();
+					departureCount += route.getDepartures().size();
+				}
+			}
+		}
+
+		// stops, only those served by a route
+		Map<TransitStopFacility, Integer> stopIndices = new IdentityHashMap<>();
+		List<TransitStopFacility> stops = new ArrayList<>();
+		for (TransitRoute route : routes) {
+			for (TransitRouteStop stop : route.getStops()) {
+				if (!stopIndices.containsKey(stop.getStopFacility())) {
+					stopIndices.put(stop.getStopFacility(), stops.size());
+					stops.add(stop.getStopFacility());
+				}
+			}
+		}
+		int stopCount = stops.size();
+
+		int[] routeStopsStart = new int[routes.size() + 1];
+		int[] departuresStart = new int[routes.size() + 1];
+		double[] departures = new double[departureCount];
+		int[] routeStopRoutes = new int[routeStopCount];
+		int[] routeStopStops = new int[routeStopCount];
+		double[] arrivalOffsets = new double[routeStopCount];
+		double[] departureOffsets = new double[routeStopCount];
+		double[] routeStopDistances = new double[routeStopCount];
+		int[] stopRouteStopCounts = new int[stopCount];
+		// stops at which passengers can leave respectively enter a vehicle
+		boolean[] arrivalStops = new boolean[stopCount];
+		boolean[] departureStops = new boolean[stopCount];
+		int rs = 0;
+		int d = 0;
+		for (int r = 0; r < routes.size(); r++) {
+			TransitRoute route = routes.get(r);
+			routeStopsStart[r] = rs;
+			departuresStart[r] = d;
+			for (Departure departure : route.getDepartures().values()) {
+				departures[d++] = departure.getDepartureTime();
+			}
+			Arrays.sort(departures, departuresStart[r], d);
+			List<TransitRouteStop> routeStops = route.getStops();
+			Coord previousCoord = null;
+			for (int i = 0; i < routeStops.size(); i++) {
+				TransitRouteStop stop = routeStops.get(i);
+				int s = stopIndices.get(stop.getStopFacility());
+				double arrivalOffset = stop.getArrivalOffset();
+				double departureOffset = stop.getDepartureOffset();
+				routeStopRoutes[rs] = r;
+				routeStopStops[rs] = s;
+				arrivalOffsets[rs] = Time.isUndefinedTime(arrivalOffset) ? departureOffset : arrivalOffset;
+				departureOffsets[rs] = Time.isUndefinedTime(departureOffset) ? arrivalOffset : departureOffset;
+				Coord coord = stop.getStopFacility().getCoord();
+				routeStopDistances[rs] = previousCoord == null ? 0.0 : CoordUtils.calcEuclideanDistance(previousCoord, coord);
+				previousCoord = coord;
+				stopRouteStopCounts[s]++;
+				if (i > 0) {
+					arrivalStops[s] = true;
+				}
+				if (i < routeStops.size() - 1) {
+					departureStops[s] = true;
+				}
+				rs++;
+			}
+		}
+		routeStopsStart[routes.size()] = rs;
+		departuresStart[routes.size()] = d;
+
+		int[] stopRouteStopsStart = new int[stopCount + 1];
+		for (int s = 0; s < stopCount; s++) {
+			stopRouteStopsStart[s + 1] = stopRouteStopsStart[s] + stopRouteStopCounts[s];
+		}
+		int[] stopRouteStops = new int[routeStopCount];
+		int[] next = Arrays.copyOf(stopRouteStopsStart, stopCount);
+		for (int i = 0; i < routeStopCount; i++) {
+			stopRouteStops[next[routeStopStops[i]]++] = i;
+		}
+
+		QuadTree<Integer> quadTree = createQuadTree(stops);
+
+		// transfers between different stops, from where passengers can arrive to where they can depart
+		int[] transfersStart = new int[stopCount + 1];
+		List<Integer> transferStops = new ArrayList<>();
+		List<Double> transferDistances = new ArrayList<>();
+		for (int s = 0; s < stopCount; s++) {
+			transfersStart[s] = transferStops.size();
+			if (!arrivalStops[s]) {
+				continue;
+			}
+			Coord coord = stops.get(s).getCoord();
+			List<Integer> nearbyStops = new ArrayList<>(quadTree.getDisk(coord.getX(), coord.getY(), maxBeelineWalkConnectionDistance));
+			nearbyStops.sort(null);
+			for (int s2 : nearbyStops) {
+				if (s2 != s && departureStops[s2]) {
+					transferStops.add(s2);
+					transferDistances.add(CoordUtils.calcEuclideanDistance(coord, stops.get(s2).getCoord()));
+				}
+			}
+		}
+		transfersStart[stopCount] = transferStops.size();
+
+		log.info("raptor data statistics:");
+		log.info(" # stops:       " + stopCount);
+		log.info(" # routes:      " + routes.size());
+		log.info(" # route stops: " + routeStopCount);
+		log.info(" # departures:  " + departureCount);
+		log.info(" # transfers:   " + transferStops.size());
+
+		return new RaptorData(stops.toArray(new TransitStopFacility[stopCount]), quadTree,
+				stopRouteStopsStart, stopRouteStops,
+				transfersStart, toIntArray(transferStops), toDoubleArray(transferDistances),
+				routeLines.toArray(new TransitLine[routeLines.size()]), routes.toArray(new TransitRoute[routes.size()]),
+				routeStopsStart, departuresStart, departures,
+				routeStopRoutes, routeStopStops, arrivalOffsets, departureOffsets, routeStopDistances);
+	}
+
+	private static QuadTree<Integer> createQuadTree(final List<TransitStopFacility> stops) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (TransitStopFacility stop : stops) {
+			minX = Math.min(minX, stop.getCoord().getX());
+			minY = Math.min(minY, stop.getCoord().getY());
+			maxX = Math.max(maxX, stop.getCoord().getX());
+			maxY = Math.max(maxY, stop.getCoord().getY());
+		}
+		if (stops.isEmpty()) {
+			minX = minY = maxX = maxY = 0.0;
+		}
+		QuadTree<Integer> quadTree = new QuadTree<>(minX, minY, maxX, maxY);
+		for (int s = 0; s < stops.size(); s++) {
+			Coord coord = stops.get(s).getCoord();
+			quadTree.put(coord.getX(), coord.getY(), s);
+		}
+		return quadTree;
+	}
+
+	private static int[] toIntArray(final List<Integer> values) {
+		int[] array = new int[values.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		return array;
+	}
+
+	private static double[] toDoubleArray(final List<Double> values) {
+		double[] array = new double[values.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		return array;
+	}
+
+	public int getStopCount() {
+		return this.stops.length;
+	}
+
+	public int getRouteCount() {
+		return this.routes.length;
+	}
+
+	/**
+	 * Returns the departure time at the first stop of the first trip of the route of the given
+	 * route stop that leaves that stop not before the given time. Like in {@link PreparedTransitSchedule},
+	 * the departures repeat every day, so the result may lie on a later day than the departures in the schedule.
+	 *
+	 * @return the departure at the first stop, or {@link Double#NaN} if the route has no departures
+	 */
+	double getNextTripStart(final int routeStop, final double time) {
+		return findTripStart(this.routeStopRoutes[routeStop], time - this.departureOffsets[routeStop], false);
+	}
+
+	/**
+	 * Returns the start of the first trip of the route of the given route stop that starts after the given trip start,
+	 * e.g. to iterate over the trips of a route.
+	 *
+	 * @return the departure at the first stop, or {@link Double#NaN} if the route has no departures
+	 */
+	double getTripStartAfter(final int routeStop, final double tripStart) {
+		return findTripStart(this.routeStopRoutes[routeStop], tripStart, true);
+	}
+
+	private double findTripStart(final int route, final double earliestTripStart, final boolean strictlyAfter) {
+		int from = this.departuresStart[route];
+		int to = this.departuresStart[route + 1];
+		if (from == to) {
+			return Double.NaN;
+		}
+		double day = Math.floor(earliestTripStart / MIDNIGHT) * MIDNIGHT;
+		double time = earliestTripStart - day;
+		int pos = Arrays.binarySearch(this.departures, from, to, time);
+		if (pos < 0) {
+			pos = -(pos + 1);
+		} else if (strictlyAfter) {
+			while (pos < to && this.departures[pos] == time) {
+				pos++;
+			}
+		} else {
+			// take the first of equal departures
+			while (pos > from && this.departures[pos - 1] == this.departures[pos]) {
+				pos--;
+			}
+		}
+		if (pos >= to) {
+			pos = from;
+			day += MIDNIGHT;
+		}
+		return this.departures[pos] + day;
+	}
+
+}
@@ -0,0 +1,835 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RaptorTransitRouter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.core.utils.metrics.Histogram;
+import org.matsim.core.utils.metrics.Metrics;
+import org.matsim.core.utils.metrics.Timer;
+import org.matsim.facilities.Facility;
+
+/**
+ * A transit router based on RAPTOR (Delling, Pajor, Werneck: Round-Based Public Transit Routing, 2012).
+ * Instead of building a graph of route stops and running a Dijkstra on it like {@link TransitRouterImpl},
+ * it works directly on the schedule kept in {@link RaptorData}: in round <i>k</i>, all routes serving a
+ * stop reached in round <i>k-1</i> are scanned once, boarding their next trip, and the stops reached by
+ * vehicle are relaxed along their transfers. So round <i>k</i> finds the journeys with <i>k</i> vehicles.
+ * The number of rounds is limited by {@link TransitRouterConfig#getMaxTransfers()}.
+ * <p></p>
+ * The labels minimize the generalized cost of {@link TransitRouterNetworkTravelTimeAndDisutility}, with the
+ * utility parameters of the {@link TransitRouterConfig}: in-vehicle time, waiting time and distance of pt,
+ * walk time and distance of access, egress and transfers, the additional transfer time and the utility of
+ * line switches. They are read from the config with every query, as {@link TransitRouterNetworkTravelTimeAndDisutility}
+ * does. Every stop keeps the cheapest label of each round; a label is only kept if it is cheaper than the labels
+ * of the stop in all earlier rounds, and cheaper than the best journey found so far. Like consecutive transfer
+ * links in the {@link TransitRouterNetwork}, transfers may continue from stops reached by walking.
+ * <p></p>
+ * Profile queries are answered by rRAPTOR, with separate labels: the earliest arrival times per round and stop.
+ * The departures of all routes at the access stops within the range are collected, and searched from the latest
+ * to the earliest, keeping the labels of the later departures: an arrival reached by departing later can also be
+ * reached by departing earlier and waiting. So every search only scans the routes from the stops it reaches
+ * earlier than all later departures did, and a journey is found exactly if it arrives earlier than all journeys
+ * departing later. Profiles thus contain the earliest-arrival journeys, not the least-cost ones of
+ * {@link #calcRoute}.
+ * <p></p>
+ * The {@link RaptorData} is shared between the routers of all threads, the labels are not,
+ * so <em>this class is not thread-safe</em>. Use one instance per thread, e.g. by
+ * {@link RaptorTransitRouterFactory}.
+ */
+public class RaptorTransitRouter extends AbstractTransitRouter implements ProfileTransitRouter {
+
+	private static final Timer QUERY_TIMER = Metrics.timer("router.raptorQuery");
+	private static final Histogram ROUNDS = Metrics.histogram("router.raptorRounds");
+	private static final Timer PROFILE_TIMER = Metrics.timer("router.raptorProfileQuery");
+
+	private final RaptorData data;
+	private final int stopCount;
+	private final int rounds;
+
+	// the disutilities per unit, i.e. the negated marginal utilities, as of the start of the current query
+	private double inVehicleTimeCost_s;
+	private double waitingTimeCost_s;
+	private double ptDistanceCost_m;
+	private double walkTimeCost_s;
+	private double walkDistanceCost_m;
+	private double lineSwitchCost;
+	private double additionalTransferTime;
+	private double beelineWalkSpeed;
+
+	/*
+	 * The labels, per round and stop. Rows are allocated when a round is reached for the first time.
+	 * A label is only valid if its query number is the one of the current query, so the arrays
+	 * need not be reset between queries.
+	 */
+	private int query = 0;
+	private final double[][] walkCosts;
+	private final double[][] walkTimes;
+	/**
+	 * the stop where the transfer to a stop started, or -1 for the access walk of round 0;
+	 * <code>-2 - stop</code> if the transfer continued the walk to that stop
+	 */
+	private final int[][] walkFromStops;
+	private final int[][] walkQueries;
+	private final double[][] transitCosts;
+	private final double[][] transitTimes;
+	private final int[][] boardRouteStops;
+	private final int[][] transitQueries;
+
+	private final double[] bestWalkCosts;
+	private final int[] bestWalkQueries;
+	private final double[] bestTransitCosts;
+	private final int[] bestTransitQueries;
+	private final double[] egressCosts;
+	private final int[] egressQueries;
+
+	/** the stops reached by walking in the current round, where routes are boarded in the next */
+	private int[] walkMarked;
+	private int walkMarkedCount = 0;
+	private int[] nextWalkMarked;
+	private int nextWalkMarkedCount = 0;
+	private final boolean[] isWalkMarked;
+	/** the stops reached by vehicle in the current round, whose transfers are relaxed */
+	private final int[] transitMarked;
+	private int transitMarkedCount = 0;
+	private final boolean[] isTransitMarked;
+	/** the stops reached by walking in the current round, from where the transfers still need to be continued */
+	private final int[] walkQueue;
+	private int walkQueueStart = 0;
+	private int walkQueueCount = 0;
+	private final boolean[] isWalkQueued;
+	/** per route, the first position to scan in the current round, or -1 */
+	private final int[] routeScanFrom;
+	private final int[] routesToScan;
+	private int routesToScanCount = 0;
+
+	/*
+	 * The labels of profile queries, per round and stop: the earliest arrival times, by walking and by vehicle.
+	 * They are allocated with the first profile query, and reset at the beginning of every profile query only.
+	 */
+	private double[][] profileWalkTimes = null;
+	private int[][] profileWalkFromStops = null;
+	private double[][] profileTransitTimes = null;
+	private int[][] profileBoardRouteStops = null;
+	private double[] profileEgressTimes = null;
+	private double profileBestArrival;
+
+	/** the best journey of the current query, or of the current departure of a profile query */
+	private double bestCost;
+	private int bestRound;
+	private int bestStop;
+	private boolean bestIsTransit;
+
+	/**
+	 * @param walkDisutility provides the walk time and disutility of access and egress walks
+	 */
+	public RaptorTransitRouter(final TransitRouterConfig config, final RaptorData data, final TransitTravelDisutility walkDisutility) {
+		super(config, walkDisutility);
+		this.data = data;
+		this.stopCount = data.getStopCount();
+		this.rounds = config.getMaxTransfers() + 2;
+
+		this.walkCosts = new double[this.rounds][];
+		this.walkTimes = new double[this.rounds][];
+		this.walkFromStops = new int[this.rounds][];
+		this.walkQueries = new int[this.rounds][];
+		this.transitCosts = new double[this.rounds][];
+		this.transitTimes = new double[this.rounds][];
+		this.boardRouteStops = new int[this.rounds][];
+		this.transitQueries = new int[this.rounds][];
+
+		this.bestWalkCosts = new double[this.stopCount];
+		this.bestWalkQueries = new int[this.stopCount];
+		this.bestTransitCosts = new double[this.stopCount];
+		this.bestTransitQueries = new int[this.stopCount];
+		this.egressCosts = new double[this.stopCount];
+		this.egressQueries = new int[this.stopCount];
+
+		this.walkMarked = new int[this.stopCount];
+		this.nextWalkMarked = new int[this.stopCount];
+		this.isWalkMarked = new boolean[this.stopCount];
+		this.transitMarked = new int[this.stopCount];
+		this.isTransitMarked = new boolean[this.stopCount];
+		this.walkQueue = new int[this.stopCount];
+		this.isWalkQueued = new boolean[this.stopCount];
+		this.routeScanFrom = new int[data.getRouteCount()];
+		Arrays.fill(this.routeScanFrom, -1);
+		this.routesToScan = new int[data.getRouteCount()];
+	}
+
+	@Override
+	public List<Leg> calcRoute(final Facility<?> fromFacility, final Facility<?> toFacility, final double departureTime, final Person person) {
+		long start = QUERY_TIMER.start();
+		TransitPassengerRoute route = calcPassengerRoute(fromFacility.getCoord(), toFacility.getCoord(), departureTime, person);
+		QUERY_TIMER.stop(start);
+
+		if (route == null) {
+			return this.createDirectWalkLegList(null, fromFacility.getCoord(), toFacility.getCoord());
+		}
+		double directWalkCost = getWalkDisutility(person, fromFacility.getCoord(), toFacility.getCoord());
+		if (directWalkCost * getConfig().getDirectWalkFactor() < route.getTravelCost()) {
+			return this.createDirectWalkLegList(null, fromFacility.getCoord(), toFacility.getCoord());
+		}
+		return convertPassengerRouteToLegList(departureTime, route, fromFacility.getCoord(), toFacility.getCoord(), person);
+	}
+
+	@Override
+	public List<ProfileJourney> calcProfile(final Facility<?> fromFacility, final Facility<?> toFacility,
+			final double earliestDepartureTime, final double latestDepartureTime, final Person person) {
+		long start = PROFILE_TIMER.start();
+		List<ProfileJourney> journeys = new ArrayList<>();
+		if (this.stopCount == 0) {
+			PROFILE_TIMER.stop(start);
+			return journeys;
+		}
+		Coord fromCoord = fromFacility.getCoord();
+		Coord toCoord = toFacility.getCoord();
+		Collection<Integer> nearbyStops = findNearbyStops(fromCoord);
+		int[] accessStops = new int[nearbyStops.size()];
+		double[] accessTimes = new double[nearbyStops.size()];
+		Iterator<Integer> it = nearbyStops.iterator();
+		for (int i = 0; i < accessStops.length; i++) {
+			accessStops[i] = it.next();
+			accessTimes[i] = getWalkTime(person, fromCoord, this.data.stops[accessStops[i]].getCoord());
+		}
+		double directWalkTime = getWalkTime(person, fromCoord, toCoord);
+
+		startProfile(toCoord, person);
+		double earliestArrivalTime = Double.POSITIVE_INFINITY;
+		for (double departureTime : collectDepartureTimes(accessStops, accessTimes, earliestDepartureTime, latestDepartureTime).descendingSet()) {
+			clearMarks();
+			this.bestRound = -1;
+			for (int i = 0; i < accessStops.length; i++) {
+				setProfileAccess(accessStops[i], departureTime + accessTimes[i]);
+			}
+			relaxProfileChainedTransfers(0);
+			runProfileRounds();
+			if (this.bestRound < 0 || this.profileBestArrival >= departureTime + directWalkTime) {
+				// no journey arriving earlier than by departing later, or than by walking
+				continue;
+			}
+			List<RouteSegment> segments = createRouteSegments(this.profileWalkTimes, this.profileWalkFromStops,
+					this.profileTransitTimes, this.profileBoardRouteStops);
+			// the travel time instead of a generalized cost, which is not known here
+			TransitPassengerRoute route = new TransitPassengerRoute(this.profileBestArrival - departureTime, segments);
+			List<Leg> legs = convertPassengerRouteToLegList(departureTime, route, fromCoord, toCoord, person);
+			double arrivalTime = departureTime;
+			for (Leg leg : legs) {
+				arrivalTime += leg.getTravelTime();
+			}
+			if (arrivalTime < earliestArrivalTime) {
+				earliestArrivalTime = arrivalTime;
+				journeys.add(new ProfileJourney(departureTime, arrivalTime, legs));
+			}
+		}
+		Collections.reverse(journeys);
+		PROFILE_TIMER.stop(start);
+		return journeys;
+	}
+
+	/**
+	 * @return the times to leave the origin in order to catch a departure of a route at one of the access stops,
+	 * within the given range
+	 */
+	private TreeSet<Double> collectDepartureTimes(final int[] accessStops, final double[] accessTimes,
+			final double earliestDepartureTime, final double latestDepartureTime) {
+		TreeSet<Double> departureTimes = new TreeSet<>();
+		for (int i = 0; i < accessStops.length; i++) {
+			int stop = accessStops[i];
+			double walkTime = accessTimes[i];
+			for (int j = this.data.stopRouteStopsStart[stop]; j < this.data.stopRouteStopsStart[stop + 1]; j++) {
+				int routeStop = this.data.stopRouteStops[j];
+				int route = this.data.routeStopRoutes[routeStop];
+				if (routeStop == this.data.routeStopsStart[route + 1] - 1) {
+					// nobody boards at the last stop
+					continue;
+				}
+				double departureOffset = this.data.departureOffsets[routeStop];
+				double tripStart = this.data.getNextTripStart(routeStop, earliestDepartureTime + walkTime);
+				while (tripStart + departureOffset - walkTime <= latestDepartureTime) {
+					departureTimes.add(tripStart + departureOffset - walkTime);
+					double nextTripStart = this.data.getTripStartAfter(routeStop, tripStart);
+					if (!(nextTripStart > tripStart)) {
+						break;
+					}
+					tripStart = nextTripStart;
+				}
+			}
+		}
+		return departureTimes;
+	}
+
+	/**
+	 * Resets the labels of profile queries, which is only done once per profile, and sets the egress times.
+	 */
+	private void startProfile(final Coord toCoord, final Person person) {
+		readParameters();
+		if (this.profileWalkTimes == null) {
+			this.profileWalkTimes = new double[this.rounds][];
+			this.profileWalkFromStops = new int[this.rounds][];
+			this.profileTransitTimes = new double[this.rounds][];
+			this.profileBoardRouteStops = new int[this.rounds][];
+			this.profileEgressTimes = new double[this.stopCount];
+		}
+		for (int k = 0; k < this.rounds; k++) {
+			if (this.profileWalkTimes[k] != null) {
+				Arrays.fill(this.profileWalkTimes[k], Double.POSITIVE_INFINITY);
+				Arrays.fill(this.profileTransitTimes[k], Double.POSITIVE_INFINITY);
+			}
+		}
+		ensureProfileRound(0);
+		Arrays.fill(this.profileEgressTimes, Double.POSITIVE_INFINITY);
+		for (int stop : findNearbyStops(toCoord)) {
+			this.profileEgressTimes[stop] = getWalkTime(person, this.data.stops[stop].getCoord(), toCoord);
+		}
+		this.profileBestArrival = Double.POSITIVE_INFINITY;
+	}
+
+	private void ensureProfileRound(final int k) {
+		if (this.profileWalkTimes[k] == null) {
+			this.profileWalkTimes[k] = new double[this.stopCount];
+			this.profileWalkFromStops[k] = new int[this.stopCount];
+			this.profileTransitTimes[k] = new double[this.stopCount];
+			this.profileBoardRouteStops[k] = new int[this.stopCount];
+			Arrays.fill(this.profileWalkTimes[k], Double.POSITIVE_INFINITY);
+			Arrays.fill(this.profileTransitTimes[k], Double.POSITIVE_INFINITY);
+		}
+	}
+
+	/**
+	 * As the departures are searched from the latest to the earliest, the access labels of an earlier
+	 * departure always replace those of the later ones.
+	 */
+	private void setProfileAccess(final int stop, final double time) {
+		if (time < this.profileWalkTimes[0][stop]) {
+			this.profileWalkTimes[0][stop] = time;
+			this.profileWalkFromStops[0][stop] = -1;
+			markWalk(stop);
+			queueWalk(stop);
+		}
+	}
+
+	private void runProfileRounds() {
+		swapWalkMarks();
+		int k = 1;
+		for (; k < this.rounds && this.walkMarkedCount > 0; k++) {
+			ensureProfileRound(k);
+			collectRoutes();
+			for (int i = 0; i < this.routesToScanCount; i++) {
+				int route = this.routesToScan[i];
+				scanProfileRoute(route, this.routeScanFrom[route], k);
+				this.routeScanFrom[route] = -1;
+			}
+			this.routesToScanCount = 0;
+			relaxProfileTransfers(k);
+			swapWalkMarks();
+		}
+		ROUNDS.record(k - 1);
+	}
+
+	/**
+	 * Scans the route like RAPTOR does for earliest arrivals: staying in the current trip, and switching
+	 * to an earlier trip where a stop was reached early enough in the previous round.
+	 */
+	private void scanProfileRoute(final int route, final int fromPosition, final int k) {
+		double[] previousWalkTimes = this.profileWalkTimes[k - 1];
+		double[] transitTimes = this.profileTransitTimes[k];
+		int lastRouteStop = this.data.routeStopsStart[route + 1] - 1;
+
+		boolean boarded = false;
+		int boardRouteStop = -1;
+		double tripStart = 0;
+		for (int routeStop = this.data.routeStopsStart[route] + fromPosition; routeStop <= lastRouteStop; routeStop++) {
+			int stop = this.data.routeStopStops[routeStop];
+			if (boarded) {
+				double arrival = tripStart + this.data.arrivalOffsets[routeStop];
+				if (arrival < transitTimes[stop] && arrival < this.profileBestArrival) {
+					setProfileTransit(k, stop, arrival, boardRouteStop);
+				}
+			}
+			if (routeStop < lastRouteStop && previousWalkTimes[stop] < Double.POSITIVE_INFINITY) {
+				double newTripStart = this.data.getNextTripStart(routeStop, previousWalkTimes[stop]);
+				if (!boarded || newTripStart < tripStart) {
+					boarded = true;
+					boardRouteStop = routeStop;
+					tripStart = newTripStart;
+				}
+			}
+		}
+	}
+
+	private void setProfileTransit(final int k, final int stop, final double time, final int boardRouteStop) {
+		this.profileTransitTimes[k][stop] = time;
+		this.profileBoardRouteStops[k][stop] = boardRouteStop;
+		if (!this.isTransitMarked[stop]) {
+			this.isTransitMarked[stop] = true;
+			this.transitMarked[this.transitMarkedCount++] = stop;
+		}
+		updateProfileBest(k, stop, time, true);
+	}
+
+	private void relaxProfileTransfers(final int k) {
+		for (int i = 0; i < this.transitMarkedCount; i++) {
+			int stop = this.transitMarked[i];
+			this.isTransitMarked[stop] = false;
+			double time = this.profileTransitTimes[k][stop];
+			relaxProfileWalk(k, stop, stop, time + this.additionalTransferTime);
+			for (int j = this.data.transfersStart[stop]; j < this.data.transfersStart[stop + 1]; j++) {
+				relaxProfileWalk(k, this.data.transferStops[j], stop,
+						time + this.data.transferDistances[j] / this.beelineWalkSpeed + this.additionalTransferTime);
+			}
+		}
+		this.transitMarkedCount = 0;
+		relaxProfileChainedTransfers(k);
+	}
+
+	private void relaxProfileChainedTransfers(final int k) {
+		while (this.walkQueueCount > 0) {
+			int stop = pollWalk();
+			double time = this.profileWalkTimes[k][stop];
+			for (int j = this.data.transfersStart[stop]; j < this.data.transfersStart[stop + 1]; j++) {
+				relaxProfileWalk(k, this.data.transferStops[j], -2 - stop,
+						time + this.data.transferDistances[j] / this.beelineWalkSpeed + this.additionalTransferTime);
+			}
+		}
+	}
+
+	private void relaxProfileWalk(final int k, final int stop, final int fromStop, final double time) {
+		if (time >= this.profileWalkTimes[k][stop] || time >= this.profileBestArrival) {
+			return;
+		}
+		this.profileWalkTimes[k][stop] = time;
+		this.profileWalkFromStops[k][stop] = fromStop;
+		markWalk(stop);
+		queueWalk(stop);
+		if (k > 0) {
+			// journeys without any vehicle are left to the direct walk
+			updateProfileBest(k, stop, time, false);
+		}
+	}
+
+	private void updateProfileBest(final int k, final int stop, final double time, final boolean isTransit) {
+		double arrival = time + this.profileEgressTimes[stop];
+		if (arrival < this.profileBestArrival) {
+			this.profileBestArrival = arrival;
+			this.bestRound = k;
+			this.bestStop = stop;
+			this.bestIsTransit = isTransit;
+		}
+	}
+
+	/**
+	 * @return the least-cost journey, including access and egress cost, or <code>null</code> if there is none
+	 */
+	TransitPassengerRoute calcPassengerRoute(final Coord fromCoord, final Coord toCoord, final double departureTime, final Person person) {
+		if (this.stopCount == 0) {
+			return null;
+		}
+		startQuery();
+		for (int stop : findNearbyStops(fromCoord)) {
+			Coord stopCoord = this.data.stops[stop].getCoord();
+			setAccess(stop, getWalkDisutility(person, fromCoord, stopCoord), departureTime + getWalkTime(person, fromCoord, stopCoord));
+		}
+		for (int stop : findNearbyStops(toCoord)) {
+			this.egressCosts[stop] = getWalkDisutility(person, this.data.stops[stop].getCoord(), toCoord);
+			this.egressQueries[stop] = this.query;
+		}
+		relaxChainedTransfers(0);
+		runRounds();
+		if (this.bestRound < 0) {
+			return null;
+		}
+		return new TransitPassengerRoute(this.bestCost, createRouteSegments(this.walkTimes, this.walkFromStops, this.transitTimes, this.boardRouteStops));
+	}
+
+	private void startQuery() {
+		if (this.query == Integer.MAX_VALUE) {
+			// start over rather than confusing labels of old queries with new ones
+			for (int k = 0; k < this.rounds; k++) {
+				if (this.walkQueries[k] != null) {
+					Arrays.fill(this.walkQueries[k], 0);
+					Arrays.fill(this.transitQueries[k], 0);
+				}
+			}
+			Arrays.fill(this.bestWalkQueries, 0);
+			Arrays.fill(this.bestTransitQueries, 0);
+			Arrays.fill(this.egressQueries, 0);
+			this.query = 0;
+		}
+		this.query++;
+		readParameters();
+		this.bestCost = Double.POSITIVE_INFINITY;
+		this.bestRound = -1;
+		this.bestStop = -1;
+		this.bestIsTransit = false;
+		clearMarks();
+		ensureRound(0);
+	}
+
+	private void readParameters() {
+		TransitRouterConfig config = getConfig();
+		this.inVehicleTimeCost_s = -config.getMarginalUtilityOfTravelTimePt_utl_s();
+		this.waitingTimeCost_s = -config.getMarginalUtilityOfWaitingPt_utl_s();
+		this.ptDistanceCost_m = -config.getMarginalUtilityOfTravelDistancePt_utl_m();
+		this.walkTimeCost_s = -config.getMarginalUtilityOfTravelTimeWalk_utl_s();
+		this.walkDistanceCost_m = -config.getMarginalUtilityOfTravelDistanceWalk_utl_m();
+		this.lineSwitchCost = -config.getUtilityOfLineSwitch_utl();
+		this.additionalTransferTime = config.getAdditionalTransferTime();
+		this.beelineWalkSpeed = config.getBeelineWalkSpeed();
+	}
+
+	/**
+	 * Removes the marks left when the last query stopped at the maximum number of rounds.
+	 */
+	private void clearMarks() {
+		for (int i = 0; i < this.walkMarkedCount; i++) {
+			this.isWalkMarked[this.walkMarked[i]] = false;
+		}
+		for (int i = 0; i < this.nextWalkMarkedCount; i++) {
+			this.isWalkMarked[this.nextWalkMarked[i]] = false;
+		}
+		this.walkMarkedCount = 0;
+		this.nextWalkMarkedCount = 0;
+	}
+
+	/**
+	 * Same as {@link TransitRouterImpl}: the stops within the search radius, extended if less than two are found.
+	 */
+	private Collection<Integer> findNearbyStops(final Coord coord) {
+		Collection<Integer> stops = this.data.stopsQuadTree.getDisk(coord.getX(), coord.getY(), getConfig().getSearchRadius());
+		if (stops.size() < 2) {
+			Integer nearestStop = this.data.stopsQuadTree.getClosest(coord.getX(), coord.getY());
+			if (nearestStop != null) {
+				double distance = CoordUtils.calcEuclideanDistance(coord, this.data.stops[nearestStop].getCoord());
+				stops = this.data.stopsQuadTree.getDisk(coord.getX(), coord.getY(), distance + getConfig().getExtensionRadius());
+			}
+		}
+		return stops;
+	}
+
+	private void setAccess(final int stop, final double cost, final double time) {
+		if (hasLabel(this.bestWalkQueries, stop) && this.bestWalkCosts[stop] <= cost) {
+			return;
+		}
+		this.walkCosts[0][stop] = cost;
+		this.walkTimes[0][stop] = time;
+		this.walkFromStops[0][stop] = -1;
+		this.walkQueries[0][stop] = this.query;
+		this.bestWalkCosts[stop] = cost;
+		this.bestWalkQueries[stop] = this.query;
+		markWalk(stop);
+		queueWalk(stop);
+	}
+
+	private void runRounds() {
+		swapWalkMarks();
+		int k = 1;
+		for (; k < this.rounds && this.walkMarkedCount > 0; k++) {
+			ensureRound(k);
+			collectRoutes();
+			for (int i = 0; i < this.routesToScanCount; i++) {
+				int route = this.routesToScan[i];
+				scanRoute(route, this.routeScanFrom[route], k);
+				this.routeScanFrom[route] = -1;
+			}
+			this.routesToScanCount = 0;
+			relaxTransfers(k);
+			swapWalkMarks();
+		}
+		ROUNDS.record(k - 1);
+	}
+
+	private void ensureRound(final int k) {
+		if (this.walkCosts[k] == null) {
+			this.walkCosts[k] = new double[this.stopCount];
+			this.walkTimes[k] = new double[this.stopCount];
+			this.walkFromStops[k] = new int[this.stopCount];
+			this.walkQueries[k] = new int[this.stopCount];
+			this.transitCosts[k] = new double[this.stopCount];
+			this.transitTimes[k] = new double[this.stopCount];
+			this.boardRouteStops[k] = new int[this.stopCount];
+			this.transitQueries[k] = new int[this.stopCount];
+		}
+	}
+
+	/**
+	 * Collects the routes serving the stops reached by walking in the previous round, with the
+	 * first of these stops along each route.
+	 */
+	private void collectRoutes() {
+		for (int i = 0; i < this.walkMarkedCount; i++) {
+			int stop = this.walkMarked[i];
+			this.isWalkMarked[stop] = false;
+			for (int j = this.data.stopRouteStopsStart[stop]; j < this.data.stopRouteStopsStart[stop + 1]; j++) {
+				int routeStop = this.data.stopRouteStops[j];
+				int route = this.data.routeStopRoutes[routeStop];
+				int position = routeStop - this.data.routeStopsStart[route];
+				if (this.routeScanFrom[route] < 0) {
+					this.routeScanFrom[route] = position;
+					this.routesToScan[this.routesToScanCount++] = route;
+				} else if (position < this.routeScanFrom[route]) {
+					this.routeScanFrom[route] = position;
+				}
+			}
+		}
+		this.walkMarkedCount = 0;
+	}
+
+	private void scanRoute(final int route, final int fromPosition, final int k) {
+		double[] previousWalkCosts = this.walkCosts[k - 1];
+		double[] previousWalkTimes = this.walkTimes[k - 1];
+		int[] previousWalkQueries = this.walkQueries[k - 1];
+		int lastRouteStop = this.data.routeStopsStart[route + 1] - 1;
+
+		boolean boarded = false;
+		int boardRouteStop = -1;
+		double tripStart = 0;
+		double boardCost = 0;
+		double boardTime = 0;
+		double vehicleArrival = 0;
+		double distance = 0;
+		for (int routeStop = this.data.routeStopsStart[route] + fromPosition; routeStop <= lastRouteStop; routeStop++) {
+			int stop = this.data.routeStopStops[routeStop];
+			if (boarded) {
+				distance += this.data.routeStopDistances[routeStop];
+				double arrival = tripStart + this.data.arrivalOffsets[routeStop];
+				double cost = boardCost + getPtCost(boardTime, vehicleArrival, arrival, distance);
+				if (cost < this.bestCost && (!hasLabel(this.bestTransitQueries, stop) || cost < this.bestTransitCosts[stop])) {
+					setTransit(k, stop, cost, arrival, boardRouteStop);
+				}
+			}
+			if (routeStop < lastRouteStop && previousWalkQueries[stop] == this.query) {
+				// board here if this is cheaper than staying in the current trip, if any
+				double readyTime = previousWalkTimes[stop];
+				double newTripStart = this.data.getNextTripStart(routeStop, readyTime);
+				double newVehicleArrival = newTripStart + this.data.arrivalOffsets[routeStop];
+				double departureOffset = this.data.departureOffsets[routeStop];
+				double newCost = previousWalkCosts[stop] + getPtCost(readyTime, newVehicleArrival, newTripStart + departureOffset, 0);
+				if (!boarded || newCost < boardCost + getPtCost(boardTime, vehicleArrival, tripStart + departureOffset, distance)) {
+					boarded = true;
+					boardRouteStop = routeStop;
+					tripStart = newTripStart;
+					boardCost = previousWalkCosts[stop];
+					boardTime = readyTime;
+					vehicleArrival = newVehicleArrival;
+					distance = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The cost of a ride, like the sum of the link costs in {@link TransitRouterNetworkTravelTimeAndDisutility}:
+	 * waiting for the vehicle counts as waiting time, the time the vehicle waits at the stops as in-vehicle time.
+	 */
+	private double getPtCost(final double readyTime, final double vehicleArrival, final double time, final double distance) {
+		double waitingTime = Math.max(0, vehicleArrival - readyTime);
+		double inVehicleTime = time - readyTime - waitingTime;
+		return inVehicleTime * this.inVehicleTimeCost_s + waitingTime * this.waitingTimeCost_s + distance * this.ptDistanceCost_m;
+	}
+
+	/**
+	 * Like {@link TransitRouterNetworkTravelTimeAndDisutility#defaultTransferCost}; a transfer at the same
+	 * stop has a distance of 0, but still costs the additional transfer time and the line switch.
+	 */
+	private double getTransferCost(final double distance) {
+		return distance / this.beelineWalkSpeed * this.walkTimeCost_s + distance * this.walkDistanceCost_m
+				+ this.additionalTransferTime * this.waitingTimeCost_s + this.lineSwitchCost;
+	}
+
+	private void setTransit(final int k, final int stop, final double cost, final double time, final int boardRouteStop) {
+		this.transitCosts[k][stop] = cost;
+		this.transitTimes[k][stop] = time;
+		this.boardRouteStops[k][stop] = boardRouteStop;
+		this.transitQueries[k][stop] = this.query;
+		this.bestTransitCosts[stop] = cost;
+		this.bestTransitQueries[stop] = this.query;
+		if (!this.isTransitMarked[stop]) {
+			this.isTransitMarked[stop] = true;
+			this.transitMarked[this.transitMarkedCount++] = stop;
+		}
+		updateBest(k, stop, cost, true);
+	}
+
+	private void relaxTransfers(final int k) {
+		for (int i = 0; i < this.transitMarkedCount; i++) {
+			int stop = this.transitMarked[i];
+			this.isTransitMarked[stop] = false;
+			double cost = this.transitCosts[k][stop];
+			double time = this.transitTimes[k][stop];
+			relaxWalk(k, stop, stop, cost + getTransferCost(0), time + this.additionalTransferTime);
+			for (int j = this.data.transfersStart[stop]; j < this.data.transfersStart[stop + 1]; j++) {
+				double distance = this.data.transferDistances[j];
+				relaxWalk(k, this.data.transferStops[j], stop, cost + getTransferCost(distance),
+						time + distance / this.beelineWalkSpeed + this.additionalTransferTime);
+			}
+		}
+		this.transitMarkedCount = 0;
+		relaxChainedTransfers(k);
+	}
+
+	/**
+	 * Continues the transfers from the stops reached by walking in this round, until no walk label improves.
+	 * A stop is queued again if its label improves after its transfers were relaxed.
+	 */
+	private void relaxChainedTransfers(final int k) {
+		while (this.walkQueueCount > 0) {
+			int stop = pollWalk();
+			double cost = this.walkCosts[k][stop];
+			double time = this.walkTimes[k][stop];
+			for (int j = this.data.transfersStart[stop]; j < this.data.transfersStart[stop + 1]; j++) {
+				double distance = this.data.transferDistances[j];
+				relaxWalk(k, this.data.transferStops[j], -2 - stop, cost + getTransferCost(distance),
+						time + distance / this.beelineWalkSpeed + this.additionalTransferTime);
+			}
+		}
+	}
+
+	private void relaxWalk(final int k, final int stop, final int fromStop, final double cost, final double time) {
+		if (cost >= this.bestCost || (hasLabel(this.bestWalkQueries, stop) && cost >= this.bestWalkCosts[stop])) {
+			return;
+		}
+		this.walkCosts[k][stop] = cost;
+		this.walkTimes[k][stop] = time;
+		this.walkFromStops[k][stop] = fromStop;
+		this.walkQueries[k][stop] = this.query;
+		this.bestWalkCosts[stop] = cost;
+		this.bestWalkQueries[stop] = this.query;
+		markWalk(stop);
+		queueWalk(stop);
+		if (k > 0) {
+			// journeys without any vehicle are left to the direct walk
+			updateBest(k, stop, cost, false);
+		}
+	}
+
+	private void markWalk(final int stop) {
+		if (!this.isWalkMarked[stop]) {
+			this.isWalkMarked[stop] = true;
+			this.nextWalkMarked[this.nextWalkMarkedCount++] = stop;
+		}
+	}
+
+	private void queueWalk(final int stop) {
+		if (!this.isWalkQueued[stop]) {
+			this.isWalkQueued[stop] = true;
+			this.walkQueue[(this.walkQueueStart + this.walkQueueCount++) % this.stopCount] = stop;
+		}
+	}
+
+	private int pollWalk() {
+		int stop = this.walkQueue[this.walkQueueStart];
+		this.walkQueueStart = (this.walkQueueStart + 1) % this.stopCount;
+		this.walkQueueCount--;
+		this.isWalkQueued[stop] = false;
+		return stop;
+	}
+
+	private void swapWalkMarks() {
+		int[] marked = this.walkMarked;
+		this.walkMarked = this.nextWalkMarked;
+		this.walkMarkedCount = this.nextWalkMarkedCount;
+		this.nextWalkMarked = marked;
+		this.nextWalkMarkedCount = 0;
+	}
+
+	private void updateBest(final int k, final int stop, final double cost, final boolean isTransit) {
+		if (this.egressQueries[stop] != this.query) {
+			return;
+		}
+		double totalCost = cost + this.egressCosts[stop];
+		if (totalCost < this.bestCost) {
+			this.bestCost = totalCost;
+			this.bestRound = k;
+			this.bestStop = stop;
+			this.bestIsTransit = isTransit;
+		}
+	}
+
+	private boolean hasLabel(final int[] queries, final int stop) {
+		return queries[stop] == this.query;
+	}
+
+	/**
+	 * Follows the labels of the best journey back to its access stop. As the labels of a round are not changed
+	 * once the next round started, the labels a label was derived from are still there. In profile queries, they
+	 * may also be labels of a later departure, which were not improved since. Consecutive transfers are merged into
+	 * one segment, like {@link TransitLeastCostPathTree} does.
+	 */
+	private List<RouteSegment> createRouteSegments(final double[][] walkTimes, final int[][] walkFromStops,
+			final double[][] transitTimes, final int[][] boardRouteStops) {
+		List<RouteSegment> segments = new ArrayList<>();
+		int k = this.bestRound;
+		int stop = this.bestStop;
+		boolean isTransit = this.bestIsTransit;
+		while (true) {
+			if (isTransit) {
+				int boardRouteStop = boardRouteStops[k][stop];
+				int boardStop = this.data.routeStopStops[boardRouteStop];
+				int route = this.data.routeStopRoutes[boardRouteStop];
+				double travelTime = transitTimes[k][stop] - walkTimes[k - 1][boardStop];
+				segments.add(new RouteSegment(this.data.stops[boardStop], this.data.stops[stop], travelTime,
+						this.data.routeLines[route].getId(), this.data.routes[route].getId()));
+				k--;
+				stop = boardStop;
+				isTransit = false;
+			} else {
+				int fromStop = walkFromStops[k][stop];
+				if (fromStop == -1) {
+					break;
+				}
+				if (fromStop < -1) {
+					fromStop = -2 - fromStop;
+					addTransferSegment(segments, fromStop, stop, walkTimes[k][stop] - walkTimes[k][fromStop]);
+				} else {
+					addTransferSegment(segments, fromStop, stop, walkTimes[k][stop] - transitTimes[k][fromStop]);
+					isTransit = true;
+				}
+				stop = fromStop;
+			}
+		}
+		Collections.reverse(segments);
+		return segments;
+	}
+
+	/**
+	 * Adds the transfer, merged with the transfer it is continued by, if any. The segments are still in reverse order.
+	 */
+	private void addTransferSegment(final List<RouteSegment> segments, final int fromStop, final int toStop, final double travelTime) {
+		if (!segments.isEmpty() && segments.get(segments.size() - 1).getRouteTaken() == null) {
+			RouteSegment continued = segments.remove(segments.size() - 1);
+			segments.add(new RouteSegment(this.data.stops[fromStop], continued.toStop, travelTime + continued.travelTime, null, null));
+		} else {
+			segments.add(new RouteSegment(this.data.stops[fromStop], this.data.stops[toStop], travelTime, null, null));
+		}
+	}
+
+}
@@ -78,6 +78,11 @@ public class TransitRouterConfig implements MatsimParameters {
 	 */
 	private double additionalTransferTime = 0.0;
 
+	/**
+	 * The maximum number of transfers between vehicles of a journey, see {@link RaptorTransitRouter}.
+	 */
+	private int maxTransfers = 8;
+
 	private double beelineWalkSpeed; // meter / second
 
 	private double marginalUtilityOfTravelTimeWalk_utl_s;
@@ -139,6 +144,7 @@ public class TransitRouterConfig implements MatsimParameters {
 		this.setExtensionRadius(trConfig.getExtensionRadius());
 		this.setBeelineWalkConnectionDistance(trConfig.getMaxBeelineWalkConnectionDistance());
 		this.setAdditionalTransferTime(trConfig.getAdditionalTransferTime());
+		this.setMaxTransfers(trConfig.getMaxTransfers());
 		this.directWalkFactor = trConfig.getDirectWalkFactor() ;
 	}
 
@@ -245,6 +251,14 @@ public class TransitRouterConfig implements MatsimParameters {
 		this.additionalTransferTime = additionalTransferTime;
 	}
 
+	public int getMaxTransfers() {
+		return maxTransfers;
+	}
+
+	public void setMaxTransfers(int maxTransfers) {
+		this.maxTransfers = maxTransfers;
+	}
+
 	public final Double getBeelineDistanceFactor() {
 		return this.beelineDistanceFactor;
 	}
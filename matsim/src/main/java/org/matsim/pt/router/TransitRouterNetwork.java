@@ -166,14 +166,24 @@ public final class TransitRouterNetwork implements Network {
 		final TransitLine line;
 		final Id<Link> id;
 		private final double length;
+		/**
+		 * the index of the from-stop among the route stops of the schedule, see {@link PreparedTransitSchedule},
+		 * or -1 if unknown
+		 */
+		final int routeStopIndex;
 
 		public TransitRouterNetworkLink(final Id<Link> id, final TransitRouterNetworkNode fromNode, final TransitRouterNetworkNode toNode, final TransitRoute route, final TransitLine line, double length) {
+			this(id, fromNode, toNode, route, line, length, -1);
+		}
+
+		TransitRouterNetworkLink(final Id<Link> id, final TransitRouterNetworkNode fromNode, final TransitRouterNetworkNode toNode, final TransitRoute route, final TransitLine line, double length, final int routeStopIndex) {
 			this.id = id;
 			this.fromNode = fromNode;
 			this.toNode = toNode;
 			this.route = route;
 			this.line = line;
 			this.length = length;
+			this.routeStopIndex = routeStopIndex;
 		}
 		
 		public TransitRouterNetworkLink(final Id<Link> id, final TransitRouterNetworkNode fromNode, final TransitRouterNetworkNode toNode, final TransitRoute route, final TransitLine line) {
@@ -313,7 +323,12 @@ public final class TransitRouterNetwork implements Network {
 	}
 
 	public TransitRouterNetworkLink createLink(final TransitRouterNetworkNode fromNode, final TransitRouterNetworkNode toNode, final TransitRoute route, final TransitLine line) {
-		final TransitRouterNetworkLink link = new TransitRouterNetworkLink(Id.create(this.nextLinkId++, Link.class), fromNode, toNode, route, line);
+		return createLink(fromNode, toNode, route, line, -1);
+	}
+
+	private TransitRouterNetworkLink createLink(final TransitRouterNetworkNode fromNode, final TransitRouterNetworkNode toNode, final TransitRoute route, final TransitLine line, final int routeStopIndex) {
+		final TransitRouterNetworkLink link = new TransitRouterNetworkLink(Id.create(this.nextLinkId++, Link.class), fromNode, toNode, route, line,
+				CoordUtils.calcEuclideanDistance(toNode.stop.getStopFacility().getCoord(), fromNode.stop.getStopFacility().getCoord()), routeStopIndex);
 		this.links.put(link.getId(), link);
 		fromNode.outgoingLinks.put(link.getId(), link);
 		toNode.ingoingLinks.put(link.getId(), link);
@@ -409,6 +424,8 @@ public final class TransitRouterNetwork implements Network {
 		final Counter linkCounter = new Counter(" link #");
 		final Counter nodeCounter = new Counter(" node #");
 		// build nodes and links connecting the nodes according to the transit routes
+		// (the route stops are numbered in the same order as in PreparedTransitSchedule)
+		int routeStopIndex = 0;
 		for (TransitLine line : schedule.getTransitLines().values()) {
 			for (TransitRoute route : line.getRoutes().values()) {
 				TransitRouterNetworkNode prevNode = null;
@@ -416,10 +433,11 @@ public final class TransitRouterNetwork implements Network {
 					TransitRouterNetworkNode node = network.createNode(stop, route, line);
 					nodeCounter.incCounter();
 					if (prevNode != null) {
-						network.createLink(prevNode, node, route, line);
+						network.createLink(prevNode, node, route, line, routeStopIndex - 1);
 						linkCounter.incCounter();
 					}
 					prevNode = node;
+					routeStopIndex++;
 				}
 			}
 		}
@@ -147,7 +147,7 @@ public class TransitRouterNetworkTravelTimeAndDisutility implements TravelTime,
 			// (agent stays on the same route, so use transit line travel time)
 			
 			// get the next departure time:
-			double bestDepartureTime = preparedTransitSchedule.getNextDepartureTime(wrapped.route, fromStop, time);
+			double bestDepartureTime = preparedTransitSchedule.getNextDepartureTime(wrapped, time);
 
 			// the travel time on the link is 
 			//   the time until the departure (``dpTime - now'')
@@ -188,7 +188,7 @@ public class TransitRouterNetworkTravelTimeAndDisutility implements TravelTime,
 		}
 		TransitRouteStop fromStop = wrapped.fromNode.stop;
 		
-		double nextDepartureTime = preparedTransitSchedule.getNextDepartureTime(wrapped.getRoute(), fromStop, now);
+		double nextDepartureTime = preparedTransitSchedule.getNextDepartureTime(wrapped, now);
 		
 		double fromStopArrivalOffset = (fromStop.getArrivalOffset() != Time.UNDEFINED_TIME) ? fromStop.getArrivalOffset() : fromStop.getDepartureOffset();
 		double vehWaitAtStopTime = fromStop.getDepartureOffset() - fromStopArrivalOffset; //time in which the veh stops at station
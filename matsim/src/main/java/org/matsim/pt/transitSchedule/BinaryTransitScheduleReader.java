@@ -0,0 +1,226 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryTransitScheduleReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.transitSchedule;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.utils.io.BinaryImageInput;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitStopArea;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.vehicles.Vehicle;
+
+import static org.matsim.pt.transitSchedule.BinaryTransitScheduleWriter.*;
+
+/**
+ * Reads a schedule image written by {@link BinaryTransitScheduleWriter} into the transit schedule of a scenario,
+ * which should be empty.
+ */
+public final class BinaryTransitScheduleReader implements MatsimReader {
+
+	private final static Logger log = Logger.getLogger(BinaryTransitScheduleReader.class);
+
+	private final TransitSchedule schedule;
+	private final RouteFactories routeFactories;
+	private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter();
+	private final List<Id<Link>> linkIds = new ArrayList<>();
+
+	public BinaryTransitScheduleReader(final Scenario scenario) {
+		this.schedule = scenario.getTransitSchedule();
+		this.routeFactories = scenario.getPopulation().getFactory().getRouteFactories();
+	}
+
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		this.attributesConverter.putAttributeConverters( converters );
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		log.info("reading binary transit schedule from " + filename);
+		parse(IOUtils.getInputStream(filename));
+	}
+
+	public void readURL(final URL url) {
+		log.info("reading binary transit schedule from " + url);
+		parse(IOUtils.getInputStream(url));
+	}
+
+	/**
+	 * Reads the schedule from the input stream and closes it.
+	 */
+	public void parse(final InputStream stream) {
+		this.linkIds.clear();
+		try (BinaryImageInput in = new BinaryImageInput(stream)) {
+			in.readHeader(MAGIC, VERSION);
+			in.readAttributes(this.schedule.getAttributes(), this.attributesConverter);
+			TransitStopFacility[] stops = readStopFacilities(in);
+			readMinimalTransferTimes(in);
+			TransitScheduleFactory factory = this.schedule.getFactory();
+			int lineCount = in.readVarInt();
+			for (int i = 0; i < lineCount; i++) {
+				TransitLine line = factory.createTransitLine(Id.create(in.readRawString(), TransitLine.class));
+				line.setName(in.readString());
+				in.readAttributes(line.getAttributes(), this.attributesConverter);
+				int routeCount = in.readVarInt();
+				for (int j = 0; j < routeCount; j++) {
+					line.addRoute(readTransitRoute(in, stops));
+				}
+				this.schedule.addTransitLine(line);
+			}
+			log.info("read " + stops.length + " stop facilities and " + lineCount + " transit lines.");
+		} finally {
+			this.linkIds.clear();
+		}
+	}
+
+	private TransitStopFacility[] readStopFacilities(final BinaryImageInput in) {
+		int count = in.readVarInt();
+		String[] ids = new String[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = in.readRawString();
+		}
+		double[] x = in.readDoubles(count);
+		double[] y = in.readDoubles(count);
+		boolean[] hasZ = in.readBooleans(count);
+		double[] z = in.readDoubles(count);
+		TransitScheduleFactory factory = this.schedule.getFactory();
+		TransitStopFacility[] stops = new TransitStopFacility[count];
+		for (int i = 0; i < count; i++) {
+			Coord coord = hasZ[i] ? new Coord(x[i], y[i], z[i]) : new Coord(x[i], y[i]);
+			Id<Link> linkId = readLinkId(in);
+			String name = in.readString();
+			String stopAreaId = in.readString();
+			TransitStopFacility stop = factory.createTransitStopFacility(Id.create(ids[i], TransitStopFacility.class), coord, in.readBoolean());
+			if (linkId != null) {
+				stop.setLinkId(linkId);
+			}
+			if (name != null) {
+				stop.setName(name);
+			}
+			if (stopAreaId != null) {
+				stop.setStopAreaId(Id.create(stopAreaId, TransitStopArea.class));
+			}
+			in.readAttributes(stop.getAttributes(), this.attributesConverter);
+			this.schedule.addStopFacility(stop);
+			stops[i] = stop;
+		}
+		return stops;
+	}
+
+	private void readMinimalTransferTimes(final BinaryImageInput in) {
+		int count = in.readVarInt();
+		for (int i = 0; i < count; i++) {
+			Id<TransitStopFacility> fromStop = Id.create(in.readString(), TransitStopFacility.class);
+			Id<TransitStopFacility> toStop = Id.create(in.readString(), TransitStopFacility.class);
+			this.schedule.getMinimalTransferTimes().set(fromStop, toStop, in.readDouble());
+		}
+	}
+
+	private TransitRoute readTransitRoute(final BinaryImageInput in, final TransitStopFacility[] facilities) {
+		TransitScheduleFactory factory = this.schedule.getFactory();
+		Id<TransitRoute> id = Id.create(in.readString(), TransitRoute.class);
+		String description = in.readRawString();
+		String mode = in.readString();
+
+		int stopCount = in.readVarInt();
+		int[] stopFacilities = in.readInts(stopCount);
+		double[] arrivalOffsets = in.readDoubles(stopCount);
+		double[] departureOffsets = in.readDoubles(stopCount);
+		boolean[] awaitDeparture = in.readBooleans(stopCount);
+		List<TransitRouteStop> stops = new ArrayList<>(stopCount);
+		for (int i = 0; i < stopCount; i++) {
+			TransitRouteStop stop = factory.createTransitRouteStop(facilities[stopFacilities[i]], arrivalOffsets[i], departureOffsets[i]);
+			stop.setAwaitDepartureTime(awaitDeparture[i]);
+			stops.add(stop);
+		}
+
+		NetworkRoute networkRoute = null;
+		if (in.readBoolean()) {
+			Id<Link> startLinkId = readLinkId(in);
+			int linkCount = in.readVarInt();
+			List<Id<Link>> routeLinkIds = new ArrayList<>(linkCount);
+			for (int i = 0; i < linkCount; i++) {
+				routeLinkIds.add(readLinkId(in));
+			}
+			Id<Link> endLinkId = readLinkId(in);
+			networkRoute = this.routeFactories.createRoute(NetworkRoute.class, startLinkId, endLinkId);
+			networkRoute.setLinkIds(startLinkId, routeLinkIds, endLinkId);
+		}
+
+		TransitRoute route = factory.createTransitRoute(id, networkRoute, stops, mode.intern());
+		route.setDescription(description);
+		in.readAttributes(route.getAttributes(), this.attributesConverter);
+
+		int departureCount = in.readVarInt();
+		double[] departureTimes = in.readDoubles(departureCount);
+		for (int i = 0; i < departureCount; i++) {
+			Departure departure = factory.createDeparture(Id.create(in.readString(), Departure.class), departureTimes[i]);
+			String vehicleId = in.readRawString();
+			if (vehicleId != null) {
+				departure.setVehicleId(Id.create(vehicleId, Vehicle.class));
+			}
+			in.readAttributes(departure.getAttributes(), this.attributesConverter);
+			route.addDeparture(departure);
+		}
+		return route;
+	}
+
+	/**
+	 * Link ids are cached by their index in the string table, so routes referring to
+	 * the same links do not look up the ids again.
+	 */
+	private Id<Link> readLinkId(final BinaryImageInput in) {
+		int index = in.readStringIndex();
+		if (index < 0) {
+			return null;
+		}
+		while (this.linkIds.size() <= index) {
+			this.linkIds.add(null);
+		}
+		Id<Link> linkId = this.linkIds.get(index);
+		if (linkId == null) {
+			linkId = Id.create(in.getString(index), Link.class);
+			this.linkIds.set(index, linkId);
+		}
+		return linkId;
+	}
+
+}
@@ -0,0 +1,211 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryTransitScheduleWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.transitSchedule;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.api.internal.MatsimWriter;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.io.BinaryImageOutput;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.MinimalTransferTimes;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+
+/**
+ * Writes a binary image of a transit schedule, containing the same information as <code>transitSchedule_v2</code>.
+ * The image can be read with {@link BinaryTransitScheduleReader} much faster than the xml format, as stops refer
+ * to their facilities by index and the offsets and departure times are read in bulk. It is meant as a cache of
+ * schedules which are read often, see {@link org.matsim.core.utils.io.BinaryImageCache}, not as an exchange format.
+ * <p></p>
+ * Coordinates are written as they are, i.e. in the internal coordinate system.
+ */
+public final class BinaryTransitScheduleWriter implements MatsimWriter {
+
+	private final static Logger log = Logger.getLogger(BinaryTransitScheduleWriter.class);
+
+	/** the first four bytes of a binary transit schedule image, "MPTS" */
+	public static final int MAGIC = 0x4d505453;
+	public static final int VERSION = 1;
+
+	private final TransitSchedule schedule;
+	private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter();
+
+	public BinaryTransitScheduleWriter(final TransitSchedule schedule) {
+		this.schedule = schedule;
+	}
+
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		this.attributesConverter.putAttributeConverters( converters );
+	}
+
+	@Override
+	public void write(final String filename) {
+		write(IOUtils.getOutputStream(filename));
+		log.info("Transit schedule written to: " + filename);
+	}
+
+	/**
+	 * Writes the schedule to the output stream and closes it.
+	 */
+	public void write(final OutputStream stream) {
+		try (BinaryImageOutput out = new BinaryImageOutput(stream)) {
+			out.writeHeader(MAGIC, VERSION);
+			out.writeAttributes(this.schedule.getAttributes(), this.attributesConverter);
+			Map<Id<TransitStopFacility>, Integer> stopIndices = writeStopFacilities(out);
+			writeMinimalTransferTimes(out);
+			out.writeVarInt(this.schedule.getTransitLines().size());
+			for (TransitLine line : this.schedule.getTransitLines().values()) {
+				out.writeRawString(line.getId().toString());
+				out.writeString(line.getName());
+				out.writeAttributes(line.getAttributes(), this.attributesConverter);
+				out.writeVarInt(line.getRoutes().size());
+				for (TransitRoute route : line.getRoutes().values()) {
+					writeTransitRoute(out, route, stopIndices);
+				}
+			}
+		}
+	}
+
+	private Map<Id<TransitStopFacility>, Integer> writeStopFacilities(final BinaryImageOutput out) {
+		Collection<TransitStopFacility> stops = this.schedule.getFacilities().values();
+		int count = stops.size();
+		double[] x = new double[count];
+		double[] y = new double[count];
+		double[] z = new double[count];
+		boolean[] hasZ = new boolean[count];
+		Map<Id<TransitStopFacility>, Integer> stopIndices = new HashMap<>(count * 2);
+		out.writeVarInt(count);
+		int i = 0;
+		for (TransitStopFacility stop : stops) {
+			out.writeRawString(stop.getId().toString());
+			Coord coord = stop.getCoord();
+			x[i] = coord.getX();
+			y[i] = coord.getY();
+			hasZ[i] = coord.hasZ();
+			z[i] = coord.hasZ() ? coord.getZ() : 0.0;
+			stopIndices.put(stop.getId(), i);
+			i++;
+		}
+		out.writeDoubles(x, count);
+		out.writeDoubles(y, count);
+		out.writeBooleans(hasZ, count);
+		out.writeDoubles(z, count);
+		for (TransitStopFacility stop : stops) {
+			out.writeString(stop.getLinkId() == null ? null : stop.getLinkId().toString());
+			out.writeString(stop.getName());
+			out.writeString(stop.getStopAreaId() == null ? null : stop.getStopAreaId().toString());
+			out.writeBoolean(stop.getIsBlockingLane());
+			out.writeAttributes(stop.getAttributes(), this.attributesConverter);
+		}
+		return stopIndices;
+	}
+
+	private void writeMinimalTransferTimes(final BinaryImageOutput out) {
+		List<String> stopIds = new ArrayList<>();
+		List<Double> seconds = new ArrayList<>();
+		MinimalTransferTimes.MinimalTransferTimesIterator iter = this.schedule.getMinimalTransferTimes().iterator();
+		while (iter.hasNext()) {
+			iter.next();
+			stopIds.add(iter.getFromStopId().toString());
+			stopIds.add(iter.getToStopId().toString());
+			seconds.add(iter.getSeconds());
+		}
+		out.writeVarInt(seconds.size());
+		for (int i = 0; i < seconds.size(); i++) {
+			out.writeString(stopIds.get(2 * i));
+			out.writeString(stopIds.get(2 * i + 1));
+			out.writeDouble(seconds.get(i));
+		}
+	}
+
+	private void writeTransitRoute(final BinaryImageOutput out, final TransitRoute route, final Map<Id<TransitStopFacility>, Integer> stopIndices) {
+		out.writeString(route.getId().toString());
+		out.writeRawString(route.getDescription());
+		out.writeString(route.getTransportMode());
+
+		List<TransitRouteStop> stops = route.getStops();
+		int stopCount = stops.size();
+		int[] facilities = new int[stopCount];
+		double[] arrivalOffsets = new double[stopCount];
+		double[] departureOffsets = new double[stopCount];
+		boolean[] awaitDeparture = new boolean[stopCount];
+		for (int i = 0; i < stopCount; i++) {
+			TransitRouteStop stop = stops.get(i);
+			Integer facility = stopIndices.get(stop.getStopFacility().getId());
+			if (facility == null) {
+				throw new RuntimeException("stop facility " + stop.getStopFacility().getId() + " of transit route " + route.getId() + " is not part of the schedule.");
+			}
+			facilities[i] = facility;
+			arrivalOffsets[i] = stop.getArrivalOffset();
+			departureOffsets[i] = stop.getDepartureOffset();
+			awaitDeparture[i] = stop.isAwaitDepartureTime();
+		}
+		out.writeVarInt(stopCount);
+		out.writeInts(facilities, stopCount);
+		out.writeDoubles(arrivalOffsets, stopCount);
+		out.writeDoubles(departureOffsets, stopCount);
+		out.writeBooleans(awaitDeparture, stopCount);
+
+		NetworkRoute networkRoute = route.getRoute();
+		out.writeBoolean(networkRoute != null);
+		if (networkRoute != null) {
+			out.writeString(networkRoute.getStartLinkId().toString());
+			out.writeVarInt(networkRoute.getLinkIds().size());
+			for (Id<Link> linkId : networkRoute.getLinkIds()) {
+				out.writeString(linkId.toString());
+			}
+			out.writeString(networkRoute.getEndLinkId().toString());
+		}
+		out.writeAttributes(route.getAttributes(), this.attributesConverter);
+
+		Collection<Departure> departures = route.getDepartures().values();
+		int departureCount = departures.size();
+		double[] departureTimes = new double[departureCount];
+		int i = 0;
+		for (Departure departure : departures) {
+			departureTimes[i++] = departure.getDepartureTime();
+		}
+		out.writeVarInt(departureCount);
+		out.writeDoubles(departureTimes, departureCount);
+		for (Departure departure : departures) {
+			out.writeString(departure.getId().toString());
+			out.writeRawString(departure.getVehicleId() == null ? null : departure.getVehicleId().toString());
+			out.writeAttributes(departure.getAttributes(), this.attributesConverter);
+		}
+	}
+
+}
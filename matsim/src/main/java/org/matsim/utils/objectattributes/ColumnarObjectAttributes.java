@@ -0,0 +1,409 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarObjectAttributes.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.utils.objectattributes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the attributes of all objects in one column per attribute name, indexed by the
+ * index of the object. Attributes of type {@link Double}, {@link Integer} and {@link Boolean}
+ * are stored as primitives, strings are dictionary-encoded, so attributes like a
+ * subpopulation or car availability cost only an <code>int</code> per object. Columns
+ * with values of other types, or of mixed types, store the values as objects.
+ * <p></p>
+ * The values returned by {@link #getAttribute(String, String)} are equal to the ones put,
+ * but only values stored as objects are the same instances. Putting <code>null</code>
+ * removes the attribute.
+ * <p></p>
+ * The objects are found through an open addressing table of their indices, so an object
+ * costs no more than its id and a few <code>int</code>s besides its values. As in
+ * {@link ObjectAttributes}, an object is known from its first put until
+ * {@link #removeAllAttributes(String)}, even if all its attributes were removed one by one.
+ * Objects which are removed and added again get a new index, so this class is meant for
+ * attributes of a mostly stable set of objects, e.g. the persons of a population.
+ * <p></p>
+ * <em>This class is not thread-safe.</em>
+ */
+public final class ColumnarObjectAttributes extends ObjectAttributes {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** the ids of the objects by index, <code>null</code> for removed objects */
+	private String[] objectIds = new String[INITIAL_CAPACITY];
+	private int objectCount = 0;
+	/** linear probing table of object index + 1, 0 marks a free slot. Slots of removed objects are kept until the next rehash. */
+	private int[] slots = new int[2 * INITIAL_CAPACITY];
+	private int usedSlots = 0;
+	private final Map<String, Column> columns = new LinkedHashMap<>();
+
+	public ColumnarObjectAttributes() {
+		super(null);
+	}
+
+	@Override
+	public Object putAttribute(final String objectId, final String attribute, final Object value) {
+		int index = getOrCreateIndex(objectId);
+		if (value == null) {
+			return removeAttribute(objectId, attribute);
+		}
+		Column column = this.columns.get(attribute);
+		if (column == null) {
+			column = createColumn(value);
+			this.columns.put(attribute, column);
+		} else if (!column.accepts(value)) {
+			column = new ObjectColumn(column);
+			this.columns.put(attribute, column);
+		}
+		Object oldValue = null;
+		if (column.present.get(index)) {
+			oldValue = column.get(index);
+		} else {
+			column.present.set(index);
+		}
+		column.set(index, value);
+		return oldValue;
+	}
+
+	@Override
+	public Object getAttribute(final String objectId, final String attribute) {
+		int index = findIndex(objectId);
+		if (index < 0) {
+			return null;
+		}
+		Column column = this.columns.get(attribute);
+		if (column == null || !column.present.get(index)) {
+			return null;
+		}
+		return column.get(index);
+	}
+
+	@Override
+	public Object removeAttribute(final String objectId, final String attribute) {
+		int index = findIndex(objectId);
+		if (index < 0) {
+			return null;
+		}
+		Column column = this.columns.get(attribute);
+		if (column == null || !column.present.get(index)) {
+			return null;
+		}
+		Object oldValue = column.get(index);
+		column.remove(index);
+		return oldValue;
+	}
+
+	@Override
+	public void removeAllAttributes(final String objectId) {
+		int index = findIndex(objectId);
+		if (index < 0) {
+			return;
+		}
+		for (Column column : this.columns.values()) {
+			if (column.present.get(index)) {
+				column.remove(index);
+			}
+		}
+		// the slot now points to a removed object and is skipped by findIndex()
+		this.objectIds[index] = null;
+	}
+
+	@Override
+	public void clear() {
+		this.objectIds = new String[INITIAL_CAPACITY];
+		this.objectCount = 0;
+		this.slots = new int[2 * INITIAL_CAPACITY];
+		this.usedSlots = 0;
+		this.columns.clear();
+	}
+
+	@Override
+	/*package*/ Collection<String> getObjectIds() {
+		List<String> ids = new ArrayList<>(this.objectCount);
+		for (int i = 0; i < this.objectCount; i++) {
+			if (this.objectIds[i] != null) {
+				ids.add(this.objectIds[i]);
+			}
+		}
+		return ids;
+	}
+
+	@Override
+	/*package*/ Map<String, Object> getAttributes(final String objectId) {
+		int index = findIndex(objectId);
+		if (index < 0) {
+			return null;
+		}
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		for (Map.Entry<String, Column> e : this.columns.entrySet()) {
+			if (e.getValue().present.get(index)) {
+				attributes.put(e.getKey(), e.getValue().get(index));
+			}
+		}
+		return attributes;
+	}
+
+	/**
+	 * @return the index of the object, or -1 if it is not known
+	 */
+	private int findIndex(final String objectId) {
+		int mask = this.slots.length - 1;
+		for (int slot = hash(objectId) & mask; this.slots[slot] != 0; slot = (slot + 1) & mask) {
+			String id = this.objectIds[this.slots[slot] - 1];
+			if (id != null && id.equals(objectId)) {
+				return this.slots[slot] - 1;
+			}
+		}
+		return -1;
+	}
+
+	private int getOrCreateIndex(final String objectId) {
+		int index = findIndex(objectId);
+		if (index >= 0) {
+			return index;
+		}
+		if (2 * (this.usedSlots + 1) > this.slots.length) {
+			rehash();
+		}
+		if (this.objectCount == this.objectIds.length) {
+			this.objectIds = Arrays.copyOf(this.objectIds, this.objectCount * 2);
+		}
+		index = this.objectCount++;
+		this.objectIds[index] = objectId;
+		insertSlot(index);
+		return index;
+	}
+
+	/**
+	 * Rebuilds the table for the objects which were not removed, with at most a quarter of the slots in use
+	 * afterwards, so the next object can be inserted.
+	 */
+	private void rehash() {
+		int liveObjects = 0;
+		for (int i = 0; i < this.objectCount; i++) {
+			if (this.objectIds[i] != null) {
+				liveObjects++;
+			}
+		}
+		this.slots = new int[Math.max(2 * INITIAL_CAPACITY, Integer.highestOneBit(4 * liveObjects) * 2)];
+		this.usedSlots = 0;
+		for (int i = 0; i < this.objectCount; i++) {
+			if (this.objectIds[i] != null) {
+				insertSlot(i);
+			}
+		}
+	}
+
+	private void insertSlot(final int index) {
+		int mask = this.slots.length - 1;
+		int slot = hash(this.objectIds[index]) & mask;
+		while (this.slots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		this.slots[slot] = index + 1;
+		this.usedSlots++;
+	}
+
+	private static int hash(final String objectId) {
+		int h = objectId.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static Column createColumn(final Object value) {
+		if (value instanceof Double) {
+			return new DoubleColumn();
+		}
+		if (value instanceof Integer) {
+			return new IntColumn();
+		}
+		if (value instanceof Boolean) {
+			return new BooleanColumn();
+		}
+		if (value instanceof String) {
+			return new StringColumn();
+		}
+		return new ObjectColumn();
+	}
+
+	private static int grow(final int length, final int index) {
+		return Math.max(index + 1, Math.max(16, length + (length >> 1)));
+	}
+
+	private static abstract class Column {
+		/** the objects which have a value in this column */
+		final BitSet present = new BitSet();
+
+		abstract boolean accepts(Object value);
+
+		abstract Object get(int index);
+
+		abstract void set(int index, Object value);
+
+		void remove(final int index) {
+			this.present.clear(index);
+		}
+	}
+
+	private static final class DoubleColumn extends Column {
+		private double[] values = new double[0];
+
+		@Override
+		boolean accepts(final Object value) {
+			return value instanceof Double;
+		}
+
+		@Override
+		Object get(final int index) {
+			return this.values[index];
+		}
+
+		@Override
+		void set(final int index, final Object value) {
+			if (index >= this.values.length) {
+				this.values = Arrays.copyOf(this.values, grow(this.values.length, index));
+			}
+			this.values[index] = (Double) value;
+		}
+	}
+
+	private static final class IntColumn extends Column {
+		private int[] values = new int[0];
+
+		@Override
+		boolean accepts(final Object value) {
+			return value instanceof Integer;
+		}
+
+		@Override
+		Object get(final int index) {
+			return this.values[index];
+		}
+
+		@Override
+		void set(final int index, final Object value) {
+			if (index >= this.values.length) {
+				this.values = Arrays.copyOf(this.values, grow(this.values.length, index));
+			}
+			this.values[index] = (Integer) value;
+		}
+	}
+
+	private static final class BooleanColumn extends Column {
+		private final BitSet values = new BitSet();
+
+		@Override
+		boolean accepts(final Object value) {
+			return value instanceof Boolean;
+		}
+
+		@Override
+		Object get(final int index) {
+			return this.values.get(index);
+		}
+
+		@Override
+		void set(final int index, final Object value) {
+			this.values.set(index, (Boolean) value);
+		}
+	}
+
+	/**
+	 * Stores the code of each value in a dictionary of the distinct values of the column.
+	 * Codes of removed values stay in the dictionary.
+	 */
+	private static final class StringColumn extends Column {
+		private int[] codes = new int[0];
+		private final List<String> dictionary = new ArrayList<>();
+		private final Map<String, Integer> codesByValue = new HashMap<>();
+
+		@Override
+		boolean accepts(final Object value) {
+			return value instanceof String;
+		}
+
+		@Override
+		Object get(final int index) {
+			return this.dictionary.get(this.codes[index]);
+		}
+
+		@Override
+		void set(final int index, final Object value) {
+			if (index >= this.codes.length) {
+				this.codes = Arrays.copyOf(this.codes, grow(this.codes.length, index));
+			}
+			Integer code = this.codesByValue.get(value);
+			if (code == null) {
+				code = this.dictionary.size();
+				this.dictionary.add((String) value);
+				this.codesByValue.put((String) value, code);
+			}
+			this.codes[index] = code;
+		}
+	}
+
+	private static final class ObjectColumn extends Column {
+		private Object[] values = new Object[0];
+
+		ObjectColumn() {
+		}
+
+		/**
+		 * Takes over the values of a typed column, once a value of another type is put into it.
+		 */
+		ObjectColumn(final Column column) {
+			for (int i = column.present.nextSetBit(0); i >= 0; i = column.present.nextSetBit(i + 1)) {
+				set(i, column.get(i));
+				this.present.set(i);
+			}
+		}
+
+		@Override
+		boolean accepts(final Object value) {
+			return true;
+		}
+
+		@Override
+		Object get(final int index) {
+			return this.values[index];
+		}
+
+		@Override
+		void set(final int index, final Object value) {
+			if (index >= this.values.length) {
+				this.values = Arrays.copyOf(this.values, grow(this.values.length, index));
+			}
+			this.values[index] = value;
+		}
+
+		@Override
+		void remove(final int index) {
+			super.remove(index);
+			this.values[index] = null;
+		}
+	}
+
+}
@@ -19,6 +19,7 @@
 
 package org.matsim.utils.objectattributes;
 
+import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -30,7 +31,8 @@ import org.matsim.core.api.internal.MatsimExtensionPoint;
  * A simple helper class to store arbitrary attributes (identified by Strings) for
  * arbitrary objects (identified by String-Ids). Note that this implementation uses
  * large amounts of memory for storing many attributes for many objects, it is not
- * heavily optimized.
+ * heavily optimized. {@link ColumnarObjectAttributes} stores the attributes in
+ * typed columns instead, which needs much less memory for many objects.
  * <p></p>
  * <em>This class is not thread-safe.</em>
  * <p></p>
@@ -43,15 +45,25 @@ import org.matsim.core.api.internal.MatsimExtensionPoint;
  */
 public class ObjectAttributes implements MatsimExtensionPoint {
 
-	/*package*/ Map<String, Map<String, Object>> attributes = new LinkedHashMap<String, Map<String, Object>>(1000);
+	/*package*/ Map<String, Map<String, Object>> attributes;
+
+	public ObjectAttributes() {
+		this(new LinkedHashMap<String, Map<String, Object>>(1000));
+	}
+
+	/**
+	 * For subclasses which store the attributes themselves, they pass <code>null</code>.
+	 */
+	/*package*/ ObjectAttributes(final Map<String, Map<String, Object>> attributes) {
+		this.attributes = attributes;
+	}
 	
 	@Override
 	public String toString() {
 		StringBuilder stb = new StringBuilder() ;
-		for ( Entry<String, Map<String,Object>> entry : attributes.entrySet() ) {
-			String key = entry.getKey() ;
+		for ( String key : getObjectIds() ) {
 			stb.append("key=").append(key);
-			Map<String,Object> map = entry.getValue() ;
+			Map<String,Object> map = getAttributes(key) ;
 			for ( Entry<String,Object> ee : map.entrySet() ) {
 				String subkey = ee.getKey();
 				stb.append("; subkey=").append(subkey);
@@ -98,4 +110,18 @@ public class ObjectAttributes implements MatsimExtensionPoint {
 		this.attributes.clear();
 	}
 
+	/**
+	 * @return the ids of all objects having attributes, in the order they were added
+	 */
+	/*package*/ Collection<String> getObjectIds() {
+		return this.attributes.keySet();
+	}
+
+	/**
+	 * @return the attributes of the object, or <code>null</code> if the object has no attributes
+	 */
+	/*package*/ Map<String, Object> getAttributes(final String objectId) {
+		return this.attributes.get(objectId);
+	}
+
 }
@@ -0,0 +1,128 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ObjectAttributesBinaryReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.utils.objectattributes;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.utils.io.BinaryImageInput;
+import org.matsim.core.utils.io.IOUtils;
+
+import static org.matsim.utils.objectattributes.ObjectAttributesBinaryWriter.*;
+
+/**
+ * Reads object attributes written by {@link ObjectAttributesBinaryWriter}. The attributes are put
+ * column by column, which lets {@link ColumnarObjectAttributes} fill its columns in one go.
+ */
+public final class ObjectAttributesBinaryReader implements MatsimReader {
+
+	private final static Logger log = Logger.getLogger(ObjectAttributesBinaryReader.class);
+
+	private final ObjectAttributes attributes;
+	private final ObjectAttributesConverter converter = new ObjectAttributesConverter();
+
+	public ObjectAttributesBinaryReader(final ObjectAttributes attributes) {
+		this.attributes = attributes;
+	}
+
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		this.converter.putAttributeConverters( converters );
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		log.info("reading binary object attributes from " + filename);
+		parse(IOUtils.getInputStream(filename));
+	}
+
+	public void readURL(final URL url) {
+		log.info("reading binary object attributes from " + url);
+		parse(IOUtils.getInputStream(url));
+	}
+
+	/**
+	 * Reads the attributes from the input stream and closes it.
+	 */
+	public void parse(final InputStream stream) {
+		try (BinaryImageInput in = new BinaryImageInput(stream)) {
+			in.readHeader(MAGIC, VERSION);
+			int objectCount = in.readVarInt();
+			String[] objectIds = new String[objectCount];
+			for (int i = 0; i < objectCount; i++) {
+				objectIds[i] = in.readRawString();
+			}
+			int columnCount = in.readVarInt();
+			for (int c = 0; c < columnCount; c++) {
+				readColumn(in, in.readString(), objectIds);
+			}
+			log.info("read " + columnCount + " attributes of " + objectCount + " objects.");
+		}
+	}
+
+	private void readColumn(final BinaryImageInput in, final String attribute, final String[] objectIds) {
+		int type = in.readVarInt();
+		boolean[] present = in.readBooleans(objectIds.length);
+		int count = 0;
+		for (boolean p : present) {
+			if (p) {
+				count++;
+			}
+		}
+		double[] doubles = type == COLUMN_DOUBLE ? in.readDoubles(count) : null;
+		int[] ints = type == COLUMN_INT ? in.readInts(count) : null;
+		boolean[] booleans = type == COLUMN_BOOLEAN ? in.readBooleans(count) : null;
+		int v = 0;
+		for (int i = 0; i < objectIds.length; i++) {
+			if (!present[i]) {
+				continue;
+			}
+			Object value;
+			switch (type) {
+				case COLUMN_DOUBLE:
+					value = doubles[v];
+					break;
+				case COLUMN_INT:
+					value = ints[v];
+					break;
+				case COLUMN_BOOLEAN:
+					value = booleans[v];
+					break;
+				case COLUMN_STRING:
+					value = in.readString();
+					break;
+				case COLUMN_OBJECT:
+					String className = in.readString();
+					value = this.converter.convert(className, in.readRawString());
+					break;
+				default:
+					throw new RuntimeException("Unknown column type " + type + " of attribute " + attribute + ".");
+			}
+			v++;
+			if (value != null) {
+				this.attributes.putAttribute(objectIds[i], attribute, value);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,188 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ObjectAttributesBinaryWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.utils.objectattributes;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.core.api.internal.MatsimWriter;
+import org.matsim.core.utils.io.BinaryImageOutput;
+import org.matsim.core.utils.io.IOUtils;
+
+/**
+ * Writes object attributes in a binary format, column by column: for each attribute name, the
+ * objects having the attribute and their values are written in bulk, with strings going through
+ * the string table of the image. The file can be read with {@link ObjectAttributesBinaryReader}
+ * much faster than the xml format, e.g. as a sidecar of a person attributes file, see
+ * {@link org.matsim.core.utils.io.BinaryImageCache}.
+ */
+public final class ObjectAttributesBinaryWriter implements MatsimWriter {
+
+	private final static Logger log = Logger.getLogger(ObjectAttributesBinaryWriter.class);
+
+	/** the first four bytes of binary object attributes, "MOAT" */
+	public static final int MAGIC = 0x4d4f4154;
+	public static final int VERSION = 1;
+
+	/*package*/ static final int COLUMN_DOUBLE = 0;
+	/*package*/ static final int COLUMN_INT = 1;
+	/*package*/ static final int COLUMN_BOOLEAN = 2;
+	/*package*/ static final int COLUMN_STRING = 3;
+	/*package*/ static final int COLUMN_OBJECT = 4;
+
+	private final ObjectAttributes attributes;
+	private final ObjectAttributesConverter converter = new ObjectAttributesConverter();
+
+	public ObjectAttributesBinaryWriter(final ObjectAttributes attributes) {
+		this.attributes = attributes;
+	}
+
+	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
+		this.converter.putAttributeConverters( converters );
+	}
+
+	@Override
+	public void write(final String filename) {
+		write(IOUtils.getOutputStream(filename));
+		log.info("Object attributes written to: " + filename);
+	}
+
+	/**
+	 * Writes the attributes to the output stream and closes it.
+	 */
+	public void write(final OutputStream stream) {
+		List<String> objectIds = new ArrayList<>(this.attributes.getObjectIds());
+		// collect the values column-wise, as they are written
+		Map<String, Object[]> columns = new LinkedHashMap<>();
+		for (int i = 0; i < objectIds.size(); i++) {
+			for (Map.Entry<String, Object> e : this.attributes.getAttributes(objectIds.get(i)).entrySet()) {
+				Object[] column = columns.get(e.getKey());
+				if (column == null) {
+					column = new Object[objectIds.size()];
+					columns.put(e.getKey(), column);
+				}
+				column[i] = e.getValue();
+			}
+		}
+		try (BinaryImageOutput out = new BinaryImageOutput(stream)) {
+			out.writeHeader(MAGIC, VERSION);
+			out.writeVarInt(objectIds.size());
+			for (String objectId : objectIds) {
+				out.writeRawString(objectId);
+			}
+			out.writeVarInt(columns.size());
+			for (Map.Entry<String, Object[]> e : columns.entrySet()) {
+				out.writeString(e.getKey());
+				writeColumn(out, e.getValue());
+			}
+		}
+	}
+
+	private void writeColumn(final BinaryImageOutput out, final Object[] values) {
+		int type = getColumnType(values);
+		boolean[] present = new boolean[values.length];
+		List<Object> presentValues = new ArrayList<>();
+		List<String> convertedValues = new ArrayList<>();
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				continue;
+			}
+			if (type == COLUMN_OBJECT) {
+				// values without converter are skipped, like in the xml format
+				String converted = this.converter.convertToString(values[i]);
+				if (converted == null) {
+					continue;
+				}
+				convertedValues.add(converted);
+			}
+			present[i] = true;
+			presentValues.add(values[i]);
+		}
+		int count = presentValues.size();
+		out.writeVarInt(type);
+		out.writeBooleans(present, present.length);
+		switch (type) {
+			case COLUMN_DOUBLE:
+				double[] doubles = new double[count];
+				for (int i = 0; i < count; i++) {
+					doubles[i] = (Double) presentValues.get(i);
+				}
+				out.writeDoubles(doubles, count);
+				break;
+			case COLUMN_INT:
+				int[] ints = new int[count];
+				for (int i = 0; i < count; i++) {
+					ints[i] = (Integer) presentValues.get(i);
+				}
+				out.writeInts(ints, count);
+				break;
+			case COLUMN_BOOLEAN:
+				boolean[] booleans = new boolean[count];
+				for (int i = 0; i < count; i++) {
+					booleans[i] = (Boolean) presentValues.get(i);
+				}
+				out.writeBooleans(booleans, count);
+				break;
+			case COLUMN_STRING:
+				for (Object value : presentValues) {
+					out.writeString((String) value);
+				}
+				break;
+			default:
+				for (int i = 0; i < count; i++) {
+					out.writeString(presentValues.get(i).getClass().getCanonicalName());
+					out.writeRawString(convertedValues.get(i));
+				}
+		}
+	}
+
+	private static int getColumnType(final Object[] values) {
+		Class<?> clazz = null;
+		for (Object value : values) {
+			if (value == null) {
+				continue;
+			}
+			if (clazz == null) {
+				clazz = value.getClass();
+			} else if (clazz != value.getClass()) {
+				return COLUMN_OBJECT;
+			}
+		}
+		if (clazz == Double.class) {
+			return COLUMN_DOUBLE;
+		}
+		if (clazz == Integer.class) {
+			return COLUMN_INT;
+		}
+		if (clazz == Boolean.class) {
+			return COLUMN_BOOLEAN;
+		}
+		if (clazz == String.class) {
+			return COLUMN_STRING;
+		}
+		return COLUMN_OBJECT;
+	}
+
+}
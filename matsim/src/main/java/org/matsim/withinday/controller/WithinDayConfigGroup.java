@@ -48,11 +48,48 @@ public final class WithinDayConfigGroup extends ReflectiveConfigGroup {
 		this.predictionMethod = predictionMethod;
 	}
 
+	// ---
+
+	private static final String USE_INCREMENTAL_AGENT_INDEX = "useIncrementalAgentIndex" ;
+
+	private boolean useIncrementalAgentIndex = false ;
+
+	@StringGetter( USE_INCREMENTAL_AGENT_INDEX )
+	public boolean isUseIncrementalAgentIndex() {
+		return this.useIncrementalAgentIndex;
+	}
+	@StringSetter( USE_INCREMENTAL_AGENT_INDEX )
+	public void setUseIncrementalAgentIndex(boolean useIncrementalAgentIndex) {
+		testForLocked() ;
+		this.useIncrementalAgentIndex = useIncrementalAgentIndex;
+	}
+
+	// ---
+
+	private static final String USE_SHARED_EXECUTOR = "useSharedExecutor" ;
+
+	private boolean useSharedExecutor = false ;
+
+	@StringGetter( USE_SHARED_EXECUTOR )
+	public boolean isUseSharedExecutor() {
+		return this.useSharedExecutor;
+	}
+	@StringSetter( USE_SHARED_EXECUTOR )
+	public void setUseSharedExecutor(boolean useSharedExecutor) {
+		testForLocked() ;
+		this.useSharedExecutor = useSharedExecutor;
+	}
+
 	// ---
 	// ---
 	
 	@Override public Map<String, String> getComments() {
 		Map<String, String> comments = super.getComments();
+		comments.put(USE_INCREMENTAL_AGENT_INDEX, "if true, an IncrementalAgentIndex is bound and kept up to date during the mobsim, "
+				+ "so that the Incremental* identifiers can be used. Off by default since maintaining the index costs time in every event.") ;
+		comments.put(USE_SHARED_EXECUTOR, "if true, the within-day replanners run on the thread pool shared with the rest of the controler "
+				+ "instead of on dedicated threads which are synchronized by barriers in every time step.  The agents to replan are "
+				+ "taken from a common queue, so that threads which got expensive agents do not hold up the others.") ;
 		return comments ;
 	}
 }
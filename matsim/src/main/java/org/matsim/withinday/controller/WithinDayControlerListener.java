@@ -23,6 +23,7 @@ package org.matsim.withinday.controller;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.controler.events.StartupEvent;
 import org.matsim.core.controler.listener.StartupListener;
 import org.matsim.core.mobsim.framework.listeners.FixedOrderSimulationListener;
@@ -34,10 +35,13 @@ import org.matsim.pt.router.TransitRouter;
 import org.matsim.withinday.mobsim.MobsimDataProvider;
 import org.matsim.withinday.mobsim.WithinDayEngine;
 import org.matsim.withinday.replanning.identifiers.tools.ActivityReplanningMap;
+import org.matsim.withinday.replanning.identifiers.tools.IncrementalAgentIndex;
 import org.matsim.withinday.replanning.identifiers.tools.LinkReplanningMap;
 import org.matsim.withinday.trafficmonitoring.EarliestLinkExitTimeProvider;
 import org.matsim.withinday.trafficmonitoring.WithinDayTravelTime;
 
+import com.google.inject.Injector;
+
 import javax.inject.Inject;
 import javax.inject.Provider;
 import java.util.Collections;
@@ -62,6 +66,8 @@ public class WithinDayControlerListener implements StartupListener {
 	@Inject private WithinDayTravelTime WithinDayTravelTime;
 	@Inject private ActivityReplanningMap activityReplanningMap;
 	@Inject private LinkReplanningMap linkReplanningMap;
+	// IncrementalAgentIndex is only bound if enabled in the WithinDayConfigGroup, so it is looked up when needed
+	@Inject private Injector injector;
 	@Inject private MobsimDataProvider mobsimDataProvider;
 	@Inject private EarliestLinkExitTimeProvider earliestLinkExitTimeProvider;
 
@@ -136,6 +142,7 @@ public class WithinDayControlerListener implements StartupListener {
 		this.createAndInitMobsimDataProvider();
 		this.createAndInitActivityReplanningMap();
 		this.createAndInitLinkReplanningMap();
+		this.createAndInitIncrementalAgentIndex();
 	}
 
 	/*
@@ -163,5 +170,13 @@ public class WithinDayControlerListener implements StartupListener {
 	private void createAndInitLinkReplanningMap() {
 		this.fosl.addSimulationListener(linkReplanningMap);
 	}
+	
+	private void createAndInitIncrementalAgentIndex() {
+		WithinDayConfigGroup withinDayConfigGroup = ConfigUtils.addOrGetModule(this.scenario.getConfig(),
+				WithinDayConfigGroup.GROUP_NAME, WithinDayConfigGroup.class);
+		if (withinDayConfigGroup.isUseIncrementalAgentIndex()) {
+			this.fosl.addSimulationListener(this.injector.getInstance(IncrementalAgentIndex.class));
+		}
+	}
 
 }
\ No newline at end of file
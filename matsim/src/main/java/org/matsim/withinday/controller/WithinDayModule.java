@@ -24,6 +24,7 @@ package org.matsim.withinday.controller;
 
 import com.google.inject.Provides;
 import org.matsim.api.core.v01.TransportMode;
+import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.controler.AbstractModule;
 import org.matsim.core.mobsim.framework.Mobsim;
 import org.matsim.core.mobsim.framework.listeners.FixedOrderSimulationListener;
@@ -33,6 +34,7 @@ import org.matsim.withinday.mobsim.MobsimDataProvider;
 import org.matsim.withinday.mobsim.WithinDayEngine;
 import org.matsim.withinday.mobsim.WithinDayQSimFactory;
 import org.matsim.withinday.replanning.identifiers.tools.ActivityReplanningMap;
+import org.matsim.withinday.replanning.identifiers.tools.IncrementalAgentIndex;
 import org.matsim.withinday.replanning.identifiers.tools.LinkReplanningMap;
 import org.matsim.withinday.trafficmonitoring.EarliestLinkExitTimeProvider;
 import org.matsim.withinday.trafficmonitoring.WithinDayTravelTimeModule;
@@ -53,6 +55,10 @@ public class WithinDayModule extends AbstractModule {
         bind(MobsimDataProvider.class).asEagerSingleton();
         bind(ActivityReplanningMap.class).asEagerSingleton();
         bind(LinkReplanningMap.class).asEagerSingleton();
+        WithinDayConfigGroup withinDayConfigGroup = ConfigUtils.addOrGetModule(getConfig(), WithinDayConfigGroup.GROUP_NAME, WithinDayConfigGroup.class);
+        if (withinDayConfigGroup.isUseIncrementalAgentIndex()) {
+            bind(IncrementalAgentIndex.class).asEagerSingleton();
+        }
         bind(EarliestLinkExitTimeProvider.class).asEagerSingleton();
     }
 
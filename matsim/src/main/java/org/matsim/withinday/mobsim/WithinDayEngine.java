@@ -22,13 +22,17 @@ package org.matsim.withinday.mobsim;
 
 import org.apache.log4j.Logger;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.controler.SharedExecutor;
 import org.matsim.core.mobsim.qsim.ActivityEndRescheduler;
 import org.matsim.core.mobsim.qsim.ActivityEndReschedulerProvider;
 import org.matsim.core.mobsim.qsim.InternalInterface;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.utils.collections.Tuple;
 import org.matsim.core.utils.misc.Time;
+import org.matsim.withinday.controller.WithinDayConfigGroup;
 import org.matsim.withinday.replanning.parallel.ParallelDuringActivityReplanner;
 import org.matsim.withinday.replanning.parallel.ParallelDuringLegReplanner;
 import org.matsim.withinday.replanning.parallel.ParallelInitialReplanner;
@@ -41,6 +45,7 @@ import javax.inject.Singleton;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
 
 /**
  * This Class implements the MobsimEngine interface. If added to a
@@ -59,6 +64,9 @@ public class WithinDayEngine implements MobsimEngine, ActivityEndReschedulerProv
 
 	private final EventsManager eventsManager;
 	
+	// null if the replanners use dedicated threads
+	private final SharedExecutor sharedExecutor;
+	
 	private boolean initialReplanning = true;
 	private boolean duringActivityReplanning = true;
 	private boolean duringLegReplanning = true;
@@ -79,16 +87,29 @@ public class WithinDayEngine implements MobsimEngine, ActivityEndReschedulerProv
 	private InternalInterface internalInterface;
 
 	@Inject
+	public WithinDayEngine(EventsManager eventsManager, Config config, SharedExecutor sharedExecutor) {
+		this(eventsManager, config.global().getNumberOfThreads(),
+				ConfigUtils.addOrGetModule(config, WithinDayConfigGroup.GROUP_NAME, WithinDayConfigGroup.class).isUseSharedExecutor() ? sharedExecutor : null);
+	}
+
+	/**
+	 * Creates an engine whose replanners use dedicated threads, the default of {@link WithinDayConfigGroup#isUseSharedExecutor()}.
+	 */
 	public WithinDayEngine(EventsManager eventsManager, GlobalConfigGroup globalConfigGroup) {
+		this(eventsManager, globalConfigGroup.getNumberOfThreads(), null);
+	}
+
+	private WithinDayEngine(EventsManager eventsManager, int numberOfThreads, SharedExecutor sharedExecutor) {
 		this.eventsManager = eventsManager;
+		this.sharedExecutor = sharedExecutor;
 		
 		this.duringActivityReplannerFactory = new LinkedHashMap<>();
 		this.duringLegReplannerFactory = new LinkedHashMap<>();
 
 		log.info("Initialize Parallel Replanning Modules");
-		this.parallelInitialReplanner = new ParallelInitialReplanner(globalConfigGroup.getNumberOfThreads(), eventsManager);
-		this.parallelDuringActivityReplanner = new ParallelDuringActivityReplanner(globalConfigGroup.getNumberOfThreads(), eventsManager);
-		this.parallelDuringLegReplanner = new ParallelDuringLegReplanner(globalConfigGroup.getNumberOfThreads(), eventsManager);
+		this.parallelInitialReplanner = new ParallelInitialReplanner(numberOfThreads, eventsManager);
+		this.parallelDuringActivityReplanner = new ParallelDuringActivityReplanner(numberOfThreads, eventsManager);
+		this.parallelDuringLegReplanner = new ParallelDuringLegReplanner(numberOfThreads, eventsManager);
 
 		log.info("Initialize Replanning Modules");
 		this.initialReplanningModule = new InitialReplanningModule(parallelInitialReplanner);
@@ -187,6 +208,17 @@ public class WithinDayEngine implements MobsimEngine, ActivityEndReschedulerProv
 
 	@Override
 	public void onPrepareSim() {
+		/*
+		 * The shared executor is taken from the Controler in every iteration, since it is shut down
+		 * together with the Controler and re-created on demand.
+		 */
+		if (this.sharedExecutor != null) {
+			ExecutorService executor = this.sharedExecutor.getExecutorService();
+			this.parallelInitialReplanner.setExecutor(executor);
+			this.parallelDuringActivityReplanner.setExecutor(executor);
+			this.parallelDuringLegReplanner.setExecutor(executor);
+		}
+		
 		this.parallelInitialReplanner.onPrepareSim();
 		this.parallelDuringActivityReplanner.onPrepareSim();
 		this.parallelDuringLegReplanner.onPrepareSim();
@@ -0,0 +1,61 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IncrementalActivityEndIdentifier.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.replanning.identifiers;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.withinday.replanning.identifiers.interfaces.DuringActivityAgentSelector;
+import org.matsim.withinday.replanning.identifiers.tools.IncrementalAgentIndex;
+
+/**
+ * Like the {@link ActivityEndIdentifier}, but takes the agents from an {@link IncrementalAgentIndex}.
+ * If links are given, only agents ending their activity on one of them are identified.
+ */
+public class IncrementalActivityEndIdentifier extends DuringActivityAgentSelector {
+
+	private final IncrementalAgentIndex agentIndex;
+	private final Set<Id<Link>> linkIds;
+
+	// use the Factory!
+	/*package*/ IncrementalActivityEndIdentifier(IncrementalAgentIndex agentIndex, Set<Id<Link>> linkIds) {
+		this.agentIndex = agentIndex;
+		this.linkIds = linkIds;
+	}
+
+	@Override
+	public Set<MobsimAgent> getAgentsToReplan(double time) {
+		Collection<MobsimAgent> candidates;
+		if (this.linkIds == null) candidates = this.agentIndex.getActivityEndingAgents(time);
+		else candidates = this.agentIndex.getActivityEndingAgents(time, this.linkIds);
+
+		Set<MobsimAgent> agentsToReplan = new TreeSet<MobsimAgent>(new ById());
+		for (MobsimAgent mobsimAgent : candidates) {
+			if (this.applyFilters(mobsimAgent.getId(), time)) agentsToReplan.add(mobsimAgent);
+		}
+		return agentsToReplan;
+	}
+
+}
@@ -0,0 +1,57 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IncrementalActivityEndIdentifierFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.replanning.identifiers;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.withinday.replanning.identifiers.interfaces.DuringActivityAgentSelector;
+import org.matsim.withinday.replanning.identifiers.interfaces.DuringActivityIdentifierFactory;
+import org.matsim.withinday.replanning.identifiers.tools.IncrementalAgentIndex;
+
+public class IncrementalActivityEndIdentifierFactory extends DuringActivityIdentifierFactory {
+
+	private final IncrementalAgentIndex agentIndex;
+	private final Set<Id<Link>> linkIds;
+
+	public IncrementalActivityEndIdentifierFactory(IncrementalAgentIndex agentIndex) {
+		this(agentIndex, null);
+	}
+
+	/**
+	 * @param linkIds the links on which the agents have to end their activities, or <code>null</code> for all links
+	 */
+	public IncrementalActivityEndIdentifierFactory(IncrementalAgentIndex agentIndex, Set<Id<Link>> linkIds) {
+		this.agentIndex = agentIndex;
+		this.linkIds = linkIds == null ? null : new HashSet<>(linkIds);
+	}
+
+	@Override
+	public DuringActivityAgentSelector createIdentifier() {
+		DuringActivityAgentSelector identifier = new IncrementalActivityEndIdentifier(this.agentIndex, this.linkIds);
+		identifier.setAgentSelectorFactory(this);
+		this.addAgentFiltersToIdentifier(identifier);
+		return identifier;
+	}
+
+}
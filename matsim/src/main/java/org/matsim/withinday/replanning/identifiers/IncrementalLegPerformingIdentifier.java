@@ -0,0 +1,64 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IncrementalLegPerformingIdentifier.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.replanning.identifiers;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.withinday.replanning.identifiers.interfaces.DuringLegAgentSelector;
+import org.matsim.withinday.replanning.identifiers.tools.IncrementalAgentIndex;
+
+/**
+ * Like the {@link LegPerformingIdentifier}, but takes the agents from an {@link IncrementalAgentIndex}.
+ * The agents can be restricted to those using one of the given modes and to those located on one of
+ * the given links, without having to filter all leg performing agents.
+ */
+public class IncrementalLegPerformingIdentifier extends DuringLegAgentSelector {
+
+	private final IncrementalAgentIndex agentIndex;
+	private final Set<String> modes;
+	private final Set<Id<Link>> linkIds;
+
+	// use the Factory!
+	/*package*/ IncrementalLegPerformingIdentifier(IncrementalAgentIndex agentIndex, Set<String> modes, Set<Id<Link>> linkIds) {
+		this.agentIndex = agentIndex;
+		this.modes = modes;
+		this.linkIds = linkIds;
+	}
+
+	@Override
+	public Set<MobsimAgent> getAgentsToReplan(double time) {
+		Collection<MobsimAgent> candidates;
+		if (this.linkIds == null) candidates = this.agentIndex.getLegPerformingAgents(this.modes);
+		else candidates = this.agentIndex.getLegPerformingAgents(this.modes, this.linkIds);
+
+		Set<MobsimAgent> agentsToReplan = new TreeSet<MobsimAgent>(new ById());
+		for (MobsimAgent mobsimAgent : candidates) {
+			if (this.applyFilters(mobsimAgent.getId(), time)) agentsToReplan.add(mobsimAgent);
+		}
+		return agentsToReplan;
+	}
+
+}
@@ -0,0 +1,56 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IncrementalLegPerformingIdentifierFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.replanning.identifiers;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.withinday.replanning.identifiers.interfaces.DuringLegAgentSelector;
+import org.matsim.withinday.replanning.identifiers.interfaces.DuringLegIdentifierFactory;
+import org.matsim.withinday.replanning.identifiers.tools.IncrementalAgentIndex;
+
+public class IncrementalLegPerformingIdentifierFactory extends DuringLegIdentifierFactory {
+
+	private final IncrementalAgentIndex agentIndex;
+	private final Set<String> modes;
+	private final Set<Id<Link>> linkIds;
+
+	/**
+	 * @param modes the modes of the legs the agents have to perform, or <code>null</code> for all modes
+	 * @param linkIds the links on which the agents have to be located, or <code>null</code> for all links
+	 */
+	public IncrementalLegPerformingIdentifierFactory(IncrementalAgentIndex agentIndex, Set<String> modes, Set<Id<Link>> linkIds) {
+		this.agentIndex = agentIndex;
+		this.modes = modes == null ? null : new HashSet<>(modes);
+		this.linkIds = linkIds == null ? null : new HashSet<>(linkIds);
+	}
+
+	@Override
+	public DuringLegAgentSelector createIdentifier() {
+		DuringLegAgentSelector identifier = new IncrementalLegPerformingIdentifier(this.agentIndex, this.modes, this.linkIds);
+		identifier.setAgentSelectorFactory(this);
+		this.addAgentFiltersToIdentifier(identifier);
+		return identifier;
+	}
+
+}
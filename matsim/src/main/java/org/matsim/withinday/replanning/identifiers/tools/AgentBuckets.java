@@ -0,0 +1,126 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentBuckets.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.replanning.identifiers.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Partitions agents, given by their index, into buckets, given by their index. Every agent is in at most one
+ * bucket. Adding, moving and removing an agent as well as looking up its bucket take constant time; iterating
+ * over a bucket takes time proportional to its size.
+ */
+/*package*/ final class AgentBuckets {
+
+	/*package*/ static final int NO_BUCKET = -1;
+
+	private final int[] bucketOfAgent;
+	private final int[] positionOfAgent;
+	private final List<TIntArrayList> buckets = new ArrayList<>();
+
+	/*package*/ AgentBuckets(int numberOfAgents) {
+		this.bucketOfAgent = new int[numberOfAgents];
+		this.positionOfAgent = new int[numberOfAgents];
+		Arrays.fill(this.bucketOfAgent, NO_BUCKET);
+	}
+
+	/**
+	 * Puts the agent into the given bucket, removing it from the bucket it was in before.
+	 */
+	/*package*/ void put(int agent, int bucket) {
+		if (bucket < 0) {
+			throw new IllegalArgumentException("bucket index must not be negative, but is " + bucket);
+		}
+		if (this.bucketOfAgent[agent] == bucket) {
+			return;
+		}
+		remove(agent);
+		while (this.buckets.size() <= bucket) {
+			this.buckets.add(null);
+		}
+		TIntArrayList members = this.buckets.get(bucket);
+		if (members == null) {
+			members = new TIntArrayList();
+			this.buckets.set(bucket, members);
+		}
+		this.bucketOfAgent[agent] = bucket;
+		this.positionOfAgent[agent] = members.size();
+		members.add(agent);
+	}
+
+	/**
+	 * Removes the agent from its bucket. Returns the bucket the agent was in, or {@link #NO_BUCKET}.
+	 */
+	/*package*/ int remove(int agent) {
+		int bucket = this.bucketOfAgent[agent];
+		if (bucket == NO_BUCKET) {
+			return NO_BUCKET;
+		}
+		// move the last member of the bucket to the position of the removed agent
+		TIntArrayList members = this.buckets.get(bucket);
+		int position = this.positionOfAgent[agent];
+		int lastPosition = members.size() - 1;
+		int last = members.get(lastPosition);
+		members.set(position, last);
+		this.positionOfAgent[last] = position;
+		members.removeAt(lastPosition);
+		this.bucketOfAgent[agent] = NO_BUCKET;
+		return bucket;
+	}
+
+	/*package*/ int getBucket(int agent) {
+		return this.bucketOfAgent[agent];
+	}
+
+	/*package*/ int getBucketSize(int bucket) {
+		if (bucket < 0 || bucket >= this.buckets.size()) {
+			return 0;
+		}
+		TIntArrayList members = this.buckets.get(bucket);
+		return members == null ? 0 : members.size();
+	}
+
+	/**
+	 * Returns the agent at the given position of the bucket. The order of the agents within a bucket changes
+	 * whenever an agent is removed from it.
+	 */
+	/*package*/ int getAgent(int bucket, int position) {
+		return this.buckets.get(bucket).get(position);
+	}
+
+	/*package*/ void clearBucket(int bucket) {
+		if (bucket < 0 || bucket >= this.buckets.size()) {
+			return;
+		}
+		TIntArrayList members = this.buckets.get(bucket);
+		if (members == null) {
+			return;
+		}
+		for (int i = 0; i < members.size(); i++) {
+			this.bucketOfAgent[members.get(i)] = NO_BUCKET;
+		}
+		this.buckets.set(bucket, null);
+	}
+
+}
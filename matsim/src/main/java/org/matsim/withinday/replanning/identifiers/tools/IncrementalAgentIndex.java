@@ -0,0 +1,400 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IncrementalAgentIndex.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.replanning.identifiers.tools;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.events.handler.ActivityEndEventHandler;
+import org.matsim.api.core.v01.events.handler.ActivityStartEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonArrivalEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonStuckEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleLeavesTrafficEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.algorithms.Vehicle2DriverEventHandler;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.framework.MobsimTimer;
+import org.matsim.core.mobsim.framework.events.MobsimAfterSimStepEvent;
+import org.matsim.core.mobsim.framework.events.MobsimInitializedEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimAfterSimStepListener;
+import org.matsim.core.mobsim.framework.listeners.MobsimInitializedListener;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.withinday.events.ReplanningEvent;
+import org.matsim.withinday.events.handler.ReplanningEventHandler;
+import org.matsim.withinday.mobsim.MobsimDataProvider;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Files the agents into buckets while the events arrive, instead of collecting candidates by scanning
+ * agents when an identifier asks for them. Three partitions are kept:
+ * <ul>
+ * 	<li>by link: the link an agent is located on, i.e. the link of its activity, its departure link or the
+ * 		last link entered by its vehicle.</li>
+ * 	<li>by mode: the mode of the leg an agent is performing.</li>
+ * 	<li>by activity end: the time step in which an agent performing an activity is going to end it.</li>
+ * </ul>
+ * A query iterates over the smallest of the involved sets of buckets and checks the other restriction per
+ * agent in constant time, so that its costs are proportional to the size of its result rather than to the
+ * number of agents.
+ * <p></p>
+ * Has to be registered as an EventHandler (done in the constructor) and as a SimulationListener. The
+ * WithinDayModule only binds it if <code>useIncrementalAgentIndex</code> is set in the withinDay config group.
+ */
+public class IncrementalAgentIndex implements ActivityStartEventHandler, ActivityEndEventHandler,
+		PersonDepartureEventHandler, PersonArrivalEventHandler, PersonStuckEventHandler, LinkEnterEventHandler,
+		VehicleEntersTrafficEventHandler, VehicleLeavesTrafficEventHandler, ReplanningEventHandler,
+		MobsimInitializedListener, MobsimAfterSimStepListener {
+
+	private static final Logger log = Logger.getLogger(IncrementalAgentIndex.class);
+
+	private final MobsimDataProvider mobsimDataProvider;
+	private final Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
+
+	private final Map<Id<Person>, Integer> agentIndices = new HashMap<>();
+	private final Map<Id<Link>, Integer> linkIndices = new HashMap<>();
+	private final Map<String, Integer> modeIndices = new HashMap<>();
+	private MobsimAgent[] agents = new MobsimAgent[0];
+
+	private AgentBuckets agentsByLink = new AgentBuckets(0);
+	private AgentBuckets agentsByMode = new AgentBuckets(0);
+	private AgentBuckets agentsByActivityEnd = new AgentBuckets(0);
+
+	// agents which have started an activity in the current time step; their activity end time is known after the step
+	private boolean[] startingActivity = new boolean[0];
+	private boolean[] performingActivity = new boolean[0];
+	private final TIntArrayList startingAgents = new TIntArrayList();
+
+	// package protected to be accessible for test case
+	/*package*/ double simStartTime = Time.UNDEFINED_TIME;
+	/*package*/ double timeStepSize = Time.UNDEFINED_TIME;
+
+	@Inject
+	public IncrementalAgentIndex(MobsimDataProvider mobsimDataProvider, EventsManager eventsManager) {
+		eventsManager.addHandler(this);
+		log.info("Note that the IncrementalAgentIndex has to be registered as an EventHandler and a SimulationListener!");
+		this.mobsimDataProvider = mobsimDataProvider;
+	}
+
+	/*
+	 * When the simulation starts the agents are all performing an activity.
+	 */
+	@Override
+	public synchronized void notifyMobsimInitialized(MobsimInitializedEvent e) {
+		MobsimTimer mobsimTimer = ((QSim) e.getQueueSimulation()).getSimTimer();
+		this.simStartTime = mobsimTimer.getSimStartTime();
+		this.timeStepSize = mobsimTimer.getSimTimestepSize();
+
+		Collection<MobsimAgent> mobsimAgents = this.mobsimDataProvider.getAgents().values();
+		int numberOfAgents = mobsimAgents.size();
+		this.agentIndices.clear();
+		this.agents = new MobsimAgent[numberOfAgents];
+		this.agentsByLink = new AgentBuckets(numberOfAgents);
+		this.agentsByMode = new AgentBuckets(numberOfAgents);
+		this.agentsByActivityEnd = new AgentBuckets(numberOfAgents);
+		this.startingActivity = new boolean[numberOfAgents];
+		this.performingActivity = new boolean[numberOfAgents];
+		this.startingAgents.resetQuick();
+
+		int index = 0;
+		for (MobsimAgent mobsimAgent : mobsimAgents) {
+			this.agentIndices.put(mobsimAgent.getId(), index);
+			this.agents[index] = mobsimAgent;
+			if (mobsimAgent.getCurrentLinkId() != null) {
+				this.agentsByLink.put(index, getLinkIndex(mobsimAgent.getCurrentLinkId()));
+			}
+			this.performingActivity[index] = true;
+			fileActivityEnd(index, mobsimAgent.getActivityEndTime());
+			index++;
+		}
+	}
+
+	/*
+	 * The Activity Start Events are thrown before the Activity Start has been handled
+	 * by the Simulation. As a result the Departure Time is not set at that time.
+	 * We have to wait until the SimStep has been fully simulated and retrieve
+	 * the activity departure times then.
+	 */
+	@Override
+	public synchronized void notifyMobsimAfterSimStep(MobsimAfterSimStepEvent e) {
+		double now = e.getSimulationTime();
+		for (int k = 0; k < this.startingAgents.size(); k++) {
+			int agent = this.startingAgents.get(k);
+			if (!this.startingActivity[agent]) {
+				continue;
+			}
+			this.startingActivity[agent] = false;
+			double activityEndTime = this.agents[agent].getActivityEndTime();
+			if (activityEndTime >= now) {
+				fileActivityEnd(agent, activityEndTime);
+			}
+		}
+		this.startingAgents.resetQuick();
+
+		// the agents of the current time step have been handled
+		this.agentsByActivityEnd.clearBucket(getTimeBin(now));
+	}
+
+	/*
+	 * Same binning as in the ActivityReplanningMap: each bin contains the activity ends of
+	 * one time step of the mobility simulation.
+	 */
+	/*package*/ int getTimeBin(double time) {
+		double timeAfterSimStart = time - this.simStartTime;
+		if (timeAfterSimStart <= 0.0) return 0;
+
+		int bin = (int) (timeAfterSimStart / this.timeStepSize);
+		if (timeAfterSimStart % this.timeStepSize != 0.0) bin++;
+		return bin;
+	}
+
+	private void fileActivityEnd(int agent, double activityEndTime) {
+		// the last activity of a plan does not end
+		if (Time.isUndefinedTime(activityEndTime) || activityEndTime == Double.POSITIVE_INFINITY) {
+			this.agentsByActivityEnd.remove(agent);
+		} else {
+			this.agentsByActivityEnd.put(agent, getTimeBin(activityEndTime));
+		}
+	}
+
+	private int getLinkIndex(Id<Link> linkId) {
+		Integer index = this.linkIndices.get(linkId);
+		if (index == null) {
+			index = this.linkIndices.size();
+			this.linkIndices.put(linkId, index);
+		}
+		return index;
+	}
+
+	private int getModeIndex(String mode) {
+		Integer index = this.modeIndices.get(mode);
+		if (index == null) {
+			index = this.modeIndices.size();
+			this.modeIndices.put(mode, index);
+		}
+		return index;
+	}
+
+	private int getAgentIndex(Id<Person> personId) {
+		if (personId == null) return -1;
+		Integer index = this.agentIndices.get(personId);
+		return index == null ? -1 : index;
+	}
+
+	@Override
+	public synchronized void handleEvent(ActivityStartEvent event) {
+		int agent = getAgentIndex(event.getPersonId());
+		if (agent < 0) return;
+		this.agentsByLink.put(agent, getLinkIndex(event.getLinkId()));
+		this.performingActivity[agent] = true;
+		this.startingActivity[agent] = true;
+		this.startingAgents.add(agent);
+	}
+
+	@Override
+	public synchronized void handleEvent(ActivityEndEvent event) {
+		int agent = getAgentIndex(event.getPersonId());
+		if (agent < 0) return;
+		this.performingActivity[agent] = false;
+		this.startingActivity[agent] = false;
+		this.agentsByActivityEnd.remove(agent);
+	}
+
+	@Override
+	public synchronized void handleEvent(PersonDepartureEvent event) {
+		int agent = getAgentIndex(event.getPersonId());
+		if (agent < 0) return;
+		this.agentsByLink.put(agent, getLinkIndex(event.getLinkId()));
+		this.agentsByMode.put(agent, getModeIndex(event.getLegMode()));
+	}
+
+	@Override
+	public synchronized void handleEvent(PersonArrivalEvent event) {
+		int agent = getAgentIndex(event.getPersonId());
+		if (agent < 0) return;
+		this.agentsByLink.put(agent, getLinkIndex(event.getLinkId()));
+		this.agentsByMode.remove(agent);
+	}
+
+	@Override
+	public synchronized void handleEvent(LinkEnterEvent event) {
+		int agent = getAgentIndex(this.vehicles2Drivers.getDriverOfVehicle(event.getVehicleId()));
+		if (agent < 0) return;
+		this.agentsByLink.put(agent, getLinkIndex(event.getLinkId()));
+	}
+
+	@Override
+	public synchronized void handleEvent(PersonStuckEvent event) {
+		int agent = getAgentIndex(event.getPersonId());
+		if (agent < 0) return;
+		this.agentsByLink.remove(agent);
+		this.agentsByMode.remove(agent);
+		this.agentsByActivityEnd.remove(agent);
+		this.performingActivity[agent] = false;
+		this.startingActivity[agent] = false;
+	}
+
+	@Override
+	public synchronized void handleEvent(VehicleEntersTrafficEvent event) {
+		this.vehicles2Drivers.handleEvent(event);
+	}
+
+	@Override
+	public synchronized void handleEvent(VehicleLeavesTrafficEvent event) {
+		this.vehicles2Drivers.handleEvent(event);
+	}
+
+	/*
+	 * The agent might have changed its activity end time.
+	 */
+	@Override
+	public synchronized void handleEvent(ReplanningEvent event) {
+		int agent = getAgentIndex(event.getPersonId());
+		if (agent < 0 || !this.performingActivity[agent] || this.startingActivity[agent]) return;
+		fileActivityEnd(agent, this.agents[agent].getActivityEndTime());
+	}
+
+	@Override
+	public synchronized void reset(int iteration) {
+		this.vehicles2Drivers.reset(iteration);
+		this.startingAgents.resetQuick();
+	}
+
+	/**
+	 * Returns the agents which are going to end their activity in the time step the given time belongs to.
+	 */
+	public synchronized List<MobsimAgent> getActivityEndingAgents(double time) {
+		return select(this.agentsByActivityEnd, new int[] { getTimeBin(time) }, null, null);
+	}
+
+	/**
+	 * Returns the agents which are going to end their activity on one of the given links in the time step the
+	 * given time belongs to.
+	 */
+	public synchronized List<MobsimAgent> getActivityEndingAgents(double time, Set<Id<Link>> linkIds) {
+		return select(this.agentsByActivityEnd, new int[] { getTimeBin(time) }, this.agentsByLink, getLinkBuckets(linkIds));
+	}
+
+	/**
+	 * Returns the agents which are performing a leg with one of the given modes, or with any mode if
+	 * <code>modes</code> is <code>null</code>.
+	 */
+	public synchronized List<MobsimAgent> getLegPerformingAgents(Set<String> modes) {
+		return select(this.agentsByMode, getModeBuckets(modes), null, null);
+	}
+
+	/**
+	 * Returns the agents which are performing a leg with one of the given modes, or with any mode if
+	 * <code>modes</code> is <code>null</code>, and are located on one of the given links.
+	 */
+	public synchronized List<MobsimAgent> getLegPerformingAgents(Set<String> modes, Set<Id<Link>> linkIds) {
+		return select(this.agentsByMode, getModeBuckets(modes), this.agentsByLink, getLinkBuckets(linkIds));
+	}
+
+	/**
+	 * Returns the agents which are located on one of the given links, no matter whether they are performing
+	 * an activity or a leg.
+	 */
+	public synchronized List<MobsimAgent> getAgentsOnLinks(Set<Id<Link>> linkIds) {
+		return select(this.agentsByLink, getLinkBuckets(linkIds), null, null);
+	}
+
+	private int[] getLinkBuckets(Set<Id<Link>> linkIds) {
+		TIntArrayList buckets = new TIntArrayList(linkIds.size());
+		for (Id<Link> linkId : linkIds) {
+			Integer index = this.linkIndices.get(linkId);
+			if (index != null) buckets.add(index);
+		}
+		return buckets.toArray();
+	}
+
+	private int[] getModeBuckets(Set<String> modes) {
+		if (modes == null) {
+			int[] buckets = new int[this.modeIndices.size()];
+			for (int i = 0; i < buckets.length; i++) buckets[i] = i;
+			return buckets;
+		}
+		TIntArrayList buckets = new TIntArrayList(modes.size());
+		for (String mode : modes) {
+			Integer index = this.modeIndices.get(mode);
+			if (index != null) buckets.add(index);
+		}
+		return buckets.toArray();
+	}
+
+	/*
+	 * Collects the agents which are in one of the primary buckets and, if secondary buckets are given, also in
+	 * one of those. Iterates over the smaller of both.
+	 */
+	private List<MobsimAgent> select(AgentBuckets primary, int[] primaryBuckets, AgentBuckets secondary, int[] secondaryBuckets) {
+		if (secondary != null && countAgents(secondary, secondaryBuckets) < countAgents(primary, primaryBuckets)) {
+			return select(secondary, secondaryBuckets, primary, primaryBuckets);
+		}
+		BitSet accepted = null;
+		if (secondary != null) {
+			accepted = new BitSet();
+			for (int bucket : secondaryBuckets) accepted.set(bucket);
+		}
+		List<MobsimAgent> selected = new ArrayList<>();
+		for (int bucket : primaryBuckets) {
+			int size = primary.getBucketSize(bucket);
+			for (int i = 0; i < size; i++) {
+				int agent = primary.getAgent(bucket, i);
+				if (accepted != null) {
+					int secondaryBucket = secondary.getBucket(agent);
+					if (secondaryBucket == AgentBuckets.NO_BUCKET || !accepted.get(secondaryBucket)) continue;
+				}
+				selected.add(this.agents[agent]);
+			}
+		}
+		return selected;
+	}
+
+	private static int countAgents(AgentBuckets buckets, int[] bucketIndices) {
+		int count = 0;
+		for (int bucket : bucketIndices) count += buckets.getBucketSize(bucket);
+		return count;
+	}
+
+}
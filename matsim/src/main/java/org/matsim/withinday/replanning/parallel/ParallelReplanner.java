@@ -21,17 +21,24 @@
 package org.matsim.withinday.replanning.parallel;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.withinday.replanning.identifiers.interfaces.AgentSelector;
 import org.matsim.withinday.replanning.replanners.interfaces.WithinDayReplanner;
@@ -45,6 +52,14 @@ import org.matsim.withinday.replanning.replanners.tools.ReplanningTask;
  * Features like the creation of parallel running threads and the
  * split up of the replanning actions have to be implemented in
  * the subclasses.
+ *
+ * If an executor is set, no dedicated threads and no barriers are used.
+ * Instead, the replanning tasks of each replanner are processed by as many
+ * jobs on the executor as there are tasks, at most one per thread. All jobs
+ * take their tasks from the replanner's shared queue, so that threads with
+ * expensive tasks do not hold up the others. Each job uses the replanner
+ * instances of one of the runnables, thus they are still reused. A single
+ * task is replanned directly in the calling thread.
  */
 public abstract class ParallelReplanner<T extends WithinDayReplannerFactory<? extends AgentSelector>> { 
 
@@ -76,11 +91,21 @@ public abstract class ParallelReplanner<T extends WithinDayReplannerFactory<? ex
 	
 	protected boolean simIsRunning = false;
 	
+	private ExecutorService executor = null;
+	
 	public ParallelReplanner(int numOfThreads, EventsManager eventsManager) {
 		this.setNumberOfThreads(numOfThreads);
 		this.eventsManager = eventsManager;
 	}
 	
+	/**
+	 * @param executor the executor to run the replanning on, or <code>null</code> to use dedicated threads
+	 */
+	public final void setExecutor(ExecutorService executor) {
+		if (this.simIsRunning) throw new IllegalStateException("The executor cannot be changed while the simulation is running.");
+		this.executor = executor;
+	}
+	
 	public final void init(String replannerName) {
 		
 		this.replannerName = replannerName;
@@ -127,6 +152,12 @@ public abstract class ParallelReplanner<T extends WithinDayReplannerFactory<? ex
 		}
 		
 		this.hadException = new AtomicBoolean(false);
+		
+		if (this.executor != null) {
+			this.simIsRunning = true;
+			return;
+		}
+		
 		this.uncaughtExceptionHandler = new ExceptionHandler(this.hadException, this.timeStepStartBarrier, 
 				this.betweenReplannerBarrier, this.timeStepEndBarrier);
 		
@@ -183,12 +214,17 @@ public abstract class ParallelReplanner<T extends WithinDayReplannerFactory<? ex
 			return;
 		}
 		
+		// set current time
+		for (ReplanningRunnable replanningRunnable : replanningRunnables) {
+			replanningRunnable.setTime(time);
+		}
+		
+		if (this.executor != null) {
+			this.runOnExecutor();
+			return;
+		}
+		
 		try {
-			// set current time
-			for (ReplanningRunnable replanningRunnable : replanningRunnables) {
-				replanningRunnable.setTime(time);
-			}
-
 			this.timeStepStartBarrier.await();
 
 			this.timeStepEndBarrier.await();
@@ -200,6 +236,53 @@ public abstract class ParallelReplanner<T extends WithinDayReplannerFactory<? ex
 		}
 	}
 
+	/*
+	 * Like the barrier between the replanners in the runnables, only the
+	 * instances of one replanner run at the same time.
+	 */
+	private void runOnExecutor() {
+		for (Id<WithinDayReplanner> replannerId : this.replanningRunnables[0].getWithinDayReplannerIds()) {
+			
+			// collect the runnables with tasks; with a shared queue, these are all runnables
+			List<ReplanningRunnable> runnablesWithTasks = new ArrayList<>();
+			Set<Queue<ReplanningTask>> queues = Collections.newSetFromMap(new IdentityHashMap<>());
+			int tasks = 0;
+			for (ReplanningRunnable replanningRunnable : this.replanningRunnables) {
+				Queue<ReplanningTask> queue = replanningRunnable.getReplanningTasks(replannerId);
+				if (queue != null && !queue.isEmpty()) {
+					runnablesWithTasks.add(replanningRunnable);
+					if (queues.add(queue)) tasks += queue.size();
+				}
+			}
+			int jobs = Math.min(runnablesWithTasks.size(), tasks);
+			if (jobs == 0) continue;
+			
+			if (jobs == 1) {
+				runnablesWithTasks.get(0).doReplanning(replannerId);
+				continue;
+			}
+			
+			List<Future<?>> futures = new ArrayList<>(jobs);
+			for (int i = 0; i < jobs; i++) {
+				final ReplanningRunnable replanningRunnable = runnablesWithTasks.get(i);
+				futures.add(this.executor.submit(() -> replanningRunnable.doReplanning(replannerId)));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				} catch (ExecutionException e) {
+					this.hadException.set(true);
+					log.error("Exception while replanning.", e.getCause());
+				}
+			}
+			if (this.hadException.get()) {
+				throw new RuntimeException("Exception while replanning with " + this.replannerName + ".");
+			}
+		}
+	}
+	
 	public final void afterSim() {
 
 		this.simIsRunning = false;
@@ -230,6 +313,10 @@ public abstract class ParallelReplanner<T extends WithinDayReplannerFactory<? ex
 			}
 		}
 
+		if (this.executor != null) {
+			return;
+		}
+		
 		/*
 		 * Triggering the startBarrier of the QSimEngineThreads.
 		 * They will check whether the Simulation is still running.
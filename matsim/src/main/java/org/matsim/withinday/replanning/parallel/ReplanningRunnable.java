@@ -36,6 +36,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
@@ -137,61 +138,79 @@ public abstract class ReplanningRunnable implements Runnable {
 
 		for (Entry<Id<WithinDayReplanner>, Queue<ReplanningTask>> entry : this.replanningTasks.entrySet()) {
 			
-			Id<WithinDayReplanner> withinDayReplannerId = entry.getKey();
-			Queue<ReplanningTask> queue = entry.getValue();
+			doReplanning(entry.getKey(), entry.getValue());
 			
-			WithinDayReplanner<? extends AgentSelector> withinDayReplanner = this.withinDayReplanners.get(withinDayReplannerId);
+			/*
+			 * Wait here until all Threads have ended the replanning for the
+			 * current WithinDayReplanner.
+			 */
+			this.betweenReplannerBarrier.await();
+		}
+	}
+	
+	/*
+	 * Used by the ParallelReplanner if it runs the replanning on an executor
+	 * instead of the runnable's own thread.
+	 */
+	/*package*/ final Set<Id<WithinDayReplanner>> getWithinDayReplannerIds() {
+		return this.replanningTasks.keySet();
+	}
+	
+	/*package*/ final Queue<ReplanningTask> getReplanningTasks(Id<WithinDayReplanner> withinDayReplannerId) {
+		return this.replanningTasks.get(withinDayReplannerId);
+	}
+	
+	/*package*/ final void doReplanning(Id<WithinDayReplanner> withinDayReplannerId) {
+		doReplanning(withinDayReplannerId, this.replanningTasks.get(withinDayReplannerId));
+	}
+	
+	private void doReplanning(Id<WithinDayReplanner> withinDayReplannerId, Queue<ReplanningTask> queue) {
+		
+		WithinDayReplanner<? extends AgentSelector> withinDayReplanner = this.withinDayReplanners.get(withinDayReplannerId);
+		
+		if (withinDayReplannerId == null) {
+			log.error("WithinDayReplanner Id is null!");
+			return;
+		} else if (withinDayReplanner == null) {
+			log.error("WithinDayReplanner is null!");
+			return;
+		}
+
+		// set time once per replanner and time step
+		withinDayReplanner.setTime(time);
+		
+		ReplanningTask replanningTask;
+		while (true) {
+			replanningTask = queue.poll();
 			
-			if (withinDayReplannerId == null) {
-				log.error("WithinDayReplanner Id is null!");
-				continue;
-			} else if (withinDayReplanner == null) {
-				log.error("WithinDayReplanner is null!");
+			// if no more elements are left in the queue, end while loop
+			if (replanningTask == null) break;
+
+			MobsimAgent withinDayAgent = replanningTask.getAgentToReplan();
+							
+			if (withinDayAgent == null) {
+				log.error("WithinDayAgent is null!");
 				continue;
 			}
-
-			// set time once per replanner and time step
-			withinDayReplanner.setTime(time);
 			
-			ReplanningTask replanningTask;
-			while (true) {
-				replanningTask = queue.poll();
-				
-				// if no more elements are left in the queue, end while loop
-				if (replanningTask == null) break;
-
-				MobsimAgent withinDayAgent = replanningTask.getAgentToReplan();
-								
-				if (withinDayAgent == null) {
-					log.error("WithinDayAgent is null!");
-					continue;
+			boolean replanningSuccessful = withinDayReplanner.doReplanning(withinDayAgent);
+			
+			if (!replanningSuccessful) {
+				log.error("Replanning was not successful! Replanner " + withinDayReplanner.getClass().toString() + 
+						", time " + Time.writeTime(time) + ", agent " + withinDayAgent.getId());
+			}
+			else {
+				/*
+				 * If the EventsManager is not null, we create an entry for the events log file.
+				 */
+				if (eventsManager != null) {
+					ReplanningEvent replanningEvent = new ReplanningEvent(time, withinDayAgent.getId(), 
+							withinDayReplanner.getClass().getSimpleName());
+					eventsManager.processEvent(replanningEvent);
 				}
 				
-				boolean replanningSuccessful = withinDayReplanner.doReplanning(withinDayAgent);
-				
-				if (!replanningSuccessful) {
-					log.error("Replanning was not successful! Replanner " + withinDayReplanner.getClass().toString() + 
-							", time " + Time.writeTime(time) + ", agent " + withinDayAgent.getId());
-				}
-				else {
-					/*
-					 * If the EventsManager is not null, we create an entry for the events log file.
-					 */
-					if (eventsManager != null) {
-						ReplanningEvent replanningEvent = new ReplanningEvent(time, withinDayAgent.getId(), 
-								withinDayReplanner.getClass().getSimpleName());
-						eventsManager.processEvent(replanningEvent);
-					}
-					
-					counter.incCounter();
-				}
+				counter.incCounter();
 			}
-			
-			/*
-			 * Wait here until all Threads have ended the replanning for the
-			 * current WithinDayReplanner.
-			 */
-			this.betweenReplannerBarrier.await();
 		}
 	}
 	
@@ -0,0 +1,394 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * StreamingWithinDayTravelTime.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.trafficmonitoring;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleLeavesTrafficEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.mobsim.framework.events.MobsimAfterSimStepEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimAfterSimStepListener;
+import org.matsim.core.network.NetworkChangeEvent;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.priorityqueue.HasIndex;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.vehicles.Vehicle;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TObjectDoubleHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+/**
+ * Alternative to {@link WithinDayTravelTime} which keeps an exponentially weighted moving average of the
+ * observed travel times per link instead of the trips of a time window. Every observed trip moves the
+ * estimate by <code>smoothingFactor</code> towards the trip's travel time. Links without observations relax
+ * towards their free speed travel time with the time constant <code>relaxationTime</code>.
+ * <p></p>
+ * All data is kept in arrays indexed by link, in the order of the links of the network. After each sim step, the
+ * current estimates are published as an immutable {@link Snapshot}. Readers, e.g. the routers of within-day replanners, only read the last published
+ * snapshot and are thus never blocked by the mobsim or the events handling. Readers which need consistent
+ * travel times over several calls, e.g. for a whole route, should use {@link #getSnapshot()}.
+ * <p></p>
+ * The travel times of a snapshot are kept in blocks of {@value #BLOCK_SIZE} links. A new snapshot only copies the
+ * blocks containing links whose travel time changed in the sim step, and shares the other blocks with the previous
+ * snapshot. Links of a routing network built from the same network, e.g. the ones of the fast routers, are looked up
+ * in the snapshot by their array index, like in {@link ArrayBasedTravelTimeInfoProvider}; other links by their id.
+ * <p></p>
+ * Like {@link WithinDayTravelTime}, this class expects the events of a sim step to be handled before the
+ * listeners are notified after the sim step, and the events to be handled by one thread at a time, so the
+ * working data is not synchronized.
+ * <p></p>
+ * Free speed changes from network change events are taken into account as in {@link WithinDayTravelTime}.
+ */
+@Singleton
+public class StreamingWithinDayTravelTime implements TravelTime,
+		LinkEnterEventHandler, LinkLeaveEventHandler, VehicleLeavesTrafficEventHandler, VehicleEntersTrafficEventHandler,
+		MobsimAfterSimStepListener {
+
+	public static final double DEFAULT_SMOOTHING_FACTOR = 0.2;
+	public static final double DEFAULT_RELAXATION_TIME = 600.0;
+
+	private static final int BLOCK_SHIFT = 10;
+	/*package*/ static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+	private final Network network;
+	private final double smoothingFactor;
+	private final double relaxationTime;
+	private final Set<String> analyzedModes;
+
+	// link index data; not modified after construction, thus safe to be read from any thread
+	private final TObjectIntHashMap<Id<Link>> linkIndices;
+	private final Link[] links;
+
+	// working data; only accessed by the events handling and after the sim steps, except for the change events
+	private final double[] freeSpeedTravelTimes;
+	private final double[] smoothedTravelTimes;
+	private final boolean[] observed;
+	private final boolean[] active;
+	private final TIntArrayList activeLinks = new TIntArrayList();
+	private final TIntArrayList changedLinks = new TIntArrayList();
+	/** per block, whether it was already copied for the snapshot being published */
+	private final boolean[] copiedBlocks;
+	private final TIntArrayList copiedBlockList = new TIntArrayList();
+	private final TObjectDoubleHashMap<Id<Vehicle>> linkEnterTimes = new TObjectDoubleHashMap<>();
+	private final Set<Id<Vehicle>> vehiclesToFilter = new HashSet<>();
+	private final Queue<NetworkChangeEvent> networkChangeEvents = new PriorityQueue<>(11,
+			(e1, e2) -> Double.compare(e1.getStartTime(), e2.getStartTime()));
+	private double lastPublishTime = Time.UNDEFINED_TIME;
+
+	private volatile Snapshot snapshot;
+
+	@Inject
+	StreamingWithinDayTravelTime(Scenario scenario) {
+		this(scenario, null, DEFAULT_SMOOTHING_FACTOR, DEFAULT_RELAXATION_TIME);
+	}
+
+	/**
+	 * @param analyzedModes the network modes to collect travel times from, <code>null</code> or empty for all modes
+	 * @param smoothingFactor weight of a newly observed travel time, in (0, 1]
+	 * @param relaxationTime time constant in seconds with which the estimates of links without observations return
+	 * to the free speed travel times, 0 to return to them immediately
+	 */
+	public StreamingWithinDayTravelTime(Scenario scenario, Set<String> analyzedModes, double smoothingFactor, double relaxationTime) {
+		if (smoothingFactor <= 0.0 || smoothingFactor > 1.0) {
+			throw new IllegalArgumentException("smoothingFactor must be in (0, 1], but is " + smoothingFactor);
+		}
+		if (relaxationTime < 0.0) {
+			throw new IllegalArgumentException("relaxationTime must not be negative, but is " + relaxationTime);
+		}
+		this.network = scenario.getNetwork();
+		this.smoothingFactor = smoothingFactor;
+		this.relaxationTime = relaxationTime;
+		this.analyzedModes = (analyzedModes == null || analyzedModes.isEmpty()) ? null : new HashSet<>(analyzedModes);
+
+		int numberOfLinks = this.network.getLinks().size();
+		this.linkIndices = new TObjectIntHashMap<>(numberOfLinks * 2, 0.5f, -1);
+		this.links = new Link[numberOfLinks];
+		int index = 0;
+		for (Link link : this.network.getLinks().values()) {
+			this.linkIndices.put(link.getId(), index);
+			this.links[index] = link;
+			index++;
+		}
+		this.freeSpeedTravelTimes = new double[numberOfLinks];
+		this.smoothedTravelTimes = new double[numberOfLinks];
+		this.observed = new boolean[numberOfLinks];
+		this.active = new boolean[numberOfLinks];
+		this.copiedBlocks = new boolean[(numberOfLinks + BLOCK_MASK) >>> BLOCK_SHIFT];
+
+		init();
+	}
+
+	private void init() {
+		for (int i = 0; i < this.links.length; i++) {
+			Link link = this.links[i];
+			this.freeSpeedTravelTimes[i] = link.getLength() / link.getFreespeed(Time.UNDEFINED_TIME);
+			this.smoothedTravelTimes[i] = this.freeSpeedTravelTimes[i];
+			this.observed[i] = false;
+			this.active[i] = false;
+		}
+		this.activeLinks.resetQuick();
+		this.changedLinks.resetQuick();
+		this.linkEnterTimes.clear();
+		this.vehiclesToFilter.clear();
+		synchronized (this.networkChangeEvents) {
+			this.networkChangeEvents.clear();
+		}
+		Queue<NetworkChangeEvent> changeEvents = NetworkUtils.getNetworkChangeEvents(this.network);
+		if (changeEvents != null) {
+			for (NetworkChangeEvent changeEvent : changeEvents) {
+				addNetworkChangeEvent(changeEvent);
+			}
+		}
+		this.lastPublishTime = Time.UNDEFINED_TIME;
+		double[][] blocks = new double[this.copiedBlocks.length][];
+		for (int b = 0; b < blocks.length; b++) {
+			int from = b << BLOCK_SHIFT;
+			blocks[b] = Arrays.copyOfRange(this.freeSpeedTravelTimes, from, Math.min(from + BLOCK_SIZE, this.links.length));
+		}
+		this.snapshot = new Snapshot(Time.UNDEFINED_TIME, blocks, this.links, this.linkIndices);
+	}
+
+	/**
+	 * Registers a network change event whose free speed change is taken into account from the end of the
+	 * sim step of its start time on. May be called from any thread.
+	 */
+	public final void addNetworkChangeEvent(NetworkChangeEvent networkChangeEvent) {
+		if (networkChangeEvent.getFreespeedChange() != null) {
+			synchronized (this.networkChangeEvents) {
+				this.networkChangeEvents.add(networkChangeEvent);
+			}
+		}
+	}
+
+	/**
+	 * @return the travel times published after the last sim step
+	 */
+	public Snapshot getSnapshot() {
+		return this.snapshot;
+	}
+
+	@Override
+	public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+		return this.snapshot.getLinkTravelTime(link, time, person, vehicle);
+	}
+
+	@Override
+	public void reset(int iteration) {
+		init();
+	}
+
+	@Override
+	public void handleEvent(VehicleEntersTrafficEvent event) {
+		if (this.analyzedModes != null && !this.analyzedModes.contains(event.getNetworkMode())) {
+			this.vehiclesToFilter.add(event.getVehicleId());
+		}
+	}
+
+	@Override
+	public void handleEvent(LinkEnterEvent event) {
+		if (this.analyzedModes != null && this.vehiclesToFilter.contains(event.getVehicleId())) {
+			return;
+		}
+		this.linkEnterTimes.put(event.getVehicleId(), event.getTime());
+	}
+
+	@Override
+	public void handleEvent(LinkLeaveEvent event) {
+		if (!this.linkEnterTimes.containsKey(event.getVehicleId())) {
+			return;
+		}
+		double tripTime = event.getTime() - this.linkEnterTimes.remove(event.getVehicleId());
+		int i = this.linkIndices.get(event.getLinkId());
+		if (i < 0) {
+			return;
+		}
+		this.smoothedTravelTimes[i] += this.smoothingFactor * (tripTime - this.smoothedTravelTimes[i]);
+		this.observed[i] = true;
+		if (!this.active[i]) {
+			this.active[i] = true;
+			this.activeLinks.add(i);
+		}
+	}
+
+	/*
+	 * If a vehicle leaves the traffic we have to remove its current trip. Otherwise we would have a trip with
+	 * the duration of the trip itself and the activity.
+	 */
+	@Override
+	public void handleEvent(VehicleLeavesTrafficEvent event) {
+		this.linkEnterTimes.remove(event.getVehicleId());
+		if (this.analyzedModes != null) {
+			this.vehiclesToFilter.remove(event.getVehicleId());
+		}
+	}
+
+	@Override
+	public void notifyMobsimAfterSimStep(MobsimAfterSimStepEvent e) {
+		publish(e.getSimulationTime());
+	}
+
+	/*package*/ void publish(double time) {
+		applyNetworkChangeEvents(time);
+
+		double decay = 0.0;
+		if (this.relaxationTime > 0.0 && !Time.isUndefinedTime(this.lastPublishTime)) {
+			decay = Math.exp(-(time - this.lastPublishTime) / this.relaxationTime);
+		}
+		this.lastPublishTime = time;
+
+		int stillActive = 0;
+		for (int k = 0; k < this.activeLinks.size(); k++) {
+			int i = this.activeLinks.getQuick(k);
+			double freeSpeedTravelTime = this.freeSpeedTravelTimes[i];
+			if (!this.observed[i]) {
+				this.smoothedTravelTimes[i] = freeSpeedTravelTime + decay * (this.smoothedTravelTimes[i] - freeSpeedTravelTime);
+			}
+			this.observed[i] = false;
+			this.changedLinks.add(i);
+			/*
+			 * Estimates which are (almost) back at the free speed travel time are reset to it, so that the
+			 * link does not need to be looked at in further sim steps.
+			 */
+			if (!(this.smoothedTravelTimes[i] - freeSpeedTravelTime > 1e-3 * freeSpeedTravelTime)) {
+				this.smoothedTravelTimes[i] = freeSpeedTravelTime;
+				this.active[i] = false;
+			} else {
+				this.activeLinks.setQuick(stillActive, i);
+				stillActive++;
+			}
+		}
+		this.activeLinks.remove(stillActive, this.activeLinks.size() - stillActive);
+
+		if (this.changedLinks.isEmpty()) {
+			return;
+		}
+		double[][] blocks = this.snapshot.blocks.clone();
+		for (int k = 0; k < this.changedLinks.size(); k++) {
+			int i = this.changedLinks.getQuick(k);
+			int b = i >>> BLOCK_SHIFT;
+			if (!this.copiedBlocks[b]) {
+				blocks[b] = blocks[b].clone();
+				this.copiedBlocks[b] = true;
+				this.copiedBlockList.add(b);
+			}
+			blocks[b][i & BLOCK_MASK] = Math.max(this.smoothedTravelTimes[i], this.freeSpeedTravelTimes[i]);
+		}
+		for (int k = 0; k < this.copiedBlockList.size(); k++) {
+			this.copiedBlocks[this.copiedBlockList.getQuick(k)] = false;
+		}
+		this.copiedBlockList.resetQuick();
+		this.changedLinks.resetQuick();
+		this.snapshot = new Snapshot(time, blocks, this.links, this.linkIndices);
+	}
+
+	private void applyNetworkChangeEvents(double time) {
+		while (true) {
+			NetworkChangeEvent changeEvent;
+			synchronized (this.networkChangeEvents) {
+				if (this.networkChangeEvents.isEmpty() || this.networkChangeEvents.peek().getStartTime() > time) {
+					return;
+				}
+				changeEvent = this.networkChangeEvents.poll();
+			}
+			for (Link link : changeEvent.getLinks()) {
+				int i = this.linkIndices.get(link.getId());
+				if (i < 0) {
+					continue;
+				}
+				double newSpeed = WithinDayTravelTime.getNewFreespeed(link, changeEvent.getFreespeedChange());
+				this.freeSpeedTravelTimes[i] = link.getLength() / newSpeed;
+				if (!this.active[i]) {
+					this.smoothedTravelTimes[i] = this.freeSpeedTravelTimes[i];
+				}
+				this.changedLinks.add(i);
+			}
+		}
+	}
+
+	/**
+	 * Immutable link travel times as published after a sim step.
+	 */
+	public static final class Snapshot implements TravelTime {
+
+		private final double time;
+		/** the travel times in blocks of {@link StreamingWithinDayTravelTime#BLOCK_SIZE} links, possibly shared with other snapshots */
+		private final double[][] blocks;
+		private final Link[] links;
+		private final TObjectIntHashMap<Id<Link>> linkIndices;
+
+		Snapshot(double time, double[][] blocks, Link[] links, TObjectIntHashMap<Id<Link>> linkIndices) {
+			this.time = time;
+			this.blocks = blocks;
+			this.links = links;
+			this.linkIndices = linkIndices;
+		}
+
+		/**
+		 * @return the time of the sim step after which this snapshot was published, or
+		 * {@link Time#UNDEFINED_TIME} for the initial free speed travel times
+		 */
+		public double getTime() {
+			return this.time;
+		}
+
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			int i = -1;
+			if (link instanceof HasIndex) {
+				// the array index of a routing network link, which matches ours if it was built from the same network
+				i = ((HasIndex) link).getArrayIndex();
+				if (i >= this.links.length || this.links[i].getId() != link.getId()) {
+					i = -1;
+				}
+			}
+			if (i < 0) {
+				i = this.linkIndices.get(link.getId());
+				if (i < 0) {
+					return link.getLength() / link.getFreespeed(time);
+				}
+			}
+			return this.blocks[i >>> BLOCK_SHIFT][i & BLOCK_MASK];
+		}
+
+	}
+
+}
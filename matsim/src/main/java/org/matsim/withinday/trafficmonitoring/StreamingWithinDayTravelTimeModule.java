@@ -0,0 +1,19 @@
+package org.matsim.withinday.trafficmonitoring;
+
+import org.matsim.core.controler.AbstractModule;
+
+/**
+ * Uses the {@link StreamingWithinDayTravelTime} as network travel time. Install this instead of the
+ * {@link WithinDayTravelTimeModule}.
+ */
+public class StreamingWithinDayTravelTimeModule extends AbstractModule {
+
+	@Override
+	public void install() {
+		bind(StreamingWithinDayTravelTime.class).asEagerSingleton();
+		addEventHandlerBinding().to(StreamingWithinDayTravelTime.class);
+		bindNetworkTravelTime().to(StreamingWithinDayTravelTime.class);
+		addMobsimListenerBinding().to(StreamingWithinDayTravelTime.class);
+	}
+
+}
@@ -180,21 +180,7 @@ public class WithinDayTravelTime implements TravelTime,
 			double startTime = networkChangeEvent.getStartTime();
 			Map<Link,Double> newLinkSpeedsAtThisTime = changedLinksByTime.computeIfAbsent(startTime, k -> new HashMap<>());
 			for ( Link link : networkChangeEvent.getLinks() ) {
-				// yy seems that the following should be available centrally. kai, dec'17
-				double newSpeed ;
-				switch ( freespeedChange.getType() ) {
-					case ABSOLUTE_IN_SI_UNITS:
-						newSpeed = freespeedChange.getValue() ;
-						break;
-					case FACTOR:
-						newSpeed = link.getFreespeed() * freespeedChange.getValue() ;
-						break;
-					case OFFSET_IN_SI_UNITS:
-						newSpeed = link.getFreespeed() + freespeedChange.getValue() ;
-						break;
-					default:
-						throw new RuntimeException("change event type not implemented") ;
-				}
+				double newSpeed = getNewFreespeed( link, freespeedChange ) ;
 				if ( startTime > 0. ) {
 					log.debug( "registering a change event for time=" + startTime
 					+ "; linkId=" + link.getId() ) ;
@@ -204,6 +190,20 @@ public class WithinDayTravelTime implements TravelTime,
 		}
 	}
 	
+	// yy seems that the following should be available centrally. kai, dec'17
+	/*package*/ static double getNewFreespeed(Link link, ChangeValue freespeedChange) {
+		switch ( freespeedChange.getType() ) {
+			case ABSOLUTE_IN_SI_UNITS:
+				return freespeedChange.getValue() ;
+			case FACTOR:
+				return link.getFreespeed() * freespeedChange.getValue() ;
+			case OFFSET_IN_SI_UNITS:
+				return link.getFreespeed() + freespeedChange.getValue() ;
+			default:
+				throw new RuntimeException("change event type not implemented") ;
+		}
+	}
+	
 	public final void addNetworkChangeEvent(NetworkChangeEvent networkChangeEvent) {
 		this.addNetworkChangeEventToLocalDataStructure(networkChangeEvent);
 	}
@@ -0,0 +1,190 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayVolumesAnalyzerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.utils.collections.CollectionUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class ArrayVolumesAnalyzerTest {
+
+	@Test
+	public void testVolumes_sameAsVolumesAnalyzer() {
+		Network network = createNetwork();
+		VolumesAnalyzer expected = new VolumesAnalyzer(900, 4 * 3600 - 1, network);
+		ArrayVolumesAnalyzer analyzer = new ArrayVolumesAnalyzer(900, 4 * 3600 - 1, network);
+
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Link> link2 = Id.create("2", Link.class);
+		Id<Link> unknownLink = Id.create("99", Link.class);
+		Id<Vehicle> car = Id.create("car", Vehicle.class);
+		Id<Vehicle> bike = Id.create("bike", Vehicle.class);
+		Id<Vehicle> boat = Id.create("boat", Vehicle.class);
+		Id<Vehicle> unknownVehicle = Id.create("unknown", Vehicle.class);
+
+		for (VolumesAnalyzer va : new VolumesAnalyzer[] { expected, analyzer }) {
+			va.handleEvent(new VehicleEntersTrafficEvent(0, Id.create("1", Person.class), link1, car, TransportMode.car, 1.0));
+			va.handleEvent(new VehicleEntersTrafficEvent(0, Id.create("2", Person.class), link1, bike, TransportMode.bike, 1.0));
+			va.handleEvent(new VehicleEntersTrafficEvent(0, Id.create("3", Person.class), link1, boat, "boat", 1.0));
+			va.handleEvent(new LinkLeaveEvent(100, car, link1));
+			va.handleEvent(new LinkLeaveEvent(200, bike, link1));
+			va.handleEvent(new LinkLeaveEvent(1000, car, link2));
+			va.handleEvent(new LinkLeaveEvent(3700, car, link2));
+			va.handleEvent(new LinkLeaveEvent(3800, boat, link2));
+			va.handleEvent(new LinkLeaveEvent(5 * 3600, car, link2));
+			va.handleEvent(new LinkLeaveEvent(300, car, unknownLink));
+			va.handleEvent(new LinkLeaveEvent(400, unknownVehicle, link1));
+		}
+
+		Assert.assertEquals(expected.getVolumesArraySize(), analyzer.getVolumesArraySize());
+		// VolumesAnalyzer.getModes() fails for vehicles without mode
+		Assert.assertEquals(new TreeSet<>(Arrays.asList(TransportMode.bike, "boat", TransportMode.car)), analyzer.getModes());
+		Assert.assertEquals(new HashSet<>(expected.getLinkIds()), new HashSet<>(analyzer.getLinkIds()));
+		for (Id<Link> linkId : new ArrayList<>(expected.getLinkIds())) {
+			Assert.assertArrayEquals(expected.getVolumesForLink(linkId), analyzer.getVolumesForLink(linkId));
+			Assert.assertArrayEquals(expected.getVolumesPerHourForLink(linkId), analyzer.getVolumesPerHourForLink(linkId), 1e-10);
+			for (String mode : new String[] { TransportMode.car, TransportMode.bike, "boat", TransportMode.walk, null }) {
+				Assert.assertArrayEquals(expected.getVolumesForLink(linkId, mode), analyzer.getVolumesForLink(linkId, mode));
+				Assert.assertArrayEquals(expected.getVolumesPerHourForLink(linkId, mode), analyzer.getVolumesPerHourForLink(linkId, mode), 1e-10);
+			}
+		}
+		Assert.assertNull(analyzer.getVolumesForLink(Id.create("3", Link.class)));
+
+		analyzer.reset(1);
+		Assert.assertNull(analyzer.getVolumesForLink(link1));
+		Assert.assertNull(analyzer.getVolumesForLink(unknownLink));
+		Assert.assertTrue(analyzer.getLinkIds().isEmpty());
+		Assert.assertTrue(analyzer.getModes().isEmpty());
+	}
+
+	@Test
+	public void testVolumesPerMode() {
+		Network network = createNetwork();
+		ArrayVolumesAnalyzer analyzer = new ArrayVolumesAnalyzer(900, 24 * 3600 - 1, network);
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Vehicle> car = Id.create("car", Vehicle.class);
+		Id<Vehicle> bike = Id.create("bike", Vehicle.class);
+		analyzer.handleEvent(new VehicleEntersTrafficEvent(0, Id.create("1", Person.class), link1, car, TransportMode.car, 1.0));
+		analyzer.handleEvent(new VehicleEntersTrafficEvent(0, Id.create("2", Person.class), link1, bike, TransportMode.bike, 1.0));
+		analyzer.handleEvent(new LinkLeaveEvent(100, car, link1));
+		analyzer.handleEvent(new LinkLeaveEvent(1000, car, link1));
+		analyzer.handleEvent(new LinkLeaveEvent(3700, car, link1));
+		analyzer.handleEvent(new LinkLeaveEvent(200, bike, link1));
+
+		int[] carVolumes = analyzer.getVolumesForLink(link1, TransportMode.car);
+		Assert.assertEquals(1, carVolumes[0]);
+		Assert.assertEquals(1, carVolumes[1]);
+		Assert.assertEquals(1, carVolumes[4]);
+		Assert.assertEquals(1, analyzer.getVolumesForLink(link1, TransportMode.bike)[0]);
+		Assert.assertNull(analyzer.getVolumesForLink(link1, TransportMode.walk));
+		Assert.assertNull(analyzer.getVolumesForLink(Id.create("2", Link.class), TransportMode.car));
+
+		double[] carPerHour = analyzer.getVolumesPerHourForLink(link1, TransportMode.car);
+		Assert.assertEquals(2.0, carPerHour[0], 1e-10);
+		Assert.assertEquals(1.0, carPerHour[1], 1e-10);
+		Assert.assertEquals(1.0, analyzer.getVolumesPerHourForLink(link1, TransportMode.bike)[0], 1e-10);
+		Assert.assertArrayEquals(new double[24], analyzer.getVolumesPerHourForLink(link1, TransportMode.walk), 1e-10);
+
+		// like the VolumesAnalyzer, no volumes per mode if modes are not observed
+		ArrayVolumesAnalyzer withoutModes = new ArrayVolumesAnalyzer(900, 24 * 3600 - 1, network, false);
+		withoutModes.handleEvent(new LinkLeaveEvent(100, car, link1));
+		Assert.assertNull(withoutModes.getVolumesForLink(link1, TransportMode.car));
+		Assert.assertNull(withoutModes.getVolumesPerHourForLink(link1, TransportMode.car));
+		Assert.assertEquals(1.0, withoutModes.getVolumesPerHourForLink(link1)[0], 1e-10);
+	}
+
+	@Test
+	public void testVolumes_concurrentEvents() throws InterruptedException {
+		Network network = createNetwork();
+		ArrayVolumesAnalyzer analyzer = new ArrayVolumesAnalyzer(3600, 24 * 3600 - 1, network);
+		Id<Vehicle> car = Id.create("car", Vehicle.class);
+		analyzer.handleEvent(new VehicleEntersTrafficEvent(0, Id.create("1", Person.class), Id.create("1", Link.class), car, TransportMode.car, 1.0));
+
+		int threadCount = 4;
+		int eventsPerThread = 10000;
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < threadCount; t++) {
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < eventsPerThread; i++) {
+					Id<Link> linkId = Id.create(Integer.toString(1 + (i % 3)), Link.class);
+					analyzer.handleEvent(new LinkLeaveEvent(i % 7200, car, linkId));
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		int total = 0;
+		int carTotal = 0;
+		for (Id<Link> linkId : network.getLinks().keySet()) {
+			for (int volume : analyzer.getVolumesForLink(linkId)) {
+				total += volume;
+			}
+			for (int volume : analyzer.getVolumesForLink(linkId, TransportMode.car)) {
+				carTotal += volume;
+			}
+		}
+		Assert.assertEquals(threadCount * eventsPerThread, total);
+		Assert.assertEquals(threadCount * eventsPerThread, carTotal);
+	}
+
+	private static Network createNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		NetworkFactory nf = network.getFactory();
+		Node node1 = nf.createNode(Id.create("1", Node.class), new Coord(0, 0));
+		Node node2 = nf.createNode(Id.create("2", Node.class), new Coord(1000, 0));
+		Node node3 = nf.createNode(Id.create("3", Node.class), new Coord(2000, 0));
+		network.addNode(node1);
+		network.addNode(node2);
+		network.addNode(node3);
+		Link link1 = nf.createLink(Id.create("1", Link.class), node1, node2);
+		link1.setAllowedModes(CollectionUtils.stringToSet("car,bike"));
+		Link link2 = nf.createLink(Id.create("2", Link.class), node2, node3);
+		Link link3 = nf.createLink(Id.create("3", Link.class), node3, node1);
+		network.addLink(link1);
+		network.addLink(link2);
+		network.addLink(link3);
+		return network;
+	}
+
+}
@@ -72,6 +72,18 @@ public class StrategyConfigGroupTest {
 				.getStrategySettings().size());
 	}
 
+	@Test
+	public void testIncrementalReRouteParams() {
+		StrategyConfigGroup configGroup = new StrategyConfigGroup();
+		assertEquals(0.1, configGroup.getIncrementalReRouteTravelTimeChangeThreshold(), 0.0);
+		assertEquals(1000.0, configGroup.getIncrementalReRouteSearchRadius(), 0.0);
+		configGroup.addParam("incrementalReRouteTravelTimeChangeThreshold", "0.25");
+		configGroup.addParam("incrementalReRouteSearchRadius", "500");
+		assertEquals(0.25, configGroup.getIncrementalReRouteTravelTimeChangeThreshold(), 0.0);
+		assertEquals(500.0, configGroup.getIncrementalReRouteSearchRadius(), 0.0);
+		assertEquals("0.25", configGroup.getParams().get("incrementalReRouteTravelTimeChangeThreshold"));
+	}
+
 	/**
 	 * Tests that inconsistent configuration states are recognized, like
 	 * missing settings or wrong enumeration.
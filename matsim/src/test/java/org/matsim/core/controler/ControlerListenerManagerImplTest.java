@@ -2,9 +2,12 @@ package org.matsim.core.controler;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.matsim.core.controler.events.IterationEndsEvent;
 import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.events.ShutdownEvent;
 import org.matsim.core.controler.events.StartupEvent;
+import org.matsim.core.controler.listener.ConcurrentIterationEndsListener;
+import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.controler.listener.ShutdownListener;
 import org.matsim.core.controler.listener.StartupListener;
@@ -88,6 +91,41 @@ public class ControlerListenerManagerImplTest {
 		Assert.assertEquals(1, ecl.nOfShutdowns);
 	}
 	
+	@Test
+	public void testFireIterationEndsEvent_ConcurrentListeners() {
+		ControlerListenerManagerImpl m = new ControlerListenerManagerImpl();
+		IterationEndsCountingListener plain = new IterationEndsCountingListener();
+		ConcurrentIterationEndsCountingListener concurrent = new ConcurrentIterationEndsCountingListener();
+		m.addCoreControlerListener(plain);
+		m.addControlerListener(concurrent);
+
+		m.fireControlerIterationEndsEvent(0);
+		Assert.assertEquals(1, plain.nOfIterEnds);
+		Assert.assertEquals(1, concurrent.nOfIterEnds);
+
+		m.fireControlerIterationEndsEvent(1, false);
+		Assert.assertEquals(2, plain.nOfIterEnds);
+		Assert.assertEquals(1, concurrent.nOfIterEnds);
+
+		m.fireControlerIterationEndsEvent(1, true);
+		Assert.assertEquals(2, plain.nOfIterEnds);
+		Assert.assertEquals(2, concurrent.nOfIterEnds);
+	}
+
+	private static class IterationEndsCountingListener implements IterationEndsListener {
+
+		/*package*/ int nOfIterEnds = 0;
+
+		@Override
+		public void notifyIterationEnds(IterationEndsEvent event) {
+			this.nOfIterEnds++;
+		}
+
+	}
+
+	private static class ConcurrentIterationEndsCountingListener extends IterationEndsCountingListener implements ConcurrentIterationEndsListener {
+	}
+
 	private static class CountingControlerListener implements StartupListener, IterationStartsListener {
 
 		/*package*/ int nOfStartups = 0;
@@ -20,7 +20,9 @@
 
 package org.matsim.core.events;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -43,6 +45,7 @@ import org.matsim.api.core.v01.events.handler.PersonStuckEventHandler;
 import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.testcases.MatsimTestCase;
 import org.xml.sax.SAXException;
 
@@ -143,6 +146,84 @@ public class EventsReadersTest extends MatsimTestCase {
 		assertEquals("number of read events", 8, handler.eventCounter);
 	}
 
+	public final void testParallelXmlReader() {
+		EventsManager events = EventsUtils.createEventsManager();
+		TestHandler handler = new TestHandler();
+		events.addHandler(handler);
+		ParallelEventsReaderXMLv1 reader = new ParallelEventsReaderXMLv1(events, 2);
+		reader.setEventsPerBlock(3);
+		reader.readFile(getClassInputDirectory() + "events.xml");
+		assertEquals("number of read events", 8, handler.eventCounter);
+	}
+
+	public final void testParallelXmlReaderUnordered() {
+		EventsManager events = EventsUtils.createEventsManager();
+		final int[] eventCounter = new int[] { 0 };
+		events.addHandler((BasicEventHandler) event -> eventCounter[0]++);
+		ParallelEventsReaderXMLv1 reader = new ParallelEventsReaderXMLv1(events, 2, false);
+		reader.setEventsPerBlock(1);
+		reader.readFile(getClassInputDirectory() + "events.xml");
+		assertEquals("number of read events", 8, eventCounter[0]);
+	}
+
+	public final void testParallelXmlReaderFailingMapper() {
+		EventsManager events = EventsUtils.createEventsManager();
+		final int[] eventCounter = new int[] { 0 };
+		events.addHandler((BasicEventHandler) event -> eventCounter[0]++);
+		ParallelEventsReaderXMLv1 reader = new ParallelEventsReaderXMLv1(events, 2);
+		reader.setEventsPerBlock(5);
+		reader.addCustomEventMapper("custom", event -> {
+			if (event.getTime() == 500.0) {
+				throw new IllegalStateException("cannot map event");
+			}
+			return event;
+		});
+		// more blocks than the delivery queue can hold, so the failure is detected while it is full
+		assertFailure(reader, "cannot map event");
+		assertEquals("number of delivered events", 500, eventCounter[0]);
+		assertPipelineTerminated();
+	}
+
+	public final void testParallelXmlReaderUnorderedFailingHandler() {
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler((BasicEventHandler) event -> {
+			if (event.getTime() == 500.0) {
+				throw new IllegalStateException("cannot handle event");
+			}
+		});
+		ParallelEventsReaderXMLv1 reader = new ParallelEventsReaderXMLv1(events, 2, false);
+		reader.setEventsPerBlock(5);
+		reader.addCustomEventMapper("custom", event -> event);
+		assertFailure(reader, "cannot handle event");
+		assertPipelineTerminated();
+	}
+
+	private static void assertFailure(ParallelEventsReaderXMLv1 reader, String expectedMessage) {
+		StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<events version=\"1.0\">\n");
+		for (int i = 0; i < 1000; i++) {
+			xml.append("<event time=\"").append(i).append(".0\" type=\"custom\" />\n");
+		}
+		xml.append("</events>\n");
+		try {
+			reader.parse(new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+			fail("expected the failure to be passed to the caller");
+		} catch (RuntimeException e) {
+			Throwable cause = e;
+			while (cause.getCause() != null && !expectedMessage.equals(cause.getMessage())) {
+				cause = cause.getCause();
+			}
+			assertEquals(expectedMessage, cause.getMessage());
+		}
+	}
+
+	private static void assertPipelineTerminated() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("EventsDelivery") || thread.getName().startsWith("EventsConverter-")) {
+				assertFalse("thread " + thread.getName() + " is still running", thread.isAlive());
+			}
+		}
+	}
+
 	public final void testAutoFormatReaderXml() {
 		EventsManager events = EventsUtils.createEventsManager();
 		TestHandler handler = new TestHandler();
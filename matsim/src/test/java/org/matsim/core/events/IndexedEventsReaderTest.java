@@ -0,0 +1,95 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IndexedEventsReaderTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.algorithms.IndexedEventWriterXML;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+
+public class IndexedEventsReaderTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testReadByPersonVehicleAndTime_compressed() {
+		runTest(this.utils.getOutputDirectory() + "events.xml.gz");
+	}
+
+	@Test
+	public void testReadByPersonVehicleAndTime_uncompressed() {
+		runTest(this.utils.getOutputDirectory() + "events.xml");
+	}
+
+	private static void runTest(final String filename) {
+		// small blocks, so the events are spread over many blocks
+		IndexedEventWriterXML writer = new IndexedEventWriterXML(filename, 100.0, 7);
+		for (int i = 0; i < 1000; i++) {
+			writer.handleEvent(new LinkEnterEvent(i, Id.createVehicleId(i % 10), Id.createLinkId(i % 13)));
+			if (i % 100 == 0) {
+				writer.handleEvent(new ActivityEndEvent(i, Id.createPersonId(i / 100), Id.createLinkId(1), null, "home"));
+				writer.handleEvent(new PersonEntersVehicleEvent(i, Id.createPersonId(i / 100), Id.createVehicleId(i % 10)));
+			}
+		}
+		writer.closeFile();
+
+		// the file must still be readable as a whole
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new MatsimEventsReader(events).readFile(filename);
+		Assert.assertEquals(1020, collector.getEvents().size());
+
+		collector.reset(0);
+		IndexedEventsReader reader = new IndexedEventsReader(events, filename);
+		reader.readEvents(Id.createPersonId(3));
+		Assert.assertEquals(2, collector.getEvents().size());
+		Assert.assertEquals(300.0, collector.getEvents().get(0).getTime(), 0.0);
+		Assert.assertTrue(collector.getEvents().get(0) instanceof ActivityEndEvent);
+		Assert.assertTrue(collector.getEvents().get(1) instanceof PersonEntersVehicleEvent);
+
+		collector.reset(0);
+		reader.readEventsOfVehicle(Id.createVehicleId(4));
+		Assert.assertEquals(100, collector.getEvents().size());
+		for (Event event : collector.getEvents()) {
+			Assert.assertEquals(Id.createVehicleId(4), ((LinkEnterEvent) event).getVehicleId());
+		}
+
+		collector.reset(0);
+		reader.readEvents(250.0, 349.0);
+		Assert.assertEquals(102, collector.getEvents().size());
+		Assert.assertEquals(250.0, collector.getEvents().get(0).getTime(), 0.0);
+		Assert.assertEquals(349.0, collector.getEvents().get(101).getTime(), 0.0);
+
+		collector.reset(0);
+		reader.readEvents(Id.createPersonId("unknown"));
+		Assert.assertEquals(0, collector.getEvents().size());
+	}
+
+}
@@ -0,0 +1,111 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryNetworkIOTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkChangeEvent.ChangeType;
+import org.matsim.core.network.NetworkChangeEvent.ChangeValue;
+import org.matsim.core.network.io.BinaryNetworkReader;
+import org.matsim.core.network.io.BinaryNetworkWriter;
+
+public class BinaryNetworkIOTest {
+
+	@Test
+	public void testWriteAndRead() {
+		Network network = createTimeVariantNetwork();
+		network.setName("test network");
+		network.setCapacityPeriod(7200.0);
+		network.getAttributes().putAttribute("source", "test");
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId(1), new Coord(0.0, 0.0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId(2), new Coord(1000.0, 0.0, 12.5));
+		NetworkUtils.setType(node2, "junction");
+		node2.getAttributes().putAttribute("signalized", true);
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.createLinkId("1"), node1, node2, 1000.0, 13.9, 1800.0, 2.0);
+		link1.setAllowedModes(new HashSet<>(Arrays.asList("car", "bike")));
+		NetworkUtils.setType(link1, "primary");
+		Link link2 = NetworkUtils.createAndAddLink(network, Id.createLinkId("2"), node2, node1, 1000.0, 8.3, 600.0, 1.0);
+
+		NetworkChangeEvent event = new NetworkChangeEvent(3600.0);
+		event.setFreespeedChange(new ChangeValue(ChangeType.FACTOR, 0.5));
+		event.setLanesChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, 1.0));
+		event.addLink(link1);
+		event.addLink(link2);
+		NetworkUtils.addNetworkChangeEvent(network, event);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new BinaryNetworkWriter(network).write(out);
+		Network read = createTimeVariantNetwork();
+		new BinaryNetworkReader(read).parse(new ByteArrayInputStream(out.toByteArray()));
+
+		Assert.assertEquals("test network", read.getName());
+		Assert.assertEquals(7200.0, read.getCapacityPeriod(), 0.0);
+		Assert.assertEquals("test", read.getAttributes().getAttribute("source"));
+		Assert.assertEquals(2, read.getNodes().size());
+		Node readNode2 = read.getNodes().get(Id.createNodeId(2));
+		Assert.assertEquals(new Coord(1000.0, 0.0, 12.5), readNode2.getCoord());
+		Assert.assertEquals("junction", NetworkUtils.getType(readNode2));
+		Assert.assertEquals(true, readNode2.getAttributes().getAttribute("signalized"));
+		Assert.assertFalse(read.getNodes().get(Id.createNodeId(1)).getCoord().hasZ());
+
+		Assert.assertEquals(2, read.getLinks().size());
+		Link readLink1 = read.getLinks().get(Id.createLinkId("1"));
+		Assert.assertEquals(Id.createNodeId(1), readLink1.getFromNode().getId());
+		Assert.assertEquals(Id.createNodeId(2), readLink1.getToNode().getId());
+		Assert.assertEquals(1000.0, readLink1.getLength(), 0.0);
+		Assert.assertEquals(13.9, readLink1.getFreespeed(), 0.0);
+		Assert.assertEquals(1800.0, readLink1.getCapacity(), 0.0);
+		Assert.assertEquals(2.0, readLink1.getNumberOfLanes(), 0.0);
+		Assert.assertEquals(link1.getAllowedModes(), readLink1.getAllowedModes());
+		Assert.assertEquals("primary", NetworkUtils.getType(readLink1));
+		Assert.assertEquals(link2.getAllowedModes(), read.getLinks().get(Id.createLinkId("2")).getAllowedModes());
+
+		Assert.assertEquals(1, NetworkUtils.getNetworkChangeEvents(read).size());
+		NetworkChangeEvent readEvent = NetworkUtils.getNetworkChangeEvents(read).peek();
+		Assert.assertEquals(3600.0, readEvent.getStartTime(), 0.0);
+		Assert.assertEquals(event.getFreespeedChange(), readEvent.getFreespeedChange());
+		Assert.assertNull(readEvent.getFlowCapacityChange());
+		Assert.assertEquals(event.getLanesChange(), readEvent.getLanesChange());
+		Assert.assertEquals(2, readEvent.getLinks().size());
+		// the change events are applied to the links
+		Assert.assertEquals(13.9 / 2, readLink1.getFreespeed(3600.0), 1e-9);
+		Assert.assertEquals(1.0, readLink1.getNumberOfLanes(3600.0), 0.0);
+	}
+
+	private static Network createTimeVariantNetwork() {
+		Config config = ConfigUtils.createConfig();
+		config.network().setTimeVariantNetwork(true);
+		return NetworkUtils.createNetwork(config);
+	}
+
+}
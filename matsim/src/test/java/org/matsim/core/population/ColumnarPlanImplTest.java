@@ -0,0 +1,356 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarPlanImplTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.io.PopulationReader;
+import org.matsim.core.population.io.PopulationWriter;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ColumnarPlanImplTest {
+
+	private static final Logger log = Logger.getLogger( ColumnarPlanImplTest.class );
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	private static Population createColumnarPopulation() {
+		Config config = ConfigUtils.createConfig();
+		config.plans().setPlanElementStorage( PlansConfigGroup.PlanElementStorage.columnar );
+		return PopulationUtils.createPopulation( config );
+	}
+
+	@Test
+	public void testElementsCanBeModifiedAfterAdding() {
+		PopulationFactory factory = createColumnarPopulation().getFactory();
+		Plan plan = factory.createPlan();
+		Assert.assertTrue( plan instanceof ColumnarPlanImpl );
+
+		Activity home = factory.createActivityFromCoord( "home", new Coord( 1.0, 2.0 ) );
+		plan.addActivity( home );
+		home.setEndTime( 8 * 3600 );
+		home.getAttributes().putAttribute( "key", "value" );
+		Leg leg = factory.createLeg( "car" );
+		plan.addLeg( leg );
+		leg.setDepartureTime( 8 * 3600 );
+		plan.addActivity( factory.createActivityFromLinkId( "work", Id.createLinkId( 2 ) ) );
+
+		Assert.assertEquals( 3, plan.getPlanElements().size() );
+		Activity readHome = (Activity) plan.getPlanElements().get( 0 );
+		Assert.assertEquals( home, readHome );
+		Assert.assertEquals( 0, plan.getPlanElements().indexOf( home ) );
+		Assert.assertEquals( 8 * 3600, readHome.getEndTime(), 0.0 );
+		Assert.assertEquals( new Coord( 1.0, 2.0 ), readHome.getCoord() );
+		Assert.assertNull( readHome.getLinkId() );
+		Assert.assertTrue( Time.isUndefinedTime( readHome.getStartTime() ) );
+		Assert.assertEquals( "value", readHome.getAttributes().getAttribute( "key" ) );
+		Assert.assertEquals( 8 * 3600, ((Leg) plan.getPlanElements().get( 1 )).getDepartureTime(), 0.0 );
+		Activity work = (Activity) plan.getPlanElements().get( 2 );
+		Assert.assertEquals( Id.createLinkId( 2 ), work.getLinkId() );
+		Assert.assertNull( work.getCoord() );
+	}
+
+	@Test
+	public void testOtherElementsAreKeptUntilCompaction() {
+		Population population = createColumnarPopulation();
+		PopulationFactory factory = population.getFactory();
+		Person person = factory.createPerson( Id.createPersonId( 1 ) );
+		Plan plan = factory.createPlan();
+		person.addPlan( plan );
+		population.addPerson( person );
+		plan.addActivity( factory.createActivityFromLinkId( "home", Id.createLinkId( 1 ) ) );
+		plan.addLeg( factory.createLeg( "car" ) );
+		plan.addActivity( factory.createActivityFromLinkId( "work", Id.createLinkId( 3 ) ) );
+
+		// replace the trip the same way as the trip router does, with elements of the default factory
+		Leg walk = PopulationUtils.createLeg( "walk" );
+		Activity interaction = PopulationUtils.createActivityFromLinkId( "car interaction", Id.createLinkId( 2 ) );
+		Leg car = PopulationUtils.createLeg( "car" );
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl( Id.createLinkId( 2 ), Arrays.asList( Id.createLinkId( 5 ) ), Id.createLinkId( 3 ) );
+		car.setRoute( route );
+		List<PlanElement> trip = plan.getPlanElements().subList( 1, 2 );
+		trip.clear();
+		trip.addAll( Arrays.asList( walk, interaction, car ) );
+
+		Assert.assertEquals( 5, plan.getPlanElements().size() );
+		Assert.assertSame( walk, plan.getPlanElements().get( 1 ) );
+		Assert.assertSame( car, plan.getPlanElements().get( 3 ) );
+		car.setTravelTime( 300 );
+
+		PopulationUtils.compactPlanElements( population );
+
+		Assert.assertEquals( 5, plan.getPlanElements().size() );
+		Assert.assertTrue( plan.getPlanElements().get( 3 ) instanceof ColumnarLegImpl );
+		Leg compactedCar = (Leg) plan.getPlanElements().get( 3 );
+		Assert.assertEquals( "car", compactedCar.getMode() );
+		Assert.assertEquals( 300, compactedCar.getTravelTime(), 0.0 );
+		Assert.assertSame( route, compactedCar.getRoute() );
+		Activity compactedInteraction = (Activity) plan.getPlanElements().get( 2 );
+		Assert.assertEquals( "car interaction", compactedInteraction.getType() );
+		Assert.assertEquals( Id.createLinkId( 2 ), compactedInteraction.getLinkId() );
+		Assert.assertEquals( "work", ((Activity) plan.getPlanElements().get( 4 )).getType() );
+	}
+
+	@Test
+	public void testElementIdentity() {
+		Population population = createColumnarPopulation();
+		PopulationFactory factory = population.getFactory();
+		Person person = factory.createPerson( Id.createPersonId( 1 ) );
+		Plan plan = factory.createPlan();
+		person.addPlan( plan );
+		population.addPerson( person );
+		Activity home = factory.createActivityFromLinkId( "home", Id.createLinkId( 1 ) );
+		plan.addActivity( home );
+		plan.addLeg( factory.createLeg( "car" ) );
+		plan.addActivity( factory.createActivityFromLinkId( "work", Id.createLinkId( 3 ) ) );
+		plan.addLeg( factory.createLeg( "car" ) );
+		plan.addActivity( factory.createActivityFromLinkId( "home", Id.createLinkId( 1 ) ) );
+
+		List<PlanElement> elements = plan.getPlanElements();
+		Assert.assertSame( home, elements.get( 0 ) );
+		Assert.assertSame( elements.get( 2 ), elements.get( 2 ) );
+		Activity work = (Activity) elements.get( 2 );
+		Leg secondLeg = (Leg) elements.get( 3 );
+		Assert.assertEquals( 2, elements.indexOf( work ) );
+		Assert.assertTrue( elements.remove( elements.get( 1 ) ) );
+		Assert.assertSame( work, elements.get( 1 ) );
+		Assert.assertSame( secondLeg, elements.get( 2 ) );
+
+		// the removed leg leaves an unused row, and the interaction is stored as object
+		Activity interaction = PopulationUtils.createActivityFromLinkId( "car interaction", Id.createLinkId( 2 ) );
+		elements.add( 1, interaction );
+		PopulationUtils.compactPlanElements( population );
+
+		// the compaction drops the views, so the plan hands out new, but equal views
+		Assert.assertNotSame( home, elements.get( 0 ) );
+		Assert.assertEquals( home, elements.get( 0 ) );
+		Assert.assertEquals( work, elements.get( 2 ) );
+		Assert.assertEquals( 3, elements.indexOf( secondLeg ) );
+		Assert.assertSame( elements.get( 1 ), elements.get( 1 ) );
+		Assert.assertEquals( "car interaction", ((Activity) elements.get( 1 )).getType() );
+		// views handed out before the compaction are still connected to the plan
+		work.setEndTime( 17 * 3600 );
+		Assert.assertEquals( 17 * 3600, ((Activity) plan.getPlanElements().get( 2 )).getEndTime(), 0.0 );
+		Assert.assertEquals( Id.createLinkId( 3 ), work.getLinkId() );
+		Assert.assertEquals( "car", secondLeg.getMode() );
+	}
+
+	@Test
+	public void testCompactionReleasesRowsOfRemovedPlans() {
+		Population population = createColumnarPopulation();
+		PopulationFactory factory = population.getFactory();
+		Person person = factory.createPerson( Id.createPersonId( 1 ) );
+		Plan plan = factory.createPlan();
+		person.addPlan( plan );
+		population.addPerson( person );
+		plan.addActivity( factory.createActivityFromLinkId( "home", Id.createLinkId( 1 ) ) );
+		plan.addLeg( factory.createLeg( "car" ) );
+		Activity work = factory.createActivityFromLinkId( "work", Id.createLinkId( 3 ) );
+		plan.addActivity( work );
+
+		// each copy adds rows to the columns shared with the first plan
+		for ( int i = 0; i < 3; i++ ) {
+			Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+			((Activity) copy.getPlanElements().get( 2 )).setEndTime( i );
+			person.removePlan( plan );
+			plan = copy;
+		}
+		Activity copiedWork = (Activity) plan.getPlanElements().get( 2 );
+		PlanElementColumns columns = ((ColumnarPlanImpl) plan).getColumns();
+		Assert.assertSame( columns, ((ColumnarPopulationFactoryImpl) factory).getColumns() );
+		Assert.assertEquals( 8, columns.getActivityCount() );
+
+		PopulationUtils.compactPlanElements( population );
+
+		PlanElementColumns compacted = ((ColumnarPlanImpl) plan).getColumns();
+		Assert.assertNotSame( columns, compacted );
+		Assert.assertSame( compacted, ((ColumnarPopulationFactoryImpl) factory).getColumns() );
+		Assert.assertEquals( 2, compacted.getActivityCount() );
+		Assert.assertEquals( 1, compacted.getLegCount() );
+		Assert.assertEquals( 2, ((Activity) plan.getPlanElements().get( 2 )).getEndTime(), 0.0 );
+		Assert.assertEquals( Id.createLinkId( 3 ), ((Activity) plan.getPlanElements().get( 2 )).getLinkId() );
+		// the view handed out before the compaction is moved to the new columns
+		copiedWork.setMaximumDuration( 3600 );
+		Assert.assertEquals( 3600, ((Activity) plan.getPlanElements().get( 2 )).getMaximumDuration(), 0.0 );
+		Assert.assertTrue( Time.isUndefinedTime( work.getEndTime() ) );
+	}
+
+	/**
+	 * Compares the heap used by the plan elements of a population in columns and as objects, after the selected
+	 * plans were read once, like the mobsim and the scoring do.
+	 */
+	@Test
+	public void testUsesLessHeapThanObjects() {
+		long baseline = usedHeap();
+		Population objects = createPopulationForHeapMeasurement( PopulationUtils.createPopulation( ConfigUtils.createConfig() ) );
+		long objectHeap = usedHeap() - baseline;
+		Assert.assertEquals( 10000, objects.getPersons().size() );
+		objects = null;
+
+		baseline = usedHeap();
+		Population columnar = createPopulationForHeapMeasurement( createColumnarPopulation() );
+		long columnarHeap = usedHeap() - baseline;
+		Assert.assertEquals( 10000, columnar.getPersons().size() );
+
+		log.info( "heap used by the population with plan elements as objects: " + objectHeap / 1024 + " kB, in columns: " + columnarHeap / 1024 + " kB" );
+		Assert.assertTrue( "columns use " + columnarHeap + " bytes, objects " + objectHeap, columnarHeap < 0.75 * objectHeap );
+	}
+
+	private static Population createPopulationForHeapMeasurement( Population population ) {
+		PopulationFactory factory = population.getFactory();
+		for ( int i = 0; i < 10000; i++ ) {
+			Person person = factory.createPerson( Id.createPersonId( i ) );
+			for ( int p = 0; p < 4; p++ ) {
+				Plan plan = factory.createPlan();
+				for ( int a = 0; a < 4; a++ ) {
+					if ( a > 0 ) {
+						Leg leg = factory.createLeg( "car" );
+						leg.setDepartureTime( 6 * 3600 + a * 3600 );
+						leg.setTravelTime( 600 );
+						plan.addLeg( leg );
+					}
+					Activity act = factory.createActivityFromCoord( a % 2 == 0 ? "home" : "work", new Coord( i, a ) );
+					act.setLinkId( Id.createLinkId( a ) );
+					act.setEndTime( 6 * 3600 + a * 3600 + p );
+					plan.addActivity( act );
+				}
+				person.addPlan( plan );
+			}
+			population.addPerson( person );
+		}
+		PopulationUtils.compactPlanElements( population );
+		for ( Person person : population.getPersons().values() ) {
+			for ( PlanElement pe : person.getSelectedPlan().getPlanElements() ) {
+				Assert.assertNotNull( pe );
+			}
+		}
+		return population;
+	}
+
+	private static long usedHeap() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long used = Long.MAX_VALUE;
+		for ( int i = 0; i < 5; i++ ) {
+			memory.gc();
+			used = Math.min( used, memory.getHeapMemoryUsage().getUsed() );
+		}
+		return used;
+	}
+
+	@Test
+	public void testCopyOfSelectedPlan() {
+		PopulationFactory factory = createColumnarPopulation().getFactory();
+		Person person = factory.createPerson( Id.createPersonId( 1 ) );
+		Plan plan = factory.createPlan();
+		person.addPlan( plan );
+		plan.setScore( 12.0 );
+		Activity home = factory.createActivityFromLinkId( "home", Id.createLinkId( 1 ) );
+		plan.addActivity( home );
+		Leg leg = factory.createLeg( "car" );
+		leg.setRoute( RouteUtils.createLinkNetworkRouteImpl( Id.createLinkId( 1 ), Arrays.asList( Id.createLinkId( 2 ) ), Id.createLinkId( 3 ) ) );
+		leg.getAttributes().putAttribute( "key", "value" );
+		plan.addLeg( leg );
+		plan.addActivity( factory.createActivityFromLinkId( "work", Id.createLinkId( 3 ) ) );
+
+		Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+		Assert.assertTrue( copy instanceof ColumnarPlanImpl );
+		Assert.assertSame( copy, person.getSelectedPlan() );
+		Assert.assertSame( person, copy.getPerson() );
+		Assert.assertEquals( 12.0, copy.getScore(), 0.0 );
+		Assert.assertEquals( 3, copy.getPlanElements().size() );
+
+		Leg copiedLeg = (Leg) copy.getPlanElements().get( 1 );
+		Assert.assertNotSame( leg.getRoute(), copiedLeg.getRoute() );
+		Assert.assertEquals( leg.getRoute().getEndLinkId(), copiedLeg.getRoute().getEndLinkId() );
+		Assert.assertEquals( "value", copiedLeg.getAttributes().getAttribute( "key" ) );
+
+		((Activity) copy.getPlanElements().get( 0 )).setEndTime( 7 * 3600 );
+		Assert.assertTrue( Time.isUndefinedTime( home.getEndTime() ) );
+	}
+
+	@Test
+	public void testReadPopulation() {
+		Population population = PopulationUtils.createPopulation( ConfigUtils.createConfig() );
+		PopulationFactory factory = population.getFactory();
+		for ( int i = 0; i < 10; i++ ) {
+			Person person = factory.createPerson( Id.createPersonId( i ) );
+			population.addPerson( person );
+			Plan plan = factory.createPlan();
+			person.addPlan( plan );
+			plan.setScore( (double) i );
+			Activity home = factory.createActivityFromCoord( "home", new Coord( i, 2 * i ) );
+			home.setLinkId( Id.createLinkId( i ) );
+			home.setEndTime( 7 * 3600 + i );
+			plan.addActivity( home );
+			Leg leg = factory.createLeg( "car" );
+			leg.setRoute( RouteUtils.createLinkNetworkRouteImpl( Id.createLinkId( i ), Arrays.asList( Id.createLinkId( 100 ) ), Id.createLinkId( i + 1 ) ) );
+			plan.addLeg( leg );
+			Activity work = factory.createActivityFromLinkId( "work", Id.createLinkId( i + 1 ) );
+			work.setMaximumDuration( 8 * 3600 );
+			plan.addActivity( work );
+		}
+		String file = utils.getOutputDirectory() + "population.xml";
+		new PopulationWriter( population ).writeV6( file );
+
+		Config config = ConfigUtils.createConfig();
+		config.plans().setPlanElementStorage( PlansConfigGroup.PlanElementStorage.columnar );
+		Scenario scenario = ScenarioUtils.createScenario( config );
+		new PopulationReader( scenario ).readFile( file );
+
+		Assert.assertEquals( 10, scenario.getPopulation().getPersons().size() );
+		Person person = scenario.getPopulation().getPersons().get( Id.createPersonId( 3 ) );
+		Plan plan = person.getSelectedPlan();
+		Assert.assertTrue( plan instanceof ColumnarPlanImpl );
+		Assert.assertEquals( 3.0, plan.getScore(), 0.0 );
+		Activity home = (Activity) plan.getPlanElements().get( 0 );
+		Assert.assertEquals( new Coord( 3, 6 ), home.getCoord() );
+		Assert.assertEquals( Id.createLinkId( 3 ), home.getLinkId() );
+		Assert.assertEquals( 7 * 3600 + 3, home.getEndTime(), 0.0 );
+		NetworkRoute route = (NetworkRoute) ((Leg) plan.getPlanElements().get( 1 )).getRoute();
+		Assert.assertEquals( Arrays.asList( Id.createLinkId( 100 ) ), route.getLinkIds() );
+		Assert.assertEquals( 8 * 3600, ((Activity) plan.getPlanElements().get( 2 )).getMaximumDuration(), 0.0 );
+	}
+
+}
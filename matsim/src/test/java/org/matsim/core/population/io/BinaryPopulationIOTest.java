@@ -0,0 +1,146 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationIOTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.MatsimFileTypeGuesser;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class BinaryPopulationIOTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testWriteAndRead() {
+		final Population population = PopulationUtils.createPopulation( ConfigUtils.createConfig() );
+		final PopulationFactory factory = population.getFactory();
+		population.getAttributes().putAttribute( "type" , "test" );
+
+		for ( int i = 0; i < 3; i++ ) {
+			final Person person = factory.createPerson( Id.createPersonId( "p" + i ) );
+			population.addPerson( person );
+			person.getAttributes().putAttribute( "age" , 30 + i );
+
+			final Plan plan = factory.createPlan();
+			person.addPlan( plan );
+			plan.setScore( 12.5 * i );
+			final Activity home = factory.createActivityFromLinkId( "home" , Id.createLinkId( 1 ) );
+			home.setCoord( new Coord( 100 , 200 , 3.5 ) );
+			home.setEndTime( 7 * 3600 + i );
+			plan.addActivity( home );
+
+			final Leg car = factory.createLeg( "car" );
+			car.setDepartureTime( 7 * 3600 + i );
+			car.setTravelTime( 600.5 );
+			final NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl( Id.createLinkId( 1 ) ,
+					Arrays.asList( Id.createLinkId( 2 ) , Id.createLinkId( 3 ) ) , Id.createLinkId( 4 ) );
+			route.setDistance( 1234.5 );
+			route.setTravelTime( 600 );
+			car.setRoute( route );
+			car.getAttributes().putAttribute( "cost" , 2.25 );
+			plan.addLeg( car );
+
+			final Activity work = factory.createActivityFromCoord( "work" , new Coord( 500 , 600 ) );
+			work.setMaximumDuration( 8 * 3600 );
+			plan.addActivity( work );
+
+			final Leg walk = factory.createLeg( "walk" );
+			final Route walkRoute = factory.getRouteFactories().createRoute( Route.class , Id.createLinkId( 4 ) , Id.createLinkId( 1 ) );
+			walkRoute.setDistance( 700 );
+			walk.setRoute( walkRoute );
+			plan.addLeg( walk );
+			plan.addActivity( factory.createActivityFromLinkId( "home" , Id.createLinkId( 1 ) ) );
+
+			final Plan unselected = PersonUtils.createAndAddPlan( person , false );
+			unselected.addActivity( factory.createActivityFromLinkId( "home" , Id.createLinkId( 1 ) ) );
+			person.setSelectedPlan( plan );
+		}
+
+		final String file = utils.getOutputDirectory() + "plans.bin.gz";
+		new BinaryPopulationWriter( population ).write( file );
+		Assert.assertEquals( MatsimFileTypeGuesser.FileType.Population , new MatsimFileTypeGuesser( file ).getGuessedFileType() );
+
+		final Scenario scenario = ScenarioUtils.createScenario( ConfigUtils.createConfig() );
+		new BinaryPopulationReader( scenario ).readFile( file );
+		final Population readPopulation = scenario.getPopulation();
+
+		Assert.assertEquals( "test" , readPopulation.getAttributes().getAttribute( "type" ) );
+		Assert.assertEquals( 3 , readPopulation.getPersons().size() );
+
+		final Person person = readPopulation.getPersons().get( Id.createPersonId( "p2" ) );
+		Assert.assertEquals( 32 , person.getAttributes().getAttribute( "age" ) );
+		Assert.assertEquals( 2 , person.getPlans().size() );
+		final Plan plan = person.getSelectedPlan();
+		Assert.assertSame( person.getPlans().get( 0 ) , plan );
+		Assert.assertEquals( 25.0 , plan.getScore() , 0.0 );
+		Assert.assertNull( person.getPlans().get( 1 ).getScore() );
+		Assert.assertEquals( 5 , plan.getPlanElements().size() );
+
+		final Activity home = (Activity) plan.getPlanElements().get( 0 );
+		Assert.assertEquals( "home" , home.getType() );
+		Assert.assertEquals( Id.createLinkId( 1 ) , home.getLinkId() );
+		Assert.assertEquals( 3.5 , home.getCoord().getZ() , 0.0 );
+		Assert.assertEquals( 7 * 3600 + 2 , home.getEndTime() , 0.0 );
+		Assert.assertTrue( Time.isUndefinedTime( home.getStartTime() ) );
+
+		final Leg car = (Leg) plan.getPlanElements().get( 1 );
+		Assert.assertEquals( "car" , car.getMode() );
+		Assert.assertEquals( 600.5 , car.getTravelTime() , 0.0 );
+		Assert.assertEquals( 2.25 , car.getAttributes().getAttribute( "cost" ) );
+		final NetworkRoute route = (NetworkRoute) car.getRoute();
+		Assert.assertEquals( Arrays.<Id<Link>>asList( Id.createLinkId( 2 ) , Id.createLinkId( 3 ) ) , route.getLinkIds() );
+		Assert.assertEquals( Id.createLinkId( 4 ) , route.getEndLinkId() );
+		Assert.assertEquals( 1234.5 , route.getDistance() , 0.0 );
+
+		final Activity work = (Activity) plan.getPlanElements().get( 2 );
+		Assert.assertNull( work.getLinkId() );
+		Assert.assertEquals( 600 , work.getCoord().getY() , 0.0 );
+		Assert.assertFalse( work.getCoord().hasZ() );
+		Assert.assertEquals( 8 * 3600 , work.getMaximumDuration() , 0.0 );
+
+		final Leg walk = (Leg) plan.getPlanElements().get( 3 );
+		Assert.assertEquals( Id.createLinkId( 1 ) , walk.getRoute().getEndLinkId() );
+		Assert.assertEquals( 700 , walk.getRoute().getDistance() , 0.0 );
+	}
+
+}
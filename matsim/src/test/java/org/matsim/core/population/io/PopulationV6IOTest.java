@@ -1,5 +1,7 @@
 package org.matsim.core.population.io;
 
+import java.util.Iterator;
+
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -7,6 +9,7 @@ import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.population.*;
+import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.scenario.ScenarioUtils;
@@ -208,4 +211,47 @@ public class PopulationV6IOTest {
 				population.getAttributes().getAttribute( "type" ) ,
 				readScenario.getPopulation().getAttributes().getAttribute( "type" ) );
 	}
+
+	@Test
+	public void testParallelReadingKeepsPersonOrder() {
+		final Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig() );
+
+		// more persons than fit into a single block, with ids not in natural order
+		final int nPersons = 10 * ParallelPopulationReaderMatsimV6.PERSONS_PER_BLOCK + 7;
+		for ( int i = 0; i < nPersons; i++ ) {
+			final Person person = population.getFactory().createPerson(Id.createPersonId( (i * 7919) % nPersons ));
+			population.addPerson( person );
+			person.getAttributes().putAttribute( "index" , i );
+
+			final Plan plan = population.getFactory().createPlan();
+			person.addPlan( plan );
+			plan.addActivity( population.getFactory().createActivityFromLinkId( "home" , Id.createLinkId( i )));
+			plan.addLeg( population.getFactory().createLeg( "walk" ) );
+			plan.addActivity( population.getFactory().createActivityFromLinkId( "work" , Id.createLinkId( i + 1 )));
+		}
+
+		final String file = utils.getOutputDirectory()+"/population.xml";
+		new PopulationWriter( population ).writeV6( file );
+
+		// the writer sorts the persons by id, so the order of the file is the one the sequential reader produces
+		final Scenario sequentialScenario = ScenarioUtils.createScenario( ConfigUtils.createConfig() );
+		new PopulationReader( sequentialScenario ).readFile( file );
+
+		final Config config = ConfigUtils.createConfig();
+		config.global().setNumberOfThreads( 4 );
+		final Scenario readScenario = ScenarioUtils.createScenario( config );
+		new PopulationReader( readScenario ).readFile( file );
+
+		Assert.assertEquals( nPersons , readScenario.getPopulation().getPersons().size() );
+		final Iterator<? extends Person> expectedPersons = sequentialScenario.getPopulation().getPersons().values().iterator();
+		for ( Person readPerson : readScenario.getPopulation().getPersons().values() ) {
+			final Person expectedPerson = expectedPersons.next();
+			Assert.assertEquals( expectedPerson.getId() , readPerson.getId() );
+			final int index = (Integer) expectedPerson.getAttributes().getAttribute( "index" );
+			Assert.assertEquals( Id.createPersonId( (index * 7919) % nPersons ) , readPerson.getId() );
+			Assert.assertEquals( index , readPerson.getAttributes().getAttribute( "index" ) );
+			final Activity readAct = (Activity) readPerson.getSelectedPlan().getPlanElements().get( 2 );
+			Assert.assertEquals( Id.createLinkId( index + 1 ) , readAct.getLinkId() );
+		}
+	}
 }
@@ -0,0 +1,86 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PooledNetworkRouteTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+public class PooledNetworkRouteTest extends AbstractNetworkRouteTest {
+
+	private final PooledNetworkRouteFactory factory = new PooledNetworkRouteFactory();
+
+	@Override
+	public NetworkRoute getNetworkRouteInstance(final Id<Link> fromLinkId, final Id<Link> toLinkId, final Network network) {
+		return (NetworkRoute) this.factory.createRoute(fromLinkId, toLinkId);
+	}
+
+	@Test
+	public void testClone() {
+		Id<Link> id1 = Id.create(1, Link.class);
+		Id<Link> id2 = Id.create(2, Link.class);
+		List<Id<Link>> srcRoute = new ArrayList<>();
+		srcRoute.add(Id.create(3, Link.class));
+		srcRoute.add(Id.create(4, Link.class));
+		NetworkRoute route1 = getNetworkRouteInstance(id1, id2, null);
+		route1.setLinkIds(id1, srcRoute, id2);
+
+		NetworkRoute route2 = (NetworkRoute) route1.clone();
+
+		srcRoute.add(Id.create(5, Link.class));
+		route1.setLinkIds(id1, srcRoute, id2);
+
+		Assert.assertEquals(3, route1.getLinkIds().size());
+		Assert.assertEquals(2, route2.getLinkIds().size());
+	}
+
+	@Test
+	public void testSequencesAreShared() {
+		Id<Link> id1 = Id.create(1, Link.class);
+		Id<Link> id2 = Id.create(2, Link.class);
+		List<Id<Link>> links = Arrays.asList(Id.create(3, Link.class), Id.create(4, Link.class));
+
+		PooledNetworkRouteImpl route1 = (PooledNetworkRouteImpl) getNetworkRouteInstance(id1, id2, null);
+		route1.setLinkIds(id1, links, id2);
+		PooledNetworkRouteImpl route2 = (PooledNetworkRouteImpl) getNetworkRouteInstance(id1, id2, null);
+		route2.setLinkIds(id1, new ArrayList<>(links), id2);
+		Assert.assertEquals(links, route2.getLinkIds());
+		Assert.assertEquals(route1.getLinkIds(), route2.getLinkIds());
+
+		// identical content is stored once, and changing one route does not affect the other
+		LinkSequencePool pool = new LinkSequencePool();
+		int[] sequence1 = pool.getSequence(links);
+		int[] sequence2 = pool.getSequence(new ArrayList<>(links));
+		Assert.assertSame(sequence1, sequence2);
+
+		route2.setLinkIds(id1, Arrays.asList(Id.create(3, Link.class)), id2);
+		Assert.assertEquals(2, route1.getLinkIds().size());
+		Assert.assertEquals(1, route2.getLinkIds().size());
+		Assert.assertEquals("1 3 4 2", route1.getRouteDescription());
+	}
+
+}
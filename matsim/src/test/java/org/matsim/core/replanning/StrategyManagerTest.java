@@ -38,7 +38,9 @@ import org.matsim.core.replanning.selectors.PlanSelector;
 import org.matsim.core.replanning.selectors.RandomPlanSelector;
 import org.matsim.core.scenario.ScenarioUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -373,6 +375,78 @@ public class StrategyManagerTest {
 		Assert.assertEquals(1.0, weights.get(2), 1e-8);
 	}
 	
+	@Test
+	public void testParallelPlanSelectionIsIndependentOfNumberOfThreads() {
+		List<Integer> selectedOneThread = new ArrayList<>();
+		List<Id<Person>> handledOneThread = new ArrayList<>();
+		runPlanSelection(1, new RandomPlanSelector<>(), selectedOneThread, handledOneThread);
+		List<Integer> selectedFourThreads = new ArrayList<>();
+		List<Id<Person>> handledFourThreads = new ArrayList<>();
+		runPlanSelection(4, new RandomPlanSelector<>(), selectedFourThreads, handledFourThreads);
+
+		Assert.assertEquals(selectedOneThread, selectedFourThreads);
+		Assert.assertEquals(handledOneThread, handledFourThreads);
+		Assert.assertTrue(selectedOneThread.contains(0));
+		Assert.assertTrue(selectedOneThread.contains(2));
+		Assert.assertTrue(handledOneThread.size() > 0);
+		for (int i = 1; i < handledOneThread.size(); i++) {
+			Assert.assertTrue("plans must be handed to the modules in the order of the persons",
+					Integer.parseInt(handledOneThread.get(i - 1).toString()) < Integer.parseInt(handledOneThread.get(i).toString()));
+		}
+	}
+
+	@Test
+	public void testParallelPlanSelectionWithLocalRandomInstances() {
+		// a selector creating a new random number generator for every person, as some selectors do:
+		PlanSelector<Plan, Person> selector = person -> {
+			Random rnd = MatsimRandom.getLocalInstance();
+			return person.getPlans().get(rnd.nextInt(person.getPlans().size()));
+		};
+		List<Integer> selectedOneThread = new ArrayList<>();
+		runPlanSelection(1, selector, selectedOneThread, new ArrayList<>());
+		List<Integer> selectedFourThreads = new ArrayList<>();
+		runPlanSelection(4, selector, selectedFourThreads, new ArrayList<>());
+
+		Assert.assertEquals(selectedOneThread, selectedFourThreads);
+	}
+
+	private static void runPlanSelection(final int numberOfThreads, final PlanSelector<Plan, Person> selector,
+			final List<Integer> selectedPlans, final List<Id<Person>> handledPersons) {
+		MatsimRandom.reset(4711);
+		Population population = ScenarioUtils.createScenario(ConfigUtils.createConfig()).getPopulation();
+		for (int i = 0; i < 1000; i++) {
+			Person p = PopulationUtils.getFactory().createPerson(Id.create(i, Person.class));
+			for (int j = 0; j < 3; j++) {
+				Plan plan = PersonUtils.createAndAddPlan(p, false);
+				plan.setScore((double) j);
+			}
+			population.addPerson(p);
+		}
+
+		StrategyManager manager = new StrategyManager();
+		manager.setPlanSelectionThreads(numberOfThreads);
+		manager.addStrategyForDefaultSubpopulation(new PlanStrategyImpl.Builder(selector).build(), 0.8);
+		manager.addStrategyForDefaultSubpopulation(new PlanStrategyImpl.Builder(new BestPlanSelector<Plan, Person>())
+				.addStrategyModule(new PlanStrategyModule() {
+					@Override
+					public void prepareReplanning(ReplanningContext replanningContext) {
+					}
+					@Override
+					public void handlePlan(Plan plan) {
+						handledPersons.add(plan.getPerson().getId());
+					}
+					@Override
+					public void finishReplanning() {
+					}
+				}).build(), 0.2);
+		manager.run(population, 1, null);
+		manager.shutdownPlanSelectionThreads();
+
+		for (Person p : population.getPersons().values()) {
+			selectedPlans.add(p.getPlans().indexOf(p.getSelectedPlan()));
+		}
+	}
+
 	/**
 	 * A simple extension to the PlanStrategy which counts how often it was
 	 * called.
@@ -20,12 +20,19 @@
 
 package org.matsim.core.replanning.modules;
 
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup.ReplanningScheduling;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 
 /**
@@ -60,6 +67,95 @@ public class AbstractMultithreadedModuleTest {
 
 	}
 
+	@Test
+	public void testWorkStealingHandlesEachPlanOnce() {
+		Set<Plan> handled = ConcurrentHashMap.newKeySet();
+		AtomicInteger handledCount = new AtomicInteger(0);
+		AtomicInteger instances = new AtomicInteger(0);
+		AbstractMultithreadedModule testee = new AbstractMultithreadedModule(4, ReplanningScheduling.workStealing) {
+			@Override
+			public PlanAlgorithm getPlanAlgoInstance() {
+				instances.incrementAndGet();
+				return plan -> {
+					handled.add(plan);
+					handledCount.incrementAndGet();
+				};
+			}
+			@Override
+			protected boolean isPlanAlgoInstanceReusable() {
+				return true;
+			}
+		};
+
+		for (int iteration = 0; iteration < 2; iteration++) {
+			handled.clear();
+			handledCount.set(0);
+			testee.prepareReplanning(null);
+			for (int i = 0; i < 1000; i++) {
+				testee.handlePlan(PopulationUtils.createPlan());
+			}
+			testee.finishReplanning();
+			Assert.assertEquals(1000, handled.size());
+			Assert.assertEquals(1000, handledCount.get());
+		}
+		Assert.assertEquals("plan algorithms should be reused in the second iteration.", 4, instances.get());
+	}
+
+	@Test
+	public void testWorkStealingOneInstancePerThread() {
+		Map<PlanAlgorithm, Thread> threadOfInstance = new ConcurrentHashMap<>();
+		AtomicInteger instances = new AtomicInteger(0);
+		AbstractMultithreadedModule testee = new AbstractMultithreadedModule(4, ReplanningScheduling.workStealing) {
+			@Override
+			public PlanAlgorithm getPlanAlgoInstance() {
+				instances.incrementAndGet();
+				return new PlanAlgorithm() {
+					@Override
+					public void run(Plan plan) {
+						Thread previous = threadOfInstance.putIfAbsent(this, Thread.currentThread());
+						Assert.assertTrue("an instance must only be used by one thread.", previous == null || previous == Thread.currentThread());
+					}
+				};
+			}
+		};
+
+		for (int iteration = 0; iteration < 3; iteration++) {
+			instances.set(0);
+			testee.prepareReplanning(null);
+			for (int i = 0; i < 1000; i++) {
+				testee.handlePlan(PopulationUtils.createPlan());
+			}
+			testee.finishReplanning();
+			Assert.assertTrue("at most one instance per thread expected, got " + instances.get(), instances.get() <= 4);
+			if (iteration == 1) {
+				// the module starts new threads when it is used after the shutdown
+				AbstractMultithreadedModule.shutdownExecutors();
+			}
+		}
+		Assert.assertTrue(threadOfInstance.size() <= 3 * 4);
+	}
+
+	@Test
+	public void testCrashingThreadWithWorkStealing() {
+		AbstractMultithreadedModule testee = new AbstractMultithreadedModule(2, ReplanningScheduling.workStealing) {
+			@Override
+			public PlanAlgorithm getPlanAlgoInstance() {
+				return new CrashingPlanAlgo();
+			}
+		};
+		testee.prepareReplanning(null);
+		testee.handlePlan(null);
+		testee.handlePlan(null);
+		testee.handlePlan(null);
+		try {
+			testee.finishReplanning();
+			Assert.fail("expected exception, got none.");
+		} catch (RuntimeException e) {
+			log.info("Catched expected exception.", e);
+			Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
 	private static class DummyAbstractMultithreadedModule extends AbstractMultithreadedModule {
 		public DummyAbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
 			super(globalConfigGroup);
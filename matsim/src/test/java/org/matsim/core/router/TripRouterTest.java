@@ -28,19 +28,59 @@ import java.util.List;
 import org.junit.Test;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.Facility;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 
 /**
  * @author thibautd
  */
 public class TripRouterTest {
+	@Test
+	public void testCalcRoutesSameAsCalcRoute() {
+		Config config = ConfigUtils.createConfig();
+		final RoutingModule walkRouter = DefaultRoutingModules.createTeleportationRouter(TransportMode.walk,
+				PopulationUtils.getFactory(), config.plansCalcRoute().getModeRoutingParams().get(TransportMode.walk));
+		TripRouter tripRouter = new TripRouter.Builder(config).putRoutingModule(TransportMode.walk, () -> walkRouter).builder();
+
+		Facility<?> from = new ActivityWrapperFacility(PopulationUtils.createActivityFromCoordAndLinkId("h", new Coord(0, 0), Id.create("1", Link.class)));
+		Facility<?> to = new ActivityWrapperFacility(PopulationUtils.createActivityFromCoordAndLinkId("w", new Coord(3000, 4000), Id.create("2", Link.class)));
+		double[] departureTimes = new double[] { 8.0*3600, 7.0*3600, 8.0*3600 + 15*60 };
+		List<List<? extends PlanElement>> trips = tripRouter.calcRoutes(TransportMode.walk, from, to, departureTimes, null);
+
+		assertEquals(departureTimes.length, trips.size());
+		for (int i = 0; i < departureTimes.length; i++) {
+			List<? extends PlanElement> expected = tripRouter.calcRoute(TransportMode.walk, from, to, departureTimes[i], null);
+			List<? extends PlanElement> trip = trips.get(i);
+			assertEquals(expected.size(), trip.size());
+			for (int j = 0; j < expected.size(); j++) {
+				Leg expectedLeg = (Leg) expected.get(j);
+				Leg leg = (Leg) trip.get(j);
+				assertEquals(expectedLeg.getMode(), leg.getMode());
+				assertEquals(departureTimes[i], leg.getDepartureTime(), 0.0);
+				assertEquals(expectedLeg.getTravelTime(), leg.getTravelTime(), 0.0);
+				assertEquals(expectedLeg.getRoute().getStartLinkId(), leg.getRoute().getStartLinkId());
+				assertEquals(expectedLeg.getRoute().getEndLinkId(), leg.getRoute().getEndLinkId());
+			}
+		}
+	}
+
+	@Test(expected = TripRouter.UnknownModeException.class)
+	public void testCalcRoutesUnknownMode() {
+		TripRouter tripRouter = new TripRouter.Builder(ConfigUtils.createConfig()).builder();
+		Facility<?> facility = new ActivityWrapperFacility(PopulationUtils.createActivityFromCoordAndLinkId("h", new Coord(0, 0), Id.create("1", Link.class)));
+		tripRouter.calcRoutes(TransportMode.car, facility, facility, new double[] { 8.0*3600 }, null);
+	}
+
 	@Test
 	public void testTripInsertion() {
 		Plan plan = PopulationUtils.createPlan();
@@ -20,6 +20,11 @@
 package org.matsim.core.scenario;
 
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -59,6 +64,46 @@ public class ScenarioLoaderImplTest {
 		}
 	}
 
+	@Test
+	public void testLoadScenario_parallel() {
+		Config config = ConfigUtils.loadConfig(IOUtils.newUrl(this.util.classInputResourcePath(), "transitConfig.xml"));
+		config.transit().setTransitLinesAttributesFile("transitLinesAttributes.xml");
+		config.transit().setTransitStopsAttributesFile("transitStopsAttributes.xml");
+		config.global().setParallelScenarioLoading(true);
+		config.global().setNumberOfThreads(4);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		Assert.assertEquals(1, scenario.getTransitSchedule().getTransitLines().size());
+		Assert.assertEquals(2, scenario.getTransitSchedule().getFacilities().size());
+		Assert.assertEquals("world", scenario.getTransitSchedule().getTransitLinesAttributes().getAttribute("Blue Line", "hello"));
+		Assert.assertEquals(Boolean.TRUE, scenario.getTransitSchedule().getTransitStopsAttributes().getAttribute("1", "hasP+R"));
+	}
+
+	@Test
+	public void testLoadScenario_binaryImageCache() throws IOException {
+		File inputDir = new File(this.util.getOutputDirectory(), "input");
+		inputDir.mkdirs();
+		for (String filename : new String[] { "network.xml", "transitSchedule.xml" }) {
+			try (InputStream stream = IOUtils.newUrl(this.util.classInputResourcePath(), filename).openStream()) {
+				Files.copy(stream, new File(inputDir, filename).toPath());
+			}
+		}
+		Config config = ConfigUtils.loadConfig(IOUtils.newUrl(this.util.classInputResourcePath(), "transitConfig.xml"));
+		config.network().setInputFile(new File(inputDir, "network.xml").getAbsolutePath());
+		config.network().setUseBinaryImageCache(true);
+		config.transit().setTransitScheduleFile(new File(inputDir, "transitSchedule.xml").getAbsolutePath());
+		config.transit().setUseBinaryImageCache(true);
+
+		Scenario fromXml = ScenarioUtils.loadScenario(config);
+		File[] images = inputDir.listFiles((dir, name) -> name.endsWith(".bin"));
+		Assert.assertEquals(2, images.length);
+
+		Scenario fromImages = ScenarioUtils.loadScenario(config);
+		Assert.assertEquals(fromXml.getNetwork().getLinks().keySet(), fromImages.getNetwork().getLinks().keySet());
+		Assert.assertEquals(fromXml.getTransitSchedule().getFacilities().keySet(), fromImages.getTransitSchedule().getFacilities().keySet());
+		Assert.assertEquals(fromXml.getTransitSchedule().getTransitLines().keySet(), fromImages.getTransitSchedule().getTransitLines().keySet());
+		Assert.assertEquals(2, inputDir.listFiles((dir, name) -> name.endsWith(".bin")).length);
+	}
+
 	@Test
 	public void testLoadScenario_loadPersonAttributes() {
 		Config config = ConfigUtils.loadConfig(IOUtils.newUrl(this.util.classInputResourcePath(), "personAttributesConfig.xml"));
@@ -22,13 +22,21 @@ package org.matsim.core.scoring;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
 import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup.ActivityParams;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.scenario.MutableScenario;
@@ -142,6 +150,56 @@ public class EventsToScoreTest extends MatsimTestCase {
 		}
 	}
 
+	public void testShardedScoring() {
+		double[] scores = runScoring(0);
+		double[] shardedScores = runScoring(3);
+		for (int i = 0; i < scores.length; i++) {
+			assertFalse(scores[i] == 0.0);
+			assertEquals(scores[i], shardedScores[i], 1e-10);
+		}
+	}
+
+	private static double[] runScoring(int numberOfScoringShards) {
+		Config config = ConfigUtils.createConfig();
+		config.planCalcScore().setNumberOfScoringShards(numberOfScoringShards);
+		config.planCalcScore().setMarginalUtilityOfMoney(1.);
+		ActivityParams home = new ActivityParams("h");
+		home.setTypicalDuration(16 * 3600);
+		config.planCalcScore().addActivityParams(home);
+		ActivityParams work = new ActivityParams("w");
+		work.setTypicalDuration(8 * 3600);
+		config.planCalcScore().addActivityParams(work);
+
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Population population = scenario.getPopulation();
+		for (int i = 0; i < 10; i++) {
+			Person person = population.getFactory().createPerson(Id.create(i, Person.class));
+			person.addPlan(population.getFactory().createPlan());
+			population.addPerson(person);
+		}
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsToScore e2s = EventsToScore.createWithScoreUpdating(scenario, new CharyparNagelScoringFunctionFactory(scenario), events);
+		e2s.beginIteration(0);
+		Id<Link> homeLink = Id.create(1, Link.class);
+		Id<Link> workLink = Id.create(2, Link.class);
+		for (int i = 0; i < 10; i++) {
+			Id<Person> personId = Id.create(i, Person.class);
+			double departure = 7 * 3600 + i * 60;
+			events.processEvent(new ActivityEndEvent(departure, personId, homeLink, null, "h"));
+			events.processEvent(new PersonDepartureEvent(departure, personId, homeLink, TransportMode.car));
+			events.processEvent(new TeleportationArrivalEvent(departure + 600 + i, personId, 1000.0 * i));
+			events.processEvent(new PersonArrivalEvent(departure + 600 + i, personId, workLink, TransportMode.car));
+			events.processEvent(new ActivityStartEvent(departure + 600 + i, personId, workLink, null, "w"));
+			events.processEvent(new PersonMoneyEvent(12 * 3600, personId, -i));
+		}
+		e2s.finish();
+		double[] scores = new double[10];
+		for (int i = 0; i < 10; i++) {
+			scores[i] = e2s.getAgentScore(Id.create(i, Person.class));
+		}
+		return scores;
+	}
+
 	private static class MockScoringFunctionFactory implements ScoringFunctionFactory {
 
 		@Override
@@ -232,6 +232,22 @@ public class CharyparNagelScoringFunctionTest {
 		assertEquals(-3.5, calcScore(f), EPSILON);
 	}
 
+	@Test
+	public void testTransitWalkIsScoredAsWalk() {
+		Fixture f = new Fixture();
+		f.config.planCalcScore().getModes().get(TransportMode.walk).setMarginalUtilityOfTraveling(-18.0);
+		ScoringParameters params = new ScoringParameters.Builder(f.scenario, Id.create("1", Person.class)).build();
+		assertEquals(params.getModeIndex(TransportMode.walk), params.getModeIndex(TransportMode.transit_walk));
+		assertEquals(-1, params.getModeIndex("unknown mode"));
+
+		CharyparNagelLegScoring legScoring = new CharyparNagelLegScoring(params, f.scenario.getNetwork());
+		Leg leg = PopulationUtils.createLeg(TransportMode.transit_walk);
+		leg.setDepartureTime(7 * 3600);
+		leg.setTravelTime(30 * 60);
+		legScoring.handleLeg(leg);
+		assertEquals(-9.0, legScoring.getScore(), EPSILON);
+	}
+
 	/**
 	 * Test the performing part of the scoring function.
 	 */
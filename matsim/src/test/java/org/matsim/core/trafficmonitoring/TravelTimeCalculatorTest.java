@@ -579,4 +579,94 @@ public class TravelTimeCalculatorTest extends MatsimTestCase {
 		Assert.assertEquals("Filtering analyzed transport modes is enabled, but no modes set. Therefore, use default (=car)", 100.0, 
 				ttc.getLinkTravelTimes().getLinkTravelTime(link2, 200, null, null), 1e-8);
 	}
+
+	public void testGetRelativeTravelTimeChange() {
+		Network network = NetworkUtils.createNetwork();
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTraveltimeBinSize(900);
+		TravelTimeCalculator ttc = new TravelTimeCalculator(network, config);
+
+		Node n1 = network.getFactory().createNode(Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = network.getFactory().createNode(Id.create(2, Node.class), new Coord(1000, 0));
+		network.addNode(n1);
+		network.addNode(n2);
+		Link link1 = network.getFactory().createLink(Id.create(1, Link.class), n1, n2);
+		link1.setLength(1000);
+		link1.setFreespeed(10);
+		network.addLink(link1);
+		Link link2 = network.getFactory().createLink(Id.create(2, Link.class), n2, n1);
+		link2.setLength(1000);
+		link2.setFreespeed(10);
+		network.addLink(link2);
+
+		Id<Vehicle> vehId = Id.create("veh", Vehicle.class);
+		Assert.assertEquals(Double.POSITIVE_INFINITY, ttc.getRelativeTravelTimeChange(link1), 0.0);
+
+		ttc.setRecordTravelTimeChanges(true);
+		ttc.handleEvent(new LinkEnterEvent(100, vehId, link1.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(300, vehId, link1.getId()));
+		ttc.reset(1);
+		Assert.assertEquals("the link is at free speed again", 0.5, ttc.getRelativeTravelTimeChange(link1), 1e-6);
+		Assert.assertEquals("no traffic in both iterations", 0.0, ttc.getRelativeTravelTimeChange(link2), 0.0);
+
+		ttc.handleEvent(new LinkEnterEvent(100, vehId, link1.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(300, vehId, link1.getId()));
+		ttc.reset(2);
+		ttc.handleEvent(new LinkEnterEvent(100, vehId, link1.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(310, vehId, link1.getId()));
+		Assert.assertEquals(0.05, ttc.getRelativeTravelTimeChange(link1), 1e-6);
+	}
+
+	public void testConcurrentEventHandling() throws InterruptedException {
+		Network network = NetworkUtils.createNetwork();
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTraveltimeBinSize(900);
+		config.setTravelTimeCalculatorType(TravelTimeCalculatorConfigGroup.TravelTimeCalculatorType.TravelTimeCalculatorConcurrentArray.toString());
+		config.setCalculateLinkToLinkTravelTimes(true);
+
+		Node n1 = network.getFactory().createNode(Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = network.getFactory().createNode(Id.create(2, Node.class), new Coord(1000, 0));
+		Node n3 = network.getFactory().createNode(Id.create(3, Node.class), new Coord(2000, 0));
+		network.addNode(n1);
+		network.addNode(n2);
+		network.addNode(n3);
+		final Link link1 = network.getFactory().createLink(Id.create(1, Link.class), n1, n2);
+		link1.setLength(1000);
+		link1.setFreespeed(10);
+		network.addLink(link1);
+		final Link link2 = network.getFactory().createLink(Id.create(2, Link.class), n2, n3);
+		link2.setLength(1000);
+		link2.setFreespeed(10);
+		network.addLink(link2);
+
+		final TravelTimeCalculator ttc = TravelTimeCalculator.create(network, config);
+
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int threadNumber = t;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 1000; i++) {
+						Id<Vehicle> vehId = Id.create(threadNumber + "_" + i, Vehicle.class);
+						double leaveTime = 200 + (i % 2) * 20;
+						ttc.handleEvent(new LinkEnterEvent(100, vehId, link1.getId()));
+						ttc.handleEvent(new LinkLeaveEvent(leaveTime, vehId, link1.getId()));
+						ttc.handleEvent(new LinkEnterEvent(leaveTime, vehId, link2.getId()));
+						ttc.handleEvent(new LinkLeaveEvent(leaveTime + 50, vehId, link2.getId()));
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(110.0, ttc.getLinkTravelTime(link1, 100), 1e-8);
+		Assert.assertEquals(50.0, ttc.getLinkTravelTime(link2, 100), 1e-8);
+		Assert.assertEquals(110.0, ttc.getLinkToLinkTravelTime(link1.getId(), link2.getId(), 100), 1e-8);
+		Assert.assertEquals("free speed travel time without traffic", 100.0, ttc.getLinkTravelTime(link1, 3600), 1e-8);
+	}
+
 }
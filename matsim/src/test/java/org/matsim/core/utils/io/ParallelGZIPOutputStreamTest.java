@@ -0,0 +1,93 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelGZIPOutputStreamTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ParallelGZIPOutputStreamTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		// mix of compressible and random data, not aligned to the block size
+		byte[] data = new byte[1000 * 1000 + 17];
+		Random r = new Random(4711);
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (i / 1000) % 2 == 0 ? (byte) ('a' + (i % 7)) : (byte) r.nextInt();
+		}
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new ParallelGZIPOutputStream(compressed, 4)) {
+			out.write(data, 0, 100);
+			out.write(data[100]);
+			out.write(data, 101, data.length - 101);
+		}
+		Assert.assertArrayEquals(data, decompress(compressed.toByteArray()));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		new ParallelGZIPOutputStream(compressed, 2).close();
+		Assert.assertEquals(0, decompress(compressed.toByteArray()).length);
+	}
+
+	@Test
+	public void testIOUtilsWithCompressionThreads() throws IOException {
+		String filename = this.utils.getOutputDirectory() + "test.txt.gz";
+		int originalThreads = IOUtils.getNumberOfCompressionThreads();
+		IOUtils.setNumberOfCompressionThreads(3);
+		try (BufferedWriter writer = IOUtils.getBufferedWriter(filename)) {
+			for (int i = 0; i < 100000; i++) {
+				writer.write("line " + i + "\n");
+			}
+		} finally {
+			IOUtils.setNumberOfCompressionThreads(originalThreads);
+		}
+		try (BufferedReader reader = IOUtils.getBufferedReader(filename)) {
+			for (int i = 0; i < 100000; i++) {
+				Assert.assertEquals("line " + i, reader.readLine());
+			}
+			Assert.assertNull(reader.readLine());
+		}
+	}
+
+	private static byte[] decompress(final byte[] compressed) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			IOUtils.copyStream(in, result);
+		}
+		return result.toByteArray();
+	}
+
+}
@@ -0,0 +1,140 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * MetricsTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.metrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class MetricsTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@After
+	public void tearDown() {
+		Metrics.setEnabled(false);
+		Metrics.reset();
+	}
+
+	@Test
+	public void testNothingIsRecordedWhileDisabled() {
+		Counter counter = Metrics.counter("test.disabled.counter");
+		Timer timer = Metrics.timer("test.disabled.timer");
+		Metrics.setEnabled(false);
+		counter.increment();
+		timer.stop(timer.start());
+		Metrics.histogram("test.disabled.histogram").record(5);
+		Assert.assertEquals(0, counter.getCount());
+		Assert.assertEquals(0, timer.getCount());
+		Assert.assertEquals(0, Metrics.histogram("test.disabled.histogram").getCount());
+	}
+
+	@Test
+	public void testRegistryReturnsSameInstance() {
+		Assert.assertSame(Metrics.counter("test.same"), Metrics.counter("test.same"));
+		try {
+			Metrics.timer("test.same");
+			Assert.fail("expected an exception for a name registered with another type");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testHistogramPercentiles() {
+		Metrics.setEnabled(true);
+		Histogram histogram = Metrics.histogram("test.percentiles");
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		Assert.assertEquals(100, histogram.getCount());
+		double[] values = histogram.snapshot();
+		Assert.assertEquals(5050, values[1], 0);
+		Assert.assertEquals(100, values[2], 0);
+		// exact up to a factor of two
+		Assert.assertTrue(values[3] >= 50 && values[3] < 100);
+		Assert.assertTrue(values[4] >= 95 && values[4] <= 100);
+		Assert.assertEquals(100, values[5], 0);
+		histogram.record(0);
+		Assert.assertEquals(0, histogram.getPercentile(0.001), 0);
+	}
+
+	@Test
+	public void testConcurrentCounting() throws InterruptedException {
+		Metrics.setEnabled(true);
+		final Counter counter = Metrics.counter("test.concurrent.counter");
+		final Histogram histogram = Metrics.histogram("test.concurrent.histogram");
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					counter.increment();
+					histogram.record(i);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals(40000, counter.getCount());
+		Assert.assertEquals(40000, histogram.getCount());
+		Assert.assertEquals(9999, histogram.snapshot()[2], 0);
+	}
+
+	@Test
+	public void testWriteIteration() throws IOException {
+		String filename = this.utils.getOutputDirectory() + "metrics.csv";
+		Metrics.setEnabled(true);
+		Counter counter = Metrics.counter("test.write.counter");
+		Timer timer = Metrics.timer("test.write.timer");
+		counter.add(3);
+		timer.recordNanos(2000000);
+		Metrics.writeIteration(0, filename, false);
+		Assert.assertEquals("values are reset after writing", 0, counter.getCount());
+		counter.increment();
+		Metrics.writeIteration(1, filename, true);
+
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = IOUtils.getBufferedReader(filename)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("iteration") || line.contains(";test.write.")) {
+					lines.add(line);
+				}
+			}
+		}
+		Assert.assertEquals(4, lines.size());
+		Assert.assertEquals("iteration;metric;type;count;sum;mean;max;p50;p95;p99;perSecond", lines.get(0));
+		Assert.assertTrue(lines.get(1), lines.get(1).startsWith("0;test.write.counter;counter;3;3;1;;;;;"));
+		Assert.assertTrue(lines.get(2), lines.get(2).startsWith("0;test.write.timer;timer[ms];1;2;2;2;2;2;2;"));
+		Assert.assertTrue(lines.get(3), lines.get(3).startsWith("1;test.write.counter;counter;1;1;1;;;;;"));
+	}
+
+}
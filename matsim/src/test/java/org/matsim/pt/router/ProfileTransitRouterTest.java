@@ -0,0 +1,124 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ProfileTransitRouterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.pt.routes.ExperimentalTransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestCase;
+
+/**
+ * Tests the profile queries of {@link RaptorTransitRouter}.
+ */
+public class ProfileTransitRouterTest {
+
+	private static RaptorTransitRouter createRouter(final TransitSchedule schedule, final TransitRouterConfig trConfig) {
+		RaptorData data = RaptorData.createFromSchedule(schedule, trConfig.getBeelineWalkConnectionDistance());
+		return new RaptorTransitRouter(trConfig, data, new TransitRouterNetworkTravelTimeAndDisutility(trConfig, new PreparedTransitSchedule(schedule)));
+	}
+
+	private static double getTravelTime(final List<Leg> legs) {
+		double travelTime = 0.0;
+		for (Leg leg : legs) {
+			travelTime += leg.getTravelTime();
+		}
+		return travelTime;
+	}
+
+	private static void assertPtLeg(final Leg leg, final String accessStop, final String egressStop, final String routeId) {
+		assertEquals(TransportMode.pt, leg.getMode());
+		assertTrue("expected TransitRoute in leg.", leg.getRoute() instanceof ExperimentalTransitRoute);
+		ExperimentalTransitRoute ptRoute = (ExperimentalTransitRoute) leg.getRoute();
+		assertEquals(Id.create(accessStop, TransitStopFacility.class), ptRoute.getAccessStopId());
+		assertEquals(Id.create(egressStop, TransitStopFacility.class), ptRoute.getEgressStopId());
+		assertEquals(Id.create(routeId, TransitRoute.class), ptRoute.getRouteId());
+	}
+
+	@Test
+	public void testProfile() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = new TransitRouterConfig(f.scenario.getConfig());
+		RaptorTransitRouter router = createRouter(f.schedule, trConfig);
+		Coord toCoord = new Coord(16100, 5050);
+		List<ProfileJourney> profile = router.calcProfile(new FakeFacility(new Coord(3800, 5100)), new FakeFacility(toCoord), 5.0*3600, 6.0*3600, null);
+		// the *:06, *:26 and *:46 courses of the blue line, arriving in D at *:29, *:49 and *:09
+		assertEquals(3, profile.size());
+		double egressTime = CoordUtils.calcEuclideanDistance(f.schedule.getFacilities().get(Id.create("6", TransitStopFacility.class)).getCoord(), toCoord) / trConfig.getBeelineWalkSpeed();
+		for (int i = 0; i < profile.size(); i++) {
+			ProfileJourney journey = profile.get(i);
+			double courseDeparture = 5.0*3600 + (6.0 + 20.0*i) * 60;
+			assertEquals(3, journey.getLegs().size());
+			assertPtLeg(journey.getLegs().get(1), "0", "6", "blue A > I");
+			assertEquals("arrives just in time at the stop", courseDeparture, journey.getDepartureTime() + journey.getLegs().get(0).getTravelTime(), MatsimTestCase.EPSILON);
+			assertEquals(courseDeparture + 23.0*60 + egressTime, journey.getArrivalTime(), MatsimTestCase.EPSILON);
+			assertEquals(journey.getArrivalTime() - journey.getDepartureTime(), getTravelTime(journey.getLegs()), MatsimTestCase.EPSILON);
+		}
+
+		// leaving earlier, the traveler waits at the stop
+		ProfileJourney journey = profile.get(1);
+		List<Leg> legs = journey.createLegs(5.0*3600 + 10.0*60);
+		assertEquals(journey.getArrivalTime() - (5.0*3600 + 10.0*60), getTravelTime(legs), MatsimTestCase.EPSILON);
+		assertEquals(journey.getLegs().get(0).getTravelTime(), legs.get(0).getTravelTime(), MatsimTestCase.EPSILON);
+		assertTrue("legs must be copies", legs.get(1) != journey.getLegs().get(1));
+	}
+
+	/**
+	 * The labels kept from the later departures of a profile must not change the journeys found for the earlier ones.
+	 */
+	@Test
+	public void testProfileSameAsSingleDepartures() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = new TransitRouterConfig(f.scenario.getConfig());
+		RaptorTransitRouter router = createRouter(f.schedule, trConfig);
+		FakeFacility fromFacility = new FakeFacility(new Coord(3800, 5100));
+		FakeFacility toFacility = new FakeFacility(new Coord(28100, 4950));
+		List<ProfileJourney> profile = router.calcProfile(fromFacility, toFacility, 5.0*3600, 7.0*3600, null);
+		assertTrue(profile.size() > 1);
+		for (int i = 0; i < profile.size(); i++) {
+			ProfileJourney journey = profile.get(i);
+			if (i > 0) {
+				assertTrue(journey.getDepartureTime() > profile.get(i - 1).getDepartureTime());
+				assertTrue(journey.getArrivalTime() > profile.get(i - 1).getArrivalTime());
+			}
+			// a range of one second, to be safe from rounding the departure time
+			List<ProfileJourney> single = router.calcProfile(fromFacility, toFacility, journey.getDepartureTime() - 1.0, journey.getDepartureTime(), null);
+			ProfileJourney singleJourney = single.get(single.size() - 1);
+			assertEquals(journey.getDepartureTime(), singleJourney.getDepartureTime(), MatsimTestCase.EPSILON);
+			assertEquals(journey.getArrivalTime(), singleJourney.getArrivalTime(), MatsimTestCase.EPSILON);
+			assertEquals(journey.getArrivalTime() - journey.getDepartureTime(), getTravelTime(journey.getLegs()), MatsimTestCase.EPSILON);
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RaptorTransitRouterFactoryTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Leg;
+
+public class RaptorTransitRouterFactoryTest {
+
+	@Test
+	public void testFactory() {
+		Fixture f = new Fixture();
+		f.init();
+		RaptorTransitRouterFactory factory = new RaptorTransitRouterFactory(f.schedule, new TransitRouterConfig(f.scenario.getConfig()));
+		TransitRouter router1 = factory.get();
+		TransitRouter router2 = factory.get();
+		assertTrue(router1 instanceof RaptorTransitRouter);
+		assertTrue("every thread needs its own router", router1 != router2);
+	}
+
+	@Test
+	public void testMaxTransfers() {
+		Fixture f = new Fixture();
+		f.init();
+		// the journey of TransitRouterImplTest.testLineChange, which needs a transfer
+		Coord fromCoord = new Coord(3800, 5100);
+		Coord toCoord = new Coord(16100, 10050);
+		TransitRouter router = new RaptorTransitRouterFactory(f.schedule, new TransitRouterConfig(f.scenario.getConfig())).get();
+		List<Leg> legs = router.calcRoute(new FakeFacility(fromCoord), new FakeFacility(toCoord), 6.0*3600, null);
+		assertEquals(2, countPtLegs(legs));
+
+		f = new Fixture();
+		f.scenario.getConfig().transitRouter().setMaxTransfers(0);
+		f.init();
+		router = new RaptorTransitRouterFactory(f.schedule, new TransitRouterConfig(f.scenario.getConfig())).get();
+		legs = router.calcRoute(new FakeFacility(fromCoord), new FakeFacility(toCoord), 6.0*3600, null);
+		assertTrue("no transfers allowed", countPtLegs(legs) <= 1);
+	}
+
+	private static int countPtLegs(final List<Leg> legs) {
+		int count = 0;
+		for (Leg leg : legs) {
+			if (TransportMode.pt.equals(leg.getMode())) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
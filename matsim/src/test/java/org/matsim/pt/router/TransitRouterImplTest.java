@@ -54,6 +54,7 @@ import org.matsim.core.scenario.ScenarioUtils;
 import org.matsim.core.utils.geometry.CoordUtils;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacilitiesFactory;
 import org.matsim.facilities.ActivityFacility;
 import org.matsim.pt.routes.ExperimentalTransitRoute;
 import org.matsim.pt.transitSchedule.api.Departure;
@@ -77,8 +78,8 @@ public class TransitRouterImplTest {
 	@Parameters(name = "{index}: TransitRouter == {0}")
 	public static Collection<Object> createRouterTypes() {
 		Object[] router = new Object [] { 
-				"standard"
-//				,TransitRouterType.raptor
+				"standard",
+				"raptor"
 		};
 		return Arrays.asList(router);
 	}
@@ -116,17 +117,31 @@ public class TransitRouterImplTest {
 		assertEquals(expectedTravelTime, actualTravelTime, MatsimTestCase.EPSILON);
 	}
 
+	/**
+	 * A router keeps data between queries; the second query must not depend on the first one.
+	 */
+	@Test
+	public void testReusedRouter() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = new TransitRouterConfig(f.scenario.getConfig());
+		TransitRouter router = createTransitRouter(f.schedule, trConfig, routerType);
+		router.calcRoute(new FakeFacility(new Coord(3800, 5100)), new FakeFacility(new Coord(16100, 10050)), 6.0*3600, null);
+		List<Leg> legs = router.calcRoute(new FakeFacility(new Coord(3800, 5100)), new FakeFacility(new Coord(16100, 5050)), 5.0*3600, null);
+		assertEquals(3, legs.size());
+		assertTrue("expected TransitRoute in leg.", legs.get(1).getRoute() instanceof ExperimentalTransitRoute);
+		ExperimentalTransitRoute ptRoute = (ExperimentalTransitRoute) legs.get(1).getRoute();
+		assertEquals(Id.create("0", TransitStopFacility.class), ptRoute.getAccessStopId());
+		assertEquals(Id.create("6", TransitStopFacility.class), ptRoute.getEgressStopId());
+		assertEquals(Id.create("blue A > I", TransitRoute.class), ptRoute.getRouteId());
+	}
+
 	protected TransitRouter createTransitRouter(TransitSchedule schedule, TransitRouterConfig trConfig, String routerType) {
 		TransitRouter router = null ;
 		switch( routerType ) { 
-//		case raptor:
-//			double costPerMeterTraveled = 0. ;
-//			double costPerBoarding = 0. ;
-//			RaptorDisutility raptorDisutility = new RaptorDisutility(trConfig, costPerBoarding, costPerMeterTraveled);
-//			TransitRouterQuadTree transitRouterQuadTree = new TransitRouterQuadTree(raptorDisutility);
-//			transitRouterQuadTree.initializeFromSchedule(schedule, trConfig.getBeelineWalkConnectionDistance());
-//			router = new Raptor(transitRouterQuadTree, raptorDisutility, trConfig) ;
-//			break;
+		case "raptor":
+			router = new RaptorTransitRouterFactory(schedule, trConfig).get();
+			break;
 		case "standard":
 			router = new TransitRouterImpl(trConfig, schedule);
 			break;
@@ -588,6 +603,73 @@ public class TransitRouterImplTest {
 		}
 	}
 	
+	/**
+	 * Routing several departure times at once must give the same trips as routing every departure time on its own,
+	 * except for profile routers, which give the journeys with the earliest arrival.
+	 */
+	@Test
+	public void testCalcRoutes() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = new TransitRouterConfig(f.scenario.getConfig());
+		TransitRouter router = createTransitRouter(f.schedule, trConfig, routerType);
+		RoutingModule walkRoutingModule = DefaultRoutingModules.createTeleportationRouter(TransportMode.transit_walk, f.scenario.getPopulation().getFactory(),
+				f.config.plansCalcRoute().getModeRoutingParams().get(TransportMode.walk));
+		TransitRouterWrapper wrapper = new TransitRouterWrapper(router, f.schedule, f.scenario.getNetwork(), walkRoutingModule);
+
+		ActivityFacilitiesFactory facilitiesFactory = f.scenario.getActivityFacilities().getFactory();
+		ActivityFacility fromFacility = facilitiesFactory.createActivityFacility(Id.create("fromFacility", ActivityFacility.class), new Coord(3800, 5100));
+		ActivityFacility toFacility = facilitiesFactory.createActivityFacility(Id.create("toFacility", ActivityFacility.class), new Coord(16100, 10050));
+		double[] departureTimes = new double[] { 6.0*3600, 5.0*3600, 5.0*3600 + 10*60, 5.0*3600 + 40*60, 6.0*3600 };
+		List<List<? extends PlanElement>> trips = wrapper.calcRoutes(fromFacility, toFacility, departureTimes, null);
+		assertEquals(departureTimes.length, trips.size());
+		List<ProfileJourney> profile = router instanceof ProfileTransitRouter ?
+				((ProfileTransitRouter) router).calcProfile(fromFacility, toFacility, 5.0*3600, 6.0*3600, null) : new ArrayList<>();
+		int fromProfile = 0;
+		for (int i = 0; i < departureTimes.length; i++) {
+			List<? extends PlanElement> single = wrapper.calcRoute(fromFacility, toFacility, departureTimes[i], null);
+			List<? extends PlanElement> trip = trips.get(i);
+			ProfileJourney journey = null;
+			for (ProfileJourney j : profile) {
+				if (j.getDepartureTime() >= departureTimes[i]) {
+					journey = j;
+					break;
+				}
+			}
+			if (journey == null) {
+				assertSameTrip(single, trip);
+			} else {
+				fromProfile++;
+				double arrivalTime = departureTimes[i] + calcTripDuration(new ArrayList<PlanElement>(trip));
+				assertEquals(journey.getArrivalTime(), arrivalTime, MatsimTestCase.EPSILON);
+				assertTrue(arrivalTime <= departureTimes[i] + calcTripDuration(new ArrayList<PlanElement>(single)) + MatsimTestCase.EPSILON);
+			}
+		}
+		assertEquals(router instanceof ProfileTransitRouter, fromProfile > 0);
+	}
+
+	private static void assertSameTrip(List<? extends PlanElement> expected, List<? extends PlanElement> trip) {
+		assertEquals(expected.size(), trip.size());
+		for (int j = 0; j < expected.size(); j++) {
+			if (expected.get(j) instanceof Leg) {
+				Leg expectedLeg = (Leg) expected.get(j);
+				Leg leg = (Leg) trip.get(j);
+				assertEquals(expectedLeg.getMode(), leg.getMode());
+				assertEquals(expectedLeg.getTravelTime(), leg.getTravelTime(), MatsimTestCase.EPSILON);
+				assertEquals(expectedLeg.getRoute().getStartLinkId(), leg.getRoute().getStartLinkId());
+				assertEquals(expectedLeg.getRoute().getEndLinkId(), leg.getRoute().getEndLinkId());
+				if (expectedLeg.getRoute() instanceof ExperimentalTransitRoute) {
+					assertEquals(expectedLeg.getRoute().getRouteDescription(), leg.getRoute().getRouteDescription());
+				}
+			} else {
+				Activity expectedActivity = (Activity) expected.get(j);
+				Activity activity = (Activity) trip.get(j);
+				assertEquals(expectedActivity.getType(), activity.getType());
+				assertEquals(expectedActivity.getLinkId(), activity.getLinkId());
+			}
+		}
+	}
+
 	private static double calcTripDuration(List<PlanElement> planElements) {
 		double duration = 0.0;
 		for (PlanElement pe : planElements) {			
@@ -51,6 +51,28 @@ public class TransitRouterNetworkTravelTimeCostTest extends TestCase {
 		assertEquals(9.0*60, tc.getLinkTravelTime(testLink, 6.0*3600, null, null), MatsimTestCase.EPSILON);
 	}
 
+	public void testIndexedNextDepartureTime() {
+		Fixture f = new Fixture();
+		f.init();
+		PreparedTransitSchedule preparedSchedule = new PreparedTransitSchedule(f.schedule);
+		PreparedTransitSchedule unindexedSchedule = new PreparedTransitSchedule();
+		TransitRouterNetwork routerNet = TransitRouterNetwork.createFromSchedule(f.schedule, 100.0);
+		int routeLinks = 0;
+		for (TransitRouterNetworkLink link : routerNet.getLinks().values()) {
+			if (link.getRoute() == null) {
+				continue;
+			}
+			routeLinks++;
+			assertTrue(link.routeStopIndex >= 0);
+			for (double time : new double[] { 0.0, 5.5*3600, 6.0*3600 + 121, 23.9*3600, 25.0*3600 }) {
+				double expected = preparedSchedule.getNextDepartureTime(link.getRoute(), link.fromNode.stop, time);
+				assertEquals(expected, preparedSchedule.getNextDepartureTime(link, time), 0.0);
+				assertEquals(expected, unindexedSchedule.getNextDepartureTime(link, time), 0.0);
+			}
+		}
+		assertTrue(routeLinks > 0);
+	}
+
 	public void testWaitingTime() {
 		Fixture f = new Fixture();
 		f.init();
@@ -0,0 +1,139 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryTransitScheduleIOTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.transitSchedule;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitStopArea;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.vehicles.Vehicle;
+
+public class BinaryTransitScheduleIOTest {
+
+	@Test
+	public void testWriteAndRead() {
+		TransitScheduleFactory f = new TransitScheduleFactoryImpl();
+		TransitSchedule schedule = new TransitScheduleImpl(f);
+		schedule.getAttributes().putAttribute("source", "test");
+
+		TransitStopFacility stop1 = f.createTransitStopFacility(Id.create(1, TransitStopFacility.class), new Coord(123, 234), true);
+		stop1.setLinkId(Id.createLinkId("a"));
+		stop1.setName("Main Station");
+		TransitStopFacility stop2 = f.createTransitStopFacility(Id.create(2, TransitStopFacility.class), new Coord(987, 876, 98765), false);
+		stop2.getAttributes().putAttribute("air", "thin");
+		stop2.setStopAreaId(Id.create("GZ", TransitStopArea.class));
+		schedule.addStopFacility(stop1);
+		schedule.addStopFacility(stop2);
+		schedule.getMinimalTransferTimes().set(stop1.getId(), stop2.getId(), 300.0);
+
+		TransitLine line = f.createTransitLine(Id.create("blue", TransitLine.class));
+		line.setName("Blue Line");
+		line.getAttributes().putAttribute("color", "blue");
+		NetworkRoute netRoute = RouteUtils.createLinkNetworkRouteImpl(Id.createLinkId("a"),
+				Arrays.asList(Id.createLinkId("b"), Id.createLinkId("c")), Id.createLinkId("d"));
+		List<TransitRouteStop> stops = new ArrayList<>();
+		stops.add(f.createTransitRouteStop(stop1, Time.UNDEFINED_TIME, 0.0));
+		TransitRouteStop lastStop = f.createTransitRouteStop(stop2, 300.0, Time.UNDEFINED_TIME);
+		lastStop.setAwaitDepartureTime(true);
+		stops.add(lastStop);
+		TransitRoute route = f.createTransitRoute(Id.create("1", TransitRoute.class), netRoute, stops, "bus");
+		route.setDescription("to the airport");
+		route.getAttributes().putAttribute("bidirectional", false);
+		Departure dep1 = f.createDeparture(Id.create("1", Departure.class), 100);
+		dep1.setVehicleId(Id.create("bus1", Vehicle.class));
+		dep1.getAttributes().putAttribute("early", "yes");
+		route.addDeparture(dep1);
+		route.addDeparture(f.createDeparture(Id.create("2", Departure.class), 86300.5));
+		line.addRoute(route);
+		line.addRoute(f.createTransitRoute(Id.create("2", TransitRoute.class), null, new ArrayList<>(stops), "bus"));
+		schedule.addTransitLine(line);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new BinaryTransitScheduleWriter(schedule).write(out);
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		new BinaryTransitScheduleReader(scenario).parse(new ByteArrayInputStream(out.toByteArray()));
+		TransitSchedule schedule2 = scenario.getTransitSchedule();
+
+		Assert.assertEquals("test", schedule2.getAttributes().getAttribute("source"));
+		Assert.assertEquals(2, schedule2.getFacilities().size());
+		TransitStopFacility stop1b = schedule2.getFacilities().get(stop1.getId());
+		Assert.assertEquals(stop1.getCoord(), stop1b.getCoord());
+		Assert.assertTrue(stop1b.getIsBlockingLane());
+		Assert.assertEquals(Id.createLinkId("a"), stop1b.getLinkId());
+		Assert.assertEquals("Main Station", stop1b.getName());
+		Assert.assertNull(stop1b.getStopAreaId());
+		TransitStopFacility stop2b = schedule2.getFacilities().get(stop2.getId());
+		Assert.assertEquals(stop2.getCoord(), stop2b.getCoord());
+		Assert.assertFalse(stop2b.getIsBlockingLane());
+		Assert.assertEquals("thin", stop2b.getAttributes().getAttribute("air"));
+		Assert.assertEquals(stop2.getStopAreaId(), stop2b.getStopAreaId());
+		Assert.assertEquals(300.0, schedule2.getMinimalTransferTimes().get(stop1.getId(), stop2.getId()), 0.0);
+		Assert.assertEquals(Double.NaN, schedule2.getMinimalTransferTimes().get(stop2.getId(), stop1.getId()), 0.0);
+
+		TransitLine line2 = schedule2.getTransitLines().get(line.getId());
+		Assert.assertEquals("Blue Line", line2.getName());
+		Assert.assertEquals("blue", line2.getAttributes().getAttribute("color"));
+		Assert.assertEquals(2, line2.getRoutes().size());
+		TransitRoute route2 = line2.getRoutes().get(route.getId());
+		Assert.assertEquals("bus", route2.getTransportMode());
+		Assert.assertEquals("to the airport", route2.getDescription());
+		Assert.assertEquals(false, route2.getAttributes().getAttribute("bidirectional"));
+		Assert.assertEquals(netRoute.getStartLinkId(), route2.getRoute().getStartLinkId());
+		Assert.assertEquals(netRoute.getLinkIds(), route2.getRoute().getLinkIds());
+		Assert.assertEquals(netRoute.getEndLinkId(), route2.getRoute().getEndLinkId());
+		Assert.assertEquals(2, route2.getStops().size());
+		Assert.assertSame(stop1b, route2.getStops().get(0).getStopFacility());
+		Assert.assertEquals(Time.UNDEFINED_TIME, route2.getStops().get(0).getArrivalOffset(), 0.0);
+		Assert.assertEquals(0.0, route2.getStops().get(0).getDepartureOffset(), 0.0);
+		Assert.assertFalse(route2.getStops().get(0).isAwaitDepartureTime());
+		Assert.assertEquals(300.0, route2.getStops().get(1).getArrivalOffset(), 0.0);
+		Assert.assertTrue(route2.getStops().get(1).isAwaitDepartureTime());
+		Assert.assertEquals(2, route2.getDepartures().size());
+		Departure dep1b = route2.getDepartures().get(dep1.getId());
+		Assert.assertEquals(100.0, dep1b.getDepartureTime(), 0.0);
+		Assert.assertEquals(dep1.getVehicleId(), dep1b.getVehicleId());
+		Assert.assertEquals("yes", dep1b.getAttributes().getAttribute("early"));
+		Assert.assertEquals(86300.5, route2.getDepartures().get(Id.create("2", Departure.class)).getDepartureTime(), 0.0);
+		Assert.assertNull(line2.getRoutes().get(Id.create("2", TransitRoute.class)).getRoute());
+	}
+
+}
@@ -0,0 +1,170 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarObjectAttributesTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.utils.objectattributes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ColumnarObjectAttributesTest {
+
+	@Rule	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testPutGet() {
+		ObjectAttributes oa = new ColumnarObjectAttributes();
+		Assert.assertNull(oa.getAttribute("1", "income"));
+		Assert.assertNull(oa.putAttribute("1", "income", 4200.0));
+		Assert.assertNull(oa.putAttribute("1", "age", 42));
+		Assert.assertNull(oa.putAttribute("1", "carAvail", "always"));
+		Assert.assertNull(oa.putAttribute("1", "license", Boolean.TRUE));
+		Assert.assertNull(oa.putAttribute("2", "carAvail", "never"));
+		Assert.assertNull(oa.putAttribute("3", "carAvail", "always"));
+
+		Assert.assertEquals(Double.valueOf(4200.0), oa.getAttribute("1", "income"));
+		Assert.assertEquals(Integer.valueOf(42), oa.getAttribute("1", "age"));
+		Assert.assertEquals("always", oa.getAttribute("1", "carAvail"));
+		Assert.assertEquals(Boolean.TRUE, oa.getAttribute("1", "license"));
+		Assert.assertEquals("never", oa.getAttribute("2", "carAvail"));
+		Assert.assertEquals("always", oa.getAttribute("3", "carAvail"));
+		Assert.assertNull(oa.getAttribute("2", "income"));
+		Assert.assertNull(oa.getAttribute("4", "carAvail"));
+
+		Assert.assertEquals("always", oa.putAttribute("3", "carAvail", "sometimes"));
+		Assert.assertEquals("sometimes", oa.getAttribute("3", "carAvail"));
+		Assert.assertEquals("always", oa.getAttribute("1", "carAvail"));
+	}
+
+	@Test
+	public void testPut_mixedTypes() {
+		ObjectAttributes oa = new ColumnarObjectAttributes();
+		oa.putAttribute("1", "a", 1.5);
+		oa.putAttribute("2", "a", "x");
+		oa.putAttribute("3", "a", 7L);
+		Assert.assertEquals(Double.valueOf(1.5), oa.getAttribute("1", "a"));
+		Assert.assertEquals("x", oa.getAttribute("2", "a"));
+		Assert.assertEquals(Long.valueOf(7), oa.getAttribute("3", "a"));
+	}
+
+	@Test
+	public void testRemove() {
+		ObjectAttributes oa = new ColumnarObjectAttributes();
+		oa.putAttribute("1", "a", 1);
+		oa.putAttribute("1", "b", "B");
+		oa.putAttribute("2", "a", 2);
+		Assert.assertEquals(Integer.valueOf(1), oa.removeAttribute("1", "a"));
+		Assert.assertNull(oa.removeAttribute("1", "a"));
+		Assert.assertNull(oa.getAttribute("1", "a"));
+		Assert.assertEquals("B", oa.getAttribute("1", "b"));
+		Assert.assertEquals("B", oa.putAttribute("1", "b", null));
+		Assert.assertNull(oa.getAttribute("1", "b"));
+
+		oa.putAttribute("1", "a", 3);
+		oa.removeAllAttributes("2");
+		Assert.assertNull(oa.getAttribute("2", "a"));
+		Assert.assertEquals(Integer.valueOf(3), oa.getAttribute("1", "a"));
+		Assert.assertEquals(Arrays.asList("1"), oa.getObjectIds());
+
+		oa.clear();
+		Assert.assertNull(oa.getAttribute("1", "a"));
+		Assert.assertTrue(oa.getObjectIds().isEmpty());
+	}
+
+	@Test
+	public void testManyObjects() {
+		ObjectAttributes oa = new ColumnarObjectAttributes();
+		for (int i = 0; i < 1000; i++) {
+			oa.putAttribute(Integer.toString(i), "income", i * 10.0);
+			if (i % 3 == 0) {
+				oa.putAttribute(Integer.toString(i), "subpopulation", "freight");
+			}
+		}
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertEquals(Double.valueOf(i * 10.0), oa.getAttribute(Integer.toString(i), "income"));
+			Assert.assertEquals(i % 3 == 0 ? "freight" : null, oa.getAttribute(Integer.toString(i), "subpopulation"));
+		}
+	}
+
+	@Test
+	public void testObjectIds_sameAsObjectAttributes() {
+		ObjectAttributes expected = new ObjectAttributes();
+		ObjectAttributes columnar = new ColumnarObjectAttributes();
+		for (ObjectAttributes oa : Arrays.asList(expected, columnar)) {
+			oa.putAttribute("1", "a", 1);
+			oa.putAttribute("2", "a", 2);
+			oa.putAttribute("2", "b", "B");
+			oa.putAttribute("3", "a", 3);
+			// objects stay known when their attributes are removed one by one...
+			oa.removeAttribute("2", "a");
+			oa.removeAttribute("2", "b");
+			// ...but not after all of them were removed at once, and are added again at the end
+			oa.removeAllAttributes("1");
+			oa.putAttribute("4", "a", 4);
+			oa.putAttribute("1", "b", "C");
+		}
+		Assert.assertEquals(Arrays.asList("2", "3", "4", "1"), new ArrayList<>(expected.getObjectIds()));
+		Assert.assertEquals(new ArrayList<>(expected.getObjectIds()), new ArrayList<>(columnar.getObjectIds()));
+		for (String objectId : expected.getObjectIds()) {
+			Assert.assertEquals(new HashMap<>(expected.getAttributes(objectId)), columnar.getAttributes(objectId));
+		}
+		Assert.assertNull(columnar.getAttributes("5"));
+		Assert.assertTrue(columnar.getAttributes("2").isEmpty());
+	}
+
+	@Test
+	public void testManyObjects_removedAndAddedAgain() {
+		ObjectAttributes oa = new ColumnarObjectAttributes();
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 1000; i++) {
+				oa.putAttribute(Integer.toString(i), "round", round);
+			}
+			for (int i = 0; i < 1000; i += 2) {
+				oa.removeAllAttributes(Integer.toString(i));
+			}
+			for (int i = 0; i < 1000; i++) {
+				Assert.assertEquals(i % 2 == 0 ? null : Integer.valueOf(round), oa.getAttribute(Integer.toString(i), "round"));
+			}
+		}
+		Assert.assertEquals(500, oa.getObjectIds().size());
+	}
+
+	@Test
+	public void testXmlWriter() {
+		ObjectAttributes oa1 = new ColumnarObjectAttributes();
+		oa1.putAttribute("one", "a", "A");
+		oa1.putAttribute("one", "b", 1);
+		oa1.putAttribute("two", "c", 1.5);
+		new ObjectAttributesXmlWriter(oa1).writeFile(this.utils.getOutputDirectory() + "oa.xml");
+
+		ObjectAttributes oa2 = new ColumnarObjectAttributes();
+		new ObjectAttributesXmlReader(oa2).readFile(this.utils.getOutputDirectory() + "oa.xml");
+		Assert.assertEquals("A", oa2.getAttribute("one", "a"));
+		Assert.assertEquals(Integer.valueOf(1), oa2.getAttribute("one", "b"));
+		Assert.assertEquals(Double.valueOf(1.5), oa2.getAttribute("two", "c"));
+		Assert.assertNull(oa2.getAttribute("two", "a"));
+	}
+
+}
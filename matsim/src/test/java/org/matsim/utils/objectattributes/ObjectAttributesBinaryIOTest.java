@@ -0,0 +1,80 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ObjectAttributesBinaryIOTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.utils.objectattributes;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ObjectAttributesBinaryIOTest {
+
+	@Rule	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testReadWrite() {
+		ObjectAttributes oa1 = new ObjectAttributes();
+		fill(oa1);
+		new ObjectAttributesBinaryWriter(oa1).write(this.utils.getOutputDirectory() + "oa.bin");
+
+		ObjectAttributes oa2 = new ObjectAttributes();
+		new ObjectAttributesBinaryReader(oa2).readFile(this.utils.getOutputDirectory() + "oa.bin");
+		assertAttributes(oa2);
+	}
+
+	@Test
+	public void testReadWrite_columnar() {
+		ObjectAttributes oa1 = new ColumnarObjectAttributes();
+		fill(oa1);
+		new ObjectAttributesBinaryWriter(oa1).write(this.utils.getOutputDirectory() + "oa.bin");
+
+		ObjectAttributes oa2 = new ColumnarObjectAttributes();
+		new ObjectAttributesBinaryReader(oa2).readFile(this.utils.getOutputDirectory() + "oa.bin");
+		assertAttributes(oa2);
+	}
+
+	private static void fill(final ObjectAttributes oa) {
+		oa.putAttribute("one", "a", "A");
+		oa.putAttribute("one", "b", 1);
+		oa.putAttribute("one", "e", 3L);
+		oa.putAttribute("two", "a", "A");
+		oa.putAttribute("two", "c", 1.5);
+		oa.putAttribute("two", "d", Boolean.TRUE);
+		oa.putAttribute("three", "d", Boolean.FALSE);
+		oa.putAttribute("three", "f", 2.5);
+		oa.putAttribute("four", "f", "mixed");
+	}
+
+	private static void assertAttributes(final ObjectAttributes oa) {
+		Assert.assertEquals("A", oa.getAttribute("one", "a"));
+		Assert.assertEquals(Integer.valueOf(1), oa.getAttribute("one", "b"));
+		Assert.assertEquals(Long.valueOf(3), oa.getAttribute("one", "e"));
+		Assert.assertEquals("A", oa.getAttribute("two", "a"));
+		Assert.assertEquals(Double.valueOf(1.5), oa.getAttribute("two", "c"));
+		Assert.assertEquals(Boolean.TRUE, oa.getAttribute("two", "d"));
+		Assert.assertEquals(Boolean.FALSE, oa.getAttribute("three", "d"));
+		Assert.assertEquals(Double.valueOf(2.5), oa.getAttribute("three", "f"));
+		Assert.assertEquals("mixed", oa.getAttribute("four", "f"));
+		Assert.assertNull(oa.getAttribute("three", "a"));
+		Assert.assertNull(oa.getAttribute("one", "c"));
+	}
+
+}
@@ -25,6 +25,7 @@ package org.matsim.withinday.controller;
 import org.junit.Rule;
 import org.junit.Test;
 import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.controler.Controler;
 import org.matsim.testcases.MatsimTestUtils;
 
@@ -42,4 +43,15 @@ public class ExampleWithinDayControllerTest {
         controler.run();
     }
 
+    @Test
+    public void testRunWithSharedExecutor() {
+        Config config = utils.loadConfig("test/scenarios/equil/config.xml");
+        config.controler().setLastIteration(1);
+        config.global().setNumberOfThreads(2);
+        ConfigUtils.addOrGetModule(config, WithinDayConfigGroup.GROUP_NAME, WithinDayConfigGroup.class).setUseSharedExecutor(true);
+        Controler controler = new Controler(config);
+        ExampleWithinDayController.configure(controler);
+        controler.run();
+    }
+
 }
@@ -0,0 +1,228 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * WithinDayEngineTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.mobsim;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.handler.PersonArrivalEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.controler.SharedExecutor;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.framework.listeners.FixedOrderSimulationListener;
+import org.matsim.core.mobsim.qsim.ActivityEndRescheduler;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.QSimUtils;
+import org.matsim.core.mobsim.qsim.agents.WithinDayAgentUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.withinday.controller.WithinDayConfigGroup;
+import org.matsim.withinday.events.ReplanningEvent;
+import org.matsim.withinday.events.handler.ReplanningEventHandler;
+import org.matsim.withinday.replanning.identifiers.ActivityEndIdentifierFactory;
+import org.matsim.withinday.replanning.identifiers.tools.ActivityReplanningMap;
+import org.matsim.withinday.replanning.replanners.interfaces.WithinDayDuringActivityReplanner;
+import org.matsim.withinday.replanning.replanners.interfaces.WithinDayDuringActivityReplannerFactory;
+import org.matsim.withinday.replanning.replanners.interfaces.WithinDayReplanner;
+
+import com.google.inject.Guice;
+
+public class WithinDayEngineTest {
+
+	private static final Id<Link> linkId1 = Id.create("1", Link.class);
+	private static final Id<Link> linkId2 = Id.create("2", Link.class);
+	private static final Id<Link> linkId3 = Id.create("3", Link.class);
+
+	private static final int numberOfAgents = 100;
+
+	/**
+	 * Replanning on the shared executor with several threads has to give the same results as replanning with a
+	 * single dedicated thread.
+	 */
+	@Test
+	public void testSharedExecutorSameResultsAsSequential() {
+		Result sequential = runScenario(1, false);
+		Result dedicatedThreads = runScenario(4, false);
+		Result sharedExecutor = runScenario(4, true);
+
+		Assert.assertEquals(2 * numberOfAgents, sequential.replanningEvents);
+		Assert.assertEquals(numberOfAgents, sequential.arrivalTimes.size());
+		Assert.assertEquals(sequential.replanningEvents, dedicatedThreads.replanningEvents);
+		Assert.assertEquals(sequential.activityEndTimes, dedicatedThreads.activityEndTimes);
+		Assert.assertEquals(sequential.arrivalTimes, dedicatedThreads.arrivalTimes);
+		Assert.assertEquals(sequential.replanningEvents, sharedExecutor.replanningEvents);
+		Assert.assertEquals(sequential.activityEndTimes, sharedExecutor.activityEndTimes);
+		Assert.assertEquals(sequential.arrivalTimes, sharedExecutor.arrivalTimes);
+	}
+
+	private static Result runScenario(int numberOfThreads, boolean useSharedExecutor) {
+		Config config = ConfigUtils.createConfig();
+		config.global().setNumberOfThreads(numberOfThreads);
+		ConfigUtils.addOrGetModule(config, WithinDayConfigGroup.GROUP_NAME, WithinDayConfigGroup.class).setUseSharedExecutor(useSharedExecutor);
+		Scenario scenario = createScenario(config);
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+
+		Result result = new Result();
+		AtomicInteger replanningEvents = new AtomicInteger(0);
+		eventsManager.addHandler(new ReplanningEventHandler() {
+			@Override
+			public void reset(int iteration) {
+			}
+
+			@Override
+			public void handleEvent(ReplanningEvent event) {
+				replanningEvents.incrementAndGet();
+			}
+		});
+		eventsManager.addHandler(new PersonArrivalEventHandler() {
+			@Override
+			public void reset(int iteration) {
+			}
+
+			@Override
+			public void handleEvent(PersonArrivalEvent event) {
+				result.arrivalTimes.put(event.getPersonId(), event.getTime());
+			}
+		});
+
+		SharedExecutor sharedExecutor = new SharedExecutor(config.global());
+		// the constructor without executor replans on dedicated threads
+		WithinDayEngine withinDayEngine = useSharedExecutor ?
+				new WithinDayEngine(eventsManager, config, sharedExecutor) : new WithinDayEngine(eventsManager, config.global());
+		MobsimDataProvider mobsimDataProvider = Guice.createInjector().getInstance(MobsimDataProvider.class);
+		ActivityReplanningMap activityReplanningMap = new ActivityReplanningMap(mobsimDataProvider, eventsManager);
+
+		WithinDayDuringActivityReplannerFactory replannerFactory = new DelayActivityEndReplannerFactory(scenario, withinDayEngine);
+		replannerFactory.addIdentifier(new ActivityEndIdentifierFactory(activityReplanningMap).createIdentifier());
+		withinDayEngine.addDuringActivityReplannerFactory(replannerFactory);
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		QSim qsim = QSimUtils.createDefaultQSim(scenario, eventsManager);
+		qsim.addMobsimEngine(withinDayEngine);
+		FixedOrderSimulationListener fosl = new FixedOrderSimulationListener();
+		fosl.addSimulationListener(mobsimDataProvider);
+		fosl.addSimulationListener(activityReplanningMap);
+		qsim.addQueueSimulationListeners(fosl);
+		qsim.run();
+		sharedExecutor.shutdown();
+
+		result.replanningEvents = replanningEvents.get();
+		for (MobsimAgent agent : mobsimDataProvider.getAgents().values()) {
+			Activity home = (Activity) WithinDayAgentUtils.getModifiablePlan(agent).getPlanElements().get(0);
+			result.activityEndTimes.put(agent.getId(), home.getEndTime());
+		}
+		return result;
+	}
+
+	private static Scenario createScenario(Config config) {
+		Scenario scenario = ScenarioUtils.createScenario(config);
+
+		Network network = scenario.getNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.create("3", Node.class), new Coord(2000, 0));
+		Node node4 = NetworkUtils.createAndAddNode(network, Id.create("4", Node.class), new Coord(3000, 0));
+		NetworkUtils.createAndAddLink(network, linkId1, node1, node2, 1000, 10, 1800, 1);
+		NetworkUtils.createAndAddLink(network, linkId2, node2, node3, 1000, 10, 1800, 1);
+		NetworkUtils.createAndAddLink(network, linkId3, node3, node4, 1000, 10, 1800, 1);
+
+		// several agents end their activity in the same time step, so that the replanning is split up
+		PopulationFactory factory = scenario.getPopulation().getFactory();
+		for (int i = 0; i < numberOfAgents; i++) {
+			Person person = factory.createPerson(Id.create(i, Person.class));
+			Plan plan = factory.createPlan();
+			Activity home = factory.createActivityFromLinkId("home", linkId1);
+			home.setCoord(new Coord(500, 0));
+			home.setEndTime(6 * 3600 + 10 * (i / 10));
+			plan.addActivity(home);
+			plan.addLeg(factory.createLeg(TransportMode.car));
+			Activity work = factory.createActivityFromLinkId("work", linkId3);
+			work.setCoord(new Coord(2500, 0));
+			plan.addActivity(work);
+			person.addPlan(plan);
+			scenario.getPopulation().addPerson(person);
+		}
+		return scenario;
+	}
+
+	private static class Result {
+		private int replanningEvents;
+		private final Map<Id<Person>, Double> activityEndTimes = new TreeMap<>();
+		private final Map<Id<Person>, Double> arrivalTimes = new TreeMap<>();
+	}
+
+	private static class DelayActivityEndReplannerFactory extends WithinDayDuringActivityReplannerFactory {
+
+		private final Scenario scenario;
+
+		DelayActivityEndReplannerFactory(Scenario scenario, WithinDayEngine withinDayEngine) {
+			super(withinDayEngine);
+			this.scenario = scenario;
+		}
+
+		@Override
+		public WithinDayDuringActivityReplanner createReplanner() {
+			return new DelayActivityEndReplanner(this.getId(), this.scenario, this.getWithinDayEngine().getActivityRescheduler());
+		}
+	}
+
+	/*
+	 * Delays the end of the first activity once, by an amount which depends on the agent.
+	 */
+	private static class DelayActivityEndReplanner extends WithinDayDuringActivityReplanner {
+
+		DelayActivityEndReplanner(Id<WithinDayReplanner> id, Scenario scenario, ActivityEndRescheduler activityEndRescheduler) {
+			super(id, scenario, activityEndRescheduler);
+		}
+
+		@Override
+		public boolean doReplanning(MobsimAgent withinDayAgent) {
+			Activity activity = (Activity) WithinDayAgentUtils.getCurrentPlanElement(withinDayAgent);
+			// the agent is identified again when the delayed activity ends
+			if (!activity.getType().equals("home")) return true;
+			activity.setType("delayedHome");
+			activity.setEndTime(this.time + 60 * (1 + Integer.parseInt(withinDayAgent.getId().toString()) % 7));
+			WithinDayAgentUtils.resetCaches(withinDayAgent);
+			this.internalInterface.rescheduleActivityEnd(withinDayAgent);
+			return true;
+		}
+	}
+
+}
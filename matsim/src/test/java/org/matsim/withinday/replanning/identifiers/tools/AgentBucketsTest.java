@@ -0,0 +1,82 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentBucketsTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.replanning.identifiers.tools;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AgentBucketsTest {
+
+	@Test
+	public void testPutMoveAndRemove() {
+		AgentBuckets buckets = new AgentBuckets(5);
+		buckets.put(0, 3);
+		buckets.put(1, 3);
+		buckets.put(2, 3);
+		buckets.put(3, 1);
+
+		Assert.assertEquals(3, buckets.getBucketSize(3));
+		Assert.assertEquals(1, buckets.getBucketSize(1));
+		Assert.assertEquals(0, buckets.getBucketSize(0));
+		Assert.assertEquals(0, buckets.getBucketSize(10));
+		Assert.assertEquals(AgentBuckets.NO_BUCKET, buckets.getBucket(4));
+
+		// moving the first agent must keep the positions of the others consistent
+		buckets.put(0, 1);
+		Assert.assertEquals(1, buckets.getBucket(0));
+		Assert.assertEquals(2, buckets.getBucketSize(3));
+		Assert.assertEquals(2, buckets.getBucketSize(1));
+		Assert.assertEquals(setOf(1, 2), getAgents(buckets, 3));
+		Assert.assertEquals(setOf(0, 3), getAgents(buckets, 1));
+
+		Assert.assertEquals(3, buckets.remove(2));
+		Assert.assertEquals(AgentBuckets.NO_BUCKET, buckets.remove(2));
+		Assert.assertEquals(setOf(1), getAgents(buckets, 3));
+		buckets.remove(1);
+		Assert.assertEquals(0, buckets.getBucketSize(3));
+
+		buckets.clearBucket(1);
+		Assert.assertEquals(0, buckets.getBucketSize(1));
+		Assert.assertEquals(AgentBuckets.NO_BUCKET, buckets.getBucket(0));
+		Assert.assertEquals(AgentBuckets.NO_BUCKET, buckets.getBucket(3));
+
+		buckets.put(3, 2);
+		Assert.assertEquals(setOf(3), getAgents(buckets, 2));
+	}
+
+	private static Set<Integer> getAgents(AgentBuckets buckets, int bucket) {
+		Set<Integer> agents = new HashSet<>();
+		for (int i = 0; i < buckets.getBucketSize(bucket); i++) {
+			agents.add(buckets.getAgent(bucket, i));
+		}
+		return agents;
+	}
+
+	private static Set<Integer> setOf(Integer... agents) {
+		Set<Integer> set = new HashSet<>();
+		for (Integer agent : agents) set.add(agent);
+		return set;
+	}
+
+}
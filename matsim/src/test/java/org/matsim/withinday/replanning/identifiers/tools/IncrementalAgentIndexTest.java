@@ -0,0 +1,234 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IncrementalAgentIndexTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.replanning.identifiers.tools;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.framework.MobsimAgent.State;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeSimStepEvent;
+import org.matsim.core.mobsim.framework.listeners.FixedOrderSimulationListener;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeSimStepListener;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.QSimUtils;
+import org.matsim.core.mobsim.qsim.agents.WithinDayAgentUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.withinday.events.ReplanningEvent;
+import org.matsim.withinday.mobsim.MobsimDataProvider;
+import org.matsim.withinday.replanning.identifiers.ActivityEndIdentifierFactory;
+import org.matsim.withinday.replanning.identifiers.IncrementalActivityEndIdentifierFactory;
+import org.matsim.withinday.replanning.identifiers.IncrementalLegPerformingIdentifierFactory;
+import org.matsim.withinday.replanning.identifiers.interfaces.DuringActivityAgentSelector;
+import org.matsim.withinday.replanning.identifiers.interfaces.DuringLegAgentSelector;
+
+import com.google.inject.Guice;
+
+public class IncrementalAgentIndexTest {
+
+	private static final Id<Link> linkId1 = Id.create("1", Link.class);
+	private static final Id<Link> linkId2 = Id.create("2", Link.class);
+	private static final Id<Link> linkId3 = Id.create("3", Link.class);
+	private static final Id<Person> rescheduledAgentId = Id.create("rescheduled", Person.class);
+
+	private static final int numberOfAgents = 20;
+	private static final double firstActivityEnd = 6 * 3600;
+	private static final double rescheduleTime = firstActivityEnd + 60;
+
+	@Test
+	public void testGetTimeBin() {
+		IncrementalAgentIndex index = new IncrementalAgentIndex(null, EventsUtils.createEventsManager());
+
+		index.simStartTime = 0.0;
+		index.timeStepSize = 1.0;
+		Assert.assertEquals(0, index.getTimeBin(0.0));
+		Assert.assertEquals(1, index.getTimeBin(0.9));
+		Assert.assertEquals(1, index.getTimeBin(1.0));
+
+		index.simStartTime = 10.0;
+		index.timeStepSize = 2.0;
+		Assert.assertEquals(0, index.getTimeBin(0.0));
+		Assert.assertEquals(0, index.getTimeBin(10.0));
+		Assert.assertEquals(1, index.getTimeBin(11.0));
+		Assert.assertEquals(1, index.getTimeBin(12.0));
+		Assert.assertEquals(2, index.getTimeBin(12.1));
+	}
+
+	/**
+	 * Runs a small scenario and compares the results of the index and of the identifiers using it with
+	 * the ActivityReplanningMap and with the state of the agents in every time step.
+	 */
+	@Test
+	public void testSameResultsAsScanningTheAgents() {
+		Scenario scenario = createScenario();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+
+		MobsimDataProvider mobsimDataProvider = Guice.createInjector().getInstance(MobsimDataProvider.class);
+		ActivityReplanningMap activityReplanningMap = new ActivityReplanningMap(mobsimDataProvider, eventsManager);
+		IncrementalAgentIndex index = new IncrementalAgentIndex(mobsimDataProvider, eventsManager);
+		Checker checker = new Checker(index, activityReplanningMap, mobsimDataProvider);
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		QSim qsim = QSimUtils.createDefaultQSim(scenario, eventsManager);
+		FixedOrderSimulationListener fosl = new FixedOrderSimulationListener();
+		fosl.addSimulationListener(mobsimDataProvider);
+		fosl.addSimulationListener(activityReplanningMap);
+		fosl.addSimulationListener(index);
+		fosl.addSimulationListener(checker);
+		qsim.addQueueSimulationListeners(fosl);
+		qsim.run();
+
+		Assert.assertTrue(checker.checkedActivityEndingAgents > 0);
+		Assert.assertTrue(checker.checkedWalkingAgents > 0);
+		Assert.assertTrue(checker.checkedCarAgentsOnLink > 0);
+		Assert.assertTrue(checker.foundRescheduledAgent);
+	}
+
+	private static Scenario createScenario() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+
+		Network network = scenario.getNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.create("3", Node.class), new Coord(2000, 0));
+		Node node4 = NetworkUtils.createAndAddNode(network, Id.create("4", Node.class), new Coord(3000, 0));
+		NetworkUtils.createAndAddLink(network, linkId1, node1, node2, 1000, 10, 3600, 1);
+		NetworkUtils.createAndAddLink(network, linkId2, node2, node3, 1000, 10, 3600, 1);
+		NetworkUtils.createAndAddLink(network, linkId3, node3, node4, 1000, 10, 3600, 1);
+
+		PopulationFactory factory = scenario.getPopulation().getFactory();
+		for (int i = 0; i < numberOfAgents; i++) {
+			String mode = i % 2 == 0 ? TransportMode.car : TransportMode.walk;
+			scenario.getPopulation().addPerson(createPerson(factory, Id.create(i, Person.class), firstActivityEnd + 10 * i, mode));
+		}
+		scenario.getPopulation().addPerson(createPerson(factory, rescheduledAgentId, firstActivityEnd + 3600, TransportMode.car));
+		return scenario;
+	}
+
+	private static Person createPerson(PopulationFactory factory, Id<Person> personId, double activityEnd, String mode) {
+		Person person = factory.createPerson(personId);
+		Plan plan = factory.createPlan();
+		Activity home = factory.createActivityFromLinkId("home", linkId1);
+		home.setCoord(new Coord(500, 0));
+		home.setEndTime(activityEnd);
+		plan.addActivity(home);
+		plan.addLeg(factory.createLeg(mode));
+		Activity work = factory.createActivityFromLinkId("work", linkId3);
+		work.setCoord(new Coord(2500, 0));
+		plan.addActivity(work);
+		person.addPlan(plan);
+		return person;
+	}
+
+	private static class Checker implements MobsimBeforeSimStepListener {
+
+		private final IncrementalAgentIndex index;
+		private final ActivityReplanningMap activityReplanningMap;
+		private final MobsimDataProvider mobsimDataProvider;
+
+		private final DuringActivityAgentSelector activityEndIdentifier;
+		private final DuringActivityAgentSelector incrementalActivityEndIdentifier;
+		private final DuringLegAgentSelector incrementalLegPerformingIdentifier;
+
+		private int checkedActivityEndingAgents = 0;
+		private int checkedWalkingAgents = 0;
+		private int checkedCarAgentsOnLink = 0;
+		private boolean foundRescheduledAgent = false;
+
+		Checker(IncrementalAgentIndex index, ActivityReplanningMap activityReplanningMap, MobsimDataProvider mobsimDataProvider) {
+			this.index = index;
+			this.activityReplanningMap = activityReplanningMap;
+			this.mobsimDataProvider = mobsimDataProvider;
+			this.activityEndIdentifier = new ActivityEndIdentifierFactory(activityReplanningMap).createIdentifier();
+			this.incrementalActivityEndIdentifier = new IncrementalActivityEndIdentifierFactory(index).createIdentifier();
+			this.incrementalLegPerformingIdentifier = new IncrementalLegPerformingIdentifierFactory(index,
+					Collections.singleton(TransportMode.car), Collections.singleton(linkId2)).createIdentifier();
+		}
+
+		@Override
+		public void notifyMobsimBeforeSimStep(MobsimBeforeSimStepEvent e) {
+			double time = e.getSimulationTime();
+
+			if (time == rescheduleTime) {
+				MobsimAgent agent = this.mobsimDataProvider.getAgent(rescheduledAgentId);
+				Activity currentActivity = (Activity) WithinDayAgentUtils.getCurrentPlanElement(agent);
+				currentActivity.setEndTime(time + 60);
+				WithinDayAgentUtils.resetCaches(agent);
+				((QSim) e.getQueueSimulation()).rescheduleActivityEnd(agent);
+				((QSim) e.getQueueSimulation()).getEventsManager().processEvent(new ReplanningEvent(time, agent.getId(), "ActivityRescheduler"));
+			}
+
+			Set<Id<Person>> activityEndingAgents = getIds(this.activityReplanningMap.getActivityEndingAgents(time));
+			Assert.assertEquals(activityEndingAgents, getIds(this.index.getActivityEndingAgents(time)));
+			Assert.assertEquals(getIds(this.activityEndIdentifier.getAgentsToReplan(time)),
+					getIds(this.incrementalActivityEndIdentifier.getAgentsToReplan(time)));
+			if (!activityEndingAgents.isEmpty()) this.checkedActivityEndingAgents++;
+			if (time == rescheduleTime + 60) this.foundRescheduledAgent = activityEndingAgents.contains(rescheduledAgentId);
+
+			Set<Id<Person>> legPerformingAgents = new TreeSet<>();
+			Set<Id<Person>> walkingAgents = new TreeSet<>();
+			Set<Id<Person>> carAgentsOnLink = new TreeSet<>();
+			Set<Id<Person>> agentsOnLink = new TreeSet<>();
+			for (MobsimAgent agent : this.mobsimDataProvider.getAgents().values()) {
+				if (agent.getCurrentLinkId().equals(linkId1)) agentsOnLink.add(agent.getId());
+				if (agent.getState() != State.LEG) continue;
+				legPerformingAgents.add(agent.getId());
+				if (agent.getMode().equals(TransportMode.walk)) walkingAgents.add(agent.getId());
+				if (agent.getMode().equals(TransportMode.car) && agent.getCurrentLinkId().equals(linkId2)) carAgentsOnLink.add(agent.getId());
+			}
+			Assert.assertEquals(legPerformingAgents, getIds(this.index.getLegPerformingAgents(null)));
+			Assert.assertEquals(walkingAgents, getIds(this.index.getLegPerformingAgents(Collections.singleton(TransportMode.walk))));
+			Assert.assertEquals(carAgentsOnLink, getIds(this.incrementalLegPerformingIdentifier.getAgentsToReplan(time)));
+			Assert.assertEquals(agentsOnLink, getIds(this.index.getAgentsOnLinks(Collections.singleton(linkId1))));
+			if (!walkingAgents.isEmpty()) this.checkedWalkingAgents++;
+			if (!carAgentsOnLink.isEmpty()) this.checkedCarAgentsOnLink++;
+		}
+
+		private static Set<Id<Person>> getIds(Collection<MobsimAgent> agents) {
+			Set<Id<Person>> ids = new TreeSet<>();
+			for (MobsimAgent agent : agents) {
+				Assert.assertTrue("agent returned twice", ids.add(agent.getId()));
+			}
+			return ids;
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * StreamingWithinDayTravelTimeTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.trafficmonitoring;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkChangeEvent;
+import org.matsim.core.network.NetworkChangeEvent.ChangeType;
+import org.matsim.core.network.NetworkChangeEvent.ChangeValue;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.ArrayRoutingNetworkFactory;
+import org.matsim.core.router.util.RoutingNetwork;
+import org.matsim.core.router.util.RoutingNetworkNode;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class StreamingWithinDayTravelTimeTest {
+
+	@Test
+	public void testSmoothingAndRelaxation() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Link link = createNetwork(scenario);
+		StreamingWithinDayTravelTime travelTime = new StreamingWithinDayTravelTime(scenario, null, 0.5, 100.0);
+		Id<Vehicle> vehicleId = Id.createVehicleId(1);
+
+		// free speed travel time before any observation
+		Assert.assertEquals(100.0, travelTime.getLinkTravelTime(link, 0.0, null, null), 1e-9);
+
+		travelTime.handleEvent(new LinkEnterEvent(0.0, vehicleId, link.getId()));
+		travelTime.handleEvent(new LinkLeaveEvent(300.0, vehicleId, link.getId()));
+
+		// not visible before being published
+		Assert.assertEquals(100.0, travelTime.getLinkTravelTime(link, 300.0, null, null), 1e-9);
+		StreamingWithinDayTravelTime.Snapshot oldSnapshot = travelTime.getSnapshot();
+
+		travelTime.publish(300.0);
+		Assert.assertEquals(200.0, travelTime.getLinkTravelTime(link, 300.0, null, null), 1e-9);
+		Assert.assertEquals(300.0, travelTime.getSnapshot().getTime(), 0.0);
+		// published snapshots are not modified afterwards
+		Assert.assertEquals(100.0, oldSnapshot.getLinkTravelTime(link, 300.0, null, null), 1e-9);
+
+		// without observations, the excess over the free speed travel time decays
+		travelTime.publish(400.0);
+		Assert.assertEquals(100.0 + 100.0 * Math.exp(-1.0), travelTime.getLinkTravelTime(link, 400.0, null, null), 1e-9);
+
+		// travel times are never below the free speed travel time
+		travelTime.handleEvent(new LinkEnterEvent(400.0, vehicleId, link.getId()));
+		travelTime.handleEvent(new LinkLeaveEvent(410.0, vehicleId, link.getId()));
+		travelTime.publish(410.0);
+		Assert.assertEquals(100.0, travelTime.getLinkTravelTime(link, 410.0, null, null), 1e-9);
+	}
+
+	@Test
+	public void testNetworkChangeEvents() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Link link = createNetwork(scenario);
+		StreamingWithinDayTravelTime travelTime = new StreamingWithinDayTravelTime(scenario, null, 0.5, 100.0);
+
+		NetworkChangeEvent changeEvent = new NetworkChangeEvent(3600.0);
+		changeEvent.setFreespeedChange(new ChangeValue(ChangeType.FACTOR, 0.5));
+		changeEvent.addLink(link);
+		travelTime.addNetworkChangeEvent(changeEvent);
+
+		travelTime.publish(3599.0);
+		Assert.assertEquals(100.0, travelTime.getLinkTravelTime(link, 3599.0, null, null), 1e-9);
+		travelTime.publish(3600.0);
+		Assert.assertEquals(200.0, travelTime.getLinkTravelTime(link, 3600.0, null, null), 1e-9);
+
+		travelTime.reset(1);
+		Assert.assertEquals(100.0, travelTime.getLinkTravelTime(link, 0.0, null, null), 1e-9);
+	}
+
+	@Test
+	public void testSnapshotsOfLargeNetwork() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		int numberOfLinks = 3 * StreamingWithinDayTravelTime.BLOCK_SIZE + 5;
+		Node previous = NetworkUtils.createAndAddNode(network, Id.createNodeId(0), new Coord(0.0, 0.0));
+		for (int i = 0; i < numberOfLinks; i++) {
+			Node node = NetworkUtils.createAndAddNode(network, Id.createNodeId(i + 1), new Coord(1000.0 * (i + 1), 0.0));
+			NetworkUtils.createAndAddLink(network, Id.createLinkId(i), previous, node, 1000.0, 10.0, 1000.0, 1.0);
+			previous = node;
+		}
+		StreamingWithinDayTravelTime travelTime = new StreamingWithinDayTravelTime(scenario, null, 1.0, 0.0);
+		StreamingWithinDayTravelTime.Snapshot initialSnapshot = travelTime.getSnapshot();
+
+		// observations in the first and last block
+		Link first = network.getLinks().get(Id.createLinkId(0));
+		Link last = network.getLinks().get(Id.createLinkId(numberOfLinks - 1));
+		Link other = network.getLinks().get(Id.createLinkId(StreamingWithinDayTravelTime.BLOCK_SIZE + 1));
+		travelTime.handleEvent(new LinkEnterEvent(0.0, Id.createVehicleId(1), first.getId()));
+		travelTime.handleEvent(new LinkEnterEvent(0.0, Id.createVehicleId(2), last.getId()));
+		travelTime.handleEvent(new LinkLeaveEvent(150.0, Id.createVehicleId(1), first.getId()));
+		travelTime.handleEvent(new LinkLeaveEvent(250.0, Id.createVehicleId(2), last.getId()));
+		travelTime.publish(250.0);
+
+		StreamingWithinDayTravelTime.Snapshot snapshot = travelTime.getSnapshot();
+		Assert.assertEquals(150.0, snapshot.getLinkTravelTime(first, 250.0, null, null), 1e-9);
+		Assert.assertEquals(250.0, snapshot.getLinkTravelTime(last, 250.0, null, null), 1e-9);
+		Assert.assertEquals(100.0, snapshot.getLinkTravelTime(other, 250.0, null, null), 1e-9);
+		Assert.assertEquals(100.0, initialSnapshot.getLinkTravelTime(first, 250.0, null, null), 1e-9);
+		Assert.assertEquals(100.0, initialSnapshot.getLinkTravelTime(last, 250.0, null, null), 1e-9);
+
+		// without relaxation time, the estimates return to the free speed travel times with the next publication
+		travelTime.publish(251.0);
+		Assert.assertEquals(100.0, travelTime.getLinkTravelTime(first, 251.0, null, null), 1e-9);
+		Assert.assertEquals(100.0, travelTime.getLinkTravelTime(last, 251.0, null, null), 1e-9);
+		Assert.assertEquals(150.0, snapshot.getLinkTravelTime(first, 251.0, null, null), 1e-9);
+		Assert.assertEquals(250.0, snapshot.getLinkTravelTime(last, 251.0, null, null), 1e-9);
+	}
+
+	/**
+	 * Links of a routing network are looked up by their array index, which must give the same travel times as the
+	 * links of the network, also if the routing network was built from another network.
+	 */
+	@Test
+	public void testSnapshotOfRoutingNetworkLinks() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		Node previous = NetworkUtils.createAndAddNode(network, Id.createNodeId(0), new Coord(0.0, 0.0));
+		for (int i = 0; i < 10; i++) {
+			Node node = NetworkUtils.createAndAddNode(network, Id.createNodeId(i + 1), new Coord(1000.0 * (i + 1), 0.0));
+			NetworkUtils.createAndAddLink(network, Id.createLinkId(i), previous, node, 1000.0, 10.0, 1000.0, 1.0);
+			previous = node;
+		}
+		StreamingWithinDayTravelTime travelTime = new StreamingWithinDayTravelTime(scenario, null, 1.0, 0.0);
+		for (int i = 0; i < 10; i++) {
+			travelTime.handleEvent(new LinkEnterEvent(0.0, Id.createVehicleId(i), Id.createLinkId(i)));
+			travelTime.handleEvent(new LinkLeaveEvent(200.0 + i, Id.createVehicleId(i), Id.createLinkId(i)));
+		}
+		travelTime.publish(210.0);
+		StreamingWithinDayTravelTime.Snapshot snapshot = travelTime.getSnapshot();
+
+		RoutingNetwork routingNetwork = new ArrayRoutingNetworkFactory().createRoutingNetwork(network);
+		for (RoutingNetworkNode node : routingNetwork.getNodes().values()) {
+			for (Link link : node.getOutLinksArray()) {
+				Assert.assertEquals(snapshot.getLinkTravelTime(network.getLinks().get(link.getId()), 210.0, null, null),
+						snapshot.getLinkTravelTime(link, 210.0, null, null), 1e-9);
+			}
+		}
+
+		// the indices of a routing network of the reversed network do not match
+		Network reversed = NetworkUtils.createNetwork();
+		for (Node node : network.getNodes().values()) {
+			NetworkUtils.createAndAddNode(reversed, node.getId(), node.getCoord());
+		}
+		for (int i = 9; i >= 0; i--) {
+			Link link = network.getLinks().get(Id.createLinkId(i));
+			NetworkUtils.createAndAddLink(reversed, link.getId(), reversed.getNodes().get(link.getFromNode().getId()),
+					reversed.getNodes().get(link.getToNode().getId()), 1000.0, 10.0, 1000.0, 1.0);
+		}
+		RoutingNetwork reversedRoutingNetwork = new ArrayRoutingNetworkFactory().createRoutingNetwork(reversed);
+		for (RoutingNetworkNode node : reversedRoutingNetwork.getNodes().values()) {
+			for (Link link : node.getOutLinksArray()) {
+				Assert.assertEquals(200.0 + Integer.parseInt(link.getId().toString()), snapshot.getLinkTravelTime(link, 210.0, null, null), 1e-9);
+			}
+		}
+	}
+
+	private static Link createNetwork(Scenario scenario) {
+		Network network = scenario.getNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId(1), new Coord(0.0, 0.0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId(2), new Coord(1000.0, 0.0));
+		return NetworkUtils.createAndAddLink(network, Id.createLinkId(1), node1, node2, 1000.0, 10.0, 1000.0, 1.0);
+	}
+
+}